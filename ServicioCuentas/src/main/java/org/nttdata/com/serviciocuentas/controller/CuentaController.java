@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.nttdata.com.serviciocuentas.dto.CuentaRequest;
 import org.nttdata.com.serviciocuentas.dto.CuentaResponse;
+import org.nttdata.com.serviciocuentas.exception.ResourceNotFound;
 import org.nttdata.com.serviciocuentas.service.CuentaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -121,6 +122,25 @@ public class CuentaController {
         }
     }
 
+    // Débito o crédito relativo (monto negativo = débito), aplicado de forma atómica en la base de datos.
+    // POST y no PATCH: no es idempotente y el cliente Feign por defecto no admite PATCH
+    @PostMapping("/{id}/saldo/ajuste")
+    public ResponseEntity<?> ajustarSaldo(@PathVariable Long id, @RequestParam BigDecimal monto) {
+        logger.info("POST /cuentas/{}/saldo/ajuste - Ajustar saldo: {}", id, monto);
+
+        try {
+            CuentaResponse response = cuentaService.ajustarSaldo(id, monto);
+            return ResponseEntity.ok(response);
+
+        } catch (ResourceNotFound e) {
+            logger.error("Error en POST /cuentas/{}/saldo/ajuste: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error en POST /cuentas/{}/saldo/ajuste: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
     @PatchMapping("/{id}/estado")
     public ResponseEntity<?> cambiarEstadoCuenta(@PathVariable Long id, @RequestParam Long estadoCuentaId) {
         logger.info("PATCH /cuentas/{}/estado - Cambiar estado: {}", id, estadoCuentaId);
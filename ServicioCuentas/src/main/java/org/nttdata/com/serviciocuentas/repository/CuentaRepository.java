@@ -4,10 +4,12 @@ import org.nttdata.com.serviciocuentas.model.Cuenta;
 import org.nttdata.com.serviciocuentas.model.EstadoCuenta;
 import org.nttdata.com.serviciocuentas.model.TipoCuenta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,4 +29,10 @@ public interface CuentaRepository extends JpaRepository<Cuenta, Long> {
 
     // Verificar si cliente tiene cuenta de cierto tipo
     boolean existsByClienteIdAndTipoCuenta(Long idCliente, TipoCuenta tipoCuenta);
+
+    // Suma (o resta, con monto negativo) en una sola sentencia: no hay lectura previa que otro débito pueda pisar.
+    // Devuelve 0 si la cuenta no existe o si el saldo quedaría negativo
+    @Modifying(clearAutomatically = true)
+    @Query("update Cuenta c set c.saldo = c.saldo + :monto where c.id = :id and c.saldo + :monto >= 0")
+    int ajustarSaldo(@Param("id") Long id, @Param("monto") BigDecimal monto);
 }
\ No newline at end of file
@@ -14,5 +14,6 @@ public interface CuentaService {
     CuentaResponse actualizarCuenta(Long id, CuentaRequest request);
     void eliminarCuenta(Long id);
     CuentaResponse actualizarSaldo(Long id, BigDecimal nuevoSaldo);
+    CuentaResponse ajustarSaldo(Long id, BigDecimal monto);
     CuentaResponse cambiarEstadoCuenta(Long id, Long estadoCuentaId);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.nttdata.com.serviciocuentas.client.ClienteClient;
 import org.nttdata.com.serviciocuentas.dto.CuentaRequest;
 import org.nttdata.com.serviciocuentas.dto.CuentaResponse;
+import org.nttdata.com.serviciocuentas.exception.BadRequest;
 import org.nttdata.com.serviciocuentas.exception.ResourceNotFound;
 import org.nttdata.com.serviciocuentas.model.Cuenta;
 import org.nttdata.com.serviciocuentas.repository.CuentaRepository;
@@ -152,6 +153,22 @@ public class CuentaServiceImpl implements CuentaService {
         }
     }
 
+    @Override
+    @Transactional
+    public CuentaResponse ajustarSaldo(Long id, BigDecimal monto) {
+        logger.info("Ajustando saldo cuenta ID: {} - Monto: {}", id, monto);
+
+        if (cuentaRepository.ajustarSaldo(id, monto) == 0) {
+            if (!cuentaRepository.existsById(id)) {
+                throw new ResourceNotFound("Cuenta no encontrada con ID: " + id);
+            }
+            logger.warn("Saldo insuficiente en cuenta ID: {} para ajuste de {}", id, monto);
+            throw new BadRequest("Saldo insuficiente en la cuenta con ID: " + id);
+        }
+        return cuentaMapper.toDto(cuentaRepository.findById(id).orElseThrow(
+                () -> new ResourceNotFound("Cuenta no encontrada con ID: " + id)));
+    }
+
     @Override
     @Transactional
     public CuentaResponse cambiarEstadoCuenta(Long id, Long estadoCuentaId) {
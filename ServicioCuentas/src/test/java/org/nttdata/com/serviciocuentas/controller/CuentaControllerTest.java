@@ -6,6 +6,7 @@ import org.nttdata.com.serviciocuentas.dto.CuentaRequest;
 import org.nttdata.com.serviciocuentas.dto.CuentaResponse;
 import org.nttdata.com.serviciocuentas.dto.EstadoCuentaResponse;
 import org.nttdata.com.serviciocuentas.dto.TipoCuentaResponse;
+import org.nttdata.com.serviciocuentas.exception.BadRequest;
 import org.nttdata.com.serviciocuentas.service.CuentaService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -112,4 +113,17 @@ class CuentaControllerTest {
         assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
         verify(cuentaService, times(1)).eliminarCuenta(id);
     }
+
+    @Test
+    void ajustarSaldo_WhenSaldoIsInsufficient_ShouldReturnBadRequest() {
+        Long id = 1L;
+        BigDecimal monto = BigDecimal.valueOf(-100);
+
+        when(cuentaService.ajustarSaldo(id, monto)).thenThrow(new BadRequest("Saldo insuficiente en la cuenta con ID: 1"));
+
+        ResponseEntity<?> result = cuentaController.ajustarSaldo(id, monto);
+
+        assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+        verify(cuentaService, times(1)).ajustarSaldo(id, monto);
+    }
 }
@@ -11,6 +11,7 @@ import org.nttdata.com.serviciocuentas.dto.CuentaRequest;
 import org.nttdata.com.serviciocuentas.dto.CuentaResponse;
 import org.nttdata.com.serviciocuentas.dto.EstadoCuentaResponse;
 import org.nttdata.com.serviciocuentas.dto.TipoCuentaResponse;
+import org.nttdata.com.serviciocuentas.exception.BadRequest;
 import org.nttdata.com.serviciocuentas.exception.ResourceNotFound;
 import org.nttdata.com.serviciocuentas.model.Cuenta;
 import org.nttdata.com.serviciocuentas.repository.CuentaRepository;
@@ -186,4 +187,47 @@ class CuentaServiceImplTest {
         verify(cuentaRepository, times(1)).existsById(id);
         verify(cuentaRepository, times(0)).deleteById(any());
     }
+
+    @Test
+    @DisplayName("Ajustar saldo debería aplicar el débito en una sola sentencia")
+    void ajustarSaldo_deberiaAplicarDebitoAtomico() {
+        Long id = 1L;
+        BigDecimal monto = new BigDecimal("-150.00");
+        Cuenta cuenta = new Cuenta();
+        CuentaResponse response = new CuentaResponse(id, 1L, null, null, new BigDecimal("850.00"));
+
+        when(cuentaRepository.ajustarSaldo(id, monto)).thenReturn(1);
+        when(cuentaRepository.findById(id)).thenReturn(Optional.of(cuenta));
+        when(cuentaMapper.toDto(cuenta)).thenReturn(response);
+
+        CuentaResponse result = cuentaService.ajustarSaldo(id, monto);
+
+        assertEquals(new BigDecimal("850.00"), result.saldo());
+        verify(cuentaRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Ajustar saldo debería fallar con saldo insuficiente")
+    void ajustarSaldo_deberiaFallarConSaldoInsuficiente() {
+        Long id = 1L;
+        BigDecimal monto = new BigDecimal("-5000.00");
+
+        when(cuentaRepository.ajustarSaldo(id, monto)).thenReturn(0);
+        when(cuentaRepository.existsById(id)).thenReturn(true);
+
+        assertThrows(BadRequest.class, () -> cuentaService.ajustarSaldo(id, monto));
+        verify(cuentaRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Ajustar saldo debería fallar cuando la cuenta no existe")
+    void ajustarSaldo_deberiaFallarCuandoCuentaNoExiste() {
+        Long id = 99L;
+        BigDecimal monto = BigDecimal.TEN;
+
+        when(cuentaRepository.ajustarSaldo(id, monto)).thenReturn(0);
+        when(cuentaRepository.existsById(id)).thenReturn(false);
+
+        assertThrows(ResourceNotFound.class, () -> cuentaService.ajustarSaldo(id, monto));
+    }
 }
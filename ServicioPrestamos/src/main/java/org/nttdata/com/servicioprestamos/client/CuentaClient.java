@@ -8,12 +8,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @FeignClient(name = "ServicioCuentas", configuration = FeignClientConfig.class)
 public interface CuentaClient {
+    @GetMapping("/cuentas")
+    List<CuentaResponse> getAllCuentas();
     @GetMapping("/cuentas/{id}")
     CuentaResponse getCuentaById(@PathVariable Long id);
     @PutMapping("/cuentas/{id}")
     CuentaResponse updateCuenta(@PathVariable Long id, CuentaRequest cuentaRequest);
-
+    // Suma monto al saldo de forma atómica (negativo = débito); falla si el saldo no alcanza
+    @PostMapping("/cuentas/{id}/saldo/ajuste")
+    CuentaResponse ajustarSaldo(@PathVariable Long id, @RequestParam BigDecimal monto);
 }
@@ -1,5 +1,6 @@
 package org.nttdata.com.servicioprestamos.client;
 
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
 import org.nttdata.com.servicioprestamos.client.dto.TransaccionRequest;
 import org.nttdata.com.servicioprestamos.client.dto.TransaccionResponse;
 import org.nttdata.com.servicioprestamos.configuration.FeignClientConfig;
@@ -14,6 +15,14 @@ import java.util.List;
 public interface TransaccionClient {
     @GetMapping("/transacciones/cuenta/{cuentaId}")
     List<TransaccionResponse> obteTransacciones(@PathVariable Long cuentaId);
+    // Totales de ingresos y egresos por tipo calculados en ServicioTransacciones
+    @GetMapping("/transacciones/cuenta/{cuentaId}/resumen")
+    ResumenTransaccionesResponse obtenerResumen(@PathVariable Long cuentaId);
+    // Resúmenes de varias cuentas (máximo 1000) con una sola consulta agrupada, en el orden enviado
+    @PostMapping("/transacciones/resumen/lote")
+    List<ResumenTransaccionesResponse> obtenerResumenes(List<Long> cuentaIds);
     @PostMapping("/transacciones")
     TransaccionResponse crearTransaccion(TransaccionRequest transaccionRequest);
+    @PostMapping("/transacciones/lote")
+    List<TransaccionResponse> crearTransacciones(List<TransaccionRequest> transaccionesRequest);
 }
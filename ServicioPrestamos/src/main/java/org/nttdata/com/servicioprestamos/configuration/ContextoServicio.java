@@ -0,0 +1,53 @@
+package org.nttdata.com.servicioprestamos.configuration;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+/**
+ * Contexto de seguridad de las tareas programadas. Solo dentro de {@link #ejecutar(Runnable)} FeignClientConfig
+ * envía el token de servicio de TokenServicio; cualquier otra llamada sin JWT sale sin credenciales.
+ * La autenticación viaja en el SecurityContext, así que también llega a los hilos de un
+ * DelegatingSecurityContextExecutorService.
+ */
+public final class ContextoServicio {
+    private static final Authentication SERVICIO = new Autenticacion();
+
+    private ContextoServicio() {}
+
+    private static final class Autenticacion extends AbstractAuthenticationToken {
+        private Autenticacion() {
+            super(List.of());
+            setAuthenticated(true);
+        }
+
+        @Override
+        public Object getCredentials() {
+            return null;
+        }
+
+        @Override
+        public Object getPrincipal() {
+            return "ServicioPrestamos";
+        }
+    }
+
+    public static void ejecutar(Runnable tarea) {
+        SecurityContext anterior = SecurityContextHolder.getContext();
+        SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+        contexto.setAuthentication(SERVICIO);
+        SecurityContextHolder.setContext(contexto);
+        try {
+            tarea.run();
+        } finally {
+            SecurityContextHolder.setContext(anterior);
+        }
+    }
+
+    public static boolean activo(Authentication auth) {
+        return auth == SERVICIO;
+    }
+}
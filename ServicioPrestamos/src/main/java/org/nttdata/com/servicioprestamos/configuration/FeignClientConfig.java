@@ -8,7 +8,7 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 
 public class FeignClientConfig {
     @Bean
-    public RequestInterceptor requestInterceptor(){
+    public RequestInterceptor requestInterceptor(TokenServicio tokenServicio){
         return new RequestInterceptor() {
             @Override
             public void apply(RequestTemplate requestTemplate) {
@@ -16,6 +16,9 @@ public class FeignClientConfig {
                 if(auth instanceof JwtAuthenticationToken jwtAuth){
                     String token = jwtAuth.getToken().getTokenValue();
                     requestTemplate.header("Authorization", "Bearer " + token);
+                } else if (ContextoServicio.activo(auth)) {
+                    // Tareas programadas: solo las que se ejecutan explícitamente en ContextoServicio
+                    tokenServicio.token().ifPresent(token -> requestTemplate.header("Authorization", "Bearer " + token));
                 }
             }
         };
@@ -0,0 +1,54 @@
+package org.nttdata.com.servicioprestamos.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tabla de decisión de las reglas de préstamo (prestamos.reglas.filas en el config server).
+ * Cada fila es una violación: si el monto, el plazo y la tasa cumplen todas sus celdas, se reporta el mensaje.
+ * Una celda es una comparación ("<1000", ">=36", "0.25") o vacía para "cualquier valor".
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "prestamos.reglas")
+public class ReglasPrestamoProperties {
+    private List<Fila> filas = new ArrayList<>(filasPorDefecto());
+
+    public enum Categoria { MONTO, PLAZO, TASA }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Fila {
+        private Categoria categoria;
+        private String monto;
+        private String plazo;
+        private String tasa;
+        private String mensaje;
+    }
+
+    public static List<Fila> filasPorDefecto() {
+        return List.of(
+                new Fila(Categoria.MONTO, "<1000", null, null, "El monto mínimo permitido es 1,000."),
+                new Fila(Categoria.MONTO, ">100000", null, null, "El monto máximo permitido es 100,000."),
+                new Fila(Categoria.MONTO, ">20000", "<=12", null, "Para plazos de hasta 12 meses el monto máximo es 20,000."),
+                new Fila(Categoria.MONTO, "<80000", ">=36", null, "Para plazos de 36 meses o más el monto mínimo es 80,000."),
+                new Fila(Categoria.MONTO, ">50000", null, ">0.25", "No se permiten montos mayores a 50,000 con tasas superiores al 25%."),
+                new Fila(Categoria.MONTO, "<10000", null, "<0.10", "Con tasas menores al 10%, el monto mínimo es 10,000."),
+                new Fila(Categoria.PLAZO, null, "<6", null, "El plazo mínimo permitido es de 6 meses."),
+                new Fila(Categoria.PLAZO, null, ">60", null, "El plazo máximo permitido es de 60 meses."),
+                new Fila(Categoria.PLAZO, "<10000", ">24", null, "Para montos menores a 10,000 el plazo máximo es 24 meses."),
+                new Fila(Categoria.PLAZO, null, ">36", ">0.20", "No se permiten plazos mayores a 36 meses con tasas superiores al 20%."),
+                new Fila(Categoria.TASA, null, null, "<0.05", "La tasa mínima es del 5%."),
+                new Fila(Categoria.TASA, null, null, ">0.40", "La tasa máxima es del 40%."),
+                new Fila(Categoria.TASA, ">50000", null, "<0.15", "Para montos mayores a 50,000 la tasa no puede ser menor al 15%."),
+                new Fila(Categoria.TASA, null, ">48", ">0.30", "No se permiten tasas mayores al 30% en plazos superiores a 48 meses.")
+        );
+    }
+}
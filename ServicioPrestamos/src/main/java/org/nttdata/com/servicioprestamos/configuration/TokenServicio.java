@@ -0,0 +1,91 @@
+package org.nttdata.com.servicioprestamos.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token del propio servicio (grant client_credentials del servidor de autorización) para las llamadas Feign
+ * que no tienen un usuario detrás, como el débito automático y las ofertas preaprobadas programados.
+ * Se reutiliza hasta 30 segundos antes de vencer. Sin prestamos.servicio.token-uri no hay token de servicio.
+ * La renovación usa un ReentrantLock y no synchronized: la petición HTTP bloqueante no fija el hilo portador
+ * de un hilo virtual.
+ */
+@Component
+public class TokenServicio {
+    private static final Duration MARGEN = Duration.ofSeconds(30);
+
+    private final RestClient restClient = RestClient.create();
+    private final String tokenUri;
+    private final String clientId;
+    private final String clientSecret;
+
+    private final ReentrantLock renovacion = new ReentrantLock();
+    private volatile TokenVigente vigente;
+
+    private record TokenVigente(String valor, Instant vencimiento) {
+        boolean valido() {
+            return Instant.now().isBefore(vencimiento);
+        }
+    }
+
+    private record RespuestaToken(@JsonProperty("access_token") String accessToken,
+                                  @JsonProperty("expires_in") long expiresIn) {}
+
+    public TokenServicio(@Value("${prestamos.servicio.token-uri:}") String tokenUri,
+                         @Value("${prestamos.servicio.client-id:ServicioPrestamos}") String clientId,
+                         @Value("${prestamos.servicio.client-secret:}") String clientSecret) {
+        this.tokenUri = tokenUri;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+    }
+
+    public Optional<String> token() {
+        if (tokenUri.isBlank()) {
+            return Optional.empty();
+        }
+        TokenVigente actual = vigente;
+        if (actual != null && actual.valido()) {
+            return Optional.of(actual.valor());
+        }
+        renovacion.lock();
+        try {
+            // Otro hilo pudo renovarlo mientras se esperaba el lock
+            actual = vigente;
+            if (actual == null || !actual.valido()) {
+                actual = solicitar();
+                vigente = actual;
+            }
+            return Optional.of(actual.valor());
+        } finally {
+            renovacion.unlock();
+        }
+    }
+
+    private TokenVigente solicitar() {
+        MultiValueMap<String, String> formulario = new LinkedMultiValueMap<>();
+        formulario.add("grant_type", "client_credentials");
+        formulario.add("client_id", clientId);
+        formulario.add("client_secret", clientSecret);
+        RespuestaToken respuesta = restClient.post()
+                .uri(tokenUri)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(formulario)
+                .retrieve()
+                .body(RespuestaToken.class);
+        if (respuesta == null || respuesta.accessToken() == null) {
+            throw new IllegalStateException("El servidor de autorización no devolvió un token de servicio");
+        }
+        return new TokenVigente(respuesta.accessToken(),
+                Instant.now().plusSeconds(respuesta.expiresIn()).minus(MARGEN));
+    }
+}
@@ -3,20 +3,37 @@ package org.nttdata.com.servicioprestamos.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.nttdata.com.servicioprestamos.dto.CuotaRequest;
+import org.nttdata.com.servicioprestamos.dto.FiltroCuotaRequest;
+import org.nttdata.com.servicioprestamos.dto.PagoCuotasRequest;
+import org.nttdata.com.servicioprestamos.dto.PagoPrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest;
+import org.nttdata.com.servicioprestamos.service.CronogramaService;
 import org.nttdata.com.servicioprestamos.service.CuotaService;
+import org.nttdata.com.servicioprestamos.service.DebitoAutomaticoService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/cuotas")
 public class CuotaController {
     private final CuotaService cuotaService;
+    private final DebitoAutomaticoService debitoAutomaticoService;
+    private final CronogramaService cronogramaService;
 
     @GetMapping
     public ResponseEntity<?> listarCuotas() {
         return ResponseEntity.ok(cuotaService.getAllCuotas());
     }
+    // Listado filtrado por cursor: ?estadoCuotaId=&prestamoId=&clienteId=&desde=&hasta=&montoMinimo=&montoMaximo=&despuesDe=&tamanio=
+    @GetMapping("/pagina")
+    public ResponseEntity<?> buscarCuotas(@Valid FiltroCuotaRequest filtro) {
+        return ResponseEntity.ok(cuotaService.buscarCuotas(filtro));
+    }
     @GetMapping("/{id}")
     public ResponseEntity<?> obtenerCuotaPorId(@PathVariable Long id) {
         return ResponseEntity.ok(cuotaService.getCuotaById(id));
@@ -29,10 +46,36 @@ public class CuotaController {
     public ResponseEntity<?> crearCuota(@Valid @RequestBody CuotaRequest cuotaRequest) {
         return ResponseEntity.ok(cuotaService.saveCuota(cuotaRequest));
     }
+    @PostMapping("/pagar")
+    public ResponseEntity<?> pagarCuotas(@Valid @RequestBody PagoCuotasRequest pagoCuotasRequest) {
+        return ResponseEntity.ok(cuotaService.pagarCuotas(pagoCuotasRequest));
+    }
+    // Pago de un monto libre a un préstamo: cubre vencidas, vigente y futuras en ese orden; admite abonos parciales
+    @PostMapping("/prestamo/{prestamoId}/pagar")
+    public ResponseEntity<?> aplicarPago(@PathVariable Long prestamoId, @Valid @RequestBody PagoPrestamoRequest pago) {
+        return ResponseEntity.ok(cuotaService.aplicarPago(prestamoId, pago));
+    }
+    // Prepago a capital: recalcula las cuotas posteriores a la vigente con menos cuotas o con una cuota menor
+    @PostMapping("/prestamo/{prestamoId}/prepagar")
+    public ResponseEntity<?> prepagar(@PathVariable Long prestamoId, @Valid @RequestBody PrepagoRequest prepago) {
+        return ResponseEntity.ok(cronogramaService.prepagar(prestamoId, prepago));
+    }
     @PostMapping("/pagar/{cuentaId}/{id}")
     public ResponseEntity<?> pagarCuota(@PathVariable Long id, @PathVariable Long cuentaId) {
         return ResponseEntity.ok(cuotaService.pagarCuota(id, cuentaId));
     }
+    // Pago por número de cuota: sirve también para préstamos con cronograma virtual, cuyas cuotas no tienen id hasta pagarse
+    @PostMapping("/pagar/{cuentaId}/prestamo/{prestamoId}/{numero}")
+    public ResponseEntity<?> pagarCuotaPorNumero(@PathVariable Long cuentaId, @PathVariable Long prestamoId, @PathVariable Integer numero) {
+        return ResponseEntity.ok(cuotaService.pagarCuotaPorNumero(prestamoId, numero, cuentaId));
+    }
+    // Ejecuta el débito automático con el token del administrador (ver DebitoAutomaticoServiceImpl)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/debito-automatico")
+    public ResponseEntity<?> debitoAutomatico(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return ResponseEntity.ok(debitoAutomaticoService.debitarCuotas(fecha != null ? fecha : LocalDate.now()));
+    }
     @PutMapping("/{id}")
     public ResponseEntity<?> actualizarCuota(@PathVariable Long id, @Valid @RequestBody CuotaRequest cuotaRequest) {
         return ResponseEntity.ok(cuotaService.updateCuota(id, cuotaRequest));
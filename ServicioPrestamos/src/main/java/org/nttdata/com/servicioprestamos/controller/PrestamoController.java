@@ -1,13 +1,44 @@
 package org.nttdata.com.servicioprestamos.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.dto.CotizacionRequest;
+import org.nttdata.com.servicioprestamos.dto.FiltroPrestamoRequest;
 import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.AprobacionLoteRequest;
+import org.nttdata.com.servicioprestamos.dto.AprobacionPrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenAprobacionLoteResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenImportacionResponse;
+import org.nttdata.com.servicioprestamos.dto.TransicionLoteRequest;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.service.AnaliticaCarteraService;
+import org.nttdata.com.servicioprestamos.service.AprobacionLoteService;
+import org.nttdata.com.servicioprestamos.service.AprobacionPrestamoService;
+import org.nttdata.com.servicioprestamos.service.ImportacionPrestamoService;
+import org.nttdata.com.servicioprestamos.service.MoraCarteraService;
+import org.nttdata.com.servicioprestamos.service.OfertaPreaprobadaService;
 import org.nttdata.com.servicioprestamos.service.PrestamoService;
+import org.nttdata.com.servicioprestamos.service.ResumenClienteService;
+import org.nttdata.com.servicioprestamos.service.RiesgoCarteraService;
+import org.nttdata.com.servicioprestamos.service.TransicionPrestamoService;
+import org.nttdata.com.servicioprestamos.util.EjecutorAprobaciones;
+import org.nttdata.com.servicioprestamos.util.LectorSolicitudes.Formato;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.List;
 
 
 @RestController
@@ -15,11 +46,74 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class PrestamoController {
     private final PrestamoService prestamoService;
+    private final AprobacionPrestamoService aprobacionPrestamoService;
+    private final AnaliticaCarteraService analiticaCarteraService;
+    private final MoraCarteraService moraCarteraService;
+    private final RiesgoCarteraService riesgoCarteraService;
+    private final OfertaPreaprobadaService ofertaPreaprobadaService;
+    private final AprobacionLoteService aprobacionLoteService;
+    private final ImportacionPrestamoService importacionPrestamoService;
+    private final TransicionPrestamoService transicionPrestamoService;
+    private final ResumenClienteService resumenClienteService;
+    private final EjecutorAprobaciones ejecutorAprobaciones;
+
+    // Modo de aprobación por defecto; cada solicitud puede indicarlo con ?asincrona=
+    @Value("${prestamos.aprobacion.asincrona:false}")
+    private boolean aprobacionAsincrona;
+    @Value("${prestamos.aprobacion.lote.timeout-ms:600000}")
+    private long tiempoMaximoLoteMs;
 
     @GetMapping
     public ResponseEntity<?> listarPrestamos() {
         return ResponseEntity.ok(prestamoService.getAllPrestamos());
     }
+    // Listado filtrado por cursor: ?estadoPrestamoId=&clienteId=&desde=&hasta=&montoMinimo=&montoMaximo=&despuesDe=&tamanio=
+    @GetMapping("/pagina")
+    public ResponseEntity<?> buscarPrestamos(@Valid FiltroPrestamoRequest filtro) {
+        return ResponseEntity.ok(prestamoService.buscarPrestamos(filtro));
+    }
+    // Exposición por estado, mes de desembolso y tramo de plazo, leída de agregados_cartera
+    @GetMapping("/cartera")
+    public ResponseEntity<?> obtenerCartera() {
+        return ResponseEntity.ok(analiticaCarteraService.obtenerCartera());
+    }
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/cartera/recalcular")
+    public ResponseEntity<?> recalcularCartera() {
+        return ResponseEntity.ok(analiticaCarteraService.recalcular());
+    }
+    // Préstamos y saldo por tramo de días de mora, leídos de agregados_mora
+    @GetMapping("/cartera/mora")
+    public ResponseEntity<?> obtenerMora() {
+        return ResponseEntity.ok(moraCarteraService.obtenerMora());
+    }
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/cartera/mora/conciliar")
+    public ResponseEntity<?> conciliarMora(@RequestParam(defaultValue = "false") boolean corregir) {
+        return ResponseEntity.ok(moraCarteraService.conciliar(corregir));
+    }
+    // Pérdida esperada y de cola de la cartera activa por Monte Carlo; uso intensivo de CPU
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/riesgo/perdidas")
+    public ResponseEntity<?> simularPerdidas(@RequestParam(required = false) Integer caminos,
+                                             @RequestParam(required = false) Long semilla) {
+        return ResponseEntity.ok(riesgoCarteraService.simularPerdidas(caminos, semilla));
+    }
+    // Préstamos del cliente con saldo y próxima cuota, leídos de resumenes_prestamo sin llamar a ServicioClientes
+    @GetMapping("/cliente/{clienteId}/resumen")
+    public ResponseEntity<?> obtenerResumenCliente(@PathVariable Long clienteId) {
+        return ResponseEntity.ok(resumenClienteService.obtenerResumen(clienteId));
+    }
+    // Ofertas preaprobadas del cliente por plazo, calculadas por la generación nocturna
+    @GetMapping("/ofertas/cliente/{clienteId}")
+    public ResponseEntity<?> obtenerOfertasPorCliente(@PathVariable Long clienteId) {
+        return ResponseEntity.ok(ofertaPreaprobadaService.getOfertasByClienteId(clienteId));
+    }
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/ofertas/generar")
+    public ResponseEntity<?> generarOfertas() {
+        return ResponseEntity.ok(ofertaPreaprobadaService.generarOfertas(LocalDate.now()));
+    }
     @GetMapping("/{id}")
     public ResponseEntity<?> obtenerPrestamoPorId(@PathVariable Long id) {
         return ResponseEntity.ok(prestamoService.getPrestamoById(id));
@@ -28,6 +122,15 @@ public class PrestamoController {
     public ResponseEntity<?> crearPrestamo(@Valid @RequestBody PrestamoRequest prestamo) {
         return ResponseEntity.status(HttpStatus.CREATED).body(prestamoService.createPrestamo(prestamo));
     }
+    @GetMapping("/cotizacion")
+    public ResponseEntity<?> cotizarPrestamo(@Valid CotizacionRequest cotizacion) {
+        return ResponseEntity.ok(prestamoService.cotizarPrestamo(cotizacion));
+    }
+    @PostMapping("/validar")
+    public ResponseEntity<?> validarPrestamos(@Valid @Size(max = 1000, message = "No se pueden validar más de 1000 préstamos por solicitud")
+                                              @RequestBody List<PrestamoRequest> prestamos) {
+        return ResponseEntity.ok(prestamoService.validarPrestamos(prestamos));
+    }
     @PutMapping("/{id}")
     public ResponseEntity<?> actualizarPrestamo(@PathVariable Long id,@Valid @RequestBody PrestamoRequest prestamo) {
         return ResponseEntity.ok(prestamoService.updatePrestamo(id, prestamo));
@@ -37,11 +140,78 @@ public class PrestamoController {
         prestamoService.deletePrestamo(id);
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
+    // Cambio de estado de muchos préstamos con UPDATE de conjunto, según la tabla de transiciones
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/estado/lote")
+    public ResponseEntity<?> transicionarPrestamos(@Valid @RequestBody TransicionLoteRequest solicitud) {
+        return ResponseEntity.ok(transicionPrestamoService.transicionar(solicitud));
+    }
     @PostMapping("/aprobar/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> aceptarPrestamo(@PathVariable Long id) {
-
+    public ResponseEntity<?> aceptarPrestamo(@PathVariable Long id, @RequestParam(required = false) Boolean asincrona) {
+        if (asincrona != null ? asincrona : aprobacionAsincrona) {
+            AprobacionPrestamoResponse aprobacion = aprobacionPrestamoService.solicitarAprobacion(id);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/prestamos/aprobaciones/" + aprobacion.id()))
+                    .body(aprobacion);
+        }
         return ResponseEntity.ok(prestamoService.aceptarPrestamo(id));
     }
+    // Aprobación en lote: un evento "resultado" por préstamo a medida que termina y un evento "resumen" al final
+    @PostMapping(value = "/aprobar/lote", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SseEmitter> aprobarPrestamos(@Valid @RequestBody AprobacionLoteRequest solicitud) {
+        SseEmitter emitter = new SseEmitter(tiempoMaximoLoteMs);
+        boolean encolada = ejecutorAprobaciones.enviar(() -> {
+            try {
+                ResumenAprobacionLoteResponse resumen = aprobacionLoteService.aprobarLote(solicitud.prestamoIds(),
+                        resultado -> enviarEvento(emitter, "resultado", resultado));
+                enviarEvento(emitter, "resumen", resumen);
+                emitter.complete();
+            } catch (RuntimeException ex) {
+                emitter.completeWithError(ex);
+            }
+        });
+        if (!encolada) {
+            throw new BadRequest("Hay demasiadas aprobaciones en curso, intente nuevamente más tarde");
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    // Importación de solicitudes desde un archivo NDJSON o CSV leído por bloques: un evento "resultado" por línea,
+    // en el orden del archivo, y un evento "resumen" al final
+    @PostMapping(value = "/importar", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"},
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SseEmitter> importarPrestamos(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipo,
+                                                        InputStream archivo) {
+        Formato formato = "csv".equalsIgnoreCase(tipo.getSubtype()) ? Formato.CSV : Formato.NDJSON;
+        SseEmitter emitter = new SseEmitter(tiempoMaximoLoteMs);
+        boolean encolada = ejecutorAprobaciones.enviar(() -> {
+            try {
+                ResumenImportacionResponse resumen = importacionPrestamoService.importar(archivo, formato,
+                        resultado -> enviarEvento(emitter, "resultado", resultado));
+                enviarEvento(emitter, "resumen", resumen);
+                emitter.complete();
+            } catch (RuntimeException ex) {
+                emitter.completeWithError(ex);
+            }
+        });
+        if (!encolada) {
+            throw new BadRequest("Hay demasiadas operaciones en lote en curso, intente nuevamente más tarde");
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    private static void enviarEvento(SseEmitter emitter, String nombre, Object datos) {
+        try {
+            emitter.send(SseEmitter.event().name(nombre).data(datos, MediaType.APPLICATION_JSON));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+    @GetMapping("/aprobaciones/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> obtenerAprobacion(@PathVariable Long id) {
+        return ResponseEntity.ok(aprobacionPrestamoService.getAprobacionById(id));
+    }
 }
 
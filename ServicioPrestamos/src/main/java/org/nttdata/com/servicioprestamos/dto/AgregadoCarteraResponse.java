@@ -0,0 +1,13 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record AgregadoCarteraResponse(
+    String clave,
+    long cantidad,
+    BigDecimal monto,
+    BigDecimal montoPagado
+) {}
@@ -0,0 +1,18 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+import org.nttdata.com.servicioprestamos.util.AsignacionPago.Tramo;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+@Builder
+public record AplicacionCuotaResponse(
+    Long cuotaId,
+    Integer numero,
+    Date fechaVencimiento,
+    Tramo tramo,
+    BigDecimal montoAplicado,
+    BigDecimal saldoPendiente,
+    boolean pagada
+) {}
@@ -0,0 +1,14 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record AprobacionLoteRequest(
+    @NotEmpty(message = "Debe indicar al menos un préstamo")
+    @Size(max = 500, message = "No se pueden aprobar más de 500 préstamos por solicitud")
+    List<Long> prestamoIds
+) {}
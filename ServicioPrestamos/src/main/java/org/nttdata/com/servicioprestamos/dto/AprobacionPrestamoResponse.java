@@ -0,0 +1,18 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+import org.nttdata.com.servicioprestamos.models.EstadoAprobacion;
+
+import java.util.Date;
+
+@Builder
+public record AprobacionPrestamoResponse(
+    Long id,
+    Long prestamoId,
+    EstadoAprobacion estado,
+    String paso,
+    String mensaje,
+    Long transaccionDesembolsoId,
+    Date fechaSolicitud,
+    Date fechaActualizacion
+) {}
@@ -0,0 +1,18 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Builder
+public record AsignacionPagoResponse(
+    Long prestamoId,
+    Long cuentaId,
+    BigDecimal montoRecibido,
+    BigDecimal montoAplicado,
+    // Excedente sobre lo que se debía: no se debita
+    BigDecimal montoNoAplicado,
+    int cuotasPagadas,
+    List<AplicacionCuotaResponse> aplicaciones
+) {}
@@ -0,0 +1,12 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record CarteraResponse(
+    List<AgregadoCarteraResponse> porEstado,
+    List<AgregadoCarteraResponse> porMesDesembolso,
+    List<AgregadoCarteraResponse> porPlazo
+) {}
@@ -0,0 +1,16 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record ConciliacionMoraResponse(
+    long prestamosRevisados,
+    int prestamosConDiferencia,
+    int fechasConDiferencia,
+    // Las primeras diferencias por fecha, en orden
+    List<DiferenciaMoraResponse> diferencias,
+    boolean corregido,
+    long duracionMs
+) {}
@@ -0,0 +1,24 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Builder;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+
+import java.math.BigDecimal;
+
+@Builder
+public record CotizacionRequest(
+    @NotNull(message = "El ID de la cuenta no puede ser nulo")
+    Long cuentaId,
+    @NotNull(message = "El monto no puede ser nulo")
+    @Positive(message = "El monto debe ser un valor positivo")
+    BigDecimal monto,
+    // Opcionales: PLANO, plazos de 6 a 60 meses y tasas de 0.05 a 0.40 de 0.01 en 0.01 si no se indican
+    MetodoAmortizacion metodoAmortizacion,
+    Integer plazoMinimo,
+    Integer plazoMaximo,
+    BigDecimal tasaMinima,
+    BigDecimal tasaMaxima,
+    BigDecimal pasoTasa
+) {}
@@ -0,0 +1,17 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Builder
+public record CotizacionResponse(
+    Long cuentaId,
+    BigDecimal monto,
+    MetodoAmortizacion metodoAmortizacion,
+    BigDecimal capacidadPago,
+    int combinacionesEvaluadas,
+    List<OpcionCotizacionResponse> opciones
+) {}
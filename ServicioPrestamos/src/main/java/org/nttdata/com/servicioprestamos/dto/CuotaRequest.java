@@ -19,6 +19,7 @@ public record CuotaRequest(
     @NotNull(message = "El monto no puede ser nulo")
     @Positive(message = "El monto debe ser un valor positivo")
     BigDecimal monto,
+    BigDecimal capital,
     @NotNull(message = "El ID del estado de la cuota no puede ser nulo")
     Long estadoCuotaId
 ){
@@ -12,5 +12,6 @@ public record CuotaResponse(
     Integer numero,
     Date fechaVencimiento,
     BigDecimal monto,
+    BigDecimal montoPagado,
     EstadoCuotaResponse estadoCuota
 ) {}
\ No newline at end of file
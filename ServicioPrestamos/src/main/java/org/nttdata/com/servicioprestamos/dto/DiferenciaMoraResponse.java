@@ -0,0 +1,15 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Builder
+public record DiferenciaMoraResponse(
+    LocalDate fecha,
+    long prestamosEsperados,
+    long prestamosGuardados,
+    BigDecimal saldoEsperado,
+    BigDecimal saldoGuardado
+) {}
@@ -0,0 +1,27 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Builder;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Builder
+public record FiltroPrestamoRequest(
+    // Todos opcionales; desde/hasta filtran por fecha de desembolso (inclusive)
+    Long estadoPrestamoId,
+    Long clienteId,
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    LocalDate desde,
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    LocalDate hasta,
+    BigDecimal montoMinimo,
+    BigDecimal montoMaximo,
+    // Cursor: id del último préstamo de la página anterior
+    Long despuesDe,
+    @Min(value = 1, message = "El tamaño de página mínimo es 1")
+    @Max(value = 500, message = "El tamaño de página máximo es 500")
+    Integer tamanio
+) {}
@@ -0,0 +1,15 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Builder
+public record MoraCarteraResponse(
+    LocalDate fecha,
+    List<TramoMoraResponse> tramos,
+    long prestamosEnMora,
+    BigDecimal saldoEnMora
+) {}
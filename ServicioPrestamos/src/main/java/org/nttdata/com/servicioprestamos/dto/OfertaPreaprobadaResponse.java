@@ -0,0 +1,20 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Builder
+public record OfertaPreaprobadaResponse(
+    Long clienteId,
+    Long cuentaId,
+    Integer plazoMeses,
+    BigDecimal tasaInteres,
+    MetodoAmortizacion metodoAmortizacion,
+    BigDecimal montoMaximo,
+    BigDecimal cuotaEstimada,
+    BigDecimal capacidadPago,
+    LocalDate fechaGeneracion
+) {}
@@ -0,0 +1,14 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record OpcionCotizacionResponse(
+    int plazoMeses,
+    BigDecimal tasaInteres,
+    // Primera cuota; en ALEMAN las siguientes son menores
+    BigDecimal cuota,
+    BigDecimal totalAPagar
+) {}
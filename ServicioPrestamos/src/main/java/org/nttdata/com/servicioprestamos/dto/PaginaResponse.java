@@ -0,0 +1,23 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Página de un listado por cursor (keyset). {@code siguiente} se envía como despuesDe para pedir la próxima
+ * página; es null cuando no hay más resultados.
+ */
+@Builder
+public record PaginaResponse<T>(
+    List<T> contenido,
+    int tamanio,
+    boolean hayMas,
+    String siguiente
+) {
+    public static final int TAMANIO_POR_DEFECTO = 50;
+
+    public static int tamanioOPorDefecto(Integer tamanio) {
+        return tamanio != null ? tamanio : TAMANIO_POR_DEFECTO;
+    }
+}
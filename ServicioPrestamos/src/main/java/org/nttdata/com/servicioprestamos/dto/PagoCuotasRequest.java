@@ -0,0 +1,15 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record PagoCuotasRequest(
+    @NotNull(message = "El ID de la cuenta no puede ser nulo")
+    Long cuentaId,
+    @NotEmpty(message = "Debe indicar al menos una cuota")
+    List<@NotNull(message = "El ID de la cuota no puede ser nulo") Long> cuotaIds
+) {}
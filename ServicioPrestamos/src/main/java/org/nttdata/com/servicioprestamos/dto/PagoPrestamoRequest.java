@@ -0,0 +1,20 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record PagoPrestamoRequest(
+    @NotNull(message = "El ID de la cuenta no puede ser nulo")
+    Long cuentaId,
+    @NotNull(message = "El monto no puede ser nulo")
+    @Positive(message = "El monto debe ser un valor positivo")
+    @DecimalMax(value = "1000000000", message = "El monto no puede superar 1,000,000,000")
+    @Digits(integer = 10, fraction = 2, message = "El monto admite hasta 2 decimales")
+    BigDecimal monto
+) {}
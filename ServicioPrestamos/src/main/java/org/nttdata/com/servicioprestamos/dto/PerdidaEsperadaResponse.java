@@ -0,0 +1,22 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record PerdidaEsperadaResponse(
+    int prestamos,
+    int flujos,
+    BigDecimal exposicion,
+    int caminos,
+    long semilla,
+    int hilos,
+    BigDecimal perdidaEsperada,
+    BigDecimal var95,
+    BigDecimal var99,
+    // Expected shortfall: pérdida media del 1% de caminos peores
+    BigDecimal perdidaCola99,
+    long duracionCargaMs,
+    long duracionSimulacionMs
+) {}
@@ -0,0 +1,25 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record PrepagoRequest(
+    @NotNull(message = "El ID de la cuenta no puede ser nulo")
+    Long cuentaId,
+    @NotNull(message = "El monto no puede ser nulo")
+    @Positive(message = "El monto debe ser un valor positivo")
+    @DecimalMax(value = "1000000000", message = "El monto no puede superar 1,000,000,000")
+    @Digits(integer = 10, fraction = 2, message = "El monto admite hasta 2 decimales")
+    BigDecimal monto,
+    @NotNull(message = "La modalidad del prepago no puede ser nula")
+    Modalidad modalidad
+) {
+    // REDUCIR_PLAZO mantiene la cuota y quita las últimas; REDUCIR_CUOTA mantiene el número de cuotas
+    public enum Modalidad { REDUCIR_PLAZO, REDUCIR_CUOTA }
+}
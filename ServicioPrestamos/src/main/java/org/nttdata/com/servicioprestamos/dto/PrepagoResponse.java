@@ -0,0 +1,23 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest.Modalidad;
+
+import java.math.BigDecimal;
+
+@Builder
+public record PrepagoResponse(
+    Long prestamoId,
+    Long cuentaId,
+    Modalidad modalidad,
+    BigDecimal montoPrepagado,
+    // Capital de las cuotas posteriores a la vigente, antes y después del prepago
+    BigDecimal capitalAnterior,
+    BigDecimal capitalPendiente,
+    BigDecimal cuotaAnterior,
+    // null si el prepago cancela todas las cuotas futuras
+    BigDecimal cuotaNueva,
+    int cuotasFuturas,
+    int cuotasActualizadas,
+    int cuotasEliminadas
+) {}
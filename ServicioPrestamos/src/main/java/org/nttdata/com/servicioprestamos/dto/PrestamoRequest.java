@@ -1,8 +1,11 @@
 package org.nttdata.com.servicioprestamos.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Builder;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
 
 import java.math.BigDecimal;
 import java.util.Date;
@@ -15,13 +18,19 @@ public record PrestamoRequest(
     Long cuentaId,
     @NotNull(message = "El monto no puede ser nulo")
     @Positive(message = "El monto debe ser un valor positivo")
+    @DecimalMax(value = "1000000000", message = "El monto no puede superar 1,000,000,000")
+    @Digits(integer = 10, fraction = 2, message = "El monto admite hasta 2 decimales")
     BigDecimal monto,
     @NotNull(message = "El plazo en meses no puede ser nulo")
     @Positive(message = "El plazo en meses debe ser un valor positivo")
     Integer plazoMeses,
     @NotNull(message = "La tasa de interés no puede ser nula")
     @Positive(message = "La tasa de interés debe ser un valor positivo")
+    @DecimalMax(value = "100", message = "La tasa de interés no puede superar 100")
+    @Digits(integer = 3, fraction = 6, message = "La tasa de interés admite hasta 6 decimales")
     BigDecimal tasaInteres,
+    // Opcional: PLANO si no se indica
+    MetodoAmortizacion metodoAmortizacion,
     Long estadoPrestamoId,
     Date fechaDesembolso
 ) {}
@@ -1,6 +1,7 @@
 package org.nttdata.com.servicioprestamos.dto;
 
 import lombok.Builder;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
 
 import java.math.BigDecimal;
 import java.util.Date;
@@ -13,6 +14,7 @@ public record PrestamoResponse(
     BigDecimal monto,
     Integer plazoMeses,
     BigDecimal tasaInteres,
+    MetodoAmortizacion metodoAmortizacion,
     EstadoPrestamoResponse estadoPrestamo,
     Date fechaDesembolso
 ) {}
\ No newline at end of file
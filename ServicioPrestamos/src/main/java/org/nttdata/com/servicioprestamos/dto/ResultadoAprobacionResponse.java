@@ -0,0 +1,11 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+@Builder
+public record ResultadoAprobacionResponse(
+    Long prestamoId,
+    boolean aprobado,
+    String mensaje,
+    PrestamoResponse prestamo
+) {}
@@ -0,0 +1,11 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+@Builder
+public record ResultadoBarridoResponse(
+    long filas,
+    int lotes,
+    long duracionMs,
+    double filasPorSegundo
+) {}
@@ -0,0 +1,16 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record ResultadoDebitoResponse(
+    int cuentas,
+    int cuentasDebitadas,
+    int cuentasSinSaldo,
+    int cuentasFallidas,
+    long cuotasPagadas,
+    BigDecimal montoDebitado,
+    long duracionMs
+) {}
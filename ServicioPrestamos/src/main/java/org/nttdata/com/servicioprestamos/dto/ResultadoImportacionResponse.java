@@ -0,0 +1,11 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+@Builder
+public record ResultadoImportacionResponse(
+    long linea,
+    boolean aceptado,
+    Long prestamoId,
+    String mensaje
+) {}
@@ -0,0 +1,14 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+@Builder
+public record ResultadoOfertasResponse(
+    int cuentas,
+    int cuentasConOferta,
+    long ofertas,
+    int lotes,
+    int lotesFallidos,
+    int ofertasEliminadas,
+    long duracionMs
+) {}
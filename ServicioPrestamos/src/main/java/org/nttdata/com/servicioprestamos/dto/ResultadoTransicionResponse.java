@@ -0,0 +1,15 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record ResultadoTransicionResponse(
+    Long estadoPrestamoId,
+    long actualizados,
+    int lotes,
+    // Préstamos pedidos que no existen, no admiten la transición o estaban bloqueados
+    List<Long> noActualizados,
+    long duracionMs
+) {}
@@ -0,0 +1,16 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record ResumenAprobacionLoteResponse(
+    int solicitados,
+    int aprobados,
+    int rechazados,
+    int clientes,
+    int cuentas,
+    BigDecimal montoDesembolsado,
+    long duracionMs
+) {}
@@ -0,0 +1,17 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Builder
+public record ResumenClienteResponse(
+    Long clienteId,
+    int totalPrestamos,
+    int prestamosActivos,
+    BigDecimal saldoPendiente,
+    LocalDate proximoVencimiento,
+    List<ResumenPrestamoResponse> prestamos
+) {}
@@ -0,0 +1,16 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record ResumenImportacionResponse(
+    long filas,
+    long aceptadas,
+    long rechazadas,
+    BigDecimal montoSolicitado,
+    long consultasClientes,
+    long consultasCuentas,
+    long duracionMs
+) {}
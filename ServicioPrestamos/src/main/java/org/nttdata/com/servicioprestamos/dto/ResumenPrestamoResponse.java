@@ -0,0 +1,24 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Builder
+public record ResumenPrestamoResponse(
+    Long prestamoId,
+    Long cuentaId,
+    String estadoPrestamo,
+    BigDecimal monto,
+    Integer plazoMeses,
+    LocalDate fechaDesembolso,
+    BigDecimal saldoPendiente,
+    int cuotasPendientes,
+    // Cuota sin pagar que vence primero; null si no queda ninguna
+    Integer proximaCuotaNumero,
+    LocalDate proximaCuotaVencimiento,
+    BigDecimal proximaCuotaMonto,
+    // La próxima cuota ya venció
+    boolean atrasado
+) {}
@@ -0,0 +1,14 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record TramoMoraResponse(
+    // Días de mora de la cuota pendiente más antigua: 1-30, 31-60, 61-90 o 90+
+    String tramo,
+    long prestamos,
+    // Saldo pendiente total de esos préstamos, no solo lo vencido
+    BigDecimal saldo
+) {}
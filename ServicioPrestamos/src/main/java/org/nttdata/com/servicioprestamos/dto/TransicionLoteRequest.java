@@ -0,0 +1,17 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record TransicionLoteRequest(
+    @NotEmpty(message = "Debe indicar al menos un préstamo")
+    @Size(max = 10000, message = "No se pueden cambiar más de 10000 préstamos por solicitud")
+    List<Long> prestamoIds,
+    @NotNull(message = "El estado destino es obligatorio")
+    Long estadoPrestamoId
+) {}
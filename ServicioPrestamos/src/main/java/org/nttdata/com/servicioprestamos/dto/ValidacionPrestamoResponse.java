@@ -0,0 +1,12 @@
+package org.nttdata.com.servicioprestamos.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record ValidacionPrestamoResponse(
+    int indice,
+    boolean valido,
+    List<String> violaciones
+) {}
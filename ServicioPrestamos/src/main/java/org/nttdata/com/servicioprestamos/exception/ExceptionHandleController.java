@@ -3,9 +3,11 @@ package org.nttdata.com.servicioprestamos.exception;
 import io.swagger.v3.oas.annotations.Hidden;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -46,6 +48,27 @@ public class ExceptionHandleController {
         return ResponseEntity.status(errorResponse.getStatus()).body(errorResponse);
     }
 
+    // Restricciones sobre el parámetro (@Size de una lista) o sobre sus elementos: el campo lleva el índice
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<?> handleMethodValidationExceptions(HandlerMethodValidationException e) {
+        List<ErrorResponseValidItem> errors = e.getParameterValidationResults().stream()
+                .flatMap(resultado -> resultado.getResolvableErrors().stream().map(error -> {
+                    String campo = error instanceof FieldError fieldError ? fieldError.getField()
+                            : resultado.getMethodParameter().getParameterName();
+                    if (resultado.getContainerIndex() != null) {
+                        campo = "[" + resultado.getContainerIndex() + "]." + campo;
+                    }
+                    return new ErrorResponseValidItem(campo, error.getDefaultMessage());
+                }))
+                .toList();
+        ErrorResponseValid errorResponse = new ErrorResponseValid(
+                HttpStatus.BAD_REQUEST.value(),
+                errors,
+                LocalDateTime.now().toString()
+        );
+        return ResponseEntity.status(errorResponse.getStatus()).body(errorResponse);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<?> globalExceptionHandler(RuntimeException e) {
         ErrorResponse error = new ErrorResponse(
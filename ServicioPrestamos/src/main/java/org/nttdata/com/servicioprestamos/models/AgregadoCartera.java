@@ -0,0 +1,45 @@
+package org.nttdata.com.servicioprestamos.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Totales de la cartera por dimensión y clave. Se actualizan con incrementos (upsert) en cada cambio
+ * de préstamo o cobro de cuotas, así el tablero lee unas decenas de filas en vez de todos los préstamos.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@IdClass(AgregadoCartera.Clave.class)
+@Table(name = "agregados_cartera")
+public class AgregadoCartera {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private DimensionCartera dimension;
+    @Id
+    @Column(length = 20)
+    private String clave;
+    @Column(nullable = false)
+    private long cantidad;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal monto;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal montoPagado;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private DimensionCartera dimension;
+        private String clave;
+    }
+}
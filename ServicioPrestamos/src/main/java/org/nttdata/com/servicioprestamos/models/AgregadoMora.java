@@ -0,0 +1,30 @@
+package org.nttdata.com.servicioprestamos.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Préstamos aprobados agrupados por el vencimiento de su cuota pendiente más antigua, con su saldo pendiente.
+ * La clave no depende del día: los tramos de mora (1-30, 31-60...) se obtienen al leer restando desde hoy,
+ * así que una cuota que vence no obliga a mover filas; solo los pagos y los cambios de cronograma las tocan.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "agregados_mora")
+public class AgregadoMora {
+    @Id
+    private LocalDate fecha;
+    @Column(nullable = false)
+    private long prestamos;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal saldo;
+}
@@ -0,0 +1,38 @@
+package org.nttdata.com.servicioprestamos.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Estado de una aprobación asíncrona de préstamo (POST /prestamos/aprobar/{id}?asincrona=true).
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "aprobaciones_prestamo", indexes = @Index(name = "idx_aprobaciones_prestamo_estado", columnList = "prestamo_id, estado"))
+public class AprobacionPrestamo {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "prestamo_id", nullable = false)
+    private Long prestamoId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EstadoAprobacion estado;
+    // Último paso iniciado: VALIDACION, DESEMBOLSO, SALDO, CONFIRMACION
+    private String paso;
+    @Column(length = 1000)
+    private String mensaje;
+    private Long transaccionDesembolsoId;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fechaSolicitud;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fechaActualizacion;
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.Date;
@@ -14,10 +15,18 @@ import java.util.Date;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "cuotas")
+// Índice del barrido de cuotas vencidas: filtra por estado y recorre por fecha; id completa la clave del cursor
+// Los otros dos sirven al listado por cursor (fecha_vencimiento, id) sin filtro o filtrado por préstamo
+@Table(name = "cuotas", indexes = {
+        @Index(name = "idx_cuotas_estado_vencimiento", columnList = "estado_cuota_id, fecha_vencimiento, id"),
+        @Index(name = "idx_cuotas_vencimiento", columnList = "fecha_vencimiento, id"),
+        @Index(name = "idx_cuotas_prestamo_vencimiento", columnList = "prestamo_id, fecha_vencimiento, id")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_cuotas_prestamo_numero", columnNames = {"prestamo_id", "numero"}))
 public class Cuota {
+    // Secuencia con asignación por bloques: permite que Hibernate agrupe los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cuotas_seq")
+    @SequenceGenerator(name = "cuotas_seq", sequenceName = "cuotas_seq", allocationSize = 50)
     private Long id;
     @ManyToOne
     private Prestamo prestamo;
@@ -25,6 +34,16 @@ public class Cuota {
     @Temporal(TemporalType.DATE)
     private Date fechaVencimiento;
     private BigDecimal monto;
+    // Parte de monto que amortiza capital; null en filas anteriores, donde vale la del cronograma original
+    private BigDecimal capital;
+    // Abonos parciales recibidos mientras la cuota sigue PENDIENTE o ATRASADA
+    @ColumnDefault(value = "0")
+    private BigDecimal montoPagado;
     @ManyToOne
     private EstadoCuota estadoCuota;
+
+    // Lo que falta cobrar de la cuota
+    public BigDecimal saldoPendiente() {
+        return montoPagado == null ? monto : monto.subtract(montoPagado);
+    }
 }
@@ -0,0 +1,10 @@
+package org.nttdata.com.servicioprestamos.models;
+
+public enum DimensionCartera {
+    // clave: id del estado del préstamo
+    ESTADO,
+    // clave: yyyy-MM de la fecha de desembolso (solo préstamos desembolsados)
+    MES_DESEMBOLSO,
+    // clave: tramo de plazo en meses, p. ej. "13-24" (solo préstamos desembolsados)
+    PLAZO
+}
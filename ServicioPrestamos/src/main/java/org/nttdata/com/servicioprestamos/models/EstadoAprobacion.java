@@ -0,0 +1,14 @@
+package org.nttdata.com.servicioprestamos.models;
+
+public enum EstadoAprobacion {
+    // En cola, aún sin pasos ejecutados
+    PENDIENTE,
+    EN_PROCESO,
+    COMPLETADA,
+    // Falló antes de modificar otros servicios
+    FALLIDA,
+    // Falló después del desembolso y los pasos ejecutados se revirtieron
+    COMPENSADA,
+    // Falló una compensación: requiere revisión manual
+    ERROR_COMPENSACION
+}
@@ -0,0 +1,10 @@
+package org.nttdata.com.servicioprestamos.models;
+
+public enum MetodoAmortizacion {
+    // Cuota constante: capital creciente e interés decreciente sobre el saldo
+    FRANCES,
+    // Capital constante: cuota decreciente
+    ALEMAN,
+    // Interés total monto * tasa repartido en cuotas iguales (cálculo original de aceptarPrestamo)
+    PLANO
+}
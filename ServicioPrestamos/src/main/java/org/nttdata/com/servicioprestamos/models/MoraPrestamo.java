@@ -0,0 +1,29 @@
+package org.nttdata.com.servicioprestamos.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Lo que cada préstamo aporta hoy a agregados_mora. Permite calcular el delta de un préstamo sin recorrer
+ * la cartera, y su fila se bloquea para que dos actualizaciones del mismo préstamo no se pisen.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "mora_prestamos")
+public class MoraPrestamo {
+    @Id
+    private Long prestamoId;
+    // Vencimiento de la cuota pendiente más antigua
+    private LocalDate fecha;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal saldo;
+}
@@ -0,0 +1,36 @@
+package org.nttdata.com.servicioprestamos.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Notificación pendiente de publicar en Kafka. Se inserta en la misma transacción que el préstamo
+ * y NotificacionOutboxRelay la publica y la elimina; si la transacción hace rollback, nunca se envía.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "notificaciones_outbox")
+public class NotificacionOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificaciones_outbox_seq")
+    @SequenceGenerator(name = "notificaciones_outbox_seq", sequenceName = "notificaciones_outbox_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private String topico;
+    // NotificacionRequestK serializada en JSON
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+    @Column(nullable = false)
+    private Instant fechaCreacion;
+    private int intentos;
+    // null: se publica en el siguiente ciclo; tras un envío fallido, no antes de este momento
+    private Instant proximoIntento;
+}
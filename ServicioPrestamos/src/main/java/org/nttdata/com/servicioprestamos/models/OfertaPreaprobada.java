@@ -0,0 +1,50 @@
+package org.nttdata.com.servicioprestamos.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Monto máximo que una cuenta puede pedir para un plazo, calculado por la generación nocturna de ofertas.
+ * Una fila por cuenta y plazo; "¿cuánto puedo pedir?" es una lectura por el índice de cliente.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "ofertas_preaprobadas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ofertas_cuenta_plazo", columnNames = {"cuenta_id", "plazo_meses"}),
+        indexes = @Index(name = "idx_ofertas_cliente_id", columnList = "cliente_id, plazo_meses"))
+public class OfertaPreaprobada {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private Long clienteId;
+    @Column(nullable = false)
+    private Long cuentaId;
+    @Column(nullable = false)
+    private Integer plazoMeses;
+    @Column(nullable = false)
+    private BigDecimal tasaInteres;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MetodoAmortizacion metodoAmortizacion;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal montoMaximo;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal cuotaEstimada;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal capacidadPago;
+    @Column(nullable = false)
+    private LocalDate fechaGeneracion;
+    // Marca de la ejecución que escribió la fila; al terminar se borran las de ejecuciones anteriores
+    @Column(nullable = false)
+    private Long generacion;
+}
@@ -16,6 +16,11 @@ import java.util.List;
 @NoArgsConstructor
 @Entity(name = "prestamos")
 @Builder
+// Índices del listado por cursor: cada filtro de igualdad seguido de id, la clave de orden
+@Table(name = "prestamos", indexes = {
+        @Index(name = "idx_prestamos_estado_id", columnList = "estado_prestamo_id, id"),
+        @Index(name = "idx_prestamos_cliente_id", columnList = "cliente_id, id")
+})
 public class Prestamo {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY
@@ -26,11 +31,30 @@ public class Prestamo {
     private BigDecimal monto;
     private Integer plazoMeses;
     private BigDecimal tasaInteres;
+    @Enumerated(EnumType.STRING)
+    private MetodoAmortizacion metodoAmortizacion;
     @ManyToOne
     private EstadoPrestamo estadoPrestamo;
     @Temporal(TemporalType.DATE)
     @ColumnDefault(value = "CURRENT_DATE")
     private Date fechaDesembolso;
+    // Día en que se registró la solicitud; las PENDIENTE más antiguas que el plazo configurado se cancelan
+    @Temporal(TemporalType.DATE)
+    @ColumnDefault(value = "CURRENT_DATE")
+    @Column(updatable = false)
+    private Date fechaSolicitud;
+    // true: el cronograma se calcula al leer y en cuotas solo se guardan las que cambiaron de estado
+    @ColumnDefault(value = "false")
+    private Boolean cronogramaVirtual;
+    // Capital adelantado con prepagos y cuotas finales que quitaron; monto y plazoMeses siguen siendo los contratados
+    @ColumnDefault(value = "0")
+    private BigDecimal capitalPrepagado;
+    @ColumnDefault(value = "0")
+    private Integer cuotasPrepagadas;
+    // Momento en que una aprobación tomó el préstamo; solo lo escriben los UPDATE de PrestamoRepositoryCustom
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(insertable = false, updatable = false)
+    private Date aprobacionReservada;
 
     @OneToMany(mappedBy = "prestamo")
     private List<Cuota> cuotas;
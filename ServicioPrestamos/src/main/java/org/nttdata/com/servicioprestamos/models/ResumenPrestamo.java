@@ -0,0 +1,43 @@
+package org.nttdata.com.servicioprestamos.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Vista desnormalizada de un préstamo para la consulta por cliente: estado, saldo y próxima cuota ya calculados.
+ * Se reescribe desde prestamos y cuotas cada vez que cambian; leer los de un cliente es un rango de índice.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "resumenes_prestamo", indexes = {
+        @Index(name = "idx_resumenes_prestamo_cliente", columnList = "cliente_id, prestamo_id")
+})
+public class ResumenPrestamo {
+    @Id
+    private Long prestamoId;
+    // Las columnas admiten null: la fila se crea vacía para bloquearla antes de calcularla
+    private Long clienteId;
+    private Long cuentaId;
+    private Long estadoPrestamoId;
+    private String estadoPrestamo;
+    @Column(precision = 19, scale = 2)
+    private BigDecimal monto;
+    private Integer plazoMeses;
+    private LocalDate fechaDesembolso;
+    @Column(precision = 19, scale = 2)
+    private BigDecimal saldoPendiente;
+    private Integer cuotasPendientes;
+    private Integer proximaCuotaNumero;
+    private LocalDate proximaCuotaVencimiento;
+    @Column(precision = 19, scale = 2)
+    private BigDecimal proximaCuotaMonto;
+}
@@ -0,0 +1,140 @@
+package org.nttdata.com.servicioprestamos.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.nttdata.com.servicioprestamos.models.NotificacionOutbox;
+import org.nttdata.com.servicioprestamos.producer.dto.NotificacionRequestK;
+import org.nttdata.com.servicioprestamos.repository.NotificacionOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publica en Kafka las notificaciones del outbox por lotes. Envía el lote completo sin esperar
+ * cada confirmación, espera todas juntas y elimina solo las confirmadas. Una fallida se reintenta con espera
+ * exponencial desde reintento-base-ms hasta 5 minutos; al llegar a max-intentos queda apartada en la tabla
+ * (no se vuelve a leer) para revisarla y, si corresponde, reenviarla poniendo intentos en 0.
+ * Métricas:
+ * <ul>
+ *     <li>prestamos.outbox.lag: tiempo entre el registro en el outbox y la confirmación del broker.</li>
+ *     <li>prestamos.outbox.lote: notificaciones leídas por ciclo.</li>
+ *     <li>prestamos.outbox.antiguedad: segundos de la notificación pendiente más antigua del último ciclo.</li>
+ *     <li>prestamos.outbox.apartadas: notificaciones que agotaron los intentos.</li>
+ * </ul>
+ */
+@Component
+public class NotificacionOutboxRelay {
+    private static final Duration ESPERA_MAXIMA = Duration.ofMinutes(5);
+
+    private final NotificacionOutboxRepository notificacionOutboxRepository;
+    private final KafkaTemplate<String, NotificacionRequestK> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final int tamanioLote;
+    private final long esperaMs;
+    private final int maximoIntentos;
+    private final long reintentoBaseMs;
+
+    private final Timer lag;
+    private final DistributionSummary lote;
+    private final Counter apartadas;
+    private final AtomicLong antiguedadSegundos = new AtomicLong();
+
+    public NotificacionOutboxRelay(NotificacionOutboxRepository notificacionOutboxRepository,
+                                   KafkaTemplate<String, NotificacionRequestK> kafkaTemplate,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${prestamos.outbox.lote:100}") int tamanioLote,
+                                   @Value("${prestamos.outbox.espera-ms:10000}") long esperaMs,
+                                   @Value("${prestamos.outbox.max-intentos:10}") int maximoIntentos,
+                                   @Value("${prestamos.outbox.reintento-base-ms:1000}") long reintentoBaseMs) {
+        this.notificacionOutboxRepository = notificacionOutboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.tamanioLote = tamanioLote;
+        this.esperaMs = esperaMs;
+        this.maximoIntentos = maximoIntentos;
+        this.reintentoBaseMs = reintentoBaseMs;
+        this.lag = Timer.builder("prestamos.outbox.lag")
+                .description("Tiempo desde el registro en el outbox hasta la confirmación de Kafka")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.lote = DistributionSummary.builder("prestamos.outbox.lote")
+                .description("Notificaciones publicadas por ciclo del relay")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.apartadas = Counter.builder("prestamos.outbox.apartadas")
+                .description("Notificaciones que agotaron los intentos de publicación")
+                .register(meterRegistry);
+        meterRegistry.gauge("prestamos.outbox.antiguedad", antiguedadSegundos);
+    }
+
+    @Scheduled(fixedDelayString = "${prestamos.outbox.intervalo-ms:500}")
+    @Transactional
+    public int publicarPendientes() {
+        List<NotificacionOutbox> pendientes = notificacionOutboxRepository.buscarPublicables(maximoIntentos, Instant.now(),
+                Limit.of(tamanioLote));
+        lote.record(pendientes.size());
+        if (pendientes.isEmpty()) {
+            antiguedadSegundos.set(0);
+            return 0;
+        }
+        antiguedadSegundos.set(Duration.between(pendientes.get(0).getFechaCreacion(), Instant.now()).toSeconds());
+
+        List<CompletableFuture<SendResult<String, NotificacionRequestK>>> envios = new ArrayList<>(pendientes.size());
+        for (NotificacionOutbox pendiente : pendientes) {
+            envios.add(enviar(pendiente));
+        }
+
+        List<NotificacionOutbox> confirmadas = new ArrayList<>(pendientes.size());
+        for (int i = 0; i < pendientes.size(); i++) {
+            NotificacionOutbox pendiente = pendientes.get(i);
+            try {
+                envios.get(i).get(esperaMs, TimeUnit.MILLISECONDS);
+                lag.record(Duration.between(pendiente.getFechaCreacion(), Instant.now()));
+                confirmadas.add(pendiente);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception ex) {
+                registrarFallo(pendiente);
+            }
+        }
+        notificacionOutboxRepository.deleteAllInBatch(confirmadas);
+        return confirmadas.size();
+    }
+
+    private void registrarFallo(NotificacionOutbox pendiente) {
+        int intentos = pendiente.getIntentos() + 1;
+        pendiente.setIntentos(intentos);
+        if (intentos >= maximoIntentos) {
+            apartadas.increment();
+            return;
+        }
+        Duration espera = Duration.ofMillis(reintentoBaseMs << Math.min(intentos - 1, 20));
+        pendiente.setProximoIntento(Instant.now().plus(espera.compareTo(ESPERA_MAXIMA) < 0 ? espera : ESPERA_MAXIMA));
+    }
+
+    private CompletableFuture<SendResult<String, NotificacionRequestK>> enviar(NotificacionOutbox pendiente) {
+        try {
+            return kafkaTemplate.send(pendiente.getTopico(),
+                    objectMapper.readValue(pendiente.getPayload(), NotificacionRequestK.class));
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+}
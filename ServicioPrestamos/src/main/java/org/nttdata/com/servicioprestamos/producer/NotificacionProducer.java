@@ -1,16 +1,35 @@
 package org.nttdata.com.servicioprestamos.producer;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.models.NotificacionOutbox;
 import org.nttdata.com.servicioprestamos.producer.dto.NotificacionRequestK;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.nttdata.com.servicioprestamos.repository.NotificacionOutboxRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
 
 @Service
 @RequiredArgsConstructor
 public class NotificacionProducer {
-    private final KafkaTemplate<String, NotificacionRequestK> kafkaTemplate;
+    public static final String TOPICO = "notificaciones";
+
+    private final NotificacionOutboxRepository notificacionOutboxRepository;
+    private final ObjectMapper objectMapper;
 
+    // Se registra en el outbox dentro de la transacción del llamador; NotificacionOutboxRelay la publica en Kafka
+    @Transactional
     public void enviarNotificacion(NotificacionRequestK notificacionRequest) {
-        kafkaTemplate.send("notificaciones", notificacionRequest);
+        try {
+            notificacionOutboxRepository.save(NotificacionOutbox.builder()
+                    .topico(TOPICO)
+                    .payload(objectMapper.writeValueAsString(notificacionRequest))
+                    .fechaCreacion(Instant.now())
+                    .build());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar la notificación", ex);
+        }
     }
 }
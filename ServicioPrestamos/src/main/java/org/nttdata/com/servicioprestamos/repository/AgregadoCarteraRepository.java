@@ -0,0 +1,12 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.AgregadoCartera;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AgregadoCarteraRepository extends JpaRepository<AgregadoCartera, AgregadoCartera.Clave>, AgregadoCarteraRepositoryCustom {
+    List<AgregadoCartera> findAllByOrderByDimensionAscClaveAsc();
+}
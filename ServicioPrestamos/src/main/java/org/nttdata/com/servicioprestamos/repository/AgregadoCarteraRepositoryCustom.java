@@ -0,0 +1,47 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.DimensionCartera;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface AgregadoCarteraRepositoryCustom {
+    /**
+     * Préstamos agrupados por estado, mes de desembolso (yyyy-MM, null si no se desembolsó) y plazo.
+     * En los incrementos por pago cantidad y monto son cero.
+     */
+    record GrupoCartera(Long estadoPrestamoId, String mesDesembolso, Integer plazoMeses,
+                        long cantidad, BigDecimal monto, BigDecimal montoPagado) {}
+
+    /**
+     * Incremento (o decremento, con valores negativos) de una fila de agregados_cartera.
+     */
+    record DeltaCartera(DimensionCartera dimension, String clave, long cantidad, BigDecimal monto, BigDecimal montoPagado) {}
+
+    /**
+     * Toda la cartera en una pasada GROUP BY sobre prestamos, con lo cobrado de sus cuotas PAGADA.
+     */
+    List<GrupoCartera> agruparCartera();
+
+    /**
+     * Importe de las cuotas indicadas agrupado por el estado, mes de desembolso y plazo de su préstamo.
+     */
+    List<GrupoCartera> agruparPagos(Collection<Long> cuotaIds);
+
+    BigDecimal pagadoDePrestamo(Long prestamoId);
+
+    // Igual que pagadoDePrestamo para varios préstamos; los que no tienen cuotas PAGADA no aparecen
+    Map<Long, BigDecimal> pagadoDePrestamos(Collection<Long> prestamoIds);
+
+    /**
+     * Suma cada delta a su fila con INSERT ... ON CONFLICT DO UPDATE; el incremento es atómico por fila.
+     */
+    void acumular(Collection<DeltaCartera> deltas);
+
+    /**
+     * Vacía la tabla y la vuelve a cargar con {@code totales}.
+     */
+    void reemplazar(Collection<DeltaCartera> totales);
+}
@@ -0,0 +1,111 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class AgregadoCarteraRepositoryCustomImpl implements AgregadoCarteraRepositoryCustom {
+    private static final long ESTADO_CUOTA_PAGADA = 2L;
+
+    private static final String SQL_CARTERA = """
+            select p.estado_prestamo_id, to_char(p.fecha_desembolso, 'YYYY-MM') as mes, p.plazo_meses,
+                   count(*) as cantidad, coalesce(sum(p.monto), 0) as monto, coalesce(sum(pg.pagado), 0) as monto_pagado
+            from prestamos p
+            left join (select prestamo_id, sum(monto) as pagado from cuotas
+                       where estado_cuota_id = :pagada group by prestamo_id) pg on pg.prestamo_id = p.id
+            group by 1, 2, 3
+            """;
+    private static final String SQL_PAGOS = """
+            select p.estado_prestamo_id, to_char(p.fecha_desembolso, 'YYYY-MM') as mes, p.plazo_meses,
+                   0 as cantidad, 0 as monto, sum(c.monto) as monto_pagado
+            from cuotas c join prestamos p on p.id = c.prestamo_id
+            where c.id in (:ids)
+            group by 1, 2, 3
+            """;
+    private static final String SQL_PAGADO_PRESTAMO = """
+            select coalesce(sum(monto), 0) from cuotas where prestamo_id = :prestamoId and estado_cuota_id = :pagada
+            """;
+    private static final String SQL_PAGADO_PRESTAMOS = """
+            select prestamo_id, sum(monto) as pagado from cuotas
+            where prestamo_id in (:prestamoIds) and estado_cuota_id = :pagada
+            group by prestamo_id
+            """;
+    private static final String SQL_ACUMULAR = """
+            insert into agregados_cartera (dimension, clave, cantidad, monto, monto_pagado)
+            values (:dimension, :clave, :cantidad, :monto, :montoPagado)
+            on conflict (dimension, clave) do update set
+                cantidad = agregados_cartera.cantidad + excluded.cantidad,
+                monto = agregados_cartera.monto + excluded.monto,
+                monto_pagado = agregados_cartera.monto_pagado + excluded.monto_pagado
+            """;
+
+    private static final RowMapper<GrupoCartera> GRUPO = (rs, fila) -> {
+        long estado = rs.getLong("estado_prestamo_id");
+        Long estadoPrestamoId = rs.wasNull() ? null : estado;
+        int plazo = rs.getInt("plazo_meses");
+        Integer plazoMeses = rs.wasNull() ? null : plazo;
+        return new GrupoCartera(estadoPrestamoId, rs.getString("mes"), plazoMeses,
+                rs.getLong("cantidad"), rs.getBigDecimal("monto"), rs.getBigDecimal("monto_pagado"));
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<GrupoCartera> agruparCartera() {
+        return jdbcTemplate.query(SQL_CARTERA, new MapSqlParameterSource("pagada", ESTADO_CUOTA_PAGADA), GRUPO);
+    }
+
+    @Override
+    public List<GrupoCartera> agruparPagos(Collection<Long> cuotaIds) {
+        return jdbcTemplate.query(SQL_PAGOS, new MapSqlParameterSource("ids", cuotaIds), GRUPO);
+    }
+
+    @Override
+    public BigDecimal pagadoDePrestamo(Long prestamoId) {
+        return jdbcTemplate.queryForObject(SQL_PAGADO_PRESTAMO, new MapSqlParameterSource()
+                .addValue("prestamoId", prestamoId)
+                .addValue("pagada", ESTADO_CUOTA_PAGADA), BigDecimal.class);
+    }
+
+    @Override
+    public Map<Long, BigDecimal> pagadoDePrestamos(Collection<Long> prestamoIds) {
+        Map<Long, BigDecimal> pagados = new HashMap<>();
+        jdbcTemplate.query(SQL_PAGADO_PRESTAMOS, new MapSqlParameterSource()
+                        .addValue("prestamoIds", prestamoIds)
+                        .addValue("pagada", ESTADO_CUOTA_PAGADA),
+                (RowCallbackHandler) rs -> pagados.put(rs.getLong("prestamo_id"), rs.getBigDecimal("pagado")));
+        return pagados;
+    }
+
+    @Override
+    public void acumular(Collection<DeltaCartera> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] lote = deltas.stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("dimension", delta.dimension().name())
+                        .addValue("clave", delta.clave())
+                        .addValue("cantidad", delta.cantidad())
+                        .addValue("monto", delta.monto())
+                        .addValue("montoPagado", delta.montoPagado()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(SQL_ACUMULAR, lote);
+    }
+
+    @Override
+    public void reemplazar(Collection<DeltaCartera> totales) {
+        jdbcTemplate.update("delete from agregados_cartera", new MapSqlParameterSource());
+        acumular(totales);
+    }
+}
@@ -0,0 +1,11 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.AgregadoMora;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface AgregadoMoraRepository extends JpaRepository<AgregadoMora, LocalDate>, AgregadoMoraRepositoryCustom {
+}
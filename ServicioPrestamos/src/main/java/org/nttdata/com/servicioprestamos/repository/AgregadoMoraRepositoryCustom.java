@@ -0,0 +1,73 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface AgregadoMoraRepositoryCustom {
+    /**
+     * Aporte de un préstamo: vencimiento de su cuota pendiente más antigua y saldo pendiente total.
+     */
+    record EstadoMora(LocalDate fecha, BigDecimal saldo) {}
+
+    /**
+     * Incremento (o decremento, con valores negativos) de una fila de agregados_mora.
+     */
+    record DeltaMora(LocalDate fecha, long prestamos, BigDecimal saldo) {}
+
+    /**
+     * Totales de un tramo: 1 = 1-30 días, 2 = 31-60, 3 = 61-90, 4 = más de 90.
+     */
+    record TramoMora(int tramo, long prestamos, BigDecimal saldo) {}
+
+    /**
+     * Préstamo APROBADO con una de sus cuotas guardadas (numero null si no tiene ninguna).
+     * saldo es lo que falta cobrar de la cuota.
+     */
+    record FilaCronograma(long prestamoId, BigDecimal monto, BigDecimal tasaInteres, int plazoMeses,
+                          MetodoAmortizacion metodo, LocalDate fechaDesembolso, boolean virtual,
+                          Integer numero, LocalDate fechaVencimiento, Long estadoCuotaId, BigDecimal saldo) {}
+
+    List<Long> prestamosDeCuotas(Collection<Long> cuotaIds);
+
+    /**
+     * Bloquea (creándola si falta) la fila de mora_prestamos de cada préstamo, en orden de id para no
+     * provocar interbloqueos, y devuelve lo que aporta cada uno; los que no aportan nada no aparecen.
+     */
+    Map<Long, EstadoMora> bloquear(Collection<Long> prestamoIds);
+
+    /**
+     * Guarda el aporte de cada préstamo; un valor null borra su fila.
+     */
+    void guardarEstados(Map<Long, EstadoMora> estados);
+
+    /**
+     * Suma cada delta a su fila con INSERT ... ON CONFLICT DO UPDATE.
+     */
+    void acumular(Collection<DeltaMora> deltas);
+
+    /**
+     * Totales por tramo de las fechas anteriores a {@code hoy}. Lee una fila por fecha con mora, no por préstamo.
+     */
+    List<TramoMora> agruparTramos(LocalDate hoy);
+
+    /**
+     * Recorre con un cursor los préstamos APROBADO y sus cuotas en orden (prestamoId, numero);
+     * {@code prestamoIds} null recorre toda la cartera. Debe llamarse dentro de una transacción.
+     */
+    void recorrerCronogramas(Collection<Long> prestamoIds, Consumer<FilaCronograma> consumidor);
+
+    Map<Long, EstadoMora> estadosGuardados();
+
+    List<DeltaMora> agregadosGuardados();
+
+    /**
+     * Vacía mora_prestamos y agregados_mora y las vuelve a cargar.
+     */
+    void reemplazar(Map<Long, EstadoMora> estados, Collection<DeltaMora> totales);
+}
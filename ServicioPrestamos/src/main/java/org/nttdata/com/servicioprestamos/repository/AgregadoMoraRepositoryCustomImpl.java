@@ -0,0 +1,202 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class AgregadoMoraRepositoryCustomImpl implements AgregadoMoraRepositoryCustom {
+    private static final long PRESTAMO_APROBADO = 2L;
+    // Filas por viaje al recorrer la cartera con cursor
+    private static final int TAMANIO_FETCH = 2_000;
+
+    private static final String SQL_PRESTAMOS_DE_CUOTAS = """
+            select distinct prestamo_id from cuotas where id in (:ids)
+            """;
+    private static final String SQL_CREAR_ESTADO = """
+            insert into mora_prestamos (prestamo_id, saldo) values (:id, 0) on conflict do nothing
+            """;
+    private static final String SQL_BLOQUEAR = """
+            select prestamo_id, fecha, saldo from mora_prestamos
+            where prestamo_id in (:ids)
+            order by prestamo_id
+            for update
+            """;
+    private static final String SQL_GUARDAR_ESTADO = """
+            update mora_prestamos set fecha = :fecha, saldo = :saldo where prestamo_id = :id
+            """;
+    private static final String SQL_INSERTAR_ESTADO = """
+            insert into mora_prestamos (prestamo_id, fecha, saldo) values (:id, :fecha, :saldo)
+            """;
+    private static final String SQL_ACUMULAR = """
+            insert into agregados_mora (fecha, prestamos, saldo)
+            values (:fecha, :prestamos, :saldo)
+            on conflict (fecha) do update set
+                prestamos = agregados_mora.prestamos + excluded.prestamos,
+                saldo = agregados_mora.saldo + excluded.saldo
+            """;
+    // Días de mora = hoy - fecha: 1-30 es fecha >= hoy-30, y así con cada límite
+    private static final String SQL_TRAMOS = """
+            select case when fecha >= :limite30 then 1 when fecha >= :limite60 then 2 when fecha >= :limite90 then 3 else 4 end as tramo,
+                   sum(prestamos) as prestamos, sum(saldo) as saldo
+            from agregados_mora
+            where fecha < :hoy and prestamos <> 0
+            group by 1
+            """;
+    private static final String SQL_CRONOGRAMAS = """
+            select p.id, p.monto, p.tasa_interes, p.plazo_meses, p.metodo_amortizacion, p.fecha_desembolso,
+                   coalesce(p.cronograma_virtual, false) as virtual,
+                   c.numero, c.fecha_vencimiento, c.estado_cuota_id, c.monto - coalesce(c.monto_pagado, 0) as saldo
+            from prestamos p
+            left join cuotas c on c.prestamo_id = p.id
+            where p.estado_prestamo_id = :aprobado %s
+            order by p.id, c.numero
+            """;
+    private static final String SQL_CARTERA = SQL_CRONOGRAMAS.formatted("");
+    private static final String SQL_PRESTAMOS = SQL_CRONOGRAMAS.formatted("and p.id in (:ids)");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> prestamosDeCuotas(Collection<Long> cuotaIds) {
+        return jdbcTemplate.queryForList(SQL_PRESTAMOS_DE_CUOTAS, new MapSqlParameterSource("ids", cuotaIds), Long.class);
+    }
+
+    @Override
+    public Map<Long, EstadoMora> bloquear(Collection<Long> prestamoIds) {
+        jdbcTemplate.batchUpdate(SQL_CREAR_ESTADO, prestamoIds.stream().sorted()
+                .map(id -> new MapSqlParameterSource("id", id))
+                .toArray(SqlParameterSource[]::new));
+        Map<Long, EstadoMora> estados = new HashMap<>();
+        jdbcTemplate.query(SQL_BLOQUEAR, new MapSqlParameterSource("ids", prestamoIds), (RowCallbackHandler) rs -> {
+            Date fecha = rs.getDate("fecha");
+            if (fecha != null) {
+                estados.put(rs.getLong("prestamo_id"), new EstadoMora(fecha.toLocalDate(), rs.getBigDecimal("saldo")));
+            }
+        });
+        return estados;
+    }
+
+    @Override
+    public void guardarEstados(Map<Long, EstadoMora> estados) {
+        List<Long> borrar = estados.entrySet().stream()
+                .filter(estado -> estado.getValue() == null)
+                .map(Map.Entry::getKey)
+                .toList();
+        SqlParameterSource[] lote = estados.entrySet().stream()
+                .filter(estado -> estado.getValue() != null)
+                .map(estado -> parametrosEstado(estado.getKey(), estado.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        if (lote.length > 0) {
+            jdbcTemplate.batchUpdate(SQL_GUARDAR_ESTADO, lote);
+        }
+        if (!borrar.isEmpty()) {
+            jdbcTemplate.update("delete from mora_prestamos where prestamo_id in (:ids)", new MapSqlParameterSource("ids", borrar));
+        }
+    }
+
+    @Override
+    public void acumular(Collection<DeltaMora> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] lote = deltas.stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("fecha", Date.valueOf(delta.fecha()))
+                        .addValue("prestamos", delta.prestamos())
+                        .addValue("saldo", delta.saldo()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(SQL_ACUMULAR, lote);
+    }
+
+    @Override
+    public List<TramoMora> agruparTramos(LocalDate hoy) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("hoy", Date.valueOf(hoy))
+                .addValue("limite30", Date.valueOf(hoy.minusDays(30)))
+                .addValue("limite60", Date.valueOf(hoy.minusDays(60)))
+                .addValue("limite90", Date.valueOf(hoy.minusDays(90)));
+        return jdbcTemplate.query(SQL_TRAMOS, parametros, (rs, fila) ->
+                new TramoMora(rs.getInt("tramo"), rs.getLong("prestamos"), rs.getBigDecimal("saldo")));
+    }
+
+    @Override
+    public void recorrerCronogramas(Collection<Long> prestamoIds, Consumer<FilaCronograma> consumidor) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource("aprobado", PRESTAMO_APROBADO);
+        NamedParameterJdbcTemplate plantilla = jdbcTemplate;
+        String sql = SQL_CARTERA;
+        if (prestamoIds != null) {
+            parametros.addValue("ids", prestamoIds);
+            sql = SQL_PRESTAMOS;
+        } else {
+            JdbcTemplate cursor = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().getDataSource()));
+            cursor.setFetchSize(TAMANIO_FETCH);
+            plantilla = new NamedParameterJdbcTemplate(cursor);
+        }
+        plantilla.query(sql, parametros, (RowCallbackHandler) rs -> {
+            String metodo = rs.getString("metodo_amortizacion");
+            Date desembolso = rs.getDate("fecha_desembolso");
+            int numero = rs.getInt("numero");
+            boolean sinCuota = rs.wasNull();
+            Date vencimiento = rs.getDate("fecha_vencimiento");
+            long estado = rs.getLong("estado_cuota_id");
+            consumidor.accept(new FilaCronograma(
+                    rs.getLong("id"),
+                    rs.getBigDecimal("monto"),
+                    rs.getBigDecimal("tasa_interes"),
+                    rs.getInt("plazo_meses"),
+                    metodo == null ? null : MetodoAmortizacion.valueOf(metodo),
+                    desembolso == null ? null : desembolso.toLocalDate(),
+                    rs.getBoolean("virtual"),
+                    sinCuota ? null : numero,
+                    vencimiento == null ? null : vencimiento.toLocalDate(),
+                    sinCuota ? null : estado,
+                    rs.getBigDecimal("saldo")));
+        });
+    }
+
+    @Override
+    public Map<Long, EstadoMora> estadosGuardados() {
+        Map<Long, EstadoMora> estados = new HashMap<>();
+        jdbcTemplate.query("select prestamo_id, fecha, saldo from mora_prestamos where fecha is not null",
+                (RowCallbackHandler) rs -> estados.put(rs.getLong("prestamo_id"),
+                        new EstadoMora(rs.getDate("fecha").toLocalDate(), rs.getBigDecimal("saldo"))));
+        return estados;
+    }
+
+    @Override
+    public List<DeltaMora> agregadosGuardados() {
+        return jdbcTemplate.query("select fecha, prestamos, saldo from agregados_mora where prestamos <> 0 or saldo <> 0",
+                (rs, fila) -> new DeltaMora(rs.getDate("fecha").toLocalDate(), rs.getLong("prestamos"), rs.getBigDecimal("saldo")));
+    }
+
+    @Override
+    public void reemplazar(Map<Long, EstadoMora> estados, Collection<DeltaMora> totales) {
+        jdbcTemplate.update("delete from mora_prestamos", new MapSqlParameterSource());
+        jdbcTemplate.update("delete from agregados_mora", new MapSqlParameterSource());
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_ESTADO, estados.entrySet().stream()
+                .map(estado -> parametrosEstado(estado.getKey(), estado.getValue()))
+                .toArray(SqlParameterSource[]::new));
+        acumular(totales);
+    }
+
+    private static MapSqlParameterSource parametrosEstado(Long prestamoId, EstadoMora estado) {
+        return new MapSqlParameterSource()
+                .addValue("id", prestamoId)
+                .addValue("fecha", Date.valueOf(estado.fecha()))
+                .addValue("saldo", estado.saldo());
+    }
+}
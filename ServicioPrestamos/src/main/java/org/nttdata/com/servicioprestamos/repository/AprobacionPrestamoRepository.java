@@ -0,0 +1,16 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.AprobacionPrestamo;
+import org.nttdata.com.servicioprestamos.models.EstadoAprobacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface AprobacionPrestamoRepository extends JpaRepository<AprobacionPrestamo, Long> {
+    // Sagas activas sin avances desde limite: el proceso que las ejecutaba se detuvo
+    List<AprobacionPrestamo> findByEstadoInAndFechaActualizacionBefore(Collection<EstadoAprobacion> estados, Date limite);
+}
@@ -0,0 +1,61 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import org.nttdata.com.servicioprestamos.dto.FiltroCuotaRequest;
+import org.nttdata.com.servicioprestamos.models.Cuota;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CuotaEspecificaciones {
+    private CuotaEspecificaciones() {
+    }
+
+    /**
+     * Filtros opcionales más la condición de cursor (fechaVencimiento, id) > (despuesDeFecha, despuesDeId).
+     * Estado, préstamo y estado del préstamo se traen en el mismo SELECT (CuotaResponse los incluye).
+     */
+    public static Specification<Cuota> conFiltros(FiltroCuotaRequest filtro, LocalDate despuesDeFecha, Long despuesDeId) {
+        return (root, query, cb) -> {
+            root.fetch("estadoCuota");
+            @SuppressWarnings("unchecked")
+            Join<Cuota, Prestamo> prestamo = (Join<Cuota, Prestamo>) root.<Cuota, Prestamo>fetch("prestamo");
+            prestamo.fetch("estadoPrestamo");
+
+            List<Predicate> condiciones = new ArrayList<>();
+            if (filtro.estadoCuotaId() != null) {
+                condiciones.add(cb.equal(root.get("estadoCuota").get("id"), filtro.estadoCuotaId()));
+            }
+            if (filtro.prestamoId() != null) {
+                condiciones.add(cb.equal(prestamo.get("id"), filtro.prestamoId()));
+            }
+            if (filtro.clienteId() != null) {
+                condiciones.add(cb.equal(prestamo.get("clienteId"), filtro.clienteId()));
+            }
+            if (filtro.desde() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(root.get("fechaVencimiento"), Date.valueOf(filtro.desde())));
+            }
+            if (filtro.hasta() != null) {
+                condiciones.add(cb.lessThanOrEqualTo(root.get("fechaVencimiento"), Date.valueOf(filtro.hasta())));
+            }
+            if (filtro.montoMinimo() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(root.get("monto"), filtro.montoMinimo()));
+            }
+            if (filtro.montoMaximo() != null) {
+                condiciones.add(cb.lessThanOrEqualTo(root.get("monto"), filtro.montoMaximo()));
+            }
+            if (despuesDeFecha != null && despuesDeId != null) {
+                Date fecha = Date.valueOf(despuesDeFecha);
+                condiciones.add(cb.or(
+                        cb.greaterThan(root.get("fechaVencimiento"), fecha),
+                        cb.and(cb.equal(root.get("fechaVencimiento"), fecha), cb.greaterThan(root.get("id"), despuesDeId))));
+            }
+            return cb.and(condiciones.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -2,11 +2,28 @@ package org.nttdata.com.servicioprestamos.repository;
 
 import org.nttdata.com.servicioprestamos.models.Cuota;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface CuotaRepository extends JpaRepository<Cuota, Long> {
+public interface CuotaRepository extends JpaRepository<Cuota, Long>, JpaSpecificationExecutor<Cuota>, CuotaRepositoryCustom {
     List<Cuota> findByPrestamoId(Long prestamoId);
+
+    Optional<Cuota> findByPrestamoIdAndNumero(Long prestamoId, Integer numero);
+
+    // Una sola consulta para validar un pago de varias cuotas: trae estado y préstamo en el mismo SELECT
+    @Query("select c from Cuota c join fetch c.estadoCuota join fetch c.prestamo p join fetch p.estadoPrestamo " +
+            "where c.id in :ids order by c.fechaVencimiento, c.id")
+    List<Cuota> buscarParaPago(@Param("ids") Collection<Long> ids);
+
+    // Cuotas por cobrar de un préstamo en el orden en que se les aplica un pago
+    @Query("select c from Cuota c join fetch c.estadoCuota where c.prestamo.id = :prestamoId " +
+            "and c.estadoCuota.id in :estados order by c.fechaVencimiento, c.numero")
+    List<Cuota> buscarPorCobrar(@Param("prestamoId") Long prestamoId, @Param("estados") Collection<Long> estados);
 }
@@ -0,0 +1,102 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface CuotaRepositoryCustom {
+    /**
+     * Resultado de un lote del barrido: filas actualizadas y la última clave (fechaVencimiento, id) visitada,
+     * que es el cursor del siguiente lote. ultimoId null indica que no quedan cuotas vencidas.
+     */
+    record LoteAtrasadas(int filas, LocalDate ultimaFecha, Long ultimoId) {}
+
+    /**
+     * Pasa a ATRASADA hasta {@code tamanio} cuotas PENDIENTE vencidas antes de {@code hoy}, posteriores
+     * al cursor (null en el primer lote), con un único UPDATE y sin cargar entidades.
+     */
+    LoteAtrasadas marcarAtrasadas(LocalDate hoy, LocalDate ultimaFecha, Long ultimoId, int tamanio);
+
+    /**
+     * Cuota a cobrar por débito automático, con la cuenta de su préstamo ya resuelta.
+     */
+    record CuotaDebito(Long id, Long cuentaId, BigDecimal monto, LocalDate fechaVencimiento) {}
+
+    /**
+     * Cuotas PENDIENTE o ATRASADA con vencimiento hasta {@code hoy} de préstamos APROBADO,
+     * ordenadas por (cuentaId, fechaVencimiento, id) para agruparlas por cuenta sin reordenar.
+     */
+    List<CuotaDebito> buscarParaDebito(LocalDate hoy);
+
+    /**
+     * Pasa a PAGADA, con montoPagado = monto, las cuotas que sigan PENDIENTE o ATRASADA y cuyo saldo siga siendo
+     * el {@code monto} de la CuotaDebito. Devuelve cuántas cambió: menos que {@code cuotas.size()} indica que otra
+     * operación pagó o abonó alguna en paralelo.
+     */
+    int marcarPagadas(List<CuotaDebito> cuotas);
+
+    /**
+     * Revierte marcarPagadas: resta lo cobrado de montoPagado y vuelve a ATRASADA si el vencimiento es anterior
+     * a {@code hoy}, si no a PENDIENTE.
+     */
+    int liberarCuotas(List<CuotaDebito> cuotas, LocalDate hoy);
+
+    /**
+     * Abono a una cuota: {@code aplicado} se suma a montoPagado y, si la liquida, pasa a PAGADA.
+     * {@code pagadoAnterior} es el montoPagado leído al calcular la asignación.
+     */
+    record Abono(Long id, BigDecimal pagadoAnterior, BigDecimal aplicado, boolean liquida) {}
+
+    /**
+     * Registra los abonos en un batch. Cada cuota debe seguir PENDIENTE o ATRASADA y con el mismo montoPagado;
+     * devuelve cuántas cambió: menos que {@code abonos.size()} indica que otro pago se adelantó.
+     */
+    int registrarAbonos(List<Abono> abonos);
+
+    /**
+     * Revierte registrarAbonos: resta lo aplicado y devuelve las cuotas liquidadas a ATRASADA o PENDIENTE según {@code hoy}.
+     */
+    int revertirAbonos(List<Abono> abonos, LocalDate hoy);
+
+    /**
+     * Nuevos valores de una cuota sin pagar al recalcular el cronograma. {@code pagado} es el montoPagado
+     * leído al planificar.
+     */
+    record CuotaRecalculada(Long id, BigDecimal pagado, LocalDate fechaVencimiento, BigDecimal monto, BigDecimal capital) {}
+
+    /**
+     * Reescribe en un batch las cuotas recalculadas que sigan PENDIENTE o ATRASADA con el mismo montoPagado,
+     * y ajusta su estado a la nueva fecha. Menos filas que {@code cuotas.size()} indica que otro pago se adelantó.
+     */
+    int actualizarCronograma(List<CuotaRecalculada> cuotas, LocalDate hoy);
+
+    /**
+     * Borra las cuotas indicadas que sigan PENDIENTE o ATRASADA y sin abonos. Devuelve cuántas borró.
+     */
+    int eliminarNoPagadas(Collection<Long> ids);
+
+    /**
+     * Cuota PENDIENTE o ATRASADA de un préstamo APROBADO con cronograma persistido.
+     */
+    record FlujoPendiente(long prestamoId, BigDecimal monto, LocalDate fechaVencimiento, boolean atrasada) {}
+
+    /**
+     * Préstamo APROBADO con cronograma virtual y los números de cuota ya saldados (PAGADA o CANCELADA).
+     */
+    record PrestamoVirtual(long id, BigDecimal monto, BigDecimal tasaInteres, int plazoMeses, MetodoAmortizacion metodo,
+                           LocalDate fechaDesembolso, Set<Integer> saldadas) {}
+
+    /**
+     * Recorre con un cursor (sin cargar la lista) las cuotas pendientes de la cartera activa, en orden
+     * (prestamoId, fechaVencimiento). Debe llamarse dentro de una transacción para que el driver
+     * traiga las filas por bloques.
+     */
+    void recorrerFlujosPendientes(Consumer<FlujoPendiente> consumidor);
+
+    void recorrerPrestamosVirtuales(Consumer<PrestamoVirtual> consumidor);
+}
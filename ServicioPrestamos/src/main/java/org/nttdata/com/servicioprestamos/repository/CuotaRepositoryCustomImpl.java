@@ -0,0 +1,272 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Array;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class CuotaRepositoryCustomImpl implements CuotaRepositoryCustom {
+    private static final long ESTADO_PENDIENTE = 1L;
+    private static final long ESTADO_PAGADA = 2L;
+    private static final long ESTADO_ATRASADA = 3L;
+    private static final long ESTADO_CANCELADA = 4L;
+    private static final long PRESTAMO_APROBADO = 2L;
+    // Filas por viaje al recorrer la cartera con cursor
+    private static final int TAMANIO_FETCH = 2_000;
+
+    // Recorre idx_cuotas_estado_vencimiento en orden (fecha_vencimiento, id); SKIP LOCKED evita esperar
+    // filas que un pago está modificando. El CTE "lote" se evalúa una sola vez y da también el cursor.
+    private static final String SQL = """
+            with lote as (
+                select id, fecha_vencimiento from cuotas
+                where estado_cuota_id = :pendiente and fecha_vencimiento < :hoy
+                %s
+                order by fecha_vencimiento, id
+                limit :tamanio
+                for update skip locked
+            ), actualizadas as (
+                update cuotas c set estado_cuota_id = :atrasada
+                from lote where c.id = lote.id
+                returning c.id
+            )
+            select (select count(*) from actualizadas) as filas,
+                   (select fecha_vencimiento from lote order by fecha_vencimiento desc, id desc limit 1) as ultima_fecha,
+                   (select id from lote order by fecha_vencimiento desc, id desc limit 1) as ultimo_id
+            """;
+    private static final String SQL_PRIMER_LOTE = SQL.formatted("");
+    private static final String SQL_SIGUIENTE_LOTE = SQL.formatted("and (fecha_vencimiento, id) > (:ultimaFecha, :ultimoId)");
+
+    private static final String SQL_PARA_DEBITO = """
+            select c.id, p.cuenta_id, c.monto - coalesce(c.monto_pagado, 0) as monto, c.fecha_vencimiento from cuotas c
+            join prestamos p on p.id = c.prestamo_id
+            where c.estado_cuota_id in (:pendiente, :atrasada) and c.fecha_vencimiento <= :hoy
+              and p.estado_prestamo_id = :aprobado
+            order by p.cuenta_id, c.fecha_vencimiento, c.id
+            """;
+    // Lo cobrado es el saldo leído: si un abono se adelantó, montoPagado ya no es monto - :cobrado y la fila no cambia
+    private static final String SQL_MARCAR_PAGADAS = """
+            update cuotas set estado_cuota_id = :pagada, monto_pagado = monto
+            where id = :id and estado_cuota_id in (:pendiente, :atrasada) and coalesce(monto_pagado, 0) = monto - :cobrado
+            """;
+    private static final String SQL_LIBERAR = """
+            update cuotas set monto_pagado = monto_pagado - :cobrado,
+                              estado_cuota_id = case when fecha_vencimiento < :hoy then :atrasada else :pendiente end
+            where id = :id and estado_cuota_id = :pagada
+            """;
+    private static final String SQL_REGISTRAR_ABONO = """
+            update cuotas set monto_pagado = coalesce(monto_pagado, 0) + :aplicado,
+                              estado_cuota_id = case when :liquida then :pagada else estado_cuota_id end
+            where id = :id and estado_cuota_id in (:pendiente, :atrasada) and coalesce(monto_pagado, 0) = :pagadoAnterior
+            """;
+    private static final String SQL_REVERTIR_ABONO = """
+            update cuotas set monto_pagado = monto_pagado - :aplicado,
+                              estado_cuota_id = case when :liquida and estado_cuota_id = :pagada
+                                  then case when fecha_vencimiento < :hoy then :atrasada else :pendiente end
+                                  else estado_cuota_id end
+            where id = :id
+            """;
+    // El estado se recalcula con la nueva fecha; el montoPagado leído al planificar detecta abonos concurrentes
+    private static final String SQL_ACTUALIZAR_CRONOGRAMA = """
+            update cuotas set fecha_vencimiento = :fechaVencimiento, monto = :monto, capital = :capital,
+                              estado_cuota_id = case when :fechaVencimiento < :hoy then :atrasada else :pendiente end
+            where id = :id and estado_cuota_id in (:pendiente, :atrasada) and coalesce(monto_pagado, 0) = :pagado
+            """;
+    private static final String SQL_ELIMINAR_NO_PAGADAS = """
+            delete from cuotas
+            where id in (:ids) and estado_cuota_id in (:pendiente, :atrasada) and coalesce(monto_pagado, 0) = 0
+            """;
+
+    // Recorre idx_cuotas_prestamo_vencimiento en orden; los préstamos virtuales se leen aparte
+    private static final String SQL_FLUJOS_PENDIENTES = """
+            select c.prestamo_id, c.monto - coalesce(c.monto_pagado, 0) as monto, c.fecha_vencimiento, c.estado_cuota_id from cuotas c
+            join prestamos p on p.id = c.prestamo_id
+            where p.estado_prestamo_id = :aprobado and c.estado_cuota_id in (:pendiente, :atrasada)
+              and coalesce(p.cronograma_virtual, false) = false
+            order by c.prestamo_id, c.fecha_vencimiento, c.id
+            """;
+    private static final String SQL_PRESTAMOS_VIRTUALES = """
+            select p.id, p.monto, p.tasa_interes, p.plazo_meses, p.metodo_amortizacion, p.fecha_desembolso,
+                   array_agg(c.numero) filter (where c.estado_cuota_id in (:pagada, :cancelada)) as saldadas
+            from prestamos p
+            left join cuotas c on c.prestamo_id = p.id
+            where p.estado_prestamo_id = :aprobado and p.cronograma_virtual
+            group by p.id
+            order by p.id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public LoteAtrasadas marcarAtrasadas(LocalDate hoy, LocalDate ultimaFecha, Long ultimoId, int tamanio) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("pendiente", ESTADO_PENDIENTE)
+                .addValue("atrasada", ESTADO_ATRASADA)
+                .addValue("hoy", Date.valueOf(hoy))
+                .addValue("tamanio", tamanio);
+        String sql = SQL_PRIMER_LOTE;
+        if (ultimoId != null) {
+            parametros.addValue("ultimaFecha", Date.valueOf(ultimaFecha)).addValue("ultimoId", ultimoId);
+            sql = SQL_SIGUIENTE_LOTE;
+        }
+        return jdbcTemplate.queryForObject(sql, parametros, (rs, fila) -> {
+            Date fecha = rs.getDate("ultima_fecha");
+            long id = rs.getLong("ultimo_id");
+            return new LoteAtrasadas(rs.getInt("filas"),
+                    fecha != null ? fecha.toLocalDate() : null,
+                    rs.wasNull() ? null : id);
+        });
+    }
+
+    @Override
+    public List<CuotaDebito> buscarParaDebito(LocalDate hoy) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("pendiente", ESTADO_PENDIENTE)
+                .addValue("atrasada", ESTADO_ATRASADA)
+                .addValue("aprobado", PRESTAMO_APROBADO)
+                .addValue("hoy", Date.valueOf(hoy));
+        return jdbcTemplate.query(SQL_PARA_DEBITO, parametros, (rs, fila) -> new CuotaDebito(
+                rs.getLong("id"),
+                rs.getLong("cuenta_id"),
+                rs.getBigDecimal("monto"),
+                rs.getDate("fecha_vencimiento").toLocalDate()));
+    }
+
+    @Override
+    public int marcarPagadas(List<CuotaDebito> cuotas) {
+        return Arrays.stream(jdbcTemplate.batchUpdate(SQL_MARCAR_PAGADAS, cuotas.stream()
+                        .map(cuota -> parametrosCobro(cuota))
+                        .toArray(SqlParameterSource[]::new)))
+                .sum();
+    }
+
+    @Override
+    public int liberarCuotas(List<CuotaDebito> cuotas, LocalDate hoy) {
+        return Arrays.stream(jdbcTemplate.batchUpdate(SQL_LIBERAR, cuotas.stream()
+                        .map(cuota -> parametrosCobro(cuota).addValue("hoy", Date.valueOf(hoy)))
+                        .toArray(SqlParameterSource[]::new)))
+                .sum();
+    }
+
+    private static MapSqlParameterSource parametrosCobro(CuotaDebito cuota) {
+        return new MapSqlParameterSource()
+                .addValue("id", cuota.id())
+                .addValue("cobrado", cuota.monto())
+                .addValue("pagada", ESTADO_PAGADA)
+                .addValue("pendiente", ESTADO_PENDIENTE)
+                .addValue("atrasada", ESTADO_ATRASADA);
+    }
+
+    @Override
+    public int registrarAbonos(List<Abono> abonos) {
+        return Arrays.stream(jdbcTemplate.batchUpdate(SQL_REGISTRAR_ABONO, abonos.stream()
+                        .map(abono -> parametrosAbono(abono)
+                                .addValue("pagadoAnterior", abono.pagadoAnterior())
+                                .addValue("pendiente", ESTADO_PENDIENTE)
+                                .addValue("atrasada", ESTADO_ATRASADA))
+                        .toArray(SqlParameterSource[]::new)))
+                .sum();
+    }
+
+    @Override
+    public int revertirAbonos(List<Abono> abonos, LocalDate hoy) {
+        return Arrays.stream(jdbcTemplate.batchUpdate(SQL_REVERTIR_ABONO, abonos.stream()
+                        .map(abono -> parametrosAbono(abono)
+                                .addValue("hoy", Date.valueOf(hoy))
+                                .addValue("pendiente", ESTADO_PENDIENTE)
+                                .addValue("atrasada", ESTADO_ATRASADA))
+                        .toArray(SqlParameterSource[]::new)))
+                .sum();
+    }
+
+    private static MapSqlParameterSource parametrosAbono(Abono abono) {
+        return new MapSqlParameterSource()
+                .addValue("id", abono.id())
+                .addValue("aplicado", abono.aplicado())
+                .addValue("liquida", abono.liquida())
+                .addValue("pagada", ESTADO_PAGADA);
+    }
+
+    @Override
+    public int actualizarCronograma(List<CuotaRecalculada> cuotas, LocalDate hoy) {
+        return Arrays.stream(jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_CRONOGRAMA, cuotas.stream()
+                        .map(cuota -> new MapSqlParameterSource()
+                                .addValue("id", cuota.id())
+                                .addValue("pagado", cuota.pagado())
+                                .addValue("fechaVencimiento", Date.valueOf(cuota.fechaVencimiento()))
+                                .addValue("monto", cuota.monto())
+                                .addValue("capital", cuota.capital())
+                                .addValue("hoy", Date.valueOf(hoy))
+                                .addValue("pendiente", ESTADO_PENDIENTE)
+                                .addValue("atrasada", ESTADO_ATRASADA))
+                        .toArray(SqlParameterSource[]::new)))
+                .sum();
+    }
+
+    @Override
+    public int eliminarNoPagadas(Collection<Long> ids) {
+        return jdbcTemplate.update(SQL_ELIMINAR_NO_PAGADAS, new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("pendiente", ESTADO_PENDIENTE)
+                .addValue("atrasada", ESTADO_ATRASADA));
+    }
+
+    @Override
+    public void recorrerFlujosPendientes(Consumer<FlujoPendiente> consumidor) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("aprobado", PRESTAMO_APROBADO)
+                .addValue("pendiente", ESTADO_PENDIENTE)
+                .addValue("atrasada", ESTADO_ATRASADA);
+        conCursor().query(SQL_FLUJOS_PENDIENTES, parametros, (RowCallbackHandler) rs -> consumidor.accept(new FlujoPendiente(
+                rs.getLong("prestamo_id"),
+                rs.getBigDecimal("monto"),
+                rs.getDate("fecha_vencimiento").toLocalDate(),
+                rs.getLong("estado_cuota_id") == ESTADO_ATRASADA)));
+    }
+
+    @Override
+    public void recorrerPrestamosVirtuales(Consumer<PrestamoVirtual> consumidor) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("aprobado", PRESTAMO_APROBADO)
+                .addValue("pagada", ESTADO_PAGADA)
+                .addValue("cancelada", ESTADO_CANCELADA);
+        conCursor().query(SQL_PRESTAMOS_VIRTUALES, parametros, (RowCallbackHandler) rs -> {
+            Set<Integer> saldadas = new HashSet<>();
+            Array numeros = rs.getArray("saldadas");
+            if (numeros != null) {
+                for (Object numero : (Object[]) numeros.getArray()) {
+                    saldadas.add(((Number) numero).intValue());
+                }
+            }
+            String metodo = rs.getString("metodo_amortizacion");
+            consumidor.accept(new PrestamoVirtual(
+                    rs.getLong("id"),
+                    rs.getBigDecimal("monto"),
+                    rs.getBigDecimal("tasa_interes"),
+                    rs.getInt("plazo_meses"),
+                    metodo != null ? MetodoAmortizacion.valueOf(metodo) : MetodoAmortizacion.PLANO,
+                    rs.getDate("fecha_desembolso").toLocalDate(),
+                    saldadas));
+        });
+    }
+
+    // Misma conexión y transacción, pero con fetch size: PostgreSQL solo usa cursor con autocommit desactivado
+    private NamedParameterJdbcTemplate conCursor() {
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        cursor.setFetchSize(TAMANIO_FETCH);
+        return new NamedParameterJdbcTemplate(cursor);
+    }
+}
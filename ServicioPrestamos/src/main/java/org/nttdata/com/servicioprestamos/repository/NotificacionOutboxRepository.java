@@ -0,0 +1,30 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.nttdata.com.servicioprestamos.models.NotificacionOutbox;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface NotificacionOutboxRepository extends JpaRepository<NotificacionOutbox, Long> {
+    // SELECT ... FOR UPDATE SKIP LOCKED: varias instancias del servicio pueden drenar la tabla sin repetir filas.
+    // Salta las que esperan su próximo intento y las apartadas por agotar los intentos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select n from NotificacionOutbox n
+            where n.intentos < :maximoIntentos and (n.proximoIntento is null or n.proximoIntento <= :ahora)
+            order by n.id
+            """)
+    List<NotificacionOutbox> buscarPublicables(@Param("maximoIntentos") int maximoIntentos,
+                                               @Param("ahora") Instant ahora, Limit limit);
+}
@@ -0,0 +1,12 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.OfertaPreaprobada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OfertaPreaprobadaRepository extends JpaRepository<OfertaPreaprobada, Long>, OfertaPreaprobadaRepositoryCustom {
+    List<OfertaPreaprobada> findByClienteIdOrderByPlazoMesesAsc(Long clienteId);
+}
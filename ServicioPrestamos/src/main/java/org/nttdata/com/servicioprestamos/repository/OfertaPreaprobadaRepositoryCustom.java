@@ -0,0 +1,13 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.OfertaPreaprobada;
+
+import java.util.Collection;
+
+public interface OfertaPreaprobadaRepositoryCustom {
+    // Inserta o reemplaza (por cuenta y plazo) las ofertas de un lote en un solo batch
+    void guardarLote(Collection<OfertaPreaprobada> ofertas);
+
+    // Borra las ofertas que la ejecución actual no volvió a escribir (cuentas que dejaron de calificar)
+    int eliminarAnteriores(long generacion);
+}
@@ -0,0 +1,57 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.models.OfertaPreaprobada;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class OfertaPreaprobadaRepositoryCustomImpl implements OfertaPreaprobadaRepositoryCustom {
+    private static final String SQL_GUARDAR = """
+            insert into ofertas_preaprobadas (cliente_id, cuenta_id, plazo_meses, tasa_interes, metodo_amortizacion,
+                                              monto_maximo, cuota_estimada, capacidad_pago, fecha_generacion, generacion)
+            values (:clienteId, :cuentaId, :plazoMeses, :tasaInteres, :metodoAmortizacion,
+                    :montoMaximo, :cuotaEstimada, :capacidadPago, :fechaGeneracion, :generacion)
+            on conflict (cuenta_id, plazo_meses) do update set
+                cliente_id = excluded.cliente_id,
+                tasa_interes = excluded.tasa_interes,
+                metodo_amortizacion = excluded.metodo_amortizacion,
+                monto_maximo = excluded.monto_maximo,
+                cuota_estimada = excluded.cuota_estimada,
+                capacidad_pago = excluded.capacidad_pago,
+                fecha_generacion = excluded.fecha_generacion,
+                generacion = excluded.generacion
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void guardarLote(Collection<OfertaPreaprobada> ofertas) {
+        if (ofertas.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] lote = ofertas.stream()
+                .map(oferta -> new MapSqlParameterSource()
+                        .addValue("clienteId", oferta.getClienteId())
+                        .addValue("cuentaId", oferta.getCuentaId())
+                        .addValue("plazoMeses", oferta.getPlazoMeses())
+                        .addValue("tasaInteres", oferta.getTasaInteres())
+                        .addValue("metodoAmortizacion", oferta.getMetodoAmortizacion().name())
+                        .addValue("montoMaximo", oferta.getMontoMaximo())
+                        .addValue("cuotaEstimada", oferta.getCuotaEstimada())
+                        .addValue("capacidadPago", oferta.getCapacidadPago())
+                        .addValue("fechaGeneracion", oferta.getFechaGeneracion())
+                        .addValue("generacion", oferta.getGeneracion()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(SQL_GUARDAR, lote);
+    }
+
+    @Override
+    public int eliminarAnteriores(long generacion) {
+        return jdbcTemplate.update("delete from ofertas_preaprobadas where generacion < :generacion",
+                new MapSqlParameterSource("generacion", generacion));
+    }
+}
@@ -0,0 +1,49 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import jakarta.persistence.criteria.Predicate;
+import org.nttdata.com.servicioprestamos.dto.FiltroPrestamoRequest;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class PrestamoEspecificaciones {
+    private PrestamoEspecificaciones() {
+    }
+
+    /**
+     * Filtros opcionales más la condición de cursor id > despuesDe; con orden por id cada página
+     * es un recorrido de índice que no depende de cuántas páginas se leyeron antes.
+     * El estado se trae en el mismo SELECT para no hacer una consulta por préstamo.
+     */
+    public static Specification<Prestamo> conFiltros(FiltroPrestamoRequest filtro) {
+        return (root, query, cb) -> {
+            root.fetch("estadoPrestamo");
+            List<Predicate> condiciones = new ArrayList<>();
+            if (filtro.estadoPrestamoId() != null) {
+                condiciones.add(cb.equal(root.get("estadoPrestamo").get("id"), filtro.estadoPrestamoId()));
+            }
+            if (filtro.clienteId() != null) {
+                condiciones.add(cb.equal(root.get("clienteId"), filtro.clienteId()));
+            }
+            if (filtro.desde() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(root.get("fechaDesembolso"), Date.valueOf(filtro.desde())));
+            }
+            if (filtro.hasta() != null) {
+                condiciones.add(cb.lessThanOrEqualTo(root.get("fechaDesembolso"), Date.valueOf(filtro.hasta())));
+            }
+            if (filtro.montoMinimo() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(root.get("monto"), filtro.montoMinimo()));
+            }
+            if (filtro.montoMaximo() != null) {
+                condiciones.add(cb.lessThanOrEqualTo(root.get("monto"), filtro.montoMaximo()));
+            }
+            if (filtro.despuesDe() != null) {
+                condiciones.add(cb.greaterThan(root.get("id"), filtro.despuesDe()));
+            }
+            return cb.and(condiciones.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -2,13 +2,31 @@ package org.nttdata.com.servicioprestamos.repository;
 
 import org.nttdata.com.servicioprestamos.models.Prestamo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
+public interface PrestamoRepository extends JpaRepository<Prestamo, Long>, JpaSpecificationExecutor<Prestamo>, PrestamoRepositoryCustom {
     List<Prestamo> findByClienteId(Long clienteId);
 
     List<Prestamo> findByClienteIdAndEstadoPrestamoId(Long clienteId, Long estadoPrestamoId);
+
+    // Préstamos por cliente en un estado, para varios clientes en una consulta
+    interface ConteoCliente {
+        Long getClienteId();
+        long getCantidad();
+    }
+
+    @Query("""
+            select p.clienteId as clienteId, count(p) as cantidad from prestamos p
+            where p.clienteId in :clienteIds and p.estadoPrestamo.id = :estadoPrestamoId
+            group by p.clienteId
+            """)
+    List<ConteoCliente> contarPorClienteYEstado(@Param("clienteIds") Collection<Long> clienteIds,
+                                                @Param("estadoPrestamoId") Long estadoPrestamoId);
 }
@@ -0,0 +1,51 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface PrestamoRepositoryCustom {
+    // Préstamo que cambió de estado, con los campos que necesitan los agregados de cartera
+    record PrestamoTransicionado(Long id, Long estadoAnteriorId, BigDecimal monto, Integer plazoMeses, Date fechaDesembolso) {}
+
+    // Inserta préstamos nuevos en un solo batch y asigna a cada entidad el id generado
+    void insertarLote(List<Prestamo> prestamos);
+
+    /**
+     * Pasa a {@code destino} hasta {@code tamanio} préstamos con id mayor que {@code ultimoId} cuyo estado está en
+     * {@code origenes}, con un solo UPDATE de conjunto y sin cargar entidades. Los préstamos bloqueados por otra
+     * transacción se saltan. Devuelve los actualizados en orden de id: el último es el cursor del lote siguiente.
+     *
+     * @param ids                 si no es null, solo esos préstamos
+     * @param solicitadosAntesDe  si no es null, solo los solicitados antes de esa fecha
+     * @param cuotasPagadas       exige que tenga cuotas y ninguna PENDIENTE o ATRASADA
+     */
+    List<PrestamoTransicionado> transicionar(Collection<Long> origenes, long destino, Collection<Long> ids,
+                                             LocalDate solicitadosAntesDe, boolean cuotasPagadas,
+                                             long ultimoId, int tamanio);
+
+    /**
+     * Reserva para una aprobación los préstamos de {@code ids} que siguen PENDIENTE y sin reserva, con un UPDATE
+     * condicional: de dos aprobaciones simultáneas del mismo préstamo solo una lo recibe. Devuelve los reservados.
+     */
+    List<Long> reservarAprobacion(Collection<Long> ids);
+
+    // Quita la reserva al terminar la aprobación, haya confirmado o no
+    void liberarAprobacion(Collection<Long> ids);
+
+    // Quita las reservas tomadas antes de limite que ya no tienen una saga de aprobación activa
+    int liberarReservasVencidas(Instant limite);
+
+    /**
+     * Suma un prepago al préstamo con un UPDATE de sus columnas de prepago, sin cargar ni fusionar la entidad,
+     * y lo deja con cronograma guardado. Solo actualiza si sigue APROBADO y con los acumulados que se leyeron
+     * ({@code capitalAnterior}, {@code cuotasAnteriores}); devuelve false si otro cambio llegó antes.
+     */
+    boolean registrarPrepago(Long id, BigDecimal capitalAnterior, int cuotasAnteriores,
+                             BigDecimal monto, int cuotasQuitadas);
+}
@@ -0,0 +1,180 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class PrestamoRepositoryCustomImpl implements PrestamoRepositoryCustom {
+    // Con ids IDENTITY Hibernate no agrupa los INSERT; aquí van todos en un batch JDBC.
+    // cronograma_virtual se omite para que tome su valor por defecto (false)
+    private static final String SQL_INSERTAR = """
+            insert into prestamos (cliente_id, cuenta_id, monto, plazo_meses, tasa_interes, metodo_amortizacion,
+                                   estado_prestamo_id, fecha_desembolso, fecha_solicitud)
+            values (:clienteId, :cuentaId, :monto, :plazoMeses, :tasaInteres, :metodoAmortizacion,
+                    :estadoPrestamoId, :fechaDesembolso, current_date)
+            """;
+
+    // Mismo esquema que el barrido de cuotas: el CTE "lote" bloquea con SKIP LOCKED sobre idx_prestamos_estado_id
+    // y el UPDATE devuelve el estado anterior, que ya no se puede leer de la fila actualizada.
+    // Un préstamo con una aprobación en curso no se cancela ni se rechaza debajo de ella
+    private static final String SQL_TRANSICIONAR = """
+            with lote as (
+                select p.id, p.estado_prestamo_id from prestamos p
+                where p.estado_prestamo_id in (:origenes) and p.id > :ultimoId
+                and p.aprobacion_reservada is null
+                %s
+                order by p.id
+                limit :tamanio
+                for update skip locked
+            )
+            update prestamos p set estado_prestamo_id = :destino
+            from lote where p.id = lote.id
+            returning p.id, lote.estado_prestamo_id as estado_anterior, p.monto, p.plazo_meses, p.fecha_desembolso
+            """;
+    // Un préstamo virtual guarda solo las cuotas que cambiaron: deben estar todas como PAGADA
+    private static final String CONDICION_CUOTAS_PAGADAS = """
+            and exists (select 1 from cuotas c where c.prestamo_id = p.id)
+            and not exists (select 1 from cuotas c where c.prestamo_id = p.id and c.estado_cuota_id in (:pendiente, :atrasada))
+            and (coalesce(p.cronograma_virtual, false) = false
+                 or (select count(*) from cuotas c where c.prestamo_id = p.id and c.estado_cuota_id = :pagada) >= p.plazo_meses)
+            """;
+    private static final String SQL_RESERVAR = """
+            update prestamos set aprobacion_reservada = current_timestamp
+            where id in (:ids) and estado_prestamo_id = :pendiente and aprobacion_reservada is null
+            returning id
+            """;
+    private static final String SQL_LIBERAR = """
+            update prestamos set aprobacion_reservada = null where id in (:ids) and aprobacion_reservada is not null
+            """;
+    // Reservas de procesos caídos: las sagas vencidas ya se cerraron, las activas que quedan siguen en curso
+    private static final String SQL_LIBERAR_VENCIDAS = """
+            update prestamos p set aprobacion_reservada = null
+            where p.aprobacion_reservada < :limite
+            and not exists (select 1 from aprobaciones_prestamo a
+                            where a.prestamo_id = p.id and a.estado in ('PENDIENTE', 'EN_PROCESO'))
+            """;
+    private static final String SQL_REGISTRAR_PREPAGO = """
+            update prestamos set capital_prepagado = coalesce(capital_prepagado, 0) + :monto,
+                                 cuotas_prepagadas = coalesce(cuotas_prepagadas, 0) + :cuotasQuitadas,
+                                 cronograma_virtual = false
+            where id = :id and estado_prestamo_id = :aprobado
+            and coalesce(capital_prepagado, 0) = :capitalAnterior and coalesce(cuotas_prepagadas, 0) = :cuotasAnteriores
+            """;
+    private static final long PRESTAMO_PENDIENTE = 1L;
+    private static final long PRESTAMO_APROBADO = 2L;
+    private static final long CUOTA_PENDIENTE = 1L;
+    private static final long CUOTA_PAGADA = 2L;
+    private static final long CUOTA_ATRASADA = 3L;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertarLote(List<Prestamo> prestamos) {
+        if (prestamos.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] lote = prestamos.stream()
+                .map(prestamo -> new MapSqlParameterSource()
+                        .addValue("clienteId", prestamo.getClienteId())
+                        .addValue("cuentaId", prestamo.getCuentaId())
+                        .addValue("monto", prestamo.getMonto())
+                        .addValue("plazoMeses", prestamo.getPlazoMeses())
+                        .addValue("tasaInteres", prestamo.getTasaInteres())
+                        .addValue("metodoAmortizacion", prestamo.getMetodoAmortizacion() != null
+                                ? prestamo.getMetodoAmortizacion().name() : null)
+                        .addValue("estadoPrestamoId", prestamo.getEstadoPrestamo() != null
+                                ? prestamo.getEstadoPrestamo().getId() : null)
+                        .addValue("fechaDesembolso", prestamo.getFechaDesembolso()))
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, lote, claves, new String[]{"id"});
+        List<Map<String, Object>> ids = claves.getKeyList();
+        for (int i = 0; i < prestamos.size(); i++) {
+            prestamos.get(i).setId(((Number) ids.get(i).get("id")).longValue());
+        }
+    }
+
+    @Override
+    public List<PrestamoTransicionado> transicionar(Collection<Long> origenes, long destino, Collection<Long> ids,
+                                                    LocalDate solicitadosAntesDe, boolean cuotasPagadas,
+                                                    long ultimoId, int tamanio) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("origenes", origenes)
+                .addValue("destino", destino)
+                .addValue("ultimoId", ultimoId)
+                .addValue("tamanio", tamanio);
+        StringBuilder condiciones = new StringBuilder();
+        if (ids != null) {
+            condiciones.append("and p.id in (:ids)\n");
+            parametros.addValue("ids", ids);
+        }
+        if (solicitadosAntesDe != null) {
+            condiciones.append("and p.fecha_solicitud < :solicitadosAntesDe\n");
+            parametros.addValue("solicitadosAntesDe", Date.valueOf(solicitadosAntesDe));
+        }
+        if (cuotasPagadas) {
+            condiciones.append(CONDICION_CUOTAS_PAGADAS);
+            parametros.addValue("pendiente", CUOTA_PENDIENTE)
+                    .addValue("atrasada", CUOTA_ATRASADA)
+                    .addValue("pagada", CUOTA_PAGADA);
+        }
+        List<PrestamoTransicionado> actualizados = jdbcTemplate.query(SQL_TRANSICIONAR.formatted(condiciones), parametros,
+                (rs, fila) -> {
+                    int plazo = rs.getInt("plazo_meses");
+                    Integer plazoMeses = rs.wasNull() ? null : plazo;
+                    return new PrestamoTransicionado(rs.getLong("id"), rs.getLong("estado_anterior"),
+                            rs.getBigDecimal("monto"), plazoMeses, rs.getDate("fecha_desembolso"));
+                });
+        // RETURNING no garantiza el orden del CTE
+        return actualizados.stream().sorted(Comparator.comparing(PrestamoTransicionado::id)).toList();
+    }
+
+    @Override
+    public List<Long> reservarAprobacion(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(SQL_RESERVAR, new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("pendiente", PRESTAMO_PENDIENTE), Long.class);
+    }
+
+    @Override
+    public void liberarAprobacion(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            jdbcTemplate.update(SQL_LIBERAR, new MapSqlParameterSource("ids", ids));
+        }
+    }
+
+    @Override
+    public int liberarReservasVencidas(Instant limite) {
+        return jdbcTemplate.update(SQL_LIBERAR_VENCIDAS, new MapSqlParameterSource("limite", Timestamp.from(limite)));
+    }
+
+    @Override
+    public boolean registrarPrepago(Long id, BigDecimal capitalAnterior, int cuotasAnteriores,
+                                    BigDecimal monto, int cuotasQuitadas) {
+        return jdbcTemplate.update(SQL_REGISTRAR_PREPAGO, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("aprobado", PRESTAMO_APROBADO)
+                .addValue("capitalAnterior", capitalAnterior)
+                .addValue("cuotasAnteriores", cuotasAnteriores)
+                .addValue("monto", monto)
+                .addValue("cuotasQuitadas", cuotasQuitadas)) == 1;
+    }
+}
@@ -0,0 +1,13 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.ResumenPrestamo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ResumenPrestamoRepository extends JpaRepository<ResumenPrestamo, Long>, ResumenPrestamoRepositoryCustom {
+    // Recorre idx_resumenes_prestamo_cliente; sin llamadas remotas ni join con cuotas
+    List<ResumenPrestamo> findByClienteIdOrderByPrestamoId(Long clienteId);
+}
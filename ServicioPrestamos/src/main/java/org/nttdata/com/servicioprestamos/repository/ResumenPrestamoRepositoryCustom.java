@@ -0,0 +1,41 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.models.ResumenPrestamo;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ResumenPrestamoRepositoryCustom {
+    /**
+     * Un préstamo con una de sus cuotas guardadas; las columnas de cuota son null si no tiene ninguna.
+     * saldo es lo que falta pagar de la cuota.
+     */
+    record FilaPrestamo(long prestamoId, Long clienteId, Long cuentaId, Long estadoPrestamoId, String estadoPrestamo,
+                        BigDecimal monto, BigDecimal tasaInteres, Integer plazoMeses, MetodoAmortizacion metodo,
+                        LocalDate fechaDesembolso, boolean virtual,
+                        Integer numero, LocalDate fechaVencimiento, Long estadoCuotaId, BigDecimal saldo) {}
+
+    List<Long> prestamosDeCuotas(Collection<Long> cuotaIds);
+
+    /**
+     * Crea las filas que falten y las bloquea en orden de id: dos recálculos del mismo préstamo no se cruzan.
+     */
+    void bloquear(Collection<Long> prestamoIds);
+
+    /**
+     * Recorre los préstamos con sus cuotas ordenados por préstamo y número. Con {@code prestamoIds} null recorre
+     * todos con cursor.
+     */
+    void recorrerPrestamos(Collection<Long> prestamoIds, Consumer<FilaPrestamo> consumidor);
+
+    // INSERT ... ON CONFLICT DO UPDATE en un batch
+    void guardar(Collection<ResumenPrestamo> resumenes);
+
+    void eliminar(Collection<Long> prestamoIds);
+
+    void eliminarTodos();
+}
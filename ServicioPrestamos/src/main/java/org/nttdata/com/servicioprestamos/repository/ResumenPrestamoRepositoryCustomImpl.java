@@ -0,0 +1,169 @@
+package org.nttdata.com.servicioprestamos.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.models.ResumenPrestamo;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class ResumenPrestamoRepositoryCustomImpl implements ResumenPrestamoRepositoryCustom {
+    // Filas por viaje al recorrer la cartera con cursor
+    private static final int TAMANIO_FETCH = 2_000;
+
+    private static final String SQL_PRESTAMOS_DE_CUOTAS = """
+            select distinct prestamo_id from cuotas where id in (:ids)
+            """;
+    private static final String SQL_CREAR = """
+            insert into resumenes_prestamo (prestamo_id) values (:id) on conflict do nothing
+            """;
+    private static final String SQL_BLOQUEAR = """
+            select prestamo_id from resumenes_prestamo
+            where prestamo_id in (:ids)
+            order by prestamo_id
+            for update
+            """;
+    private static final String SQL_PRESTAMOS = """
+            select p.id, p.cliente_id, p.cuenta_id, p.estado_prestamo_id, e.nombre as estado, p.monto, p.tasa_interes,
+                   p.plazo_meses, p.metodo_amortizacion, p.fecha_desembolso,
+                   coalesce(p.cronograma_virtual, false) as virtual,
+                   c.numero, c.fecha_vencimiento, c.estado_cuota_id, c.monto - coalesce(c.monto_pagado, 0) as saldo
+            from prestamos p
+            left join estado_prestamos e on e.id = p.estado_prestamo_id
+            left join cuotas c on c.prestamo_id = p.id
+            %s
+            order by p.id, c.numero
+            """;
+    private static final String SQL_CARTERA = SQL_PRESTAMOS.formatted("");
+    private static final String SQL_POR_IDS = SQL_PRESTAMOS.formatted("where p.id in (:ids)");
+    private static final String SQL_GUARDAR = """
+            insert into resumenes_prestamo (prestamo_id, cliente_id, cuenta_id, estado_prestamo_id, estado_prestamo,
+                                            monto, plazo_meses, fecha_desembolso, saldo_pendiente, cuotas_pendientes,
+                                            proxima_cuota_numero, proxima_cuota_vencimiento, proxima_cuota_monto)
+            values (:prestamoId, :clienteId, :cuentaId, :estadoPrestamoId, :estadoPrestamo,
+                    :monto, :plazoMeses, :fechaDesembolso, :saldoPendiente, :cuotasPendientes,
+                    :proximaCuotaNumero, :proximaCuotaVencimiento, :proximaCuotaMonto)
+            on conflict (prestamo_id) do update set
+                cliente_id = excluded.cliente_id,
+                cuenta_id = excluded.cuenta_id,
+                estado_prestamo_id = excluded.estado_prestamo_id,
+                estado_prestamo = excluded.estado_prestamo,
+                monto = excluded.monto,
+                plazo_meses = excluded.plazo_meses,
+                fecha_desembolso = excluded.fecha_desembolso,
+                saldo_pendiente = excluded.saldo_pendiente,
+                cuotas_pendientes = excluded.cuotas_pendientes,
+                proxima_cuota_numero = excluded.proxima_cuota_numero,
+                proxima_cuota_vencimiento = excluded.proxima_cuota_vencimiento,
+                proxima_cuota_monto = excluded.proxima_cuota_monto
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> prestamosDeCuotas(Collection<Long> cuotaIds) {
+        return jdbcTemplate.queryForList(SQL_PRESTAMOS_DE_CUOTAS, new MapSqlParameterSource("ids", cuotaIds), Long.class);
+    }
+
+    @Override
+    public void bloquear(Collection<Long> prestamoIds) {
+        jdbcTemplate.batchUpdate(SQL_CREAR, prestamoIds.stream().sorted()
+                .map(id -> new MapSqlParameterSource("id", id))
+                .toArray(SqlParameterSource[]::new));
+        jdbcTemplate.queryForList(SQL_BLOQUEAR, new MapSqlParameterSource("ids", prestamoIds), Long.class);
+    }
+
+    @Override
+    public void recorrerPrestamos(Collection<Long> prestamoIds, Consumer<FilaPrestamo> consumidor) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        NamedParameterJdbcTemplate plantilla = jdbcTemplate;
+        String sql = SQL_CARTERA;
+        if (prestamoIds != null) {
+            parametros.addValue("ids", prestamoIds);
+            sql = SQL_POR_IDS;
+        } else {
+            JdbcTemplate cursor = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().getDataSource()));
+            cursor.setFetchSize(TAMANIO_FETCH);
+            plantilla = new NamedParameterJdbcTemplate(cursor);
+        }
+        plantilla.query(sql, parametros, (RowCallbackHandler) rs -> {
+            String metodo = rs.getString("metodo_amortizacion");
+            Date desembolso = rs.getDate("fecha_desembolso");
+            int plazo = rs.getInt("plazo_meses");
+            Integer plazoMeses = rs.wasNull() ? null : plazo;
+            long estadoPrestamo = rs.getLong("estado_prestamo_id");
+            Long estadoPrestamoId = rs.wasNull() ? null : estadoPrestamo;
+            int numero = rs.getInt("numero");
+            boolean sinCuota = rs.wasNull();
+            Date vencimiento = rs.getDate("fecha_vencimiento");
+            long estadoCuota = rs.getLong("estado_cuota_id");
+            consumidor.accept(new FilaPrestamo(
+                    rs.getLong("id"),
+                    rs.getObject("cliente_id", Long.class),
+                    rs.getObject("cuenta_id", Long.class),
+                    estadoPrestamoId,
+                    rs.getString("estado"),
+                    rs.getBigDecimal("monto"),
+                    rs.getBigDecimal("tasa_interes"),
+                    plazoMeses,
+                    metodo == null ? null : MetodoAmortizacion.valueOf(metodo),
+                    desembolso == null ? null : desembolso.toLocalDate(),
+                    rs.getBoolean("virtual"),
+                    sinCuota ? null : numero,
+                    vencimiento == null ? null : vencimiento.toLocalDate(),
+                    sinCuota ? null : estadoCuota,
+                    rs.getBigDecimal("saldo")));
+        });
+    }
+
+    @Override
+    public void guardar(Collection<ResumenPrestamo> resumenes) {
+        if (resumenes.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] lote = resumenes.stream()
+                .map(resumen -> new MapSqlParameterSource()
+                        .addValue("prestamoId", resumen.getPrestamoId())
+                        .addValue("clienteId", resumen.getClienteId())
+                        .addValue("cuentaId", resumen.getCuentaId())
+                        .addValue("estadoPrestamoId", resumen.getEstadoPrestamoId())
+                        .addValue("estadoPrestamo", resumen.getEstadoPrestamo())
+                        .addValue("monto", resumen.getMonto())
+                        .addValue("plazoMeses", resumen.getPlazoMeses())
+                        .addValue("fechaDesembolso", fecha(resumen.getFechaDesembolso()))
+                        .addValue("saldoPendiente", resumen.getSaldoPendiente())
+                        .addValue("cuotasPendientes", resumen.getCuotasPendientes())
+                        .addValue("proximaCuotaNumero", resumen.getProximaCuotaNumero())
+                        .addValue("proximaCuotaVencimiento", fecha(resumen.getProximaCuotaVencimiento()))
+                        .addValue("proximaCuotaMonto", resumen.getProximaCuotaMonto()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(SQL_GUARDAR, lote);
+    }
+
+    @Override
+    public void eliminar(Collection<Long> prestamoIds) {
+        if (prestamoIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("delete from resumenes_prestamo where prestamo_id in (:ids)", new MapSqlParameterSource("ids", prestamoIds));
+    }
+
+    @Override
+    public void eliminarTodos() {
+        jdbcTemplate.update("delete from resumenes_prestamo", new MapSqlParameterSource());
+    }
+
+    private static Date fecha(LocalDate fecha) {
+        return fecha == null ? null : Date.valueOf(fecha);
+    }
+}
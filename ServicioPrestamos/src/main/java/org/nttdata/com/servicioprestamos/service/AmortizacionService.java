@@ -0,0 +1,10 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+
+import java.math.BigDecimal;
+
+public interface AmortizacionService {
+    Cronograma calcular(BigDecimal monto, BigDecimal tasaInteres, int plazoMeses, MetodoAmortizacion metodo);
+}
@@ -0,0 +1,40 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+
+@Service
+public class AmortizacionServiceImpl implements AmortizacionService {
+    private final Cache<Clave, Cronograma> cronogramas;
+
+    // Los cronogramas son deterministas: cotizaciones y aprobaciones con los mismos parámetros reutilizan el mismo
+    private record Clave(long montoCentimos, long tasaMillonesimas, int plazoMeses, MetodoAmortizacion metodo) {}
+
+    public AmortizacionServiceImpl(MeterRegistry meterRegistry,
+                                   @Value("${prestamos.amortizacion.cache.maximo:10000}") long maximo) {
+        this.cronogramas = Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cronogramas, "prestamos.amortizacion");
+    }
+
+    @Override
+    public Cronograma calcular(BigDecimal monto, BigDecimal tasaInteres, int plazoMeses, MetodoAmortizacion metodo) {
+        Clave clave = new Clave(
+                Cronograma.aCentimos(monto),
+                Cronograma.aMillonesimas(tasaInteres),
+                plazoMeses,
+                metodo == null ? MetodoAmortizacion.PLANO : metodo);
+        return cronogramas.get(clave,
+                c -> Cronograma.generar(c.montoCentimos(), c.tasaMillonesimas(), c.plazoMeses(), c.metodo()));
+    }
+}
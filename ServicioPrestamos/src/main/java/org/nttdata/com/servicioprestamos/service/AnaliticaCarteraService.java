@@ -0,0 +1,34 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.CarteraResponse;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+
+public interface AnaliticaCarteraService {
+    /**
+     * Campos del préstamo que deciden en qué filas de la cartera cuenta. Se toma antes de modificar
+     * la entidad, porque JPA la cambia en el lugar.
+     */
+    record FotoPrestamo(Long id, Long estadoPrestamoId, BigDecimal monto, Integer plazoMeses, Date fechaDesembolso) {
+        public static FotoPrestamo de(Prestamo prestamo) {
+            return new FotoPrestamo(prestamo.getId(),
+                    prestamo.getEstadoPrestamo() != null ? prestamo.getEstadoPrestamo().getId() : null,
+                    prestamo.getMonto(), prestamo.getPlazoMeses(), prestamo.getFechaDesembolso());
+        }
+    }
+
+    CarteraResponse obtenerCartera();
+    CarteraResponse recalcular();
+    // antes null: préstamo nuevo; despues null: préstamo eliminado
+    void registrarCambio(FotoPrestamo antes, FotoPrestamo despues);
+    // Varios préstamos que pasan al mismo estado con un solo acumulado; antes son sus fotos previas
+    void registrarTransiciones(Collection<FotoPrestamo> antes, Long estadoPrestamoId);
+    // Varios préstamos nuevos con un solo acumulado
+    void registrarAltas(Collection<FotoPrestamo> nuevos);
+    void registrarPagos(Collection<Long> cuotaIds);
+    // Resta lo que registrarPagos sumó por esas cuotas: se llama antes de modificarlas o eliminarlas
+    void revertirPagos(Collection<Long> cuotaIds);
+}
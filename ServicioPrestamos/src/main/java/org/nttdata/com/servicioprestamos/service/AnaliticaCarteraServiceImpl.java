@@ -0,0 +1,213 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.dto.AgregadoCarteraResponse;
+import org.nttdata.com.servicioprestamos.dto.CarteraResponse;
+import org.nttdata.com.servicioprestamos.models.AgregadoCartera;
+import org.nttdata.com.servicioprestamos.models.DimensionCartera;
+import org.nttdata.com.servicioprestamos.models.EstadoPrestamo;
+import org.nttdata.com.servicioprestamos.repository.AgregadoCarteraRepository;
+import org.nttdata.com.servicioprestamos.repository.AgregadoCarteraRepositoryCustom.DeltaCartera;
+import org.nttdata.com.servicioprestamos.repository.AgregadoCarteraRepositoryCustom.GrupoCartera;
+import org.nttdata.com.servicioprestamos.repository.EstadoPrestamoRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class AnaliticaCarteraServiceImpl implements AnaliticaCarteraService {
+    private final AgregadoCarteraRepository agregadoCarteraRepository;
+    private final EstadoPrestamoRepository estadoPrestamoRepository;
+
+    // Límite superior de cada tramo de plazo; el último tramo es abierto
+    private static final int[] TRAMOS_PLAZO = {12, 24, 36, 48, 60};
+
+    // Claves ordenadas: dos transacciones que tocan las mismas filas las bloquean en el mismo orden
+    private static final Comparator<DeltaCartera> ORDEN = Comparator
+            .comparing(DeltaCartera::dimension)
+            .thenComparing(DeltaCartera::clave);
+
+    @Override
+    public CarteraResponse obtenerCartera() {
+        Map<String, String> estados = estadoPrestamoRepository.findAll().stream()
+                .collect(Collectors.toMap(estado -> String.valueOf(estado.getId()), EstadoPrestamo::getNombre));
+        Map<DimensionCartera, List<AgregadoCarteraResponse>> porDimension = new TreeMap<>();
+        for (AgregadoCartera agregado : agregadoCarteraRepository.findAllByOrderByDimensionAscClaveAsc()) {
+            // Filas que quedaron en cero tras eliminar o cambiar préstamos
+            if (agregado.getCantidad() == 0 && agregado.getMontoPagado().signum() == 0) {
+                continue;
+            }
+            String clave = agregado.getDimension() == DimensionCartera.ESTADO
+                    ? estados.getOrDefault(agregado.getClave(), agregado.getClave())
+                    : agregado.getClave();
+            porDimension.computeIfAbsent(agregado.getDimension(), d -> new ArrayList<>())
+                    .add(AgregadoCarteraResponse.builder()
+                            .clave(clave)
+                            .cantidad(agregado.getCantidad())
+                            .monto(agregado.getMonto())
+                            .montoPagado(agregado.getMontoPagado())
+                            .build());
+        }
+        return CarteraResponse.builder()
+                .porEstado(porDimension.getOrDefault(DimensionCartera.ESTADO, List.of()))
+                .porMesDesembolso(porDimension.getOrDefault(DimensionCartera.MES_DESEMBOLSO, List.of()))
+                .porPlazo(porDimension.getOrDefault(DimensionCartera.PLAZO, List.of()))
+                .build();
+    }
+
+    /**
+     * Reconstruye la tabla desde prestamos y cuotas. Corrige la deriva de incrementos que no se pudieron
+     * aplicar (ver CobroCuotasServiceImpl) y carga la tabla la primera vez.
+     */
+    @Override
+    @Transactional
+    @Scheduled(cron = "${prestamos.cartera.recalculo.cron:0 30 2 * * *}")
+    public CarteraResponse recalcular() {
+        Map<DeltaCartera, DeltaCartera> totales = new TreeMap<>(ORDEN);
+        for (GrupoCartera grupo : agregadoCarteraRepository.agruparCartera()) {
+            sumar(totales, grupo, 1);
+        }
+        agregadoCarteraRepository.reemplazar(totales.values());
+        return obtenerCartera();
+    }
+
+    @Override
+    @Transactional
+    public void registrarCambio(FotoPrestamo antes, FotoPrestamo despues) {
+        if (Objects.equals(antes, despues)) {
+            return;
+        }
+        // Lo cobrado solo existe en préstamos desembolsados y se mueve con ellos entre claves
+        BigDecimal pagado = antes != null && antes.id() != null && antes.fechaDesembolso() != null
+                ? agregadoCarteraRepository.pagadoDePrestamo(antes.id())
+                : BigDecimal.ZERO;
+        Map<DeltaCartera, DeltaCartera> deltas = new TreeMap<>(ORDEN);
+        if (antes != null) {
+            sumar(deltas, grupo(antes, pagado), -1);
+        }
+        if (despues != null) {
+            sumar(deltas, grupo(despues, pagado), 1);
+        }
+        acumular(deltas);
+    }
+
+    @Override
+    @Transactional
+    public void registrarTransiciones(Collection<FotoPrestamo> antes, Long estadoPrestamoId) {
+        if (antes.isEmpty()) {
+            return;
+        }
+        List<Long> desembolsados = antes.stream()
+                .filter(foto -> foto.id() != null && foto.fechaDesembolso() != null)
+                .map(FotoPrestamo::id)
+                .toList();
+        Map<Long, BigDecimal> pagados = desembolsados.isEmpty() ? Map.of()
+                : agregadoCarteraRepository.pagadoDePrestamos(desembolsados);
+        Map<DeltaCartera, DeltaCartera> deltas = new TreeMap<>(ORDEN);
+        for (FotoPrestamo foto : antes) {
+            BigDecimal pagado = foto.fechaDesembolso() != null ? pagados.getOrDefault(foto.id(), BigDecimal.ZERO) : BigDecimal.ZERO;
+            sumar(deltas, grupo(foto, pagado), -1);
+            sumar(deltas, grupo(new FotoPrestamo(foto.id(), estadoPrestamoId, foto.monto(), foto.plazoMeses(),
+                    foto.fechaDesembolso()), pagado), 1);
+        }
+        // Mes y plazo no cambian: sus deltas quedan en cero y acumular los descarta
+        acumular(deltas);
+    }
+
+    @Override
+    @Transactional
+    public void registrarAltas(Collection<FotoPrestamo> nuevos) {
+        if (nuevos.isEmpty()) {
+            return;
+        }
+        Map<DeltaCartera, DeltaCartera> deltas = new TreeMap<>(ORDEN);
+        for (FotoPrestamo nuevo : nuevos) {
+            sumar(deltas, grupo(nuevo, BigDecimal.ZERO), 1);
+        }
+        acumular(deltas);
+    }
+
+    @Override
+    @Transactional
+    public void registrarPagos(Collection<Long> cuotaIds) {
+        acumularPagos(cuotaIds, 1);
+    }
+
+    @Override
+    @Transactional
+    public void revertirPagos(Collection<Long> cuotaIds) {
+        acumularPagos(cuotaIds, -1);
+    }
+
+    private void acumularPagos(Collection<Long> cuotaIds, int signo) {
+        if (cuotaIds.isEmpty()) {
+            return;
+        }
+        Map<DeltaCartera, DeltaCartera> deltas = new TreeMap<>(ORDEN);
+        for (GrupoCartera grupo : agregadoCarteraRepository.agruparPagos(cuotaIds)) {
+            sumar(deltas, grupo, signo);
+        }
+        acumular(deltas);
+    }
+
+    private void acumular(Map<DeltaCartera, DeltaCartera> deltas) {
+        List<DeltaCartera> cambios = deltas.values().stream()
+                .filter(delta -> delta.cantidad() != 0 || delta.monto().signum() != 0 || delta.montoPagado().signum() != 0)
+                .toList();
+        agregadoCarteraRepository.acumular(cambios);
+    }
+
+    private static GrupoCartera grupo(FotoPrestamo foto, BigDecimal pagado) {
+        String mes = foto.fechaDesembolso() == null ? null
+                : YearMonth.from(Instant.ofEpochMilli(foto.fechaDesembolso().getTime()).atZone(ZoneId.systemDefault())).toString();
+        return new GrupoCartera(foto.estadoPrestamoId(), mes, foto.plazoMeses(), 1,
+                foto.monto() != null ? foto.monto() : BigDecimal.ZERO, pagado);
+    }
+
+    private static void sumar(Map<DeltaCartera, DeltaCartera> deltas, GrupoCartera grupo, int signo) {
+        sumar(deltas, DimensionCartera.ESTADO, String.valueOf(grupo.estadoPrestamoId()), grupo, signo);
+        if (grupo.mesDesembolso() != null) {
+            sumar(deltas, DimensionCartera.MES_DESEMBOLSO, grupo.mesDesembolso(), grupo, signo);
+            sumar(deltas, DimensionCartera.PLAZO, tramoPlazo(grupo.plazoMeses()), grupo, signo);
+        }
+    }
+
+    private static void sumar(Map<DeltaCartera, DeltaCartera> deltas, DimensionCartera dimension, String clave,
+                              GrupoCartera grupo, int signo) {
+        BigDecimal factor = BigDecimal.valueOf(signo);
+        DeltaCartera delta = new DeltaCartera(dimension, clave, signo * grupo.cantidad(),
+                grupo.monto().multiply(factor), grupo.montoPagado().multiply(factor));
+        deltas.merge(delta, delta, (actual, nuevo) -> new DeltaCartera(dimension, clave,
+                actual.cantidad() + nuevo.cantidad(),
+                actual.monto().add(nuevo.monto()),
+                actual.montoPagado().add(nuevo.montoPagado())));
+    }
+
+    static String tramoPlazo(Integer plazoMeses) {
+        if (plazoMeses == null) {
+            return "sin plazo";
+        }
+        int desde = 1;
+        for (int hasta : TRAMOS_PLAZO) {
+            if (plazoMeses <= hasta) {
+                return desde + "-" + hasta;
+            }
+            desde = hasta + 1;
+        }
+        return desde + "+";
+    }
+}
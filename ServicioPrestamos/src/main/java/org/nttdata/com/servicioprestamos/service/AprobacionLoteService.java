@@ -0,0 +1,12 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.ResultadoAprobacionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenAprobacionLoteResponse;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface AprobacionLoteService {
+    // alCompletar recibe el resultado de cada préstamo apenas se conoce (rechazo en la validación o fin de su cuenta)
+    ResumenAprobacionLoteResponse aprobarLote(List<Long> prestamoIds, Consumer<ResultadoAprobacionResponse> alCompletar);
+}
@@ -0,0 +1,258 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.ClienteResponse;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.dto.PrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.ResultadoAprobacionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenAprobacionLoteResponse;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository.ConteoCliente;
+import org.nttdata.com.servicioprestamos.service.PrestamoServiceImpl.DatosAprobacion;
+import org.nttdata.com.servicioprestamos.util.EjecutorParalelo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.nttdata.com.servicioprestamos.util.EjecutorParalelo.esperar;
+
+/**
+ * Aprobación de muchos préstamos a la vez para el back-office. Frente a POST /prestamos/aprobar/{id} repetido:
+ * <ul>
+ *     <li>los préstamos se leen con un findAllById y los préstamos activos de todos los clientes con un COUNT agrupado;</li>
+ *     <li>cada cliente y cada cuenta distintos se consultan una sola vez, todos en paralelo;</li>
+ *     <li>por cuenta hay un lote de transacciones de desembolso, un único ajuste atómico del saldo por el total
+ *     y una confirmación local (estados, cuotas en un solo batch y notificaciones) en una transacción.</li>
+ * </ul>
+ * Las cuentas se procesan en un pool de tamaño fijo. Si un paso de una cuenta falla se compensan sus pasos
+ * remotos en orden inverso, como en la saga de AprobacionPrestamoServiceImpl, y se rechazan sus préstamos;
+ * las demás cuentas siguen. El límite de 3 préstamos activos se reserva al agrupar, antes de aprobar:
+ * si una cuenta falla, otro préstamo del mismo cliente pudo quedar rechazado por un cupo que no se usó.
+ * Antes de cualquier paso remoto los préstamos se reservan con PrestamoRepositoryCustom.reservarAprobacion:
+ * los que ya tomó otra aprobación (otro lote, la saga o POST /prestamos/aprobar/{id}) se rechazan.
+ */
+@Service
+public class AprobacionLoteServiceImpl implements AprobacionLoteService {
+    private static final long ESTADO_PENDIENTE = 1L;
+    private static final long ESTADO_APROBADO = 2L;
+    private static final int MAXIMO_ACTIVOS = 3;
+
+    private final PrestamoRepository prestamoRepository;
+    private final PrestamoServiceImpl prestamoService;
+    private final TransaccionClient transaccionClient;
+    private final CuentaClient cuentaClient;
+    private final EjecutorParalelo ejecutorParalelo;
+    private final EvaluacionCreditoService evaluacionCreditoService;
+    private final int hilos;
+    private final Timer duracion;
+
+    public AprobacionLoteServiceImpl(PrestamoRepository prestamoRepository,
+                                     PrestamoServiceImpl prestamoService,
+                                     TransaccionClient transaccionClient,
+                                     CuentaClient cuentaClient,
+                                     EjecutorParalelo ejecutorParalelo,
+                                     EvaluacionCreditoService evaluacionCreditoService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${prestamos.aprobacion.lote.hilos:4}") int hilos) {
+        this.prestamoRepository = prestamoRepository;
+        this.prestamoService = prestamoService;
+        this.transaccionClient = transaccionClient;
+        this.cuentaClient = cuentaClient;
+        this.ejecutorParalelo = ejecutorParalelo;
+        this.evaluacionCreditoService = evaluacionCreditoService;
+        this.hilos = hilos;
+        this.duracion = Timer.builder("prestamos.aprobacion.lote.duracion")
+                .description("Duración de cada aprobación en lote")
+                .register(meterRegistry);
+    }
+
+    // Cuenta los resultados y los entrega de a uno aunque lleguen desde varios hilos
+    private static final class Informe {
+        private final Consumer<ResultadoAprobacionResponse> alCompletar;
+        private int aprobados;
+        private int rechazados;
+        private BigDecimal montoDesembolsado = BigDecimal.ZERO;
+
+        private Informe(Consumer<ResultadoAprobacionResponse> alCompletar) {
+            this.alCompletar = alCompletar;
+        }
+
+        synchronized void aprobado(PrestamoResponse prestamo) {
+            aprobados++;
+            montoDesembolsado = montoDesembolsado.add(prestamo.monto());
+            entregar(ResultadoAprobacionResponse.builder()
+                    .prestamoId(prestamo.id()).aprobado(true).mensaje("Préstamo aprobado").prestamo(prestamo).build());
+        }
+
+        synchronized void rechazado(Long prestamoId, String mensaje) {
+            rechazados++;
+            entregar(ResultadoAprobacionResponse.builder().prestamoId(prestamoId).aprobado(false).mensaje(mensaje).build());
+        }
+
+        private void entregar(ResultadoAprobacionResponse resultado) {
+            try {
+                alCompletar.accept(resultado);
+            } catch (RuntimeException ex) {
+                // Un consumidor caído (cliente desconectado) no detiene las aprobaciones en curso
+            }
+        }
+    }
+
+    @Override
+    public ResumenAprobacionLoteResponse aprobarLote(List<Long> prestamoIds, Consumer<ResultadoAprobacionResponse> alCompletar) {
+        long inicio = System.nanoTime();
+        LocalDate hoy = LocalDate.now();
+        Informe informe = new Informe(alCompletar);
+        Set<Long> ids = new LinkedHashSet<>(prestamoIds);
+
+        Map<Long, Prestamo> encontrados = prestamoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Prestamo::getId, Function.identity()));
+        List<Prestamo> pendientes = new ArrayList<>(encontrados.size());
+        for (Long id : ids) {
+            Prestamo prestamo = encontrados.get(id);
+            if (prestamo == null) {
+                informe.rechazado(id, "Préstamo no encontrado con id: " + id);
+            } else if (prestamo.getEstadoPrestamo() == null || prestamo.getEstadoPrestamo().getId() != ESTADO_PENDIENTE) {
+                informe.rechazado(id, "Solo se pueden aceptar préstamos en estado PENDIENTE");
+            } else {
+                pendientes.add(prestamo);
+            }
+        }
+
+        // UPDATE condicional antes de los pasos remotos: sigue solo con los préstamos que este proceso reservó
+        Set<Long> reservados = pendientes.isEmpty() ? Set.of()
+                : new HashSet<>(prestamoRepository.reservarAprobacion(pendientes.stream().map(Prestamo::getId).toList()));
+        pendientes.removeIf(prestamo -> {
+            if (reservados.contains(prestamo.getId())) {
+                return false;
+            }
+            informe.rechazado(prestamo.getId(), "El préstamo ya tiene una aprobación en curso");
+            return true;
+        });
+
+        Map<Long, CompletableFuture<ClienteResponse>> clientes = new HashMap<>();
+        Map<Long, CompletableFuture<CuentaResponse>> cuentas = new HashMap<>();
+        try {
+            // Una consulta remota por cliente y por cuenta distintos, todas en paralelo
+            for (Prestamo prestamo : pendientes) {
+                clientes.computeIfAbsent(prestamo.getClienteId(),
+                        clienteId -> ejecutorParalelo.ejecutar(() -> prestamoService.getClienteById(clienteId)));
+                cuentas.computeIfAbsent(prestamo.getCuentaId(),
+                        cuentaId -> ejecutorParalelo.ejecutar(() -> prestamoService.getCuentaById(cuentaId)));
+            }
+            Map<Long, Long> activos = new HashMap<>();
+            if (!clientes.isEmpty()) {
+                for (ConteoCliente conteo : prestamoRepository.contarPorClienteYEstado(clientes.keySet(), ESTADO_APROBADO)) {
+                    activos.put(conteo.getClienteId(), conteo.getCantidad());
+                }
+            }
+
+            Map<Long, List<DatosAprobacion>> porCuenta = new LinkedHashMap<>();
+            for (Prestamo prestamo : pendientes) {
+                ClienteResponse cliente;
+                CuentaResponse cuenta;
+                try {
+                    cliente = esperar(clientes.get(prestamo.getClienteId()));
+                    cuenta = esperar(cuentas.get(prestamo.getCuentaId()));
+                } catch (RuntimeException ex) {
+                    informe.rechazado(prestamo.getId(), ex.getMessage());
+                    continue;
+                }
+                if (activos.getOrDefault(prestamo.getClienteId(), 0L) >= MAXIMO_ACTIVOS) {
+                    informe.rechazado(prestamo.getId(), "El cliente no puede tener más de 3 préstamos activos.");
+                    continue;
+                }
+                activos.merge(prestamo.getClienteId(), 1L, Long::sum);
+                porCuenta.computeIfAbsent(cuenta.id(), id -> new ArrayList<>())
+                        .add(new DatosAprobacion(prestamo, cliente, cuenta));
+            }
+
+            // close() espera a que terminen todas las cuentas
+            try (ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(hilos))) {
+                porCuenta.forEach((cuentaId, grupo) -> executor.submit(() -> aprobarCuenta(cuentaId, grupo, hoy, informe)));
+            }
+        } finally {
+            // Los confirmados la liberaron en su transacción; aquí se sueltan los rechazados y los compensados
+            prestamoRepository.liberarAprobacion(reservados);
+        }
+
+        long nanos = System.nanoTime() - inicio;
+        duracion.record(nanos, TimeUnit.NANOSECONDS);
+        synchronized (informe) {
+            return ResumenAprobacionLoteResponse.builder()
+                    .solicitados(ids.size())
+                    .aprobados(informe.aprobados)
+                    .rechazados(informe.rechazados)
+                    .clientes(clientes.size())
+                    .cuentas(cuentas.size())
+                    .montoDesembolsado(informe.montoDesembolsado)
+                    .duracionMs(TimeUnit.NANOSECONDS.toMillis(nanos))
+                    .build();
+        }
+    }
+
+    private void aprobarCuenta(Long cuentaId, List<DatosAprobacion> grupo, LocalDate hoy, Informe informe) {
+        BigDecimal total = BigDecimal.ZERO;
+        List<Prestamo> prestamos = new ArrayList<>(grupo.size());
+        for (DatosAprobacion datos : grupo) {
+            total = total.add(datos.prestamo().getMonto());
+            prestamos.add(datos.prestamo());
+        }
+        BigDecimal monto = total;
+        Deque<Runnable> compensaciones = new ArrayDeque<>();
+        try {
+            transaccionClient.crearTransacciones(prestamos.stream()
+                    .map(prestamo -> PrestamoServiceImpl.solicitudDesembolso(prestamo, cuentaId, hoy))
+                    .toList());
+            compensaciones.push(() -> transaccionClient.crearTransacciones(prestamos.stream()
+                    .map(prestamo -> PrestamoServiceImpl.solicitudReverso(prestamo, cuentaId))
+                    .toList()));
+            evaluacionCreditoService.invalidar(cuentaId);
+
+            // Un solo ajuste atómico por el total de la cuenta
+            cuentaClient.ajustarSaldo(cuentaId, monto);
+            compensaciones.push(() -> cuentaClient.ajustarSaldo(cuentaId, monto.negate()));
+
+            for (PrestamoResponse confirmado : prestamoService.confirmarAprobaciones(grupo, hoy)) {
+                informe.aprobado(confirmado);
+            }
+        } catch (RuntimeException ex) {
+            StringBuilder mensaje = new StringBuilder(String.valueOf(ex.getMessage()));
+            while (!compensaciones.isEmpty()) {
+                try {
+                    compensaciones.pop().run();
+                } catch (RuntimeException error) {
+                    mensaje.append(" Compensación fallida: ").append(error.getMessage());
+                }
+            }
+            evaluacionCreditoService.invalidar(cuentaId);
+            for (Prestamo prestamo : prestamos) {
+                informe.rechazado(prestamo.getId(), mensaje.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.AprobacionPrestamoResponse;
+
+public interface AprobacionPrestamoService {
+    AprobacionPrestamoResponse solicitarAprobacion(Long prestamoId);
+    AprobacionPrestamoResponse getAprobacionById(Long id);
+}
@@ -0,0 +1,215 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.nttdata.com.servicioprestamos.client.dto.TransaccionResponse;
+import org.nttdata.com.servicioprestamos.dto.AprobacionPrestamoResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.exception.ResourceNotFound;
+import org.nttdata.com.servicioprestamos.models.AprobacionPrestamo;
+import org.nttdata.com.servicioprestamos.models.EstadoAprobacion;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.repository.AprobacionPrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.service.PrestamoServiceImpl.DatosAprobacion;
+import org.nttdata.com.servicioprestamos.util.AprobacionPrestamoMapper;
+import org.nttdata.com.servicioprestamos.util.EjecutorAprobaciones;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aprobación asíncrona como saga: validación, desembolso (ServicioTransacciones), abono del saldo
+ * (ServicioCuentas) y confirmación local (estado, cuotas y outbox en una transacción).
+ * Si un paso falla, los pasos remotos ya ejecutados se compensan en orden inverso.
+ * El préstamo queda reservado (PrestamoRepositoryCustom.reservarAprobacion) desde la solicitud hasta que la saga
+ * termina; las sagas que un proceso caído dejó a medias las cierra recuperarInterrumpidas.
+ */
+@Service
+@RequiredArgsConstructor
+public class AprobacionPrestamoServiceImpl implements AprobacionPrestamoService {
+    private static final List<EstadoAprobacion> ESTADOS_ACTIVOS = List.of(EstadoAprobacion.PENDIENTE, EstadoAprobacion.EN_PROCESO);
+
+    private final AprobacionPrestamoRepository aprobacionPrestamoRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final AprobacionPrestamoMapper aprobacionPrestamoMapper;
+    private final PrestamoServiceImpl prestamoService;
+    private final EjecutorAprobaciones ejecutorAprobaciones;
+    private final MeterRegistry meterRegistry;
+
+    // Una saga sin avances durante este tiempo se considera interrumpida
+    @Value("${prestamos.aprobacion.recuperacion.tiempo-maximo-ms:1800000}")
+    private long tiempoMaximoMs;
+
+    @Override
+    public AprobacionPrestamoResponse solicitarAprobacion(Long prestamoId) {
+        Prestamo prestamo = prestamoService.getPrestamoEntityById(prestamoId);
+        if (prestamo.getEstadoPrestamo().getId() != 1L) {
+            throw new BadRequest("Solo se pueden aceptar préstamos en estado PENDIENTE");
+        }
+        // UPDATE condicional: de dos solicitudes simultáneas solo una reserva el préstamo
+        if (prestamoRepository.reservarAprobacion(List.of(prestamoId)).isEmpty()) {
+            throw new BadRequest("El préstamo ya tiene una aprobación en curso");
+        }
+        Date ahora = new Date();
+        AprobacionPrestamo aprobacion = aprobacionPrestamoRepository.save(AprobacionPrestamo.builder()
+                .prestamoId(prestamoId)
+                .estado(EstadoAprobacion.PENDIENTE)
+                .fechaSolicitud(ahora)
+                .fechaActualizacion(ahora)
+                .build());
+
+        Long aprobacionId = aprobacion.getId();
+        if (!ejecutorAprobaciones.enviar(() -> procesar(aprobacionId))) {
+            terminar(aprobacion, EstadoAprobacion.FALLIDA, "Cola de aprobaciones llena");
+            prestamoRepository.liberarAprobacion(List.of(prestamoId));
+            throw new BadRequest("Hay demasiadas aprobaciones en curso, intente nuevamente más tarde");
+        }
+        return aprobacionPrestamoMapper.toDto(aprobacion);
+    }
+
+    @Override
+    public AprobacionPrestamoResponse getAprobacionById(Long id) {
+        return aprobacionPrestamoMapper.toDto(aprobacionPrestamoRepository.findById(id).orElseThrow(
+                () -> new ResourceNotFound("Aprobación no encontrada con id: " + id)));
+    }
+
+    public void procesar(Long aprobacionId) {
+        AprobacionPrestamo aprobacion = aprobacionPrestamoRepository.findById(aprobacionId).orElseThrow(
+                () -> new ResourceNotFound("Aprobación no encontrada con id: " + aprobacionId));
+        // Esperó en la cola más que el tiempo máximo y el barrido de recuperación ya la cerró
+        if (aprobacion.getEstado() != EstadoAprobacion.PENDIENTE) {
+            return;
+        }
+        Timer.Sample duracion = Timer.start(meterRegistry);
+
+        avanzar(aprobacion, "VALIDACION");
+        DatosAprobacion datos;
+        try {
+            datos = prestamoService.validarAprobacion(aprobacion.getPrestamoId());
+        } catch (RuntimeException ex) {
+            terminar(aprobacion, EstadoAprobacion.FALLIDA, ex.getMessage());
+            prestamoRepository.liberarAprobacion(List.of(aprobacion.getPrestamoId()));
+            registrarDuracion(duracion, aprobacion);
+            return;
+        }
+
+        LocalDate hoy = LocalDate.now();
+        Long cuentaId = datos.cuenta().id();
+        BigDecimal monto = datos.prestamo().getMonto();
+        Deque<Runnable> compensaciones = new ArrayDeque<>();
+        try {
+            avanzar(aprobacion, "DESEMBOLSO");
+            TransaccionResponse desembolso = prestamoService.registrarDesembolso(datos.prestamo(), datos.cuenta(), hoy);
+            compensaciones.push(() -> prestamoService.revertirDesembolso(datos.prestamo(), datos.cuenta()));
+            aprobacion.setTransaccionDesembolsoId(desembolso != null ? desembolso.id() : null);
+
+            avanzar(aprobacion, "SALDO");
+            prestamoService.acreditarSaldo(cuentaId, monto);
+            compensaciones.push(() -> prestamoService.revertirSaldo(cuentaId, monto));
+
+            avanzar(aprobacion, "CONFIRMACION");
+            prestamoService.confirmarAprobacion(datos, hoy);
+        } catch (RuntimeException ex) {
+            compensar(aprobacion, compensaciones, ex);
+            prestamoRepository.liberarAprobacion(List.of(aprobacion.getPrestamoId()));
+            registrarDuracion(duracion, aprobacion);
+            return;
+        }
+        // La confirmación ya se confirmó: desde aquí ningún error puede revertir el desembolso ni el saldo
+        compensaciones.clear();
+        try {
+            terminar(aprobacion, EstadoAprobacion.COMPLETADA, null);
+        } catch (RuntimeException ex) {
+            // En la base queda EN_PROCESO en CONFIRMACION; recuperarInterrumpidas la cierra al ver el préstamo APROBADO
+        }
+        registrarDuracion(duracion, aprobacion);
+    }
+
+    /**
+     * Cierra las sagas PENDIENTE o EN_PROCESO que no avanzan desde hace más de tiempoMaximoMs, porque el proceso
+     * que las ejecutaba se detuvo, y libera su reserva para que el préstamo se pueda volver a aprobar:
+     * <ul>
+     *     <li>detenidas antes del desembolso: FALLIDA, no llegaron a tocar otros servicios;</li>
+     *     <li>con el préstamo ya APROBADO: COMPLETADA, solo faltó registrar el final;</li>
+     *     <li>el resto: ERROR_COMPENSACION, el desembolso y el abono pudieron ejecutarse y se revisan a mano.</li>
+     * </ul>
+     * También libera las reservas vencidas que dejó una aprobación en lote interrumpida.
+     */
+    @Scheduled(fixedDelayString = "${prestamos.aprobacion.recuperacion.intervalo-ms:300000}")
+    public void recuperarInterrumpidas() {
+        Instant limite = Instant.now().minusMillis(tiempoMaximoMs);
+        for (AprobacionPrestamo aprobacion : aprobacionPrestamoRepository
+                .findByEstadoInAndFechaActualizacionBefore(ESTADOS_ACTIVOS, Date.from(limite))) {
+            String paso = aprobacion.getPaso();
+            if (paso == null || "VALIDACION".equals(paso)) {
+                terminar(aprobacion, EstadoAprobacion.FALLIDA, "Aprobación interrumpida antes del desembolso");
+            } else if (prestamoRepository.findById(aprobacion.getPrestamoId())
+                    .map(prestamo -> prestamo.getEstadoPrestamo().getId() == 2L).orElse(false)) {
+                terminar(aprobacion, EstadoAprobacion.COMPLETADA, null);
+            } else {
+                terminar(aprobacion, EstadoAprobacion.ERROR_COMPENSACION, "Aprobación interrumpida en el paso " + paso
+                        + ": revisar el desembolso y el saldo de la cuenta antes de volver a aprobar");
+            }
+            prestamoRepository.liberarAprobacion(List.of(aprobacion.getPrestamoId()));
+            Counter.builder("prestamos.aprobacion.recuperadas")
+                    .description("Sagas de aprobación interrumpidas cerradas por el barrido de recuperación")
+                    .tag("resultado", aprobacion.getEstado().name())
+                    .register(meterRegistry)
+                    .increment();
+        }
+        prestamoRepository.liberarReservasVencidas(limite);
+    }
+
+    private void compensar(AprobacionPrestamo aprobacion, Deque<Runnable> compensaciones, RuntimeException causa) {
+        if (compensaciones.isEmpty()) {
+            terminar(aprobacion, EstadoAprobacion.FALLIDA, causa.getMessage());
+            return;
+        }
+        StringBuilder errores = new StringBuilder();
+        while (!compensaciones.isEmpty()) {
+            try {
+                compensaciones.pop().run();
+            } catch (RuntimeException ex) {
+                errores.append(" Compensación fallida: ").append(ex.getMessage());
+            }
+        }
+        if (errores.isEmpty()) {
+            terminar(aprobacion, EstadoAprobacion.COMPENSADA, causa.getMessage());
+        } else {
+            terminar(aprobacion, EstadoAprobacion.ERROR_COMPENSACION, causa.getMessage() + errores);
+        }
+    }
+
+    private void avanzar(AprobacionPrestamo aprobacion, String paso) {
+        aprobacion.setEstado(EstadoAprobacion.EN_PROCESO);
+        aprobacion.setPaso(paso);
+        aprobacion.setFechaActualizacion(new Date());
+        aprobacionPrestamoRepository.save(aprobacion);
+    }
+
+    private void terminar(AprobacionPrestamo aprobacion, EstadoAprobacion estado, String mensaje) {
+        aprobacion.setEstado(estado);
+        aprobacion.setMensaje(mensaje != null && mensaje.length() > 1000 ? mensaje.substring(0, 1000) : mensaje);
+        aprobacion.setFechaActualizacion(new Date());
+        aprobacionPrestamoRepository.save(aprobacion);
+    }
+
+    private void registrarDuracion(Timer.Sample duracion, AprobacionPrestamo aprobacion) {
+        duracion.stop(Timer.builder("prestamos.aprobacion.duracion")
+                .description("Duración de la saga de aprobación asíncrona")
+                .tag("resultado", aprobacion.getEstado().name())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+    }
+}
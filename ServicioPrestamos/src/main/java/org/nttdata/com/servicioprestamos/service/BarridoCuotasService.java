@@ -0,0 +1,9 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.ResultadoBarridoResponse;
+
+import java.time.LocalDate;
+
+public interface BarridoCuotasService {
+    ResultadoBarridoResponse marcarAtrasadas(LocalDate hoy);
+}
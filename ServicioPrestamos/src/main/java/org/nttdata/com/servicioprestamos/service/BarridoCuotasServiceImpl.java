@@ -0,0 +1,80 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.nttdata.com.servicioprestamos.dto.ResultadoBarridoResponse;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.LoteAtrasadas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marca como ATRASADA las cuotas PENDIENTE cuya fecha de vencimiento ya pasó.
+ * Trabaja por lotes con UPDATE de conjunto y cursor (fechaVencimiento, id); cada lote es su propia
+ * transacción corta, así el barrido de millones de cuotas no bloquea los pagos.
+ */
+@Service
+public class BarridoCuotasServiceImpl implements BarridoCuotasService {
+    private final CuotaRepository cuotaRepository;
+    private final int tamanioLote;
+
+    private final Timer duracion;
+    private final Counter filasActualizadas;
+    private volatile double filasPorSegundo;
+
+    public BarridoCuotasServiceImpl(CuotaRepository cuotaRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${prestamos.barrido.lote:5000}") int tamanioLote) {
+        this.cuotaRepository = cuotaRepository;
+        this.tamanioLote = tamanioLote;
+        this.duracion = Timer.builder("prestamos.barrido.atrasadas.duracion")
+                .description("Duración de cada ejecución del barrido de cuotas vencidas")
+                .register(meterRegistry);
+        this.filasActualizadas = Counter.builder("prestamos.barrido.atrasadas.filas")
+                .description("Cuotas marcadas como ATRASADA")
+                .register(meterRegistry);
+        Gauge.builder("prestamos.barrido.atrasadas.filas_por_segundo", this, b -> b.filasPorSegundo)
+                .description("Filas por segundo de la última ejecución del barrido")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${prestamos.barrido.cron:0 15 0 * * *}")
+    public void barridoProgramado() {
+        marcarAtrasadas(LocalDate.now());
+    }
+
+    @Override
+    public ResultadoBarridoResponse marcarAtrasadas(LocalDate hoy) {
+        long inicio = System.nanoTime();
+        long filas = 0;
+        int lotes = 0;
+        LocalDate ultimaFecha = null;
+        Long ultimoId = null;
+        while (true) {
+            LoteAtrasadas lote = cuotaRepository.marcarAtrasadas(hoy, ultimaFecha, ultimoId, tamanioLote);
+            if (lote.ultimoId() == null) {
+                break;
+            }
+            lotes++;
+            filas += lote.filas();
+            filasActualizadas.increment(lote.filas());
+            ultimaFecha = lote.ultimaFecha();
+            ultimoId = lote.ultimoId();
+        }
+        long nanos = System.nanoTime() - inicio;
+        duracion.record(nanos, TimeUnit.NANOSECONDS);
+        filasPorSegundo = nanos > 0 ? filas * 1e9 / nanos : 0;
+        return ResultadoBarridoResponse.builder()
+                .filas(filas)
+                .lotes(lotes)
+                .duracionMs(TimeUnit.NANOSECONDS.toMillis(nanos))
+                .filasPorSegundo(filasPorSegundo)
+                .build();
+    }
+}
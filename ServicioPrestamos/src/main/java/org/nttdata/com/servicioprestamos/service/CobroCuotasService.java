@@ -0,0 +1,29 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.Abono;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaDebito;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface CobroCuotasService {
+    /**
+     * Cobra cuotas de una misma cuenta: las reserva como PAGADA (todas o ninguna), debita el total con un
+     * solo ajuste de saldo y registra una transacción por cuota en un único lote. Si el débito o el lote
+     * fallan, deshace los pasos ya hechos en orden inverso y relanza la excepción.
+     *
+     * @param referencia prefijo de la referencia de cada transacción, seguido del id de la cuota
+     * @param cuotas cada una con el saldo leído como monto; la reserva falla si un abono lo cambió
+     * @return false si alguna cuota ya no estaba PENDIENTE o ATRASADA con ese saldo; en ese caso no se cobró nada
+     */
+    boolean cobrar(Long cuentaId, List<CuotaDebito> cuotas, String referencia, LocalDate hoy);
+
+    /**
+     * Como cobrar, para abonos que pueden ser parciales: los registra todos o ninguno, debita la suma de lo
+     * aplicado con un solo ajuste de saldo y crea una transacción por cuota. Solo las cuotas que el abono
+     * liquida cuentan como pagadas en la cartera.
+     *
+     * @return false si otro pago modificó alguna de las cuotas; en ese caso no se cobró nada
+     */
+    boolean abonar(Long cuentaId, List<Abono> abonos, String referencia, LocalDate hoy);
+}
@@ -0,0 +1,151 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.TransaccionRequest;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.Abono;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaDebito;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cobro de cuotas compartido por el pago manual y el débito automático. Las cuotas se reservan antes de
+ * tocar la cuenta; los pasos remotos se compensan igual que en la saga de aprobación.
+ */
+@Service
+public class CobroCuotasServiceImpl implements CobroCuotasService {
+    private static final long TIPO_TRANSFERENCIA = 3L;
+
+    private final CuotaRepository cuotaRepository;
+    private final CuentaClient cuentaClient;
+    private final TransaccionClient transaccionClient;
+    private final TransactionTemplate transactionTemplate;
+    private final AnaliticaCarteraService analiticaCarteraService;
+    private final EvaluacionCreditoService evaluacionCreditoService;
+    private final MoraCarteraService moraCarteraService;
+    private final ResumenClienteService resumenClienteService;
+    private final Counter compensacionesFallidas;
+    private final Counter agregadosFallidos;
+
+    public CobroCuotasServiceImpl(CuotaRepository cuotaRepository,
+                                  CuentaClient cuentaClient,
+                                  TransaccionClient transaccionClient,
+                                  PlatformTransactionManager transactionManager,
+                                  AnaliticaCarteraService analiticaCarteraService,
+                                  EvaluacionCreditoService evaluacionCreditoService,
+                                  MoraCarteraService moraCarteraService,
+                                  ResumenClienteService resumenClienteService,
+                                  MeterRegistry meterRegistry) {
+        this.cuotaRepository = cuotaRepository;
+        this.cuentaClient = cuentaClient;
+        this.transaccionClient = transaccionClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.analiticaCarteraService = analiticaCarteraService;
+        this.evaluacionCreditoService = evaluacionCreditoService;
+        this.moraCarteraService = moraCarteraService;
+        this.resumenClienteService = resumenClienteService;
+        this.compensacionesFallidas = Counter.builder("prestamos.cobro.compensaciones_fallidas")
+                .description("Compensaciones de cobros de cuotas que no se pudieron aplicar")
+                .register(meterRegistry);
+        this.agregadosFallidos = Counter.builder("prestamos.cartera.incrementos_fallidos")
+                .description("Cobros que no se sumaron a agregados_cartera; el recálculo nocturno los corrige")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean cobrar(Long cuentaId, List<CuotaDebito> cuotas, String referencia, LocalDate hoy) {
+        List<Long> ids = cuotas.stream().map(CuotaDebito::id).toList();
+        return debitar(cuentaId, cuotas, referencia, hoy, ids,
+                () -> cuotaRepository.marcarPagadas(cuotas) == cuotas.size(),
+                () -> cuotaRepository.liberarCuotas(cuotas, hoy));
+    }
+
+    @Override
+    public boolean abonar(Long cuentaId, List<Abono> abonos, String referencia, LocalDate hoy) {
+        List<CuotaDebito> cuotas = abonos.stream()
+                .map(abono -> new CuotaDebito(abono.id(), cuentaId, abono.aplicado(), null))
+                .toList();
+        List<Long> liquidadas = abonos.stream().filter(Abono::liquida).map(Abono::id).toList();
+        return debitar(cuentaId, cuotas, referencia, hoy, liquidadas,
+                () -> cuotaRepository.registrarAbonos(abonos) == abonos.size(),
+                () -> cuotaRepository.revertirAbonos(abonos, hoy));
+    }
+
+    // pagadas: cuotas que quedan PAGADA y se suman a la cartera
+    private boolean debitar(Long cuentaId, List<CuotaDebito> cuotas, String referencia, LocalDate hoy, List<Long> pagadas,
+                            BooleanSupplier reservar, Runnable liberar) {
+        BigDecimal total = cuotas.stream().map(CuotaDebito::monto).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // Todas o ninguna: si otro pago se adelantó con alguna cuota, se deshace la reserva completa
+        Boolean reservadas = transactionTemplate.execute(estado -> {
+            if (!reservar.getAsBoolean()) {
+                estado.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(reservadas)) {
+            return false;
+        }
+
+        Deque<Runnable> compensaciones = new ArrayDeque<>();
+        compensaciones.push(liberar);
+        try {
+            cuentaClient.ajustarSaldo(cuentaId, total.negate());
+            compensaciones.push(() -> cuentaClient.ajustarSaldo(cuentaId, total));
+            transaccionClient.crearTransacciones(transacciones(cuentaId, cuotas, referencia, hoy));
+        } catch (RuntimeException ex) {
+            compensar(compensaciones);
+            throw ex;
+        } finally {
+            evaluacionCreditoService.invalidar(cuentaId);
+        }
+        // El cobro ya está hecho: un fallo en los agregados no debe revertirlo
+        try {
+            analiticaCarteraService.registrarPagos(pagadas);
+        } catch (RuntimeException ex) {
+            agregadosFallidos.increment();
+        }
+        // También los abonos parciales: bajan el saldo en mora aunque la cuota siga pendiente
+        List<Long> cobradas = cuotas.stream().map(CuotaDebito::id).toList();
+        moraCarteraService.actualizarPorCuotas(cobradas);
+        resumenClienteService.actualizarPorCuotas(cobradas);
+        return true;
+    }
+
+    private static List<TransaccionRequest> transacciones(Long cuentaId, List<CuotaDebito> cuotas, String referencia, LocalDate hoy) {
+        Date fecha = Date.from(hoy.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        return cuotas.stream()
+                .map(cuota -> TransaccionRequest.builder()
+                        .cuentaId(cuentaId)
+                        .monto(cuota.monto())
+                        .tipoTransaccionId(TIPO_TRANSFERENCIA)
+                        .referencia(referencia + cuota.id())
+                        .fecha(fecha)
+                        .build())
+                .toList();
+    }
+
+    private void compensar(Deque<Runnable> compensaciones) {
+        while (!compensaciones.isEmpty()) {
+            try {
+                compensaciones.pop().run();
+            } catch (RuntimeException ex) {
+                compensacionesFallidas.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest;
+import org.nttdata.com.servicioprestamos.dto.PrepagoResponse;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+
+import java.time.LocalDate;
+
+public interface CronogramaService {
+    /**
+     * Ajusta las cuotas guardadas de un préstamo APROBADO a su monto, plazo, tasa y fecha de desembolso actuales.
+     * Las cuotas pagadas no se tocan: el capital que falta (monto menos el capital de las pagadas y lo prepagado) se
+     * reparte en las cuotas sin pagar, sin las que quitaron los prepagos. Compara el cronograma nuevo con el guardado
+     * y solo escribe las que cambiaron: un batch de UPDATE, un DELETE para las que sobran y un lote de INSERT para las
+     * que faltan. Un préstamo virtual con pagos queda persistido. Debe llamarse dentro de la transacción que
+     * modifica el préstamo.
+     *
+     * @return cuántas cuotas se escribieron
+     */
+    int recalcular(Prestamo prestamo, LocalDate hoy);
+
+    /**
+     * Prepago parcial a capital: debita el monto una vez y recalcula las cuotas posteriores a la vigente sobre
+     * el capital que queda, con menos cuotas o con una cuota menor. Guarda en el préstamo el capital prepagado y
+     * las cuotas quitadas para que recalcular parta de ellos. Un préstamo con cronograma virtual queda persistido,
+     * porque sus cuotas ya no se deducen de monto y plazo.
+     */
+    PrepagoResponse prepagar(Long prestamoId, PrepagoRequest prepago);
+}
@@ -0,0 +1,399 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.client.dto.TransaccionRequest;
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest;
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest.Modalidad;
+import org.nttdata.com.servicioprestamos.dto.PrepagoResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.exception.ResourceNotFound;
+import org.nttdata.com.servicioprestamos.models.Cuota;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaRecalculada;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.nttdata.com.servicioprestamos.service.CuotaServiceImpl.aLocalDate;
+import static org.nttdata.com.servicioprestamos.service.CuotaServiceImpl.cuotaCalculada;
+import static org.nttdata.com.servicioprestamos.service.CuotaServiceImpl.esVirtual;
+
+/**
+ * Recalcula cronogramas guardados sin borrarlos y volver a insertarlos: el cronograma nuevo se compara en memoria
+ * con las cuotas actuales y solo se escriben las diferencias de las cuotas sin pagar.
+ */
+@Service
+public class CronogramaServiceImpl implements CronogramaService {
+    private static final long PRESTAMO_APROBADO = 2L;
+    private static final long TIPO_TRANSFERENCIA = 3L;
+    // PAGADA y CANCELADA: el recálculo no las modifica
+    private static final Set<Long> ESTADOS_SALDADOS = Set.of(2L, 4L);
+    private static final String CONCURRENCIA = "Otro pago modificó las cuotas del préstamo, intente nuevamente";
+
+    private final CuotaRepository cuotaRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final AmortizacionService amortizacionService;
+    private final CuentaClient cuentaClient;
+    private final TransaccionClient transaccionClient;
+    private final EvaluacionCreditoService evaluacionCreditoService;
+    private final MoraCarteraService moraCarteraService;
+    private final ResumenClienteService resumenClienteService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter compensacionesFallidas;
+    private final Counter transaccionesFallidas;
+
+    public CronogramaServiceImpl(CuotaRepository cuotaRepository,
+                                 PrestamoRepository prestamoRepository,
+                                 AmortizacionService amortizacionService,
+                                 CuentaClient cuentaClient,
+                                 TransaccionClient transaccionClient,
+                                 EvaluacionCreditoService evaluacionCreditoService,
+                                 MoraCarteraService moraCarteraService,
+                                 ResumenClienteService resumenClienteService,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.cuotaRepository = cuotaRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.amortizacionService = amortizacionService;
+        this.cuentaClient = cuentaClient;
+        this.transaccionClient = transaccionClient;
+        this.evaluacionCreditoService = evaluacionCreditoService;
+        this.moraCarteraService = moraCarteraService;
+        this.resumenClienteService = resumenClienteService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.compensacionesFallidas = Counter.builder("prestamos.prepago.compensaciones_fallidas")
+                .description("Débitos de prepagos que no se pudieron devolver tras un fallo")
+                .register(meterRegistry);
+        this.transaccionesFallidas = Counter.builder("prestamos.prepago.transacciones_fallidas")
+                .description("Prepagos aplicados cuya transacción no se pudo registrar en ServicioTransacciones")
+                .register(meterRegistry);
+    }
+
+    // Cambios a escribir; las cuotas sin id (cronograma virtual) se completan en memoria y van a nuevas
+    private static final class Plan {
+        final List<Cuota> nuevas = new ArrayList<>();
+        final List<CuotaRecalculada> cambios = new ArrayList<>();
+        final List<Long> eliminadas = new ArrayList<>();
+
+        void asignar(Cuota cuota, LocalDate fechaVencimiento, BigDecimal monto, BigDecimal capital) {
+            BigDecimal pagado = cuota.getMontoPagado() == null ? BigDecimal.ZERO : cuota.getMontoPagado();
+            if (pagado.compareTo(monto) > 0) {
+                throw new BadRequest("La cuota " + cuota.getNumero() + " ya tiene abonos por más de su nuevo monto");
+            }
+            if (cuota.getId() == null) {
+                cuota.setFechaVencimiento(Date.from(fechaVencimiento.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+                cuota.setMonto(monto);
+                cuota.setCapital(capital);
+                nuevas.add(cuota);
+                return;
+            }
+            if (fechaVencimiento.equals(aLocalDate(cuota.getFechaVencimiento()))
+                    && cuota.getMonto() != null && cuota.getMonto().compareTo(monto) == 0
+                    && cuota.getCapital() != null && cuota.getCapital().compareTo(capital) == 0) {
+                return;
+            }
+            cambios.add(new CuotaRecalculada(cuota.getId(), pagado, fechaVencimiento, monto, capital));
+        }
+
+        void eliminar(Cuota cuota) {
+            if (cuota.getMontoPagado() != null && cuota.getMontoPagado().signum() > 0) {
+                throw new BadRequest("La cuota " + cuota.getNumero() + " tiene abonos y no puede quitarse del cronograma");
+            }
+            if (cuota.getId() != null) {
+                eliminadas.add(cuota.getId());
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public int recalcular(Prestamo prestamo, LocalDate hoy) {
+        if (!aprobado(prestamo) || prestamo.getFechaDesembolso() == null) {
+            return 0;
+        }
+        // Las cuotas que quitó un prepago con REDUCIR_PLAZO no vuelven aunque el plazo contratado siga igual
+        int plazo = prestamo.getPlazoMeses() - valor(prestamo.getCuotasPrepagadas());
+        if (plazo < 1) {
+            throw new BadRequest("El plazo no puede ser menor a las cuotas ya quitadas por prepagos");
+        }
+        Cronograma completo = amortizacionService.calcular(prestamo.getMonto(), prestamo.getTasaInteres(),
+                prestamo.getPlazoMeses(), prestamo.getMetodoAmortizacion());
+        Map<Integer, Cuota> porNumero = cuotaRepository.findByPrestamoId(prestamo.getId()).stream()
+                .collect(Collectors.toMap(Cuota::getNumero, Function.identity()));
+        LocalDate desembolso = aLocalDate(prestamo.getFechaDesembolso());
+
+        // Capital ya devuelto: el de las cuotas saldadas (las antiguas sin capital guardado usan el cronograma) y los prepagos
+        long capitalPagado = Cronograma.aCentimos(prestamo.getCapitalPrepagado() != null ? prestamo.getCapitalPrepagado() : BigDecimal.ZERO);
+        List<Integer> porPagar = new ArrayList<>();
+        for (Cuota cuota : porNumero.values()) {
+            if (saldada(cuota)) {
+                BigDecimal capital = cuota.getCapital() != null ? cuota.getCapital()
+                        : cuota.getNumero() <= prestamo.getPlazoMeses() ? completo.capital(cuota.getNumero()) : BigDecimal.ZERO;
+                capitalPagado += Cronograma.aCentimos(capital);
+            }
+        }
+        for (int numero = 1; numero <= plazo; numero++) {
+            Cuota cuota = porNumero.get(numero);
+            if (cuota == null || !saldada(cuota)) {
+                porPagar.add(numero);
+            }
+        }
+        long capitalPendiente = Cronograma.aCentimos(prestamo.getMonto()) - capitalPagado;
+        if (!porPagar.isEmpty() && capitalPendiente <= 0) {
+            throw new BadRequest("El monto del préstamo no cubre el capital ya pagado de " + Cronograma.desdeCentimos(capitalPagado));
+        }
+
+        // Sin pagos ni prepagos es el cronograma completo de la caché; si no, el capital pendiente en las cuotas sin pagar
+        boolean intacto = capitalPagado == 0 && porPagar.size() == prestamo.getPlazoMeses();
+        Cronograma cronograma = intacto || porPagar.isEmpty() ? completo
+                : Cronograma.generar(capitalPendiente, tasaRestante(prestamo, metodo(prestamo), porPagar.size()),
+                        porPagar.size(), metodo(prestamo));
+        // Un préstamo virtual calcula al leer las cuotas que no guardó, desde monto y plazo: solo sirve si está intacto
+        boolean virtual = esVirtual(prestamo);
+        if (virtual && !intacto) {
+            prestamo.setCronogramaVirtual(false);
+            virtual = false;
+        }
+
+        Plan plan = new Plan();
+        for (int i = 0; i < porPagar.size(); i++) {
+            int numero = porPagar.get(i);
+            Cuota cuota = porNumero.remove(numero);
+            int posicion = intacto ? numero : i + 1;
+            if (cuota == null) {
+                if (!virtual) {
+                    plan.nuevas.add(cuotaCalculada(prestamo, numero, cronograma.cuota(posicion), cronograma.capital(posicion), hoy));
+                }
+            } else {
+                plan.asignar(cuota, desembolso.plusMonths(numero), cronograma.cuota(posicion), cronograma.capital(posicion));
+            }
+        }
+        // Quedan las saldadas, que no se tocan, y las sin pagar que superan el plazo
+        porNumero.values().stream().filter(cuota -> cuota.getNumero() > plazo && !saldada(cuota)).forEach(plan::eliminar);
+        return guardar(plan, hoy);
+    }
+
+    @Override
+    public PrepagoResponse prepagar(Long prestamoId, PrepagoRequest prepago) {
+        LocalDate hoy = LocalDate.now();
+        Prestamo prestamo = prestamoRepository.findById(prestamoId).orElseThrow(
+                () -> new ResourceNotFound("Préstamo no encontrado con id: " + prestamoId));
+        if (!aprobado(prestamo)) {
+            throw new BadRequest("Solo se pueden prepagar préstamos en estado APROBADO");
+        }
+        boolean virtual = esVirtual(prestamo);
+        Cronograma original = amortizacionService.calcular(prestamo.getMonto(), prestamo.getTasaInteres(),
+                prestamo.getPlazoMeses(), prestamo.getMetodoAmortizacion());
+        List<Cuota> pendientes = cronogramaCompleto(prestamo, original, virtual, hoy).stream()
+                .filter(cuota -> !saldada(cuota))
+                .toList();
+        if (pendientes.stream().anyMatch(cuota -> aLocalDate(cuota.getFechaVencimiento()).isBefore(hoy))) {
+            throw new BadRequest("El préstamo tiene cuotas atrasadas; regularícelas antes de prepagar");
+        }
+        // La primera pendiente es la vigente y se cobra como está; el prepago se aplica al capital de las siguientes
+        if (pendientes.size() < 2) {
+            throw new BadRequest("El préstamo no tiene cuotas futuras que prepagar");
+        }
+        Cuota vigente = pendientes.getFirst();
+        List<Cuota> futuras = pendientes.subList(1, pendientes.size());
+        long capital = 0;
+        for (Cuota cuota : futuras) {
+            capital += Cronograma.aCentimos(cuota.getCapital() != null ? cuota.getCapital() : original.capital(cuota.getNumero()));
+        }
+        long monto = Cronograma.aCentimos(prepago.monto());
+        if (monto > capital) {
+            throw new BadRequest("El prepago no puede superar el capital pendiente de " + Cronograma.desdeCentimos(capital));
+        }
+
+        CuentaResponse cuenta;
+        try {
+            cuenta = cuentaClient.getCuentaById(prepago.cuentaId());
+        } catch (Exception ex) {
+            throw new IllegalStateException("No se pudo consultar la cuenta: " + ex.getMessage(), ex);
+        }
+        if (cuenta.saldo().compareTo(prepago.monto()) < 0) {
+            throw new IllegalStateException("Saldo insuficiente en la cuenta para el prepago");
+        }
+
+        BigDecimal cuotaAnterior = futuras.getFirst().getMonto();
+        Cronograma nuevo = monto == capital ? null
+                : recalcularFuturas(prestamo, capital - monto, futuras.size(), prepago.modalidad(),
+                        Cronograma.aCentimos(cuotaAnterior));
+        int restantes = nuevo == null ? 0 : nuevo.plazo();
+        BigDecimal capitalPrepagado = prestamo.getCapitalPrepagado() != null ? prestamo.getCapitalPrepagado() : BigDecimal.ZERO;
+        int cuotasPrepagadas = valor(prestamo.getCuotasPrepagadas());
+        Plan plan = new Plan();
+        if (vigente.getId() == null) {
+            plan.nuevas.add(vigente);
+        }
+        for (int i = 0; i < futuras.size(); i++) {
+            Cuota cuota = futuras.get(i);
+            if (i < restantes) {
+                plan.asignar(cuota, aLocalDate(cuota.getFechaVencimiento()), nuevo.cuota(i + 1), nuevo.capital(i + 1));
+            } else {
+                plan.eliminar(cuota);
+            }
+        }
+
+        Deque<Runnable> compensaciones = new ArrayDeque<>();
+        try {
+            cuentaClient.ajustarSaldo(prepago.cuentaId(), prepago.monto().negate());
+            compensaciones.push(() -> cuentaClient.ajustarSaldo(prepago.cuentaId(), prepago.monto()));
+            // Cuotas y préstamo en una sola transacción local, sin llamadas remotas; si falla se devuelve el débito
+            transactionTemplate.executeWithoutResult(estado -> {
+                guardar(plan, hoy);
+                // El recálculo posterior parte de aquí: capital que queda y cuotas finales que ya no existen
+                if (!prestamoRepository.registrarPrepago(prestamoId, capitalPrepagado, cuotasPrepagadas,
+                        prepago.monto(), futuras.size() - restantes)) {
+                    throw new IllegalStateException("El préstamo cambió mientras se aplicaba el prepago, intente nuevamente");
+                }
+            });
+        } catch (RuntimeException ex) {
+            compensar(compensaciones);
+            throw ex;
+        } finally {
+            evaluacionCreditoService.invalidar(prepago.cuentaId());
+        }
+        // El prepago ya está confirmado: si la transacción no se registra no se revierte, se cuenta para conciliarla
+        try {
+            transaccionClient.crearTransacciones(List.of(TransaccionRequest.builder()
+                    .cuentaId(prepago.cuentaId())
+                    .monto(prepago.monto())
+                    .tipoTransaccionId(TIPO_TRANSFERENCIA)
+                    .referencia("Prepago préstamo id:" + prestamoId)
+                    .fecha(Date.from(hoy.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                    .build()));
+        } catch (RuntimeException ex) {
+            transaccionesFallidas.increment();
+        }
+        moraCarteraService.actualizar(List.of(prestamoId));
+        resumenClienteService.actualizar(List.of(prestamoId));
+
+        return PrepagoResponse.builder()
+                .prestamoId(prestamoId)
+                .cuentaId(prepago.cuentaId())
+                .modalidad(prepago.modalidad())
+                .montoPrepagado(prepago.monto())
+                .capitalAnterior(Cronograma.desdeCentimos(capital))
+                .capitalPendiente(Cronograma.desdeCentimos(capital - monto))
+                .cuotaAnterior(cuotaAnterior)
+                .cuotaNueva(nuevo == null ? null : nuevo.cuota(1))
+                .cuotasFuturas(restantes)
+                .cuotasActualizadas(plan.cambios.size() + plan.nuevas.size())
+                .cuotasEliminadas(futuras.size() - restantes)
+                .build();
+    }
+
+    // Cuotas del préstamo por número; en un préstamo virtual las que no están guardadas se calculan sin id
+    private List<Cuota> cronogramaCompleto(Prestamo prestamo, Cronograma cronograma, boolean virtual, LocalDate hoy) {
+        List<Cuota> persistidas = cuotaRepository.findByPrestamoId(prestamo.getId());
+        if (!virtual) {
+            return persistidas.stream().sorted(Comparator.comparing(Cuota::getNumero)).toList();
+        }
+        Map<Integer, Cuota> porNumero = persistidas.stream()
+                .collect(Collectors.toMap(Cuota::getNumero, Function.identity()));
+        List<Cuota> cuotas = new ArrayList<>(prestamo.getPlazoMeses());
+        for (int numero = 1; numero <= prestamo.getPlazoMeses(); numero++) {
+            Cuota persistida = porNumero.get(numero);
+            cuotas.add(persistida != null ? persistida : cuotaCalculada(prestamo, cronograma, numero, hoy));
+        }
+        return cuotas;
+    }
+
+    /**
+     * Cronograma del capital restante. REDUCIR_CUOTA reparte en las mismas cuotas; REDUCIR_PLAZO busca el menor
+     * número de cuotas cuya primera no supera la actual (la cuota baja al alargar el plazo, así que la primera que
+     * cumple es la más corta). Se genera sin la caché de AmortizacionService: cada prepago da parámetros distintos.
+     */
+    private static Cronograma recalcularFuturas(Prestamo prestamo, long capitalCentimos, int cuotas, Modalidad modalidad,
+                                                long cuotaActualCentimos) {
+        MetodoAmortizacion metodo = metodo(prestamo);
+        if (modalidad == Modalidad.REDUCIR_PLAZO) {
+            for (int plazo = 1; plazo < cuotas; plazo++) {
+                Cronograma candidato = Cronograma.generar(capitalCentimos, tasaRestante(prestamo, metodo, plazo), plazo, metodo);
+                if (candidato.cuotaCentimos(1) <= cuotaActualCentimos) {
+                    return candidato;
+                }
+            }
+        }
+        return Cronograma.generar(capitalCentimos, tasaRestante(prestamo, metodo, cuotas), cuotas, metodo);
+    }
+
+    // PLANO aplica la tasa sobre todo el plazo: para menos cuotas corresponde la parte proporcional
+    private static long tasaRestante(Prestamo prestamo, MetodoAmortizacion metodo, int cuotas) {
+        long tasa = Cronograma.aMillonesimas(prestamo.getTasaInteres());
+        if (metodo != MetodoAmortizacion.PLANO) {
+            return tasa;
+        }
+        long plazo = prestamo.getPlazoMeses();
+        return (2 * tasa * cuotas + plazo) / (2 * plazo);
+    }
+
+    // UPDATE en batch, un DELETE y un lote de INSERT; si otro pago tocó alguna cuota se deshace todo
+    private int guardar(Plan plan, LocalDate hoy) {
+        if (!plan.cambios.isEmpty() && cuotaRepository.actualizarCronograma(plan.cambios, hoy) != plan.cambios.size()) {
+            throw new IllegalStateException(CONCURRENCIA);
+        }
+        if (!plan.eliminadas.isEmpty() && cuotaRepository.eliminarNoPagadas(plan.eliminadas) != plan.eliminadas.size()) {
+            throw new IllegalStateException(CONCURRENCIA);
+        }
+        if (!plan.nuevas.isEmpty()) {
+            try {
+                cuotaRepository.saveAllAndFlush(plan.nuevas);
+            } catch (DataIntegrityViolationException ex) {
+                throw new IllegalStateException(CONCURRENCIA);
+            }
+        }
+        return plan.cambios.size() + plan.eliminadas.size() + plan.nuevas.size();
+    }
+
+    private static MetodoAmortizacion metodo(Prestamo prestamo) {
+        return prestamo.getMetodoAmortizacion() == null ? MetodoAmortizacion.PLANO : prestamo.getMetodoAmortizacion();
+    }
+
+    private static int valor(Integer cuotas) {
+        return cuotas == null ? 0 : cuotas;
+    }
+
+    private static boolean aprobado(Prestamo prestamo) {
+        return prestamo.getEstadoPrestamo() != null && prestamo.getEstadoPrestamo().getId() == PRESTAMO_APROBADO;
+    }
+
+    private static boolean saldada(Cuota cuota) {
+        return cuota.getEstadoCuota() != null && ESTADOS_SALDADOS.contains(cuota.getEstadoCuota().getId());
+    }
+
+    private void compensar(Deque<Runnable> compensaciones) {
+        while (!compensaciones.isEmpty()) {
+            try {
+                compensaciones.pop().run();
+            } catch (RuntimeException ex) {
+                compensacionesFallidas.increment();
+            }
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package org.nttdata.com.servicioprestamos.service;
 
+import org.nttdata.com.servicioprestamos.dto.AsignacionPagoResponse;
 import org.nttdata.com.servicioprestamos.dto.CuotaRequest;
 import org.nttdata.com.servicioprestamos.dto.CuotaResponse;
+import org.nttdata.com.servicioprestamos.dto.FiltroCuotaRequest;
+import org.nttdata.com.servicioprestamos.dto.PaginaResponse;
+import org.nttdata.com.servicioprestamos.dto.PagoCuotasRequest;
+import org.nttdata.com.servicioprestamos.dto.PagoPrestamoRequest;
+import org.nttdata.com.servicioprestamos.models.Cuota;
 
 import java.util.List;
 
 public interface CuotaService {
     List<CuotaResponse> getAllCuotas();
+    PaginaResponse<CuotaResponse> buscarCuotas(FiltroCuotaRequest filtro);
     CuotaResponse getCuotaById(Long id);
     CuotaResponse pagarCuota(Long id, Long cuentaId);
+    CuotaResponse pagarCuotaPorNumero(Long prestamoId, Integer numero, Long cuentaId);
+    Cuota materializarCuota(Long prestamoId, Integer numero);
+    List<CuotaResponse> pagarCuotas(PagoCuotasRequest pagoCuotasRequest);
+    AsignacionPagoResponse aplicarPago(Long prestamoId, PagoPrestamoRequest pago);
     CuotaResponse saveCuota(CuotaRequest cuotaRequest);
+    void saveCuotas(List<CuotaRequest> cuotasRequest);
     CuotaResponse updateCuota(Long id, CuotaRequest cuotaRequest);
     void deleteCuota(Long id);
 
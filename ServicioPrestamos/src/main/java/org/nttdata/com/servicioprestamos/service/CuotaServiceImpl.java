@@ -2,24 +2,48 @@ package org.nttdata.com.servicioprestamos.service;
 
 import lombok.RequiredArgsConstructor;
 import org.nttdata.com.servicioprestamos.client.CuentaClient;
-import org.nttdata.com.servicioprestamos.client.TransaccionClient;
-import org.nttdata.com.servicioprestamos.client.dto.CuentaRequest;
 import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
-import org.nttdata.com.servicioprestamos.client.dto.TransaccionRequest;
+import org.nttdata.com.servicioprestamos.dto.AplicacionCuotaResponse;
+import org.nttdata.com.servicioprestamos.dto.AsignacionPagoResponse;
 import org.nttdata.com.servicioprestamos.dto.CuotaRequest;
 import org.nttdata.com.servicioprestamos.dto.CuotaResponse;
+import org.nttdata.com.servicioprestamos.dto.FiltroCuotaRequest;
+import org.nttdata.com.servicioprestamos.dto.PagoCuotasRequest;
+import org.nttdata.com.servicioprestamos.dto.PagoPrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.PaginaResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
 import org.nttdata.com.servicioprestamos.exception.ResourceNotFound;
 import org.nttdata.com.servicioprestamos.models.Cuota;
 import org.nttdata.com.servicioprestamos.models.EstadoCuota;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.repository.CuotaEspecificaciones;
 import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.Abono;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaDebito;
+import org.nttdata.com.servicioprestamos.util.AsignacionPago;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
 import org.nttdata.com.servicioprestamos.util.CuotaMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,13 +51,57 @@ public class CuotaServiceImpl implements CuotaService {
     private final CuotaRepository cuotaRepository;
     private final CuotaMapper cuotaMapper;
     private final CuentaClient cuentaClient;
-    private final TransaccionClient transaccionClient;
+    private final CobroCuotasService cobroCuotasService;
+    private final PrestamoRepository prestamoRepository;
+    private final AmortizacionService amortizacionService;
+    private final ResumenClienteService resumenClienteService;
+    private final MoraCarteraService moraCarteraService;
+    private final AnaliticaCarteraService analiticaCarteraService;
+
+    private static final Set<Long> ESTADOS_PAGABLES = Set.of(1L, 3L);
+    private static final long CUOTA_PAGADA = 2L;
+    private static final long PRESTAMO_APROBADO = 2L;
 
     @Override
     public List<CuotaResponse> getAllCuotas() {
         return cuotaMapper.toDtoList(cuotaRepository.findAll());
     }
 
+    @Override
+    public PaginaResponse<CuotaResponse> buscarCuotas(FiltroCuotaRequest filtro) {
+        int tamanio = PaginaResponse.tamanioOPorDefecto(filtro.tamanio());
+        LocalDate despuesDeFecha = null;
+        Long despuesDeId = null;
+        if (filtro.despuesDe() != null && !filtro.despuesDe().isBlank()) {
+            String[] cursor = filtro.despuesDe().split(",");
+            try {
+                if (cursor.length != 2) {
+                    throw new IllegalArgumentException();
+                }
+                despuesDeFecha = LocalDate.parse(cursor[0].strip());
+                despuesDeId = Long.valueOf(cursor[1].strip());
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                throw new BadRequest("Cursor inválido: " + filtro.despuesDe());
+            }
+        }
+        // Se pide una fila de más para saber si hay otra página sin ejecutar un COUNT
+        List<Cuota> cuotas = cuotaRepository.findBy(CuotaEspecificaciones.conFiltros(filtro, despuesDeFecha, despuesDeId),
+                q -> q.sortBy(Sort.by("fechaVencimiento", "id")).limit(tamanio + 1).all());
+        boolean hayMas = cuotas.size() > tamanio;
+        List<Cuota> pagina = hayMas ? cuotas.subList(0, tamanio) : cuotas;
+        String siguiente = null;
+        if (hayMas) {
+            Cuota ultima = pagina.get(tamanio - 1);
+            siguiente = aLocalDate(ultima.getFechaVencimiento()) + "," + ultima.getId();
+        }
+        return PaginaResponse.<CuotaResponse>builder()
+                .contenido(cuotaMapper.toDtoList(pagina))
+                .tamanio(pagina.size())
+                .hayMas(hayMas)
+                .siguiente(siguiente)
+                .build();
+    }
+
     @Override
     public CuotaResponse getCuotaById(Long id) {
         return cuotaMapper.toDto(cuotaRepository.findById(id).orElseThrow(
@@ -46,9 +114,10 @@ public class CuotaServiceImpl implements CuotaService {
         Cuota cuota = cuotaRepository.findById(id).orElseThrow(
                 () -> new ResourceNotFound("Cuota no encontrada con id: " + id)
         );
-        // verificar estado
-        if(cuota.getEstadoCuota().getId() != 1L){
-            throw new IllegalStateException("La cuota no se encuentra en estado PENDIENTE");
+        // verificar estado (validación temprana; la que cuenta es la transición condicional de cobrar)
+        // Una cuota ATRASADA por el barrido se sigue pudiendo pagar
+        if(!ESTADOS_PAGABLES.contains(cuota.getEstadoCuota().getId())){
+            throw new IllegalStateException("La cuota no se encuentra en estado PENDIENTE o ATRASADA");
         }
         // verificar monto
         if (cuota.getMonto() == null || cuota.getMonto().compareTo(BigDecimal.ZERO) <= 0) {
@@ -62,57 +131,220 @@ public class CuotaServiceImpl implements CuotaService {
             throw new IllegalStateException("No se pudo consultar la cuenta: " + ex.getMessage(), ex);
         }
         // verificar saldo
-        if(cuentaResp.saldo().compareTo(cuota.getMonto()) < 0){
+        if(cuentaResp.saldo().compareTo(cuota.saldoPendiente()) < 0){
             throw new IllegalStateException("Saldo insuficiente en la cuenta para pagar la cuota");
         }
-        //hoy
-        LocalDate hoy = LocalDate.now();
 
-            // registrar transacción de débito en el servicio de cuentas
-            TransaccionRequest transaccion = TransaccionRequest.builder()
-                .cuentaId(cuentaId)
-                .monto(cuota.getMonto())
-                // Suponiendo que el tipo 3L corresponde a "TRANSFERENCIA" o "PAGO DE CUOTA"
-                .tipoTransaccionId(3L)
-                .referencia("Pago cuota id:" + id)
-                .fecha(Date.from(hoy.atStartOfDay(ZoneId.systemDefault()).toInstant()))
-                .build();
+        // La cuota pasa a PAGADA con un UPDATE condicional: de varios pagos simultáneos o reintentos
+        // solo uno cambia la fila, y solo ese debita la cuenta (con un ajuste atómico, sin leer y reescribir el saldo)
+        // Se cobra lo que falta: la cuota puede tener abonos parciales
+        CuotaDebito aCobrar = new CuotaDebito(cuota.getId(), cuentaId, cuota.saldoPendiente(), aLocalDate(cuota.getFechaVencimiento()));
+        boolean cobrada;
+        try {
+            cobrada = cobroCuotasService.cobrar(cuentaId, List.of(aCobrar), "Pago cuota id:", LocalDate.now());
+        } catch (RuntimeException ex) {
+            throw new IllegalStateException("Error al registrar el pago de la cuota: " + ex.getMessage(), ex);
+        }
+        if (!cobrada) {
+            throw new IllegalStateException("La cuota ya fue pagada o abonada por otra operación");
+        }
+
+        cuota.setEstadoCuota(EstadoCuota.builder().id(2L).build());
+        return cuotaMapper.toDto(cuota);
+    }
+
+    @Override
+    public List<CuotaResponse> pagarCuotas(PagoCuotasRequest pagoCuotasRequest) {
+        Long cuentaId = pagoCuotasRequest.cuentaId();
+        List<Long> ids = pagoCuotasRequest.cuotaIds().stream().distinct().toList();
+
+        // validar todas las cuotas con una sola consulta
+        List<Cuota> cuotas = cuotaRepository.buscarParaPago(ids);
+        if (cuotas.size() != ids.size()) {
+            Set<Long> faltantes = new HashSet<>(ids);
+            cuotas.forEach(cuota -> faltantes.remove(cuota.getId()));
+            throw new ResourceNotFound("Cuotas no encontradas con id: " + faltantes);
+        }
+        List<Long> noPagables = cuotas.stream()
+                .filter(cuota -> !ESTADOS_PAGABLES.contains(cuota.getEstadoCuota().getId()))
+                .map(Cuota::getId)
+                .toList();
+        if (!noPagables.isEmpty()) {
+            throw new IllegalStateException("Las cuotas " + noPagables + " no se encuentran en estado PENDIENTE o ATRASADA");
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (Cuota cuota : cuotas) {
+            if (cuota.getMonto() == null || cuota.getMonto().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalStateException("Monto de cuota inválido");
+            }
+            total = total.add(cuota.saldoPendiente());
+        }
+
+        // consultar cuenta una sola vez para todo el pago
+        CuentaResponse cuentaResp;
         try {
-            transaccionClient.crearTransaccion(transaccion);
+            cuentaResp = cuentaClient.getCuentaById(cuentaId);
         } catch (Exception ex) {
-            throw new IllegalStateException("Error al registrar transacción en cuenta", ex);
+            throw new IllegalStateException("No se pudo consultar la cuenta: " + ex.getMessage(), ex);
+        }
+        if (cuentaResp.saldo().compareTo(total) < 0) {
+            throw new IllegalStateException("Saldo insuficiente en la cuenta para pagar las cuotas");
         }
 
-        // Restar monto de la cuenta
-        CuentaResponse cuentaResponse = cuentaClient.getCuentaById(cuentaId);
+        // un débito por el total, un lote de transacciones y un UPDATE de estados
+        List<CuotaDebito> aCobrar = cuotas.stream()
+                .map(cuota -> new CuotaDebito(cuota.getId(), cuentaId, cuota.saldoPendiente(), aLocalDate(cuota.getFechaVencimiento())))
+                .toList();
+        if (!cobroCuotasService.cobrar(cuentaId, aCobrar, "Pago cuota id:", LocalDate.now())) {
+            throw new IllegalStateException("Alguna de las cuotas ya fue pagada por otra operación");
+        }
 
-        CuentaRequest cuentaRequest = CuentaRequest.builder()
-                .estadoCuentaId(cuentaResponse.estadoCuenta().id())
-                .tipoCuentaId(cuentaResponse.tipoCuenta().id())
-                .clienteId(cuentaResponse.clienteId())
-                .saldo(cuentaResponse.saldo().subtract(transaccion.monto()))
-                .build();
+        EstadoCuota pagada = EstadoCuota.builder().id(2L).build();
+        cuotas.forEach(cuota -> cuota.setEstadoCuota(pagada));
+        return cuotaMapper.toDtoList(cuotas);
+    }
 
-        cuentaClient.updateCuenta(cuentaId, cuentaRequest);
+    /**
+     * Reparte el monto entre las cuotas por cobrar del préstamo con AsignacionPago (vencidas, vigente, futuras).
+     * Una cuota puede quedar con un abono parcial. Las cuotas virtuales que reciben el pago se insertan en un lote;
+     * luego los abonos se registran con un batch de UPDATE condicionales y un solo débito por lo aplicado.
+     * El excedente sobre la deuda no se debita.
+     */
+    @Override
+    public AsignacionPagoResponse aplicarPago(Long prestamoId, PagoPrestamoRequest pago) {
+        Prestamo prestamo = prestamoRepository.findById(prestamoId).orElseThrow(
+                () -> new ResourceNotFound("Préstamo no encontrado con id: " + prestamoId));
+        if (prestamo.getEstadoPrestamo() == null || prestamo.getEstadoPrestamo().getId() != PRESTAMO_APROBADO) {
+            throw new BadRequest("Solo se pueden pagar préstamos en estado APROBADO");
+        }
+        LocalDate hoy = LocalDate.now();
+        List<Cuota> porCobrar = esVirtual(prestamo)
+                ? cronogramaVirtual(prestamo, cuotaRepository.findByPrestamoId(prestamoId), hoy).stream()
+                        .filter(cuota -> ESTADOS_PAGABLES.contains(cuota.getEstadoCuota().getId()))
+                        .toList()
+                : cuotaRepository.buscarPorCobrar(prestamoId, ESTADOS_PAGABLES);
 
-        // Actualizar estado de la cuota a PAGADA (suponiendo id 2L es PAGADA)
-        cuota.setEstadoCuota(EstadoCuota.builder().id(2L).build());
+        List<AsignacionPago.Pendiente> pendientes = porCobrar.stream()
+                .map(cuota -> new AsignacionPago.Pendiente(aLocalDate(cuota.getFechaVencimiento()),
+                        Cronograma.aCentimos(cuota.getMonto()),
+                        cuota.getMontoPagado() == null ? 0 : Cronograma.aCentimos(cuota.getMontoPagado())))
+                .toList();
+        AsignacionPago.Resultado asignacion = AsignacionPago.asignar(pendientes, Cronograma.aCentimos(pago.monto()), hoy);
+        if (asignacion.aplicaciones().isEmpty()) {
+            throw new BadRequest("El préstamo no tiene cuotas pendientes de pago");
+        }
+        BigDecimal aplicado = Cronograma.desdeCentimos(asignacion.aplicadoCentimos());
+
+        // consultar cuenta una sola vez para todo el pago
+        CuentaResponse cuentaResp;
+        try {
+            cuentaResp = cuentaClient.getCuentaById(pago.cuentaId());
+        } catch (Exception ex) {
+            throw new IllegalStateException("No se pudo consultar la cuenta: " + ex.getMessage(), ex);
+        }
+        if (cuentaResp.saldo().compareTo(aplicado) < 0) {
+            throw new IllegalStateException("Saldo insuficiente en la cuenta para el pago");
+        }
+
+        List<Cuota> nuevas = asignacion.aplicaciones().stream()
+                .map(aplicacion -> porCobrar.get(aplicacion.indice()))
+                .filter(cuota -> cuota.getId() == null)
+                .toList();
+        if (!nuevas.isEmpty()) {
+            try {
+                cuotaRepository.saveAllAndFlush(nuevas);
+            } catch (DataIntegrityViolationException ex) {
+                throw new IllegalStateException("Otro pago modificó las cuotas del préstamo, intente nuevamente");
+            }
+        }
+
+        List<Abono> abonos = asignacion.aplicaciones().stream()
+                .map(aplicacion -> {
+                    Cuota cuota = porCobrar.get(aplicacion.indice());
+                    return new Abono(cuota.getId(),
+                            cuota.getMontoPagado() == null ? BigDecimal.ZERO : cuota.getMontoPagado(),
+                            Cronograma.desdeCentimos(aplicacion.aplicadoCentimos()),
+                            aplicacion.liquida());
+                })
+                .toList();
+        boolean registrado;
+        try {
+            registrado = cobroCuotasService.abonar(pago.cuentaId(), abonos, "Abono cuota id:", hoy);
+        } catch (RuntimeException ex) {
+            descartarInsertadas(nuevas);
+            throw new IllegalStateException("Error al registrar el pago: " + ex.getMessage(), ex);
+        }
+        if (!registrado) {
+            descartarInsertadas(nuevas);
+            throw new IllegalStateException("Otro pago modificó las cuotas del préstamo, intente nuevamente");
+        }
+
+        List<AplicacionCuotaResponse> aplicaciones = asignacion.aplicaciones().stream()
+                .map(aplicacion -> {
+                    Cuota cuota = porCobrar.get(aplicacion.indice());
+                    return AplicacionCuotaResponse.builder()
+                            .cuotaId(cuota.getId())
+                            .numero(cuota.getNumero())
+                            .fechaVencimiento(cuota.getFechaVencimiento())
+                            .tramo(aplicacion.tramo())
+                            .montoAplicado(Cronograma.desdeCentimos(aplicacion.aplicadoCentimos()))
+                            .saldoPendiente(Cronograma.desdeCentimos(aplicacion.saldoCentimos()))
+                            .pagada(aplicacion.liquida())
+                            .build();
+                })
+                .toList();
+        return AsignacionPagoResponse.builder()
+                .prestamoId(prestamoId)
+                .cuentaId(pago.cuentaId())
+                .montoRecibido(pago.monto())
+                .montoAplicado(aplicado)
+                .montoNoAplicado(Cronograma.desdeCentimos(asignacion.sobranteCentimos()))
+                .cuotasPagadas((int) abonos.stream().filter(Abono::liquida).count())
+                .aplicaciones(aplicaciones)
+                .build();
+    }
 
-        return cuotaMapper.toDto(cuotaRepository.save(cuota));
+    // fechaVencimiento puede llegar como java.sql.Date, que no admite toInstant()
+    static LocalDate aLocalDate(Date fecha) {
+        return fecha == null ? null : Instant.ofEpochMilli(fecha.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
     }
 
     @Override
+    @Transactional
     public CuotaResponse saveCuota(CuotaRequest cuotaRequest) {
-        return cuotaMapper.toDto(cuotaRepository.save(cuotaMapper.toEntity(cuotaRequest)));
+        Cuota guardada = cuotaRepository.save(cuotaMapper.toEntity(cuotaRequest));
+        registrarPago(guardada);
+        CuotaResponse cuota = cuotaMapper.toDto(guardada);
+        if (cuotaRequest.prestamoId() != null) {
+            List<Long> prestamos = List.of(cuotaRequest.prestamoId());
+            moraCarteraService.actualizar(prestamos);
+            resumenClienteService.actualizar(prestamos);
+        }
+        return cuota;
     }
 
     @Override
+    @Transactional
+    public void saveCuotas(List<CuotaRequest> cuotasRequest) {
+        // Un solo saveAll: con ids de secuencia Hibernate envía los INSERT en lotes de hibernate.jdbc.batch_size
+        cuotaRepository.saveAll(cuotaMapper.toEntityList(cuotasRequest));
+    }
+
+    @Override
+    @Transactional
     public CuotaResponse updateCuota(Long id, CuotaRequest cuotaRequest) {
         Cuota cuotaEntityRequest = cuotaMapper.toEntity(cuotaRequest);
 
         Cuota cuotaFound = cuotaRepository.findById(id).orElseThrow(
                 () -> new ResourceNotFound("Cuota no encontrada con id: " + id)
         );
+        // Si la cuota cambia de préstamo, cambian los resúmenes de ambos
+        List<Long> prestamos = Stream.of(cuotaFound.getPrestamo(), cuotaEntityRequest.getPrestamo())
+                .filter(Objects::nonNull)
+                .map(Prestamo::getId)
+                .toList();
+        // Lo cobrado sale de la cartera con los valores actuales y vuelve a entrar con los nuevos
+        revertirPago(cuotaFound);
         cuotaFound.setPrestamo(cuotaEntityRequest.getPrestamo());
         cuotaFound.setNumero(cuotaRequest.numero());
         cuotaFound.setMonto(cuotaRequest.monto());
@@ -120,20 +352,151 @@ public class CuotaServiceImpl implements CuotaService {
         cuotaFound.setMonto(cuotaRequest.monto());
         cuotaFound.setEstadoCuota(cuotaEntityRequest.getEstadoCuota());
 
-        return cuotaMapper.toDto(cuotaRepository.save(cuotaFound));
+        Cuota guardada = cuotaRepository.save(cuotaFound);
+        registrarPago(guardada);
+        CuotaResponse cuota = cuotaMapper.toDto(guardada);
+        moraCarteraService.actualizar(prestamos);
+        resumenClienteService.actualizar(prestamos);
+        return cuota;
     }
 
     @Override
+    @Transactional
     public void deleteCuota(Long id) {
         Cuota cuotaFound = cuotaRepository.findById(id).orElseThrow(
                 () -> new ResourceNotFound("Cuota no encontrada con id: " + id)
         );
+        revertirPago(cuotaFound);
         cuotaRepository.delete(cuotaFound);
+        if (cuotaFound.getPrestamo() != null) {
+            List<Long> prestamos = List.of(cuotaFound.getPrestamo().getId());
+            moraCarteraService.actualizar(prestamos);
+            resumenClienteService.actualizar(prestamos);
+        }
 
     }
 
+    private static boolean pagada(Cuota cuota) {
+        return cuota.getEstadoCuota() != null && Objects.equals(cuota.getEstadoCuota().getId(), CUOTA_PAGADA);
+    }
+
+    // agregados_cartera suma lo cobrado de las cuotas PAGADA: sus altas, cambios y bajas también lo mueven
+    private void registrarPago(Cuota cuota) {
+        if (pagada(cuota)) {
+            // La consulta de agruparPagos lee la fila, que JPA todavía puede tener pendiente
+            cuotaRepository.flush();
+            analiticaCarteraService.registrarPagos(List.of(cuota.getId()));
+        }
+    }
+
+    private void revertirPago(Cuota cuota) {
+        if (pagada(cuota)) {
+            analiticaCarteraService.revertirPagos(List.of(cuota.getId()));
+        }
+    }
+
     @Override
     public List<CuotaResponse> getCuotasByPrestamoId(Long prestamoId) {
-        return cuotaMapper.toDtoList(cuotaRepository.findByPrestamoId(prestamoId));
+        List<Cuota> persistidas = cuotaRepository.findByPrestamoId(prestamoId);
+        Prestamo prestamo = persistidas.isEmpty()
+                ? prestamoRepository.findById(prestamoId).orElse(null)
+                : persistidas.getFirst().getPrestamo();
+        if (!esVirtual(prestamo)) {
+            return cuotaMapper.toDtoList(persistidas);
+        }
+        return cuotaMapper.toDtoList(cronogramaVirtual(prestamo, persistidas, LocalDate.now()));
+    }
+
+    @Override
+    public CuotaResponse pagarCuotaPorNumero(Long prestamoId, Integer numero, Long cuentaId) {
+        CuotaMaterializada materializada = materializar(prestamoId, numero);
+        try {
+            return pagarCuota(materializada.cuota().getId(), cuentaId);
+        } catch (RuntimeException ex) {
+            // La fila se insertó solo para este pago: si no se cobró (saldo, cuenta, conflicto) se borra
+            // mientras siga sin pagar ni abonar, y la cuota vuelve a calcularse desde el cronograma
+            if (materializada.insertada()) {
+                cuotaRepository.eliminarNoPagadas(List.of(materializada.cuota().getId()));
+            }
+            throw ex;
+        }
+    }
+
+    private record CuotaMaterializada(Cuota cuota, boolean insertada) {}
+
+    // Igual que en pagarCuotaPorNumero: las cuotas virtuales insertadas para un abono que no se cobró se borran
+    private void descartarInsertadas(List<Cuota> insertadas) {
+        if (!insertadas.isEmpty()) {
+            cuotaRepository.eliminarNoPagadas(insertadas.stream().map(Cuota::getId).toList());
+        }
+    }
+
+    /**
+     * Devuelve la fila de la cuota, insertándola a partir del cronograma si el préstamo es virtual
+     * y todavía no existe. Dos hilos que la materializan a la vez chocan con uk_cuotas_prestamo_numero
+     * y el perdedor relee la fila del ganador.
+     */
+    @Override
+    public Cuota materializarCuota(Long prestamoId, Integer numero) {
+        return materializar(prestamoId, numero).cuota();
+    }
+
+    private CuotaMaterializada materializar(Long prestamoId, Integer numero) {
+        return cuotaRepository.findByPrestamoIdAndNumero(prestamoId, numero)
+                .map(cuota -> new CuotaMaterializada(cuota, false)).orElseGet(() -> {
+            Prestamo prestamo = prestamoRepository.findById(prestamoId).orElseThrow(
+                    () -> new ResourceNotFound("Préstamo no encontrado con id: " + prestamoId));
+            if (!esVirtual(prestamo) || numero == null || numero < 1 || numero > prestamo.getPlazoMeses()) {
+                throw new ResourceNotFound("Cuota " + numero + " no encontrada para el préstamo con id: " + prestamoId);
+            }
+            Cronograma cronograma = amortizacionService.calcular(prestamo.getMonto(), prestamo.getTasaInteres(),
+                    prestamo.getPlazoMeses(), prestamo.getMetodoAmortizacion());
+            try {
+                return new CuotaMaterializada(
+                        cuotaRepository.saveAndFlush(cuotaCalculada(prestamo, cronograma, numero, LocalDate.now())), true);
+            } catch (DataIntegrityViolationException ex) {
+                return new CuotaMaterializada(
+                        cuotaRepository.findByPrestamoIdAndNumero(prestamoId, numero).orElseThrow(() -> ex), false);
+            }
+        });
+    }
+
+    static boolean esVirtual(Prestamo prestamo) {
+        return prestamo != null && Boolean.TRUE.equals(prestamo.getCronogramaVirtual()) && prestamo.getFechaDesembolso() != null;
+    }
+
+    // Cronograma completo: las cuotas calculadas sin id, reemplazadas por la fila guardada cuando existe
+    private List<Cuota> cronogramaVirtual(Prestamo prestamo, List<Cuota> persistidas, LocalDate hoy) {
+        Map<Integer, Cuota> porNumero = persistidas.stream()
+                .collect(Collectors.toMap(Cuota::getNumero, Function.identity()));
+        Cronograma cronograma = amortizacionService.calcular(prestamo.getMonto(), prestamo.getTasaInteres(),
+                prestamo.getPlazoMeses(), prestamo.getMetodoAmortizacion());
+        List<Cuota> cuotas = new ArrayList<>(prestamo.getPlazoMeses());
+        for (int numero = 1; numero <= prestamo.getPlazoMeses(); numero++) {
+            Cuota persistida = porNumero.get(numero);
+            cuotas.add(persistida != null ? persistida : cuotaCalculada(prestamo, cronograma, numero, hoy));
+        }
+        return cuotas;
+    }
+
+    // Misma regla que la aprobación: vence i meses después del desembolso; vencida y sin pagar es ATRASADA
+    static Cuota cuotaCalculada(Prestamo prestamo, Cronograma cronograma, int numero, LocalDate hoy) {
+        return cuotaCalculada(prestamo, numero, cronograma.cuota(numero), cronograma.capital(numero), hoy);
+    }
+
+    static Cuota cuotaCalculada(Prestamo prestamo, int numero, BigDecimal monto, BigDecimal capital, LocalDate hoy) {
+        LocalDate fechaVencimiento = aLocalDate(prestamo.getFechaDesembolso()).plusMonths(numero);
+        EstadoCuota estado = fechaVencimiento.isBefore(hoy)
+                ? EstadoCuota.builder().id(3L).nombre("ATRASADA").build()
+                : EstadoCuota.builder().id(1L).nombre("PENDIENTE").build();
+        return Cuota.builder()
+                .prestamo(prestamo)
+                .numero(numero)
+                .fechaVencimiento(Date.from(fechaVencimiento.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                .monto(monto)
+                .capital(capital)
+                .montoPagado(BigDecimal.ZERO)
+                .estadoCuota(estado)
+                .build();
     }
 }
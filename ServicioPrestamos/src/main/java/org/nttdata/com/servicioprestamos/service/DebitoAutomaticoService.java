@@ -0,0 +1,9 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.ResultadoDebitoResponse;
+
+import java.time.LocalDate;
+
+public interface DebitoAutomaticoService {
+    ResultadoDebitoResponse debitarCuotas(LocalDate hoy);
+}
@@ -0,0 +1,163 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.configuration.ContextoServicio;
+import org.nttdata.com.servicioprestamos.dto.ResultadoDebitoResponse;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaDebito;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Débito automático de las cuotas vencidas hasta hoy. Agrupa las cuotas por cuenta y por cada cuenta hace
+ * una consulta de saldo, un débito atómico y una creación de transacciones en lote, en lugar de las
+ * cuatro llamadas remotas por cuota del pago manual. Las cuentas se procesan en un pool de tamaño fijo
+ * para no saturar ServicioCuentas ni ServicioTransacciones.
+ * El cobro de cada cuenta (reserva, débito y transacciones) lo hace CobroCuotasService.
+ * <p>
+ * La ejecución programada (prestamos.debito.cron, por defecto a las 6:00, después del barrido de cuotas
+ * atrasadas) no tiene JWT que reenviar: corre en ContextoServicio y Feign usa el token de servicio de TokenServicio.
+ * POST /cuotas/debito-automatico la ejecuta con el token del administrador que la invoca.
+ */
+@Service
+public class DebitoAutomaticoServiceImpl implements DebitoAutomaticoService {
+    private static final String REFERENCIA = "Débito automático cuota id:";
+
+    private enum Resultado { DEBITADA, SIN_SALDO, CONFLICTO, ERROR }
+
+    private record DebitoCuenta(Resultado resultado, int cuotas, BigDecimal monto) {}
+
+    private final CuotaRepository cuotaRepository;
+    private final CuentaClient cuentaClient;
+    private final CobroCuotasService cobroCuotasService;
+    private final int hilos;
+
+    private final Timer duracion;
+    private final Map<Resultado, Counter> cuentasProcesadas = new EnumMap<>(Resultado.class);
+    private final Counter cuotasPagadas;
+    private final AtomicInteger cuentasPendientes = new AtomicInteger();
+
+    public DebitoAutomaticoServiceImpl(CuotaRepository cuotaRepository,
+                                       CuentaClient cuentaClient,
+                                       CobroCuotasService cobroCuotasService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${prestamos.debito.hilos:8}") int hilos) {
+        this.cuotaRepository = cuotaRepository;
+        this.cuentaClient = cuentaClient;
+        this.cobroCuotasService = cobroCuotasService;
+        this.hilos = hilos;
+        this.duracion = Timer.builder("prestamos.debito.duracion")
+                .description("Duración de cada ejecución del débito automático")
+                .register(meterRegistry);
+        for (Resultado resultado : Resultado.values()) {
+            cuentasProcesadas.put(resultado, Counter.builder("prestamos.debito.cuentas")
+                    .description("Cuentas procesadas por el débito automático")
+                    .tag("resultado", resultado.name())
+                    .register(meterRegistry));
+        }
+        this.cuotasPagadas = Counter.builder("prestamos.debito.cuotas")
+                .description("Cuotas pagadas por débito automático")
+                .register(meterRegistry);
+        Gauge.builder("prestamos.debito.cuentas_pendientes", cuentasPendientes, AtomicInteger::get)
+                .description("Cuentas que faltan procesar en la ejecución en curso")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${prestamos.debito.cron:0 0 6 * * *}")
+    public void debitoProgramado() {
+        ContextoServicio.ejecutar(() -> debitarCuotas(LocalDate.now()));
+    }
+
+    @Override
+    public ResultadoDebitoResponse debitarCuotas(LocalDate hoy) {
+        long inicio = System.nanoTime();
+        // La consulta viene ordenada por cuenta y vencimiento: cada grupo queda con la cuota más antigua primero
+        Map<Long, List<CuotaDebito>> porCuenta = cuotaRepository.buscarParaDebito(hoy).stream()
+                .collect(Collectors.groupingBy(CuotaDebito::cuentaId, LinkedHashMap::new, Collectors.toList()));
+        cuentasPendientes.set(porCuenta.size());
+
+        List<Future<DebitoCuenta>> futuros = new ArrayList<>(porCuenta.size());
+        // close() espera a que terminen todas las cuentas
+        try (ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(hilos))) {
+            porCuenta.forEach((cuentaId, cuotas) ->
+                    futuros.add(executor.submit(() -> debitarCuenta(cuentaId, cuotas, hoy))));
+        }
+
+        EnumMap<Resultado, Integer> cuentas = new EnumMap<>(Resultado.class);
+        long pagadas = 0;
+        BigDecimal montoDebitado = BigDecimal.ZERO;
+        for (Future<DebitoCuenta> futuro : futuros) {
+            DebitoCuenta debito = futuro.resultNow();
+            cuentas.merge(debito.resultado(), 1, Integer::sum);
+            pagadas += debito.cuotas();
+            montoDebitado = montoDebitado.add(debito.monto());
+        }
+        long nanos = System.nanoTime() - inicio;
+        duracion.record(nanos, TimeUnit.NANOSECONDS);
+        return ResultadoDebitoResponse.builder()
+                .cuentas(porCuenta.size())
+                .cuentasDebitadas(cuentas.getOrDefault(Resultado.DEBITADA, 0))
+                .cuentasSinSaldo(cuentas.getOrDefault(Resultado.SIN_SALDO, 0))
+                .cuentasFallidas(cuentas.getOrDefault(Resultado.CONFLICTO, 0) + cuentas.getOrDefault(Resultado.ERROR, 0))
+                .cuotasPagadas(pagadas)
+                .montoDebitado(montoDebitado)
+                .duracionMs(TimeUnit.NANOSECONDS.toMillis(nanos))
+                .build();
+    }
+
+    private DebitoCuenta debitarCuenta(Long cuentaId, List<CuotaDebito> cuotas, LocalDate hoy) {
+        try {
+            BigDecimal saldo = cuentaClient.getCuentaById(cuentaId).saldo();
+
+            // Se corta en la primera cuota que no alcanza: no se paga una cuota posterior antes que una anterior
+            List<CuotaDebito> aPagar = new ArrayList<>(cuotas.size());
+            BigDecimal total = BigDecimal.ZERO;
+            for (CuotaDebito cuota : cuotas) {
+                BigDecimal acumulado = total.add(cuota.monto());
+                if (acumulado.compareTo(saldo) > 0) {
+                    break;
+                }
+                aPagar.add(cuota);
+                total = acumulado;
+            }
+            if (aPagar.isEmpty()) {
+                return terminar(Resultado.SIN_SALDO, 0, BigDecimal.ZERO);
+            }
+
+            // false: un pago manual se adelantó con alguna cuota, la cuenta queda para la próxima ejecución
+            if (!cobroCuotasService.cobrar(cuentaId, aPagar, REFERENCIA, hoy)) {
+                return terminar(Resultado.CONFLICTO, 0, BigDecimal.ZERO);
+            }
+            return terminar(Resultado.DEBITADA, aPagar.size(), total);
+        } catch (RuntimeException ex) {
+            return terminar(Resultado.ERROR, 0, BigDecimal.ZERO);
+        }
+    }
+
+    private DebitoCuenta terminar(Resultado resultado, int cuotas, BigDecimal monto) {
+        cuentasProcesadas.get(resultado).increment();
+        cuotasPagadas.increment(cuotas);
+        cuentasPendientes.decrementAndGet();
+        return new DebitoCuenta(resultado, cuotas, monto);
+    }
+}
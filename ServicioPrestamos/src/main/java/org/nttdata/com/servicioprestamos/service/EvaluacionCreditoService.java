@@ -0,0 +1,10 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
+
+public interface EvaluacionCreditoService {
+    // Ingresos y egresos de la cuenta usados para la capacidad de pago; puede venir de la caché
+    ResumenTransaccionesResponse obtenerResumen(Long cuentaId);
+    // Descarta el resumen guardado después de crear transacciones en la cuenta
+    void invalidar(Long cuentaId);
+}
@@ -0,0 +1,49 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Caché acotada y con vencimiento del resumen de transacciones por cuenta. Ediciones repetidas del mismo
+ * préstamo no vuelven a consultar ServicioTransacciones. Las transacciones que crea este servicio
+ * (desembolsos, reversos y cobros de cuotas) invalidan la entrada de su cuenta; las que se crean fuera
+ * se reflejan cuando vence el TTL (prestamos.credito.cache.ttl).
+ * Aciertos y fallos se publican como cache.gets{cache=prestamos.credito} en /actuator/metrics.
+ */
+@Service
+public class EvaluacionCreditoServiceImpl implements EvaluacionCreditoService {
+    private final TransaccionClient transaccionClient;
+    private final Cache<Long, ResumenTransaccionesResponse> resumenes;
+
+    public EvaluacionCreditoServiceImpl(TransaccionClient transaccionClient,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${prestamos.credito.cache.maximo:10000}") long maximo,
+                                        @Value("${prestamos.credito.cache.ttl:5m}") Duration ttl) {
+        this.transaccionClient = transaccionClient;
+        this.resumenes = Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, resumenes, "prestamos.credito");
+    }
+
+    @Override
+    public ResumenTransaccionesResponse obtenerResumen(Long cuentaId) {
+        // Las excepciones de Feign no se guardan: el siguiente intento vuelve a consultar
+        return resumenes.get(cuentaId, transaccionClient::obtenerResumen);
+    }
+
+    @Override
+    public void invalidar(Long cuentaId) {
+        resumenes.invalidate(cuentaId);
+    }
+}
@@ -0,0 +1,13 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.ResultadoImportacionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenImportacionResponse;
+import org.nttdata.com.servicioprestamos.util.LectorSolicitudes.Formato;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface ImportacionPrestamoService {
+    // alCompletar recibe el resultado de cada línea en el orden del archivo, a medida que se guarda su bloque
+    ResumenImportacionResponse importar(InputStream entrada, Formato formato, Consumer<ResultadoImportacionResponse> alCompletar);
+}
@@ -0,0 +1,354 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.nttdata.com.servicioprestamos.client.dto.ClienteResponse;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
+import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.ResultadoImportacionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenImportacionResponse;
+import org.nttdata.com.servicioprestamos.models.EstadoPrestamo;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.producer.NotificacionProducer;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.service.AnaliticaCarteraService.FotoPrestamo;
+import org.nttdata.com.servicioprestamos.util.EjecutorParalelo;
+import org.nttdata.com.servicioprestamos.util.LectorSolicitudes;
+import org.nttdata.com.servicioprestamos.util.LectorSolicitudes.Fila;
+import org.nttdata.com.servicioprestamos.util.LectorSolicitudes.Formato;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.nttdata.com.servicioprestamos.util.EjecutorParalelo.esperar;
+
+/**
+ * Importación de solicitudes de préstamo de canales externos. Frente a un POST /prestamos por línea:
+ * <ul>
+ *     <li>el archivo se lee por bloques de prestamos.importacion.lote líneas; en memoria hay a lo sumo dos bloques
+ *     y las consultas recientes, sea cual sea el tamaño del archivo;</li>
+ *     <li>mientras un bloque espera sus consultas y se guarda, el siguiente ya está leído, validado y con sus
+ *     consultas en curso;</li>
+ *     <li>cada cliente y cada cuenta se consultan una sola vez por importación, con a lo sumo
+ *     prestamos.importacion.consultas consultas remotas simultáneas;</li>
+ *     <li>los préstamos aceptados de un bloque se insertan en un batch JDBC, con un solo acumulado de la cartera
+ *     y sus notificaciones, en una transacción.</li>
+ * </ul>
+ * Las validaciones son las de createPrestamo: anotaciones de PrestamoRequest, reglas de préstamo, existencia
+ * del cliente y de la cuenta y capacidad de pago. Una línea rechazada no detiene las demás.
+ */
+@Service
+public class ImportacionPrestamoServiceImpl implements ImportacionPrestamoService {
+    private static final long ESTADO_PENDIENTE = 1L;
+
+    private final PrestamoRepository prestamoRepository;
+    private final PrestamoServiceImpl prestamoService;
+    private final ReglasPrestamoService reglasPrestamoService;
+    private final EvaluacionCreditoService evaluacionCreditoService;
+    private final AnaliticaCarteraService analiticaCarteraService;
+    private final ResumenClienteService resumenClienteService;
+    private final NotificacionProducer notificacionProducer;
+    private final EjecutorParalelo ejecutorParalelo;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanioLote;
+    private final int consultasSimultaneas;
+    private final int maximoConsultas;
+    private final Timer duracion;
+    private final Counter filasAceptadas;
+    private final Counter filasRechazadas;
+
+    public ImportacionPrestamoServiceImpl(PrestamoRepository prestamoRepository,
+                                          PrestamoServiceImpl prestamoService,
+                                          ReglasPrestamoService reglasPrestamoService,
+                                          EvaluacionCreditoService evaluacionCreditoService,
+                                          AnaliticaCarteraService analiticaCarteraService,
+                                          ResumenClienteService resumenClienteService,
+                                          NotificacionProducer notificacionProducer,
+                                          EjecutorParalelo ejecutorParalelo,
+                                          Validator validator,
+                                          ObjectMapper objectMapper,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${prestamos.importacion.lote:200}") int tamanioLote,
+                                          @Value("${prestamos.importacion.consultas:8}") int consultasSimultaneas,
+                                          @Value("${prestamos.importacion.maximo-consultas:10000}") int maximoConsultas) {
+        this.prestamoRepository = prestamoRepository;
+        this.prestamoService = prestamoService;
+        this.reglasPrestamoService = reglasPrestamoService;
+        this.evaluacionCreditoService = evaluacionCreditoService;
+        this.analiticaCarteraService = analiticaCarteraService;
+        this.resumenClienteService = resumenClienteService;
+        this.notificacionProducer = notificacionProducer;
+        this.ejecutorParalelo = ejecutorParalelo;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanioLote = tamanioLote;
+        this.consultasSimultaneas = consultasSimultaneas;
+        this.maximoConsultas = maximoConsultas;
+        this.duracion = Timer.builder("prestamos.importacion.duracion")
+                .description("Duración de cada importación de solicitudes")
+                .register(meterRegistry);
+        this.filasAceptadas = Counter.builder("prestamos.importacion.filas")
+                .description("Líneas importadas por resultado")
+                .tag("resultado", "aceptada")
+                .register(meterRegistry);
+        this.filasRechazadas = Counter.builder("prestamos.importacion.filas")
+                .description("Líneas importadas por resultado")
+                .tag("resultado", "rechazada")
+                .register(meterRegistry);
+    }
+
+    // Línea leída con sus consultas en curso; error != null si ya quedó rechazada sin consultar
+    private record Pendiente(long linea, PrestamoRequest solicitud, String error,
+                             CompletableFuture<ClienteResponse> cliente,
+                             CompletableFuture<CuentaResponse> cuenta,
+                             CompletableFuture<ResumenTransaccionesResponse> resumen) {
+
+        static Pendiente rechazada(long linea, String error) {
+            return new Pendiente(linea, null, error, null, null, null);
+        }
+    }
+
+    /**
+     * Consultas remotas de una importación. Solo las usa el hilo que lee el archivo; el orden de acceso
+     * acota cada mapa a maximoConsultas entradas aunque el archivo tenga muchos clientes distintos.
+     * Un cliente o cuenta inexistente también se recuerda y rechaza sus demás líneas sin volver a consultar.
+     */
+    private final class Consultas {
+        private final Semaphore permisos = new Semaphore(consultasSimultaneas);
+        private final Map<Long, CompletableFuture<ClienteResponse>> clientes = recientes();
+        private final Map<Long, CompletableFuture<CuentaResponse>> cuentas = recientes();
+        private final Map<Long, CompletableFuture<ResumenTransaccionesResponse>> resumenes = recientes();
+        private long consultasClientes;
+        private long consultasCuentas;
+
+        CompletableFuture<ClienteResponse> cliente(Long clienteId) {
+            return clientes.computeIfAbsent(clienteId, id -> {
+                consultasClientes++;
+                return acotada(() -> prestamoService.getClienteById(id));
+            });
+        }
+
+        CompletableFuture<CuentaResponse> cuenta(Long cuentaId) {
+            return cuentas.computeIfAbsent(cuentaId, id -> {
+                consultasCuentas++;
+                return acotada(() -> prestamoService.getCuentaById(id));
+            });
+        }
+
+        CompletableFuture<ResumenTransaccionesResponse> resumen(Long cuentaId) {
+            return resumenes.computeIfAbsent(cuentaId, id -> acotada(() -> evaluacionCreditoService.obtenerResumen(id)));
+        }
+
+        private <T> CompletableFuture<T> acotada(Supplier<T> consulta) {
+            return ejecutorParalelo.ejecutar(() -> {
+                permisos.acquireUninterruptibly();
+                try {
+                    return consulta.get();
+                } finally {
+                    permisos.release();
+                }
+            });
+        }
+
+        private <V> Map<Long, V> recientes() {
+            return new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, V> masAntigua) {
+                    return size() > maximoConsultas;
+                }
+            };
+        }
+    }
+
+    // Cuenta los resultados y los entrega en el orden del archivo
+    private final class Informe {
+        private final Consumer<ResultadoImportacionResponse> alCompletar;
+        private long aceptadas;
+        private long rechazadas;
+        private BigDecimal montoSolicitado = BigDecimal.ZERO;
+
+        private Informe(Consumer<ResultadoImportacionResponse> alCompletar) {
+            this.alCompletar = alCompletar;
+        }
+
+        void aceptada(long linea, Prestamo prestamo) {
+            aceptadas++;
+            filasAceptadas.increment();
+            montoSolicitado = montoSolicitado.add(prestamo.getMonto());
+            entregar(ResultadoImportacionResponse.builder()
+                    .linea(linea).aceptado(true).prestamoId(prestamo.getId()).mensaje("Solicitud registrada").build());
+        }
+
+        void rechazada(long linea, String mensaje) {
+            rechazadas++;
+            filasRechazadas.increment();
+            entregar(ResultadoImportacionResponse.builder().linea(linea).aceptado(false).mensaje(mensaje).build());
+        }
+
+        private void entregar(ResultadoImportacionResponse resultado) {
+            try {
+                alCompletar.accept(resultado);
+            } catch (RuntimeException ex) {
+                // Un consumidor caído (cliente desconectado) no deja un bloque a medias
+            }
+        }
+    }
+
+    @Override
+    public ResumenImportacionResponse importar(InputStream entrada, Formato formato, Consumer<ResultadoImportacionResponse> alCompletar) {
+        long inicio = System.nanoTime();
+        Informe informe = new Informe(alCompletar);
+        Consultas consultas = new Consultas();
+        try (LectorSolicitudes lector = new LectorSolicitudes(entrada, formato, objectMapper)) {
+            List<Pendiente> anterior = List.of();
+            List<Fila> filas;
+            while (!(filas = lector.leer(tamanioLote)).isEmpty()) {
+                // Las consultas del bloque nuevo avanzan mientras se guarda el anterior
+                List<Pendiente> actual = preparar(filas, consultas);
+                guardar(anterior, informe);
+                anterior = actual;
+            }
+            guardar(anterior, informe);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudo leer el archivo de importación", ex);
+        }
+
+        long nanos = System.nanoTime() - inicio;
+        duracion.record(nanos, TimeUnit.NANOSECONDS);
+        return ResumenImportacionResponse.builder()
+                .filas(informe.aceptadas + informe.rechazadas)
+                .aceptadas(informe.aceptadas)
+                .rechazadas(informe.rechazadas)
+                .montoSolicitado(informe.montoSolicitado)
+                .consultasClientes(consultas.consultasClientes)
+                .consultasCuentas(consultas.consultasCuentas)
+                .duracionMs(TimeUnit.NANOSECONDS.toMillis(nanos))
+                .build();
+    }
+
+    // Validaciones locales; solo las líneas que las pasan lanzan consultas remotas
+    private List<Pendiente> preparar(List<Fila> filas, Consultas consultas) {
+        List<Pendiente> pendientes = new ArrayList<>(filas.size());
+        for (Fila fila : filas) {
+            String error = fila.error() != null ? fila.error() : validar(fila.solicitud());
+            if (error != null) {
+                pendientes.add(Pendiente.rechazada(fila.linea(), error));
+                continue;
+            }
+            PrestamoRequest solicitud = fila.solicitud();
+            pendientes.add(new Pendiente(fila.linea(), solicitud, null,
+                    consultas.cliente(solicitud.clienteId()),
+                    consultas.cuenta(solicitud.cuentaId()),
+                    consultas.resumen(solicitud.cuentaId())));
+        }
+        return pendientes;
+    }
+
+    private String validar(PrestamoRequest solicitud) {
+        Set<ConstraintViolation<PrestamoRequest>> violaciones = validator.validate(solicitud);
+        if (!violaciones.isEmpty()) {
+            return violaciones.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+        }
+        List<String> reglas;
+        try {
+            reglas = reglasPrestamoService.evaluar(solicitud.monto(), solicitud.plazoMeses(), solicitud.tasaInteres());
+        } catch (ArithmeticException e) {
+            // Valores que no caben en la aritmética entera de las reglas: se rechaza la línea, no la importación
+            return "El monto o la tasa de interés están fuera de rango";
+        }
+        return reglas.isEmpty() ? null : String.join("; ", reglas);
+    }
+
+    private void guardar(List<Pendiente> bloque, Informe informe) {
+        if (bloque.isEmpty()) {
+            return;
+        }
+        String[] errores = new String[bloque.size()];
+        Prestamo[] prestamos = new Prestamo[bloque.size()];
+        List<Prestamo> nuevos = new ArrayList<>(bloque.size());
+        List<ClienteResponse> titulares = new ArrayList<>(bloque.size());
+        for (int i = 0; i < bloque.size(); i++) {
+            Pendiente pendiente = bloque.get(i);
+            if (pendiente.error() != null) {
+                errores[i] = pendiente.error();
+                continue;
+            }
+            PrestamoRequest solicitud = pendiente.solicitud();
+            ClienteResponse cliente;
+            try {
+                cliente = esperar(pendiente.cliente());
+                esperar(pendiente.cuenta());
+                PrestamoServiceImpl.validarCapacidad(esperar(pendiente.resumen()), solicitud.monto());
+            } catch (RuntimeException ex) {
+                errores[i] = ex.getMessage();
+                continue;
+            }
+            prestamos[i] = Prestamo.builder()
+                    .clienteId(solicitud.clienteId())
+                    .cuentaId(solicitud.cuentaId())
+                    .monto(solicitud.monto())
+                    .plazoMeses(solicitud.plazoMeses())
+                    .tasaInteres(solicitud.tasaInteres())
+                    .metodoAmortizacion(solicitud.metodoAmortizacion())
+                    .estadoPrestamo(EstadoPrestamo.builder().id(ESTADO_PENDIENTE).build())
+                    .build();
+            nuevos.add(prestamos[i]);
+            titulares.add(cliente);
+        }
+
+        if (!nuevos.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(estado -> {
+                    prestamoRepository.insertarLote(nuevos);
+                    analiticaCarteraService.registrarAltas(nuevos.stream().map(FotoPrestamo::de).toList());
+                    resumenClienteService.actualizar(nuevos.stream().map(Prestamo::getId).toList());
+                    for (int i = 0; i < nuevos.size(); i++) {
+                        notificacionProducer.enviarNotificacion(
+                                PrestamoServiceImpl.notificacionCreacion(titulares.get(i), nuevos.get(i).getMonto()));
+                    }
+                });
+            } catch (RuntimeException ex) {
+                for (int i = 0; i < prestamos.length; i++) {
+                    if (prestamos[i] != null) {
+                        errores[i] = "No se pudo guardar el bloque: " + ex.getMessage();
+                        prestamos[i] = null;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < bloque.size(); i++) {
+            if (prestamos[i] != null) {
+                informe.aceptada(bloque.get(i).linea(), prestamos[i]);
+            } else {
+                informe.rechazada(bloque.get(i).linea(), errores[i]);
+            }
+        }
+    }
+}
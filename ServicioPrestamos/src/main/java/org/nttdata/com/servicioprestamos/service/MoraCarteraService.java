@@ -0,0 +1,26 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.ConciliacionMoraResponse;
+import org.nttdata.com.servicioprestamos.dto.MoraCarteraResponse;
+
+import java.util.Collection;
+
+public interface MoraCarteraService {
+    MoraCarteraResponse obtenerMora();
+
+    /**
+     * Recalcula lo que aportan los préstamos indicados a agregados_mora y suma la diferencia. Dentro de una
+     * transacción se ejecuta al confirmarla; un fallo no se propaga y lo corrige la conciliación.
+     */
+    void actualizar(Collection<Long> prestamoIds);
+
+    // Igual que actualizar, para los préstamos de las cuotas indicadas
+    void actualizarPorCuotas(Collection<Long> cuotaIds);
+
+    /**
+     * Recorre toda la cartera aprobada y compara lo calculado con mora_prestamos y agregados_mora.
+     *
+     * @param corregir si hay diferencias, reemplaza ambas tablas con lo calculado
+     */
+    ConciliacionMoraResponse conciliar(boolean corregir);
+}
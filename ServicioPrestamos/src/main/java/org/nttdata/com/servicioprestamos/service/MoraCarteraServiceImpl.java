@@ -0,0 +1,254 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nttdata.com.servicioprestamos.dto.ConciliacionMoraResponse;
+import org.nttdata.com.servicioprestamos.dto.DiferenciaMoraResponse;
+import org.nttdata.com.servicioprestamos.dto.MoraCarteraResponse;
+import org.nttdata.com.servicioprestamos.dto.TramoMoraResponse;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepository;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepositoryCustom.DeltaMora;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepositoryCustom.EstadoMora;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepositoryCustom.FilaCronograma;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepositoryCustom.TramoMora;
+import org.nttdata.com.servicioprestamos.util.ActualizacionModeloLectura;
+import org.nttdata.com.servicioprestamos.util.ActualizacionModeloLectura.Agrupador;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Tramos de mora materializados. Cada préstamo aporta una fila a agregados_mora según el vencimiento de su cuota
+ * pendiente más antigua; al pagar o recalcular cuotas se vuelve a calcular solo ese préstamo y se suma la diferencia
+ * con lo que aportaba (guardado en mora_prestamos). Como la clave es una fecha, que una cuota venza no escribe nada.
+ */
+@Service
+public class MoraCarteraServiceImpl implements MoraCarteraService {
+    private static final String[] TRAMOS = {"1-30", "31-60", "61-90", "90+"};
+    // PENDIENTE y ATRASADA
+    private static final Set<Long> ESTADOS_PENDIENTES = Set.of(1L, 3L);
+    private static final int MAXIMO_DIFERENCIAS = 100;
+
+    private final AgregadoMoraRepository agregadoMoraRepository;
+    private final AmortizacionService amortizacionService;
+    private final ActualizacionModeloLectura actualizacion;
+    private final Counter actualizacionesFallidas;
+    private final Counter diferencias;
+
+    public MoraCarteraServiceImpl(AgregadoMoraRepository agregadoMoraRepository,
+                                  AmortizacionService amortizacionService,
+                                  ActualizacionModeloLectura actualizacion,
+                                  MeterRegistry meterRegistry) {
+        this.agregadoMoraRepository = agregadoMoraRepository;
+        this.amortizacionService = amortizacionService;
+        this.actualizacion = actualizacion;
+        this.actualizacionesFallidas = Counter.builder("prestamos.mora.actualizaciones_fallidas")
+                .description("Actualizaciones de agregados_mora que fallaron; la conciliación las corrige")
+                .register(meterRegistry);
+        this.diferencias = Counter.builder("prestamos.mora.diferencias")
+                .description("Fechas de agregados_mora que no coincidían con la cartera al conciliar")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public MoraCarteraResponse obtenerMora() {
+        LocalDate hoy = LocalDate.now();
+        long[] prestamos = new long[TRAMOS.length];
+        BigDecimal[] saldos = new BigDecimal[TRAMOS.length];
+        Arrays.fill(saldos, BigDecimal.ZERO);
+        for (TramoMora tramo : agregadoMoraRepository.agruparTramos(hoy)) {
+            prestamos[tramo.tramo() - 1] += tramo.prestamos();
+            saldos[tramo.tramo() - 1] = saldos[tramo.tramo() - 1].add(tramo.saldo());
+        }
+        List<TramoMoraResponse> tramos = new ArrayList<>(TRAMOS.length);
+        long enMora = 0;
+        BigDecimal saldoEnMora = BigDecimal.ZERO;
+        for (int i = 0; i < TRAMOS.length; i++) {
+            tramos.add(TramoMoraResponse.builder().tramo(TRAMOS[i]).prestamos(prestamos[i]).saldo(saldos[i]).build());
+            enMora += prestamos[i];
+            saldoEnMora = saldoEnMora.add(saldos[i]);
+        }
+        return MoraCarteraResponse.builder()
+                .fecha(hoy)
+                .tramos(tramos)
+                .prestamosEnMora(enMora)
+                .saldoEnMora(saldoEnMora)
+                .build();
+    }
+
+    @Override
+    public void actualizar(Collection<Long> prestamoIds) {
+        if (prestamoIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = prestamoIds.stream().distinct().sorted().toList();
+        actualizacion.programar(() -> aplicar(ids), actualizacionesFallidas);
+    }
+
+    @Override
+    public void actualizarPorCuotas(Collection<Long> cuotaIds) {
+        if (cuotaIds.isEmpty()) {
+            return;
+        }
+        actualizacion.programar(() -> aplicar(agregadoMoraRepository.prestamosDeCuotas(cuotaIds).stream().sorted().toList()),
+                actualizacionesFallidas);
+    }
+
+    // Recalcular desde las cuotas es idempotente; el bloqueo de mora_prestamos evita que dos deltas del mismo préstamo se sumen dos veces
+    private void aplicar(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, EstadoMora> anteriores = agregadoMoraRepository.bloquear(ids);
+        Map<Long, EstadoMora> actuales = new HashMap<>();
+        Agrupador<FilaCronograma> agrupador = agrupador(actuales::put);
+        agregadoMoraRepository.recorrerCronogramas(ids, agrupador);
+        agrupador.terminar();
+
+        Map<Long, EstadoMora> estados = new HashMap<>();
+        Map<LocalDate, DeltaMora> deltas = new TreeMap<>();
+        for (Long id : ids) {
+            EstadoMora antes = anteriores.get(id);
+            EstadoMora despues = actuales.get(id);
+            if (antes != null) {
+                sumar(deltas, antes, -1);
+            }
+            if (despues != null) {
+                sumar(deltas, despues, 1);
+            }
+            estados.put(id, despues);
+        }
+        agregadoMoraRepository.guardarEstados(estados);
+        agregadoMoraRepository.acumular(deltas.values().stream()
+                .filter(delta -> delta.prestamos() != 0 || delta.saldo().signum() != 0)
+                .toList());
+    }
+
+    @Override
+    public ConciliacionMoraResponse conciliar(boolean corregir) {
+        return actualizacion.enTransaccionPropia(estado -> {
+            long inicio = System.nanoTime();
+            Map<Long, EstadoMora> esperados = new HashMap<>();
+            Agrupador<FilaCronograma> agrupador = agrupador(esperados::put);
+            agregadoMoraRepository.recorrerCronogramas(null, agrupador);
+            agrupador.terminar();
+            Map<LocalDate, DeltaMora> totales = new TreeMap<>();
+            esperados.values().forEach(esperado -> sumar(totales, esperado, 1));
+
+            Map<Long, EstadoMora> guardados = agregadoMoraRepository.estadosGuardados();
+            Set<Long> prestamos = new HashSet<>(esperados.keySet());
+            prestamos.addAll(guardados.keySet());
+            int prestamosConDiferencia = (int) prestamos.stream()
+                    .filter(id -> !iguales(esperados.get(id), guardados.get(id)))
+                    .count();
+
+            Map<LocalDate, DeltaMora> materializados = new HashMap<>();
+            agregadoMoraRepository.agregadosGuardados().forEach(fila -> materializados.put(fila.fecha(), fila));
+            Set<LocalDate> fechas = new TreeSet<>(totales.keySet());
+            fechas.addAll(materializados.keySet());
+            List<DiferenciaMoraResponse> distintas = new ArrayList<>();
+            for (LocalDate fecha : fechas) {
+                DeltaMora esperado = totales.getOrDefault(fecha, new DeltaMora(fecha, 0, BigDecimal.ZERO));
+                DeltaMora guardado = materializados.getOrDefault(fecha, new DeltaMora(fecha, 0, BigDecimal.ZERO));
+                if (esperado.prestamos() != guardado.prestamos() || esperado.saldo().compareTo(guardado.saldo()) != 0) {
+                    distintas.add(DiferenciaMoraResponse.builder()
+                            .fecha(fecha)
+                            .prestamosEsperados(esperado.prestamos())
+                            .prestamosGuardados(guardado.prestamos())
+                            .saldoEsperado(esperado.saldo())
+                            .saldoGuardado(guardado.saldo())
+                            .build());
+                }
+            }
+            diferencias.increment(distintas.size());
+
+            boolean corregido = corregir && (prestamosConDiferencia > 0 || !distintas.isEmpty());
+            if (corregido) {
+                agregadoMoraRepository.reemplazar(esperados, List.copyOf(totales.values()));
+            }
+            return ConciliacionMoraResponse.builder()
+                    .prestamosRevisados(agrupador.prestamos())
+                    .prestamosConDiferencia(prestamosConDiferencia)
+                    .fechasConDiferencia(distintas.size())
+                    .diferencias(distintas.subList(0, Math.min(distintas.size(), MAXIMO_DIFERENCIAS)))
+                    .corregido(corregido)
+                    .duracionMs((System.nanoTime() - inicio) / 1_000_000)
+                    .build();
+        });
+    }
+
+    // Corrige la deriva de actualizaciones que fallaron y carga las tablas la primera vez
+    @Scheduled(cron = "${prestamos.mora.conciliacion.cron:0 45 2 * * *}")
+    public void conciliarProgramado() {
+        conciliar(true);
+    }
+
+    // Aporte de un préstamo: sus cuotas guardadas sin pagar y, si es virtual, las del cronograma que no tienen fila
+    private EstadoMora estado(List<FilaCronograma> filas) {
+        FilaCronograma prestamo = filas.getFirst();
+        LocalDate fecha = null;
+        BigDecimal saldo = BigDecimal.ZERO;
+        Set<Integer> guardadas = new HashSet<>();
+        for (FilaCronograma fila : filas) {
+            if (fila.numero() == null) {
+                continue;
+            }
+            guardadas.add(fila.numero());
+            if (ESTADOS_PENDIENTES.contains(fila.estadoCuotaId()) && fila.saldo().signum() > 0) {
+                fecha = fecha == null || fila.fechaVencimiento().isBefore(fecha) ? fila.fechaVencimiento() : fecha;
+                saldo = saldo.add(fila.saldo());
+            }
+        }
+        if (prestamo.virtual() && prestamo.fechaDesembolso() != null && prestamo.monto() != null) {
+            Cronograma cronograma = amortizacionService.calcular(prestamo.monto(), prestamo.tasaInteres(),
+                    prestamo.plazoMeses(), prestamo.metodo());
+            for (int numero = 1; numero <= prestamo.plazoMeses(); numero++) {
+                if (guardadas.contains(numero)) {
+                    continue;
+                }
+                LocalDate vencimiento = prestamo.fechaDesembolso().plusMonths(numero);
+                fecha = fecha == null || vencimiento.isBefore(fecha) ? vencimiento : fecha;
+                saldo = saldo.add(cronograma.cuota(numero));
+            }
+        }
+        return fecha == null ? null : new EstadoMora(fecha, saldo.setScale(2, RoundingMode.HALF_UP));
+    }
+
+    private static void sumar(Map<LocalDate, DeltaMora> deltas, EstadoMora estado, int signo) {
+        deltas.merge(estado.fecha(), new DeltaMora(estado.fecha(), signo, estado.saldo().multiply(BigDecimal.valueOf(signo))),
+                (actual, nuevo) -> new DeltaMora(actual.fecha(), actual.prestamos() + nuevo.prestamos(),
+                        actual.saldo().add(nuevo.saldo())));
+    }
+
+    private static boolean iguales(EstadoMora a, EstadoMora b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.fecha().equals(b.fecha()) && a.saldo().compareTo(b.saldo()) == 0;
+    }
+
+    // Aporte de cada préstamo al cambiar de préstamo; los que no están en mora no llegan al destino
+    private Agrupador<FilaCronograma> agrupador(BiConsumer<Long, EstadoMora> destino) {
+        return new Agrupador<>(FilaCronograma::prestamoId, filas -> {
+            EstadoMora estado = estado(filas);
+            if (estado != null) {
+                destino.accept(filas.getFirst().prestamoId(), estado);
+            }
+        });
+    }
+}
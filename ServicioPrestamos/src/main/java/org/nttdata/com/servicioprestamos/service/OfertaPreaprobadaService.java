@@ -0,0 +1,12 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.OfertaPreaprobadaResponse;
+import org.nttdata.com.servicioprestamos.dto.ResultadoOfertasResponse;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface OfertaPreaprobadaService {
+    List<OfertaPreaprobadaResponse> getOfertasByClienteId(Long clienteId);
+    ResultadoOfertasResponse generarOfertas(LocalDate hoy);
+}
@@ -0,0 +1,203 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
+import org.nttdata.com.servicioprestamos.configuration.ContextoServicio;
+import org.nttdata.com.servicioprestamos.dto.OfertaPreaprobadaResponse;
+import org.nttdata.com.servicioprestamos.dto.ResultadoOfertasResponse;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.models.OfertaPreaprobada;
+import org.nttdata.com.servicioprestamos.repository.OfertaPreaprobadaRepository;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.nttdata.com.servicioprestamos.util.EvaluacionCredito;
+import org.nttdata.com.servicioprestamos.util.OfertaPreaprobadaMapper;
+import org.nttdata.com.servicioprestamos.util.TablaDecision;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación de ofertas preaprobadas para todas las cuentas activas. Las cuentas se leen con una sola llamada
+ * a ServicioCuentas y se parten en lotes; cada lote pide los resúmenes de transacciones de todas sus cuentas
+ * en una llamada a ServicioTransacciones, evalúa el mismo criterio de crédito que createPrestamo
+ * (EvaluacionCredito) y, por cada plazo configurado, el mayor monto que no viola la tabla de reglas vigente,
+ * y escribe sus ofertas con un upsert en batch. Los lotes se procesan en un pool de tamaño fijo.
+ * <p>
+ * Al terminar se borran las ofertas de ejecuciones anteriores que no se volvieron a escribir, salvo que algún
+ * lote haya fallado: en ese caso se conservan para no retirar ofertas de cuentas que no se pudieron evaluar.
+ * <p>
+ * Como el débito automático, la ejecución programada (prestamos.ofertas.cron, por defecto a las 4:30) corre en
+ * ContextoServicio y llama a Feign con el token de servicio de TokenServicio; POST /prestamos/ofertas/generar usa
+ * el token del administrador.
+ */
+@Service
+public class OfertaPreaprobadaServiceImpl implements OfertaPreaprobadaService {
+    private static final String CUENTA_ACTIVA = "ACTIVA";
+
+    private record ResultadoLote(int cuentasConOferta, long ofertas) {}
+
+    private final OfertaPreaprobadaRepository ofertaPreaprobadaRepository;
+    private final OfertaPreaprobadaMapper ofertaPreaprobadaMapper;
+    private final CuentaClient cuentaClient;
+    private final TransaccionClient transaccionClient;
+    private final ReglasPrestamoService reglasPrestamoService;
+    private final int hilos;
+    private final int tamanioLote;
+    private final int[] plazos;
+    private final BigDecimal tasaInteres;
+    private final MetodoAmortizacion metodo;
+
+    private final Timer duracion;
+    private final Counter lotesFallidos;
+
+    public OfertaPreaprobadaServiceImpl(OfertaPreaprobadaRepository ofertaPreaprobadaRepository,
+                                        OfertaPreaprobadaMapper ofertaPreaprobadaMapper,
+                                        CuentaClient cuentaClient,
+                                        TransaccionClient transaccionClient,
+                                        ReglasPrestamoService reglasPrestamoService,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${prestamos.ofertas.hilos:4}") int hilos,
+                                        @Value("${prestamos.ofertas.lote:500}") int tamanioLote,
+                                        @Value("${prestamos.ofertas.plazos:12,24,36,48,60}") int[] plazos,
+                                        @Value("${prestamos.ofertas.tasa:0.18}") BigDecimal tasaInteres,
+                                        @Value("${prestamos.ofertas.metodo:PLANO}") MetodoAmortizacion metodo) {
+        this.ofertaPreaprobadaRepository = ofertaPreaprobadaRepository;
+        this.ofertaPreaprobadaMapper = ofertaPreaprobadaMapper;
+        this.cuentaClient = cuentaClient;
+        this.transaccionClient = transaccionClient;
+        this.reglasPrestamoService = reglasPrestamoService;
+        this.hilos = hilos;
+        this.tamanioLote = tamanioLote;
+        this.plazos = plazos;
+        this.tasaInteres = tasaInteres;
+        this.metodo = metodo;
+        this.duracion = Timer.builder("prestamos.ofertas.duracion")
+                .description("Duración de cada generación de ofertas preaprobadas")
+                .register(meterRegistry);
+        this.lotesFallidos = Counter.builder("prestamos.ofertas.lotes_fallidos")
+                .description("Lotes de cuentas que no se pudieron evaluar")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<OfertaPreaprobadaResponse> getOfertasByClienteId(Long clienteId) {
+        return ofertaPreaprobadaMapper.toDtoList(ofertaPreaprobadaRepository.findByClienteIdOrderByPlazoMesesAsc(clienteId));
+    }
+
+    @Scheduled(cron = "${prestamos.ofertas.cron:0 30 4 * * *}")
+    public void generacionProgramada() {
+        ContextoServicio.ejecutar(() -> generarOfertas(LocalDate.now()));
+    }
+
+    @Override
+    public ResultadoOfertasResponse generarOfertas(LocalDate hoy) {
+        long inicio = System.nanoTime();
+        long generacion = System.currentTimeMillis();
+        // Todas las cuentas se evalúan con la misma versión de la tabla de reglas
+        TablaDecision tabla = reglasPrestamoService.tablaVigente();
+
+        List<CuentaResponse> cuentas = cuentaClient.getAllCuentas().stream()
+                .filter(cuenta -> cuenta.estadoCuenta() == null || CUENTA_ACTIVA.equalsIgnoreCase(cuenta.estadoCuenta().nombre()))
+                .toList();
+
+        List<Future<ResultadoLote>> futuros = new ArrayList<>();
+        // close() espera a que terminen todos los lotes
+        try (ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(hilos))) {
+            for (int desde = 0; desde < cuentas.size(); desde += tamanioLote) {
+                List<CuentaResponse> lote = cuentas.subList(desde, Math.min(desde + tamanioLote, cuentas.size()));
+                futuros.add(executor.submit(() -> procesarLote(lote, tabla, hoy, generacion)));
+            }
+        }
+
+        int cuentasConOferta = 0;
+        long ofertas = 0;
+        int fallidos = 0;
+        for (Future<ResultadoLote> futuro : futuros) {
+            if (futuro.state() == Future.State.SUCCESS) {
+                ResultadoLote resultado = futuro.resultNow();
+                cuentasConOferta += resultado.cuentasConOferta();
+                ofertas += resultado.ofertas();
+            } else {
+                fallidos++;
+            }
+        }
+        lotesFallidos.increment(fallidos);
+        int eliminadas = fallidos == 0 ? ofertaPreaprobadaRepository.eliminarAnteriores(generacion) : 0;
+
+        long nanos = System.nanoTime() - inicio;
+        duracion.record(nanos, TimeUnit.NANOSECONDS);
+        return ResultadoOfertasResponse.builder()
+                .cuentas(cuentas.size())
+                .cuentasConOferta(cuentasConOferta)
+                .ofertas(ofertas)
+                .lotes(futuros.size())
+                .lotesFallidos(fallidos)
+                .ofertasEliminadas(eliminadas)
+                .duracionMs(TimeUnit.NANOSECONDS.toMillis(nanos))
+                .build();
+    }
+
+    private ResultadoLote procesarLote(List<CuentaResponse> lote, TablaDecision tabla, LocalDate hoy, long generacion) {
+        List<Long> cuentaIds = lote.stream().map(CuentaResponse::id).toList();
+        Map<Long, ResumenTransaccionesResponse> resumenes = new HashMap<>();
+        for (ResumenTransaccionesResponse resumen : transaccionClient.obtenerResumenes(cuentaIds)) {
+            resumenes.put(resumen.cuentaId(), resumen);
+        }
+
+        long tasaMillonesimas = Cronograma.aMillonesimas(tasaInteres);
+        List<OfertaPreaprobada> ofertas = new ArrayList<>();
+        int cuentasConOferta = 0;
+        for (CuentaResponse cuenta : lote) {
+            ResumenTransaccionesResponse resumen = resumenes.get(cuenta.id());
+            if (resumen == null || EvaluacionCredito.egresosExcedidos(resumen)) {
+                continue;
+            }
+            // Truncada: el monto ofrecido nunca supera la capacidad que createPrestamo exige
+            BigDecimal capacidadPago = EvaluacionCredito.capacidadPago(resumen).setScale(2, RoundingMode.DOWN);
+            long topeCentimos = Cronograma.aCentimos(capacidadPago);
+            int antes = ofertas.size();
+            for (int plazo : plazos) {
+                long monto = tabla.montoMaximo(topeCentimos, plazo, tasaMillonesimas);
+                if (monto <= 0) {
+                    continue;
+                }
+                Cronograma cronograma = Cronograma.generar(monto, tasaMillonesimas, plazo, metodo);
+                ofertas.add(OfertaPreaprobada.builder()
+                        .clienteId(cuenta.clienteId())
+                        .cuentaId(cuenta.id())
+                        .plazoMeses(plazo)
+                        .tasaInteres(tasaInteres)
+                        .metodoAmortizacion(metodo)
+                        .montoMaximo(Cronograma.desdeCentimos(monto))
+                        .cuotaEstimada(Cronograma.desdeCentimos(cronograma.cuotaCentimos(1)))
+                        .capacidadPago(capacidadPago)
+                        .fechaGeneracion(hoy)
+                        .generacion(generacion)
+                        .build());
+            }
+            if (ofertas.size() > antes) {
+                cuentasConOferta++;
+            }
+        }
+        ofertaPreaprobadaRepository.guardarLote(ofertas);
+        return new ResultadoLote(cuentasConOferta, ofertas.size());
+    }
+}
@@ -1,13 +1,19 @@
 package org.nttdata.com.servicioprestamos.service;
 
+import org.nttdata.com.servicioprestamos.dto.CotizacionRequest;
+import org.nttdata.com.servicioprestamos.dto.CotizacionResponse;
+import org.nttdata.com.servicioprestamos.dto.FiltroPrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.PaginaResponse;
 import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
 import org.nttdata.com.servicioprestamos.dto.PrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.ValidacionPrestamoResponse;
 import org.nttdata.com.servicioprestamos.models.Prestamo;
 
 import java.util.List;
 
 public interface PrestamoService {
     List<PrestamoResponse> getAllPrestamos();
+    PaginaResponse<PrestamoResponse> buscarPrestamos(FiltroPrestamoRequest filtro);
     PrestamoResponse getPrestamoById(Long id);
     Prestamo getPrestamoEntityById(Long id);
     PrestamoResponse createPrestamo(PrestamoRequest prestamoDto);
@@ -15,4 +21,6 @@ public interface PrestamoService {
     void deletePrestamo(Long id);
     List<PrestamoResponse> getPrestamosByClienteId(Long clienteId);
     PrestamoResponse aceptarPrestamo(Long id);
+    List<ValidacionPrestamoResponse> validarPrestamos(List<PrestamoRequest> prestamos);
+    CotizacionResponse cotizarPrestamo(CotizacionRequest cotizacion);
 }
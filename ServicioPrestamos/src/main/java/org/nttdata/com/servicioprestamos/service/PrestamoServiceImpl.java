@@ -2,34 +2,59 @@ package org.nttdata.com.servicioprestamos.service;
 
 import feign.FeignException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.nttdata.com.servicioprestamos.client.ClienteClient;
 import org.nttdata.com.servicioprestamos.client.CuentaClient;
 import org.nttdata.com.servicioprestamos.client.TransaccionClient;
 import org.nttdata.com.servicioprestamos.client.dto.*;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties.Categoria;
+import org.nttdata.com.servicioprestamos.dto.CotizacionRequest;
+import org.nttdata.com.servicioprestamos.dto.CotizacionResponse;
 import org.nttdata.com.servicioprestamos.dto.CuotaRequest;
+import org.nttdata.com.servicioprestamos.dto.FiltroPrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.OpcionCotizacionResponse;
+import org.nttdata.com.servicioprestamos.dto.PaginaResponse;
 import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
 import org.nttdata.com.servicioprestamos.dto.PrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.ValidacionPrestamoResponse;
 import org.nttdata.com.servicioprestamos.exception.BadRequest;
 import org.nttdata.com.servicioprestamos.exception.ResourceNotFound;
 import org.nttdata.com.servicioprestamos.models.EstadoPrestamo;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
 import org.nttdata.com.servicioprestamos.models.Prestamo;
 import org.nttdata.com.servicioprestamos.producer.NotificacionProducer;
 import org.nttdata.com.servicioprestamos.producer.dto.ClienteResponseK;
 import org.nttdata.com.servicioprestamos.producer.dto.NotificacionRequestK;
+import org.nttdata.com.servicioprestamos.repository.PrestamoEspecificaciones;
 import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.service.AnaliticaCarteraService.FotoPrestamo;
 import org.nttdata.com.servicioprestamos.service.CuotaService;
 import org.nttdata.com.servicioprestamos.service.PrestamoService;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.nttdata.com.servicioprestamos.util.EjecutorParalelo;
+import org.nttdata.com.servicioprestamos.util.EvaluacionCredito;
+import org.nttdata.com.servicioprestamos.util.GrillaCotizacion;
 import org.nttdata.com.servicioprestamos.util.PrestamoMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.nttdata.com.servicioprestamos.util.EjecutorParalelo.esperar;
 
 @Service
 @RequiredArgsConstructor
@@ -40,16 +65,66 @@ public class PrestamoServiceImpl implements PrestamoService {
     private final TransaccionClient transaccionClient;
     private final CuentaClient cuentaClient;
     private final CuotaService cuotaService;
+    private final AmortizacionService amortizacionService;
+    private final CronogramaService cronogramaService;
+    private final ReglasPrestamoService reglasPrestamoService;
+    private final AnaliticaCarteraService analiticaCarteraService;
+    private final MoraCarteraService moraCarteraService;
+    private final ResumenClienteService resumenClienteService;
+    private final EvaluacionCreditoService evaluacionCreditoService;
 
     // Kafka
     private final NotificacionProducer notificacionProducer;
 
+    // Consultas remotas en paralelo y métricas de latencia
+    private final EjecutorParalelo ejecutorParalelo;
+    private final MeterRegistry meterRegistry;
+
+    // Proxy de Spring: las llamadas a través de él pasan por @CircuitBreaker también en los hilos paralelos
+    @Lazy
+    @Autowired
+    private PrestamoServiceImpl self;
+
+    // Préstamos aprobados con cronograma virtual: no se insertan sus cuotas, se calculan al leerlas
+    @Value("${prestamos.cuotas.virtuales:false}")
+    private boolean cuotasVirtuales;
+
+    private static final int MAXIMO_CELDAS_COTIZACION = 20_000;
+
+    private PrestamoServiceImpl proxy() {
+        return self != null ? self : this;
+    }
+
+    private Timer latencia(String operacion, String fase) {
+        return Timer.builder("prestamos.operacion.latencia")
+                .description("Latencia de las operaciones de préstamo por fase")
+                .tag("operacion", operacion)
+                .tag("fase", fase)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
 
     @Override
     public List<PrestamoResponse> getAllPrestamos() {
         return prestamoMapper.toDtoList(prestamoRepository.findAll());
     }
 
+    @Override
+    public PaginaResponse<PrestamoResponse> buscarPrestamos(FiltroPrestamoRequest filtro) {
+        int tamanio = PaginaResponse.tamanioOPorDefecto(filtro.tamanio());
+        // Se pide una fila de más para saber si hay otra página sin ejecutar un COUNT
+        List<Prestamo> prestamos = prestamoRepository.findBy(PrestamoEspecificaciones.conFiltros(filtro),
+                q -> q.sortBy(Sort.by("id")).limit(tamanio + 1).all());
+        boolean hayMas = prestamos.size() > tamanio;
+        List<Prestamo> pagina = hayMas ? prestamos.subList(0, tamanio) : prestamos;
+        return PaginaResponse.<PrestamoResponse>builder()
+                .contenido(prestamoMapper.toDtoList(pagina))
+                .tamanio(pagina.size())
+                .hayMas(hayMas)
+                .siguiente(hayMas ? String.valueOf(pagina.get(tamanio - 1).getId()) : null)
+                .build();
+    }
+
     @Override
     public PrestamoResponse getPrestamoById(Long id) {
         return prestamoMapper.toDto(prestamoRepository.findById(id).orElseThrow(
@@ -89,126 +164,179 @@ public class PrestamoServiceImpl implements PrestamoService {
     @Override
     @Transactional
     public PrestamoResponse createPrestamo(PrestamoRequest prestamoDto) {
-
-        //Verificar existencia del cliente
-        ClienteResponse clienteResponse = getClienteById(prestamoDto.clienteId());
-        //Verificacion existencia de cuenta
-        CuentaResponse cuentaResponse = getCuentaById(prestamoDto.cuentaId());
-
-
-        //Evaluar credito
-        evalularCredito(prestamoDto.cuentaId(), prestamoDto.monto());
-        evaluarMonto(prestamoDto.plazoMeses(), prestamoDto.monto(), prestamoDto.tasaInteres());
-        evaluarPlazo(prestamoDto.plazoMeses(), prestamoDto.monto(), prestamoDto.tasaInteres());
-        evaluarTasaInteres(prestamoDto.tasaInteres(), prestamoDto.monto(), prestamoDto.plazoMeses());
-
+        Timer.Sample total = Timer.start(meterRegistry);
+        Timer.Sample fase = Timer.start(meterRegistry);
+
+        //Verificar existencia del cliente y de la cuenta y evaluar credito en paralelo
+        CompletableFuture<ClienteResponse> cliente = ejecutorParalelo.ejecutar(() -> proxy().getClienteById(prestamoDto.clienteId()));
+        CompletableFuture<CuentaResponse> cuenta = ejecutorParalelo.ejecutar(() -> proxy().getCuentaById(prestamoDto.cuentaId()));
+        CompletableFuture<Void> credito = ejecutorParalelo.ejecutar(() -> evalularCredito(prestamoDto.cuentaId(), prestamoDto.monto()));
+        ClienteResponse clienteResponse = esperar(cliente);
+        esperar(cuenta);
+        esperar(credito);
+        fase.stop(latencia("creacion", "consultas"));
+
+        fase = Timer.start(meterRegistry);
+        evaluarReglas(prestamoDto);
+        fase.stop(latencia("creacion", "validacion"));
+
+        fase = Timer.start(meterRegistry);
         //Generar prestamo
         Prestamo prestamo = prestamoMapper.toEntity(prestamoDto);
         //Asignar estado "PENDIENTE" por defecto
         prestamo.setEstadoPrestamo(EstadoPrestamo.builder().id(1L).build());
         //Asignar fecha de desembolso nula por defecto (será asignada al desembolsar el préstamo)
         prestamo.setFechaDesembolso(null);
+        prestamo.setFechaSolicitud(new Date());
 
 
         //Enviar notificación de creación de préstamo
-        notificacionProducer.enviarNotificacion(NotificacionRequestK.builder()
-                        .cliente(ClienteResponseK.builder()
-                                .id(clienteResponse.id())
-                                .nombre(clienteResponse.nombre())
-                                .email(clienteResponse.email())
-                                .dni(clienteResponse.dni())
-                                .estado(clienteResponse.estadoCliente().estado())
-                                .build())
-                        .tipoNotificacionId(1L) // Tipo de notificación: Préstamo
-                        .asunto("Creación de Préstamo")
-                        .mensaje("Su solicitud de préstamo por un monto de " + prestamoDto.monto() + " ha sido recibida y está en proceso de evaluación.")
-                        .fechaEnvio(new Date())
-                        .estadoNotificacionId(1L) // Estado: PENDIENTE
-                .build());
-        return prestamoMapper.toDto(prestamoRepository.save(prestamo));
+        notificacionProducer.enviarNotificacion(notificacionCreacion(clienteResponse, prestamoDto.monto()));
+        Prestamo prestamoGuardado = prestamoRepository.save(prestamo);
+        analiticaCarteraService.registrarCambio(null, FotoPrestamo.de(prestamoGuardado));
+        resumenClienteService.actualizar(List.of(prestamoGuardado.getId()));
+        PrestamoResponse response = prestamoMapper.toDto(prestamoGuardado);
+        fase.stop(latencia("creacion", "persistencia"));
+        total.stop(latencia("creacion", "total"));
+        return response;
+    }
+
+    public static NotificacionRequestK notificacionCreacion(ClienteResponse clienteResponse, BigDecimal monto) {
+        return NotificacionRequestK.builder()
+                .cliente(ClienteResponseK.builder()
+                        .id(clienteResponse.id())
+                        .nombre(clienteResponse.nombre())
+                        .email(clienteResponse.email())
+                        .dni(clienteResponse.dni())
+                        .estado(clienteResponse.estadoCliente().estado())
+                        .build())
+                .tipoNotificacionId(1L) // Tipo de notificación: Préstamo
+                .asunto("Creación de Préstamo")
+                .mensaje("Su solicitud de préstamo por un monto de " + monto + " ha sido recibida y está en proceso de evaluación.")
+                .fechaEnvio(new Date())
+                .estadoNotificacionId(1L) // Estado: PENDIENTE
+                .build();
     }
 
     public void evalularCredito(Long cuentaId, BigDecimal montoSolicitado){
-        List<TransaccionResponse> transaccionRealizdas = transaccionClient.obteTransacciones(cuentaId);
-        BigDecimal ingresos = transaccionRealizdas.stream()
-                .filter(t -> t.tipoTransaccion().nombre().equalsIgnoreCase("DEPÓSITO"))
-                .map(TransaccionResponse::monto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-
-        BigDecimal egresos = transaccionRealizdas.stream()
-                .filter(t -> {
-                    String tipo = t.tipoTransaccion().nombre().toUpperCase();
-                    return tipo.equalsIgnoreCase("RETIRO")
-                            || tipo.equalsIgnoreCase("PAGO DE SERVICIO")
-                            || tipo.equalsIgnoreCase("TRANSFERENCIA");
-                })
-                .map(TransaccionResponse::monto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal capacidadPago = ingresos.multiply(new BigDecimal("0.3"));
-
-        if(egresos.compareTo(ingresos.multiply(new BigDecimal("1.1"))) > 0){
+        capacidadPago(cuentaId, montoSolicitado);
+    }
+
+    // Valida el historial de la cuenta para el monto solicitado y devuelve su capacidad de pago
+    public BigDecimal capacidadPago(Long cuentaId, BigDecimal montoSolicitado){
+        return validarCapacidad(evaluacionCreditoService.obtenerResumen(cuentaId), montoSolicitado);
+    }
+
+    public static BigDecimal validarCapacidad(ResumenTransaccionesResponse resumen, BigDecimal montoSolicitado){
+        BigDecimal capacidadPago = EvaluacionCredito.capacidadPago(resumen);
+
+        if(EvaluacionCredito.egresosExcedidos(resumen)){
             throw new BadRequest("El cliente no cumple con los requisitos para el préstamo porque sus egresos son mayores a sus ingresos");
         } else if(montoSolicitado.compareTo(capacidadPago) > 0){
             throw new BadRequest("El cliente no cumple con los requisitos para el préstamo su maximo es: " + capacidadPago);
         }
+        return capacidadPago;
+    }
 
-
+    @Override
+    public CotizacionResponse cotizarPrestamo(CotizacionRequest cotizacion) {
+        GrillaCotizacion.Parametros parametros = parametrosGrilla(cotizacion);
+
+        Timer.Sample consultas = Timer.start(meterRegistry);
+        // La cuenta y la capacidad de pago se consultan una sola vez para toda la grilla
+        CompletableFuture<CuentaResponse> cuenta = ejecutorParalelo.ejecutar(() -> proxy().getCuentaById(cotizacion.cuentaId()));
+        CompletableFuture<BigDecimal> capacidad = ejecutorParalelo.ejecutar(() -> capacidadPago(cotizacion.cuentaId(), cotizacion.monto()));
+        esperar(cuenta);
+        BigDecimal capacidadPago = esperar(capacidad);
+        consultas.stop(latencia("cotizacion", "consultas"));
+
+        Timer.Sample grilla = Timer.start(meterRegistry);
+        List<OpcionCotizacionResponse> opciones = GrillaCotizacion.evaluar(parametros, ForkJoinPool.commonPool());
+        grilla.stop(latencia("cotizacion", "grilla"));
+
+        return CotizacionResponse.builder()
+                .cuentaId(cotizacion.cuentaId())
+                .monto(cotizacion.monto())
+                .metodoAmortizacion(parametros.metodo())
+                .capacidadPago(capacidadPago)
+                .combinacionesEvaluadas(parametros.celdas())
+                .opciones(opciones)
+                .build();
     }
-    public void evaluarMonto(int plazoMeses, BigDecimal monto, BigDecimal tasaInteres){
-        if (monto.compareTo(new BigDecimal("1000")) < 0) {
-            throw new IllegalArgumentException("El monto mínimo permitido es 1,000.");
-        }
-        if (monto.compareTo(new BigDecimal("100000")) > 0) {
-            throw new IllegalArgumentException("El monto máximo permitido es 100,000.");
-        }
-        if (plazoMeses <= 12 && monto.compareTo(new BigDecimal("20000")) > 0) {
-            throw new IllegalArgumentException("Para plazos de hasta 12 meses el monto máximo es 20,000.");
+
+    private GrillaCotizacion.Parametros parametrosGrilla(CotizacionRequest cotizacion) {
+        int plazoMinimo = cotizacion.plazoMinimo() != null ? cotizacion.plazoMinimo() : 6;
+        int plazoMaximo = cotizacion.plazoMaximo() != null ? cotizacion.plazoMaximo() : 60;
+        long tasaMinima = tasaCotizacion(cotizacion.tasaMinima(), "0.05");
+        long tasaMaxima = tasaCotizacion(cotizacion.tasaMaxima(), "0.40");
+        long pasoTasa = tasaCotizacion(cotizacion.pasoTasa(), "0.01");
+        if (plazoMinimo <= 0 || plazoMaximo < plazoMinimo) {
+            throw new BadRequest("El rango de plazos de la cotización no es válido");
         }
-        if (plazoMeses >= 36 && monto.compareTo(new BigDecimal("80000")) < 0) {
-            throw new IllegalArgumentException("Para plazos de 36 meses o más el monto mínimo es 80,000.");
+        if (tasaMinima < 0 || tasaMaxima < tasaMinima || pasoTasa <= 0) {
+            throw new BadRequest("El rango de tasas de la cotización no es válido");
         }
-        if (tasaInteres.compareTo(new BigDecimal("0.25")) > 0 && monto.compareTo(new BigDecimal("50000")) > 0) {
-            throw new IllegalArgumentException("No se permiten montos mayores a 50,000 con tasas superiores al 25%.");
+        // En long y acotando cada factor antes del producto: un paso diminuto no desborda el conteo
+        long cantidadTasas = (tasaMaxima - tasaMinima) / pasoTasa + 1;
+        long cantidadPlazos = (long) plazoMaximo - plazoMinimo + 1;
+        if (cantidadTasas <= 0 || cantidadTasas > MAXIMO_CELDAS_COTIZACION
+                || cantidadPlazos * cantidadTasas > MAXIMO_CELDAS_COTIZACION) {
+            throw new BadRequest("La cotización no puede evaluar más de " + MAXIMO_CELDAS_COTIZACION + " combinaciones");
         }
+        return new GrillaCotizacion.Parametros(
+                Cronograma.aCentimos(cotizacion.monto()),
+                cotizacion.metodoAmortizacion() != null ? cotizacion.metodoAmortizacion() : MetodoAmortizacion.PLANO,
+                reglasPrestamoService.tablaVigente(),
+                plazoMinimo, plazoMaximo, tasaMinima, pasoTasa, (int) cantidadTasas);
+    }
 
-        if (tasaInteres.compareTo(new BigDecimal("0.10")) < 0 && monto.compareTo(new BigDecimal("10000")) < 0) {
-            throw new IllegalArgumentException("Con tasas menores al 10%, el monto mínimo es 10,000.");
+    private static long tasaCotizacion(BigDecimal tasa, String porDefecto) {
+        try {
+            return Cronograma.aMillonesimas(tasa != null ? tasa : new BigDecimal(porDefecto));
+        } catch (ArithmeticException ex) {
+            throw new BadRequest("El rango de tasas de la cotización no es válido");
         }
-        System.out.println("Monto válido.");
+    }
+    // Las reglas de monto, plazo y tasa viven en la tabla de decisión prestamos.reglas
+    public void evaluarMonto(int plazoMeses, BigDecimal monto, BigDecimal tasaInteres){
+        lanzarSiHayViolaciones(reglasPrestamoService.evaluar(monto, plazoMeses, tasaInteres, Categoria.MONTO));
     }
     public void evaluarPlazo(int plazoMeses, BigDecimal monto, BigDecimal tasaInteres){
-        if (plazoMeses < 6) {
-            throw new IllegalArgumentException("El plazo mínimo permitido es de 6 meses.");
-        }
-        if (plazoMeses > 60) {
-            throw new IllegalArgumentException("El plazo máximo permitido es de 60 meses.");
-        }
-        if (monto.compareTo(new BigDecimal("10000")) < 0 && plazoMeses > 24) {
-            throw new IllegalArgumentException("Para montos menores a 10,000 el plazo máximo es 24 meses.");
-        }
-        if (tasaInteres.compareTo(new BigDecimal("0.20")) > 0 && plazoMeses > 36) {
-            throw new IllegalArgumentException("No se permiten plazos mayores a 36 meses con tasas superiores al 20%.");
-        }
-        System.out.println("Plazo válido.");
-
+        lanzarSiHayViolaciones(reglasPrestamoService.evaluar(monto, plazoMeses, tasaInteres, Categoria.PLAZO));
     }
     public void evaluarTasaInteres(BigDecimal tasaInteres, BigDecimal monto, int plazoMeses){
-        if (tasaInteres.compareTo(new BigDecimal("0.05")) < 0) {
-            throw new IllegalArgumentException("La tasa mínima es del 5%.");
-        }
-        if (tasaInteres.compareTo(new BigDecimal("0.40")) > 0) {
-            throw new IllegalArgumentException("La tasa máxima es del 40%.");
-        }
-        if (monto.compareTo(new BigDecimal("50000")) > 0 && tasaInteres.compareTo(new BigDecimal("0.15")) < 0) {
-            throw new IllegalArgumentException("Para montos mayores a 50,000 la tasa no puede ser menor al 15%.");
-        }
-        if (plazoMeses > 48 && tasaInteres.compareTo(new BigDecimal("0.30")) > 0) {
-            throw new IllegalArgumentException("No se permiten tasas mayores al 30% en plazos superiores a 48 meses.");
+        lanzarSiHayViolaciones(reglasPrestamoService.evaluar(monto, plazoMeses, tasaInteres, Categoria.TASA));
+    }
+    // Una sola pasada por la tabla: reporta todas las reglas incumplidas a la vez
+    public void evaluarReglas(PrestamoRequest prestamoDto){
+        lanzarSiHayViolaciones(reglasPrestamoService.evaluar(prestamoDto.monto(), prestamoDto.plazoMeses(), prestamoDto.tasaInteres()));
+    }
+    // Datos de los que sale el cronograma; la fecha puede llegar como java.sql.Date y el método nulo es PLANO
+    private static boolean cambiaCronograma(Prestamo prestamo, PrestamoRequest prestamoDto) {
+        Long estadoId = prestamo.getEstadoPrestamo() == null ? null : prestamo.getEstadoPrestamo().getId();
+        return !iguales(prestamo.getMonto(), prestamoDto.monto())
+                || !Objects.equals(prestamo.getPlazoMeses(), prestamoDto.plazoMeses())
+                || !iguales(prestamo.getTasaInteres(), prestamoDto.tasaInteres())
+                || metodo(prestamo.getMetodoAmortizacion()) != metodo(prestamoDto.metodoAmortizacion())
+                || !Objects.equals(CuotaServiceImpl.aLocalDate(prestamo.getFechaDesembolso()),
+                        CuotaServiceImpl.aLocalDate(prestamoDto.fechaDesembolso()))
+                || !Objects.equals(estadoId, prestamoDto.estadoPrestamoId());
+    }
+    private static boolean iguales(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+    private static MetodoAmortizacion metodo(MetodoAmortizacion metodo) {
+        return metodo == null ? MetodoAmortizacion.PLANO : metodo;
+    }
+    private static void lanzarSiHayViolaciones(List<String> violaciones){
+        if (!violaciones.isEmpty()) {
+            throw new IllegalArgumentException(String.join(" ", violaciones));
         }
+    }
 
-        System.out.println("Tasa de interés válida.");
+    @Override
+    public List<ValidacionPrestamoResponse> validarPrestamos(List<PrestamoRequest> prestamos) {
+        return reglasPrestamoService.evaluarLote(prestamos);
     }
 
 
@@ -220,33 +348,48 @@ public class PrestamoServiceImpl implements PrestamoService {
                 () -> new ResourceNotFound("Préstamo no encontrado con id: " + id)
         );
 
-        //Verificar existencia del cliente
-        ClienteResponse clienteResponse = getClienteById(prestamoDto.clienteId());
-        //Verificacion existencia de cuenta
-        CuentaResponse cuentaResponse = getCuentaById(prestamoDto.cuentaId());
+        Timer.Sample consultas = Timer.start(meterRegistry);
+        //Verificar existencia del cliente y de la cuenta y evaluar credito en paralelo
+        CompletableFuture<ClienteResponse> cliente = ejecutorParalelo.ejecutar(() -> proxy().getClienteById(prestamoDto.clienteId()));
+        CompletableFuture<CuentaResponse> cuenta = ejecutorParalelo.ejecutar(() -> proxy().getCuentaById(prestamoDto.cuentaId()));
+        CompletableFuture<Void> credito = ejecutorParalelo.ejecutar(() -> evalularCredito(prestamoDto.cuentaId(), prestamoDto.monto()));
+        esperar(cliente);
+        esperar(cuenta);
+        esperar(credito);
+        consultas.stop(latencia("actualizacion", "consultas"));
 
-        //Evaluar credito
-        evalularCredito(prestamoDto.cuentaId(), prestamoDto.monto());
-        evaluarMonto(prestamoDto.plazoMeses(), prestamoDto.monto(), prestamoDto.tasaInteres());
-        evaluarPlazo(prestamoDto.plazoMeses(), prestamoDto.monto(), prestamoDto.tasaInteres());
-        evaluarTasaInteres(prestamoDto.tasaInteres(), prestamoDto.monto(), prestamoDto.plazoMeses());
+        evaluarReglas(prestamoDto);
 
+        FotoPrestamo antes = FotoPrestamo.de(prestamoFound);
+        boolean cambiaCronograma = cambiaCronograma(prestamoFound, prestamoDto);
         prestamoFound.setClienteId(prestamoDto.clienteId());
         prestamoFound.setCuentaId(prestamoDto.cuentaId());
         prestamoFound.setMonto(prestamoDto.monto());
         prestamoFound.setPlazoMeses(prestamoDto.plazoMeses());
         prestamoFound.setTasaInteres(prestamoDto.tasaInteres());
+        prestamoFound.setMetodoAmortizacion(prestamoDto.metodoAmortizacion());
         prestamoFound.setEstadoPrestamo(prestamoMapper.toEntity(prestamoDto).getEstadoPrestamo());
         prestamoFound.setFechaDesembolso(prestamoDto.fechaDesembolso());
+        // Si ya tiene cronograma, solo se reescriben las cuotas sin pagar que cambian; editar otros datos no lo toca
+        if (cambiaCronograma) {
+            cronogramaService.recalcular(prestamoFound, LocalDate.now());
+        }
+        analiticaCarteraService.registrarCambio(antes, FotoPrestamo.de(prestamoFound));
+        moraCarteraService.actualizar(List.of(id));
+        resumenClienteService.actualizar(List.of(id));
         return prestamoMapper.toDto(prestamoRepository.save(prestamoFound));
     }
 
     @Override
+    @Transactional
     public void deletePrestamo(Long id) {
         Prestamo prestamoFound = prestamoRepository.findById(id).orElseThrow(
                 () -> new ResourceNotFound("Préstamo no encontrado con id: " + id)
         );
+        analiticaCarteraService.registrarCambio(FotoPrestamo.de(prestamoFound), null);
         prestamoRepository.delete(prestamoFound);
+        moraCarteraService.actualizar(List.of(id));
+        resumenClienteService.actualizar(List.of(id));
     }
 
     @Override
@@ -260,15 +403,33 @@ public class PrestamoServiceImpl implements PrestamoService {
     @Override
     @Transactional
     public PrestamoResponse aceptarPrestamo(Long id) {
+        DatosAprobacion datos = validarAprobacion(id);
+        // Reserva condicional dentro de la transacción: un rollback la deshace y el commit la libera
+        if (prestamoRepository.reservarAprobacion(List.of(id)).isEmpty()) {
+            throw new BadRequest("El préstamo ya tiene una aprobación en curso");
+        }
+        LocalDate hoy = LocalDate.now();
+        registrarDesembolso(datos.prestamo(), datos.cuenta(), hoy);
+        acreditarSaldo(datos.cuenta().id(), datos.prestamo().getMonto());
+        return confirmarAprobacion(datos, hoy);
+    }
+
+    // Pasos de la aprobación; AprobacionPrestamoServiceImpl los ejecuta como saga con compensaciones
+    public record DatosAprobacion(Prestamo prestamo, ClienteResponse cliente, CuentaResponse cuenta) {}
+
+    public DatosAprobacion validarAprobacion(Long id) {
         Prestamo prestamoFound = prestamoRepository.findById(id).orElseThrow(
                 () -> new ResourceNotFound("Préstamo no encontrado con id: " + id)
         );
 
 
-        //Verificar existencia del cliente
-        ClienteResponse clienteResponse = getClienteById(prestamoFound.getClienteId());
-        //Verificacion existencia de cuenta
-        CuentaResponse cuentaResponse = getCuentaById(prestamoFound.getCuentaId());
+        Timer.Sample consultas = Timer.start(meterRegistry);
+        //Verificar existencia del cliente y de la cuenta en paralelo
+        CompletableFuture<ClienteResponse> cliente = ejecutorParalelo.ejecutar(() -> proxy().getClienteById(prestamoFound.getClienteId()));
+        CompletableFuture<CuentaResponse> cuenta = ejecutorParalelo.ejecutar(() -> proxy().getCuentaById(prestamoFound.getCuentaId()));
+        ClienteResponse clienteResponse = esperar(cliente);
+        CuentaResponse cuentaResponse = esperar(cuenta);
+        consultas.stop(latencia("aprobacion", "consultas"));
 
         //Verificar cantidad de prestamosActivos del cliente
         List<Prestamo> prestamosActivos = prestamoRepository.findByClienteIdAndEstadoPrestamoId(prestamoFound.getClienteId(), 2L);
@@ -279,53 +440,121 @@ public class PrestamoServiceImpl implements PrestamoService {
         if(prestamoFound.getEstadoPrestamo().getId() != 1L){
             throw new BadRequest("Solo se pueden aceptar préstamos en estado PENDIENTE");
         }
-        //Cambiar estado a ACEPTADO (2)
-        prestamoFound.setEstadoPrestamo(EstadoPrestamo.builder().id(2L).build());
-
-        //Fecha
-        LocalDate hoy = LocalDate.now();
-
+        return new DatosAprobacion(prestamoFound, clienteResponse, cuentaResponse);
+    }
 
-        //Asignar fecha de desembolso
-        prestamoFound.setFechaDesembolso(Date.from(hoy.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+    //Realizar deposito en la cuenta asociada al prestamo
+    public TransaccionResponse registrarDesembolso(Prestamo prestamo, CuentaResponse cuentaResponse, LocalDate hoy) {
+        try {
+            return transaccionClient.crearTransaccion(solicitudDesembolso(prestamo, cuentaResponse.id(), hoy));
+        } finally {
+            evaluacionCreditoService.invalidar(cuentaResponse.id());
+        }
+    }
 
-        //Realizar deposito en la cuenta asociada al prestamo
-        TransaccionRequest transaccionRequest = TransaccionRequest.builder()
-                .cuentaId(cuentaResponse.id())
+    public static TransaccionRequest solicitudDesembolso(Prestamo prestamo, Long cuentaId, LocalDate hoy) {
+        return TransaccionRequest.builder()
+                .cuentaId(cuentaId)
                 .tipoTransaccionId(1L)
-                .monto(prestamoFound.getMonto())
+                .monto(prestamo.getMonto())
                 .fecha(Date.from(hoy.atStartOfDay(ZoneId.systemDefault()).toInstant()))
                 .referencia("Desembolso de préstamo")
                 .build();
+    }
 
-        transaccionClient.crearTransaccion(transaccionRequest);
-        for (int i = 1; i <= prestamoFound.getPlazoMeses(); i++) {
-            // Calcular la fecha de vencimiento sumando i meses a la fecha actual
-            LocalDate fechaVencimiento = LocalDate.now().plusMonths(i);
-            // Calcular el monto de la cuota
-            BigDecimal monto = prestamoFound.getMonto()
-                    .multiply(prestamoFound.getTasaInteres().add(BigDecimal.ONE))
-                    .divide(BigDecimal.valueOf(prestamoFound.getPlazoMeses()), 2, RoundingMode.HALF_UP);
-            // Crear y guardar la cuota
-            cuotaService.saveCuota(CuotaRequest.builder()
-                            .prestamoId(prestamoFound.getId())
-                            .numero(i)
-                            .fechaVencimiento(Date.from(fechaVencimiento.atStartOfDay(ZoneId.systemDefault()).toInstant()))
-                            // Estado de PENDIENTE
-                            .estadoCuotaId(1L)
-                            .monto(monto)
-                            .build());
+    // Compensación del desembolso: retiro por el mismo monto
+    public void revertirDesembolso(Prestamo prestamo, CuentaResponse cuentaResponse) {
+        try {
+            transaccionClient.crearTransaccion(solicitudReverso(prestamo, cuentaResponse.id()));
+        } finally {
+            evaluacionCreditoService.invalidar(cuentaResponse.id());
         }
-        // Actualizar saldo de la cuenta
-        CuentaRequest cuentaRequest = CuentaRequest.builder()
-                .estadoCuentaId(cuentaResponse.estadoCuenta().id())
-                .tipoCuentaId(cuentaResponse.tipoCuenta().id())
-                .clienteId(cuentaResponse.clienteId())
-                .saldo(cuentaResponse.saldo().add(prestamoFound.getMonto()))
+    }
+
+    public static TransaccionRequest solicitudReverso(Prestamo prestamo, Long cuentaId) {
+        return TransaccionRequest.builder()
+                .cuentaId(cuentaId)
+                .tipoTransaccionId(2L)
+                .monto(prestamo.getMonto())
+                .fecha(new Date())
+                .referencia("Reverso de desembolso de préstamo " + prestamo.getId())
                 .build();
+    }
+
+    // Abono del desembolso con un ajuste atómico en ServicioCuentas: no pisa débitos ni créditos concurrentes
+    public void acreditarSaldo(Long cuentaId, BigDecimal monto) {
+        cuentaClient.ajustarSaldo(cuentaId, monto);
+    }
+
+    // Compensación del saldo: el ajuste inverso, también atómico
+    public void revertirSaldo(Long cuentaId, BigDecimal monto) {
+        cuentaClient.ajustarSaldo(cuentaId, monto.negate());
+    }
+
+    @Transactional
+    public PrestamoResponse confirmarAprobacion(DatosAprobacion datos, LocalDate hoy) {
+        List<CuotaRequest> cuotas = new ArrayList<>();
+        prepararConfirmacion(datos, hoy, cuotas);
+        // Guardar el cronograma completo en lotes
+        if (!cuotas.isEmpty()) {
+            cuotaService.saveCuotas(cuotas);
+        }
+        prestamoRepository.liberarAprobacion(List.of(datos.prestamo().getId()));
+        moraCarteraService.actualizar(List.of(datos.prestamo().getId()));
+        resumenClienteService.actualizar(List.of(datos.prestamo().getId()));
+        return prestamoMapper.toDto(prestamoRepository.save(datos.prestamo()));
+    }
 
-        cuentaClient.updateCuenta(cuentaResponse.id(), cuentaRequest);
+    // Confirmación de varios préstamos en una transacción: un solo saveCuotas y un solo saveAll
+    @Transactional
+    public List<PrestamoResponse> confirmarAprobaciones(List<DatosAprobacion> aprobaciones, LocalDate hoy) {
+        List<CuotaRequest> cuotas = new ArrayList<>();
+        List<Prestamo> prestamos = new ArrayList<>(aprobaciones.size());
+        for (DatosAprobacion datos : aprobaciones) {
+            prepararConfirmacion(datos, hoy, cuotas);
+            prestamos.add(datos.prestamo());
+        }
+        if (!cuotas.isEmpty()) {
+            cuotaService.saveCuotas(cuotas);
+        }
+        List<Long> ids = prestamos.stream().map(Prestamo::getId).toList();
+        prestamoRepository.liberarAprobacion(ids);
+        moraCarteraService.actualizar(ids);
+        resumenClienteService.actualizar(ids);
+        return prestamoMapper.toDtoList(prestamoRepository.saveAll(prestamos));
+    }
 
+    // Cambia el estado, agrega el cronograma a cuotas y encola la notificación; no guarda el préstamo
+    private void prepararConfirmacion(DatosAprobacion datos, LocalDate hoy, List<CuotaRequest> cuotas) {
+        Prestamo prestamoFound = datos.prestamo();
+        ClienteResponse clienteResponse = datos.cliente();
+        FotoPrestamo antes = FotoPrestamo.de(prestamoFound);
+        //Cambiar estado a ACEPTADO (2)
+        prestamoFound.setEstadoPrestamo(EstadoPrestamo.builder().id(2L).build());
+        //Asignar fecha de desembolso
+        prestamoFound.setFechaDesembolso(Date.from(hoy.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        prestamoFound.setCronogramaVirtual(cuotasVirtuales);
+        analiticaCarteraService.registrarCambio(antes, FotoPrestamo.de(prestamoFound));
+
+        // Con cronograma virtual no se escribe ninguna cuota: CuotaService las calcula al leerlas
+        if (!cuotasVirtuales) {
+            // Cronograma de cuotas (memoizado por monto, tasa, plazo y método)
+            Cronograma cronograma = amortizacionService.calcular(prestamoFound.getMonto(),
+                    prestamoFound.getTasaInteres(), prestamoFound.getPlazoMeses(), prestamoFound.getMetodoAmortizacion());
+            for (int i = 1; i <= prestamoFound.getPlazoMeses(); i++) {
+                // Calcular la fecha de vencimiento sumando i meses a la fecha actual
+                LocalDate fechaVencimiento = hoy.plusMonths(i);
+                cuotas.add(CuotaRequest.builder()
+                                .prestamoId(prestamoFound.getId())
+                                .numero(i)
+                                .fechaVencimiento(Date.from(fechaVencimiento.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                                // Estado de PENDIENTE
+                                .estadoCuotaId(1L)
+                                .monto(cronograma.cuota(i))
+                                .capital(cronograma.capital(i))
+                                .build());
+            }
+        }
 
         //Enviar notificación de aceoptacion de préstamo
         notificacionProducer.enviarNotificacion(NotificacionRequestK.builder()
@@ -342,7 +571,5 @@ public class PrestamoServiceImpl implements PrestamoService {
                 .fechaEnvio(new Date())
                 .estadoNotificacionId(1L) // Estado: PENDIENTE
                 .build());
-
-        return prestamoMapper.toDto(prestamoRepository.save(prestamoFound));
     }
 }
@@ -0,0 +1,17 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties.Categoria;
+import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.ValidacionPrestamoResponse;
+import org.nttdata.com.servicioprestamos.util.TablaDecision;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ReglasPrestamoService {
+    List<String> evaluar(BigDecimal monto, int plazoMeses, BigDecimal tasaInteres);
+    List<String> evaluar(BigDecimal monto, int plazoMeses, BigDecimal tasaInteres, Categoria categoria);
+    List<ValidacionPrestamoResponse> evaluarLote(List<PrestamoRequest> solicitudes);
+    // Versión compilada vigente, para evaluar muchas combinaciones con la misma tabla
+    TablaDecision tablaVigente();
+}
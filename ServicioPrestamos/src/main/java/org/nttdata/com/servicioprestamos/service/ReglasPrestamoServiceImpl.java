@@ -0,0 +1,76 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties.Categoria;
+import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.ValidacionPrestamoResponse;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.nttdata.com.servicioprestamos.util.TablaDecision;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class ReglasPrestamoServiceImpl implements ReglasPrestamoService {
+    private final ReglasPrestamoProperties reglasPrestamoProperties;
+
+    // Se reemplaza completa al refrescar la configuración; las evaluaciones en curso terminan con la tabla anterior
+    private volatile TablaDecision tabla;
+
+    public ReglasPrestamoServiceImpl(ReglasPrestamoProperties reglasPrestamoProperties) {
+        this.reglasPrestamoProperties = reglasPrestamoProperties;
+        this.tabla = TablaDecision.compilar(reglasPrestamoProperties.getFilas());
+    }
+
+    // /actuator/refresh vuelve a enlazar prestamos.reglas antes de publicar este evento
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void recompilar() {
+        tabla = TablaDecision.compilar(reglasPrestamoProperties.getFilas());
+    }
+
+    @Override
+    public List<String> evaluar(BigDecimal monto, int plazoMeses, BigDecimal tasaInteres) {
+        return tabla.evaluar(monto, plazoMeses, tasaInteres, null);
+    }
+
+    @Override
+    public List<String> evaluar(BigDecimal monto, int plazoMeses, BigDecimal tasaInteres, Categoria categoria) {
+        return tabla.evaluar(monto, plazoMeses, tasaInteres, categoria);
+    }
+
+    @Override
+    public TablaDecision tablaVigente() {
+        return tabla;
+    }
+
+    @Override
+    public List<ValidacionPrestamoResponse> evaluarLote(List<PrestamoRequest> solicitudes) {
+        // Todo el lote se evalúa con la misma versión de la tabla
+        TablaDecision actual = tabla;
+        List<ValidacionPrestamoResponse> resultados = new ArrayList<>(solicitudes.size());
+        for (int i = 0; i < solicitudes.size(); i++) {
+            PrestamoRequest solicitud = solicitudes.get(i);
+            List<String> violaciones = new ArrayList<>(0);
+            if (solicitud.monto() == null || solicitud.plazoMeses() == null || solicitud.tasaInteres() == null) {
+                violaciones.add("El monto, el plazo y la tasa de interés son obligatorios.");
+            } else {
+                try {
+                    actual.evaluar(Cronograma.aCentimos(solicitud.monto()), solicitud.plazoMeses(),
+                            Cronograma.aMillonesimas(solicitud.tasaInteres()), null, violaciones);
+                } catch (ArithmeticException e) {
+                    violaciones.add("El monto o la tasa de interés están fuera de rango.");
+                }
+            }
+            resultados.add(ValidacionPrestamoResponse.builder()
+                    .indice(i)
+                    .valido(violaciones.isEmpty())
+                    .violaciones(violaciones)
+                    .build());
+        }
+        return resultados;
+    }
+}
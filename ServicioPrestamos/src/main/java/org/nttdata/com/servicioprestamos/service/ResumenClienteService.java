@@ -0,0 +1,22 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.ResumenClienteResponse;
+
+import java.util.Collection;
+
+public interface ResumenClienteService {
+    // Préstamos del cliente con saldo y próxima cuota, leídos de resumenes_prestamo sin consultar otros servicios
+    ResumenClienteResponse obtenerResumen(Long clienteId);
+
+    /**
+     * Recalcula el resumen de los préstamos indicados; los que ya no existen se eliminan. Dentro de una
+     * transacción se ejecuta al confirmarla; un fallo no se propaga y lo corrige la reconstrucción nocturna.
+     */
+    void actualizar(Collection<Long> prestamoIds);
+
+    // Igual que actualizar, para los préstamos de las cuotas indicadas
+    void actualizarPorCuotas(Collection<Long> cuotaIds);
+
+    // Vuelve a cargar resumenes_prestamo recorriendo todos los préstamos; devuelve cuántos escribió
+    long reconstruir();
+}
@@ -0,0 +1,212 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nttdata.com.servicioprestamos.dto.ResumenClienteResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenPrestamoResponse;
+import org.nttdata.com.servicioprestamos.models.ResumenPrestamo;
+import org.nttdata.com.servicioprestamos.repository.ResumenPrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.ResumenPrestamoRepositoryCustom.FilaPrestamo;
+import org.nttdata.com.servicioprestamos.util.ActualizacionModeloLectura;
+import org.nttdata.com.servicioprestamos.util.ActualizacionModeloLectura.Agrupador;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Resumen de préstamos por cliente mantenido en cada escritura de préstamos y cuotas. Cada cambio vuelve a
+ * calcular solo los préstamos afectados desde sus filas, con la fila del resumen bloqueada, así repetirlo da
+ * el mismo resultado. La lectura es una consulta por índice, sin ServicioClientes ni cuotas.
+ */
+@Service
+public class ResumenClienteServiceImpl implements ResumenClienteService {
+    private static final long PRESTAMO_APROBADO = 2L;
+    // PENDIENTE y ATRASADA
+    private static final Set<Long> ESTADOS_PENDIENTES = Set.of(1L, 3L);
+    // Resúmenes por batch al reconstruir
+    private static final int TAMANIO_LOTE = 1_000;
+
+    private final ResumenPrestamoRepository resumenPrestamoRepository;
+    private final AmortizacionService amortizacionService;
+    private final ActualizacionModeloLectura actualizacion;
+    private final Counter actualizacionesFallidas;
+
+    public ResumenClienteServiceImpl(ResumenPrestamoRepository resumenPrestamoRepository,
+                                     AmortizacionService amortizacionService,
+                                     ActualizacionModeloLectura actualizacion,
+                                     MeterRegistry meterRegistry) {
+        this.resumenPrestamoRepository = resumenPrestamoRepository;
+        this.amortizacionService = amortizacionService;
+        this.actualizacion = actualizacion;
+        this.actualizacionesFallidas = Counter.builder("prestamos.resumen_cliente.actualizaciones_fallidas")
+                .description("Actualizaciones de resumenes_prestamo que fallaron; la reconstrucción nocturna las corrige")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ResumenClienteResponse obtenerResumen(Long clienteId) {
+        LocalDate hoy = LocalDate.now();
+        List<ResumenPrestamoResponse> prestamos = new ArrayList<>();
+        BigDecimal saldo = BigDecimal.ZERO;
+        int activos = 0;
+        LocalDate proximoVencimiento = null;
+        for (ResumenPrestamo resumen : resumenPrestamoRepository.findByClienteIdOrderByPrestamoId(clienteId)) {
+            LocalDate vencimiento = resumen.getProximaCuotaVencimiento();
+            prestamos.add(ResumenPrestamoResponse.builder()
+                    .prestamoId(resumen.getPrestamoId())
+                    .cuentaId(resumen.getCuentaId())
+                    .estadoPrestamo(resumen.getEstadoPrestamo())
+                    .monto(resumen.getMonto())
+                    .plazoMeses(resumen.getPlazoMeses())
+                    .fechaDesembolso(resumen.getFechaDesembolso())
+                    .saldoPendiente(resumen.getSaldoPendiente())
+                    .cuotasPendientes(resumen.getCuotasPendientes() != null ? resumen.getCuotasPendientes() : 0)
+                    .proximaCuotaNumero(resumen.getProximaCuotaNumero())
+                    .proximaCuotaVencimiento(vencimiento)
+                    .proximaCuotaMonto(resumen.getProximaCuotaMonto())
+                    .atrasado(vencimiento != null && vencimiento.isBefore(hoy))
+                    .build());
+            if (resumen.getSaldoPendiente() != null) {
+                saldo = saldo.add(resumen.getSaldoPendiente());
+            }
+            if (resumen.getEstadoPrestamoId() != null && resumen.getEstadoPrestamoId() == PRESTAMO_APROBADO) {
+                activos++;
+            }
+            if (vencimiento != null && (proximoVencimiento == null || vencimiento.isBefore(proximoVencimiento))) {
+                proximoVencimiento = vencimiento;
+            }
+        }
+        return ResumenClienteResponse.builder()
+                .clienteId(clienteId)
+                .totalPrestamos(prestamos.size())
+                .prestamosActivos(activos)
+                .saldoPendiente(saldo)
+                .proximoVencimiento(proximoVencimiento)
+                .prestamos(prestamos)
+                .build();
+    }
+
+    @Override
+    public void actualizar(Collection<Long> prestamoIds) {
+        if (prestamoIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = prestamoIds.stream().distinct().sorted().toList();
+        actualizacion.programar(() -> aplicar(ids), actualizacionesFallidas);
+    }
+
+    @Override
+    public void actualizarPorCuotas(Collection<Long> cuotaIds) {
+        if (cuotaIds.isEmpty()) {
+            return;
+        }
+        actualizacion.programar(() -> aplicar(resumenPrestamoRepository.prestamosDeCuotas(cuotaIds).stream().sorted().toList()),
+                actualizacionesFallidas);
+    }
+
+    private void aplicar(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        resumenPrestamoRepository.bloquear(ids);
+        List<ResumenPrestamo> resumenes = new ArrayList<>();
+        Agrupador<FilaPrestamo> agrupador = agrupador(resumenes::add);
+        resumenPrestamoRepository.recorrerPrestamos(ids, agrupador);
+        agrupador.terminar();
+        Set<Long> existentes = new HashSet<>();
+        resumenes.forEach(resumen -> existentes.add(resumen.getPrestamoId()));
+        resumenPrestamoRepository.guardar(resumenes);
+        resumenPrestamoRepository.eliminar(ids.stream().filter(id -> !existentes.contains(id)).toList());
+    }
+
+    /**
+     * Carga la tabla la primera vez y corrige las actualizaciones que fallaron. Vacía la tabla dentro de la
+     * misma transacción: una actualización concurrente espera al commit y luego recalcula sobre lo nuevo.
+     */
+    @Override
+    @Scheduled(cron = "${prestamos.resumen-cliente.reconstruccion.cron:0 50 2 * * *}")
+    public long reconstruir() {
+        Long escritos = actualizacion.enTransaccionPropia(estado -> {
+            resumenPrestamoRepository.eliminarTodos();
+            List<ResumenPrestamo> lote = new ArrayList<>(TAMANIO_LOTE);
+            long[] total = {0};
+            Agrupador<FilaPrestamo> agrupador = agrupador(resumen -> {
+                lote.add(resumen);
+                if (lote.size() == TAMANIO_LOTE) {
+                    resumenPrestamoRepository.guardar(lote);
+                    total[0] += lote.size();
+                    lote.clear();
+                }
+            });
+            resumenPrestamoRepository.recorrerPrestamos(null, agrupador);
+            agrupador.terminar();
+            resumenPrestamoRepository.guardar(lote);
+            return total[0] + lote.size();
+        });
+        return escritos != null ? escritos : 0;
+    }
+
+    private ResumenPrestamo resumen(List<FilaPrestamo> filas) {
+        FilaPrestamo prestamo = filas.getFirst();
+        ResumenPrestamo resumen = ResumenPrestamo.builder()
+                .prestamoId(prestamo.prestamoId())
+                .clienteId(prestamo.clienteId())
+                .cuentaId(prestamo.cuentaId())
+                .estadoPrestamoId(prestamo.estadoPrestamoId())
+                .estadoPrestamo(prestamo.estadoPrestamo())
+                .monto(prestamo.monto())
+                .plazoMeses(prestamo.plazoMeses())
+                .fechaDesembolso(prestamo.fechaDesembolso())
+                .saldoPendiente(BigDecimal.ZERO)
+                .cuotasPendientes(0)
+                .build();
+        Set<Integer> guardadas = new HashSet<>();
+        for (FilaPrestamo fila : filas) {
+            if (fila.numero() == null) {
+                continue;
+            }
+            guardadas.add(fila.numero());
+            if (ESTADOS_PENDIENTES.contains(fila.estadoCuotaId()) && fila.saldo().signum() > 0) {
+                sumarCuota(resumen, fila.numero(), fila.fechaVencimiento(), fila.saldo());
+            }
+        }
+        // Un préstamo virtual guarda solo las cuotas que cambiaron de estado; el resto sale del cronograma
+        if (prestamo.virtual() && prestamo.estadoPrestamoId() != null && prestamo.estadoPrestamoId() == PRESTAMO_APROBADO
+                && prestamo.fechaDesembolso() != null && prestamo.monto() != null && prestamo.plazoMeses() != null) {
+            Cronograma cronograma = amortizacionService.calcular(prestamo.monto(), prestamo.tasaInteres(),
+                    prestamo.plazoMeses(), prestamo.metodo());
+            for (int numero = 1; numero <= prestamo.plazoMeses(); numero++) {
+                if (!guardadas.contains(numero)) {
+                    sumarCuota(resumen, numero, prestamo.fechaDesembolso().plusMonths(numero), cronograma.cuota(numero));
+                }
+            }
+        }
+        resumen.setSaldoPendiente(resumen.getSaldoPendiente().setScale(2, RoundingMode.HALF_UP));
+        return resumen;
+    }
+
+    private static void sumarCuota(ResumenPrestamo resumen, int numero, LocalDate vencimiento, BigDecimal saldo) {
+        resumen.setSaldoPendiente(resumen.getSaldoPendiente().add(saldo));
+        resumen.setCuotasPendientes(resumen.getCuotasPendientes() + 1);
+        if (resumen.getProximaCuotaVencimiento() == null || vencimiento.isBefore(resumen.getProximaCuotaVencimiento())) {
+            resumen.setProximaCuotaNumero(numero);
+            resumen.setProximaCuotaVencimiento(vencimiento);
+            resumen.setProximaCuotaMonto(saldo);
+        }
+    }
+
+    // Resumen de cada préstamo al cambiar de préstamo
+    private Agrupador<FilaPrestamo> agrupador(Consumer<ResumenPrestamo> destino) {
+        return new Agrupador<>(FilaPrestamo::prestamoId, filas -> destino.accept(resumen(filas)));
+    }
+}
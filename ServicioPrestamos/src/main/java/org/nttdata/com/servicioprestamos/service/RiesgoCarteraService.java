@@ -0,0 +1,8 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.PerdidaEsperadaResponse;
+
+public interface RiesgoCarteraService {
+    // caminos y semilla null: valores de prestamos.riesgo.*
+    PerdidaEsperadaResponse simularPerdidas(Integer caminos, Long semilla);
+}
@@ -0,0 +1,152 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.nttdata.com.servicioprestamos.dto.PerdidaEsperadaResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.PrestamoVirtual;
+import org.nttdata.com.servicioprestamos.util.CarteraRiesgo;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.nttdata.com.servicioprestamos.util.SimulacionPerdidas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class RiesgoCarteraServiceImpl implements RiesgoCarteraService {
+    private static final int MAXIMO_CAMINOS = 1_000_000;
+
+    private final CuotaRepository cuotaRepository;
+    private final AmortizacionService amortizacionService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final int caminosPorDefecto;
+    private final long semillaPorDefecto;
+    private final double pd;
+    private final double pdAtraso;
+    private final double lgd;
+    private final double correlacion;
+    private final int horizonteMeses;
+
+    public RiesgoCarteraServiceImpl(CuotaRepository cuotaRepository,
+                                    AmortizacionService amortizacionService,
+                                    MeterRegistry meterRegistry,
+                                    PlatformTransactionManager transactionManager,
+                                    // 0: un hilo por núcleo
+                                    @Value("${prestamos.riesgo.hilos:0}") int hilos,
+                                    @Value("${prestamos.riesgo.caminos:10000}") int caminosPorDefecto,
+                                    @Value("${prestamos.riesgo.semilla:42}") long semillaPorDefecto,
+                                    @Value("${prestamos.riesgo.pd:0.04}") double pd,
+                                    @Value("${prestamos.riesgo.pd-atraso:0.35}") double pdAtraso,
+                                    @Value("${prestamos.riesgo.lgd:0.45}") double lgd,
+                                    @Value("${prestamos.riesgo.correlacion:0.15}") double correlacion,
+                                    @Value("${prestamos.riesgo.horizonte-meses:12}") int horizonteMeses) {
+        if (horizonteMeses < 1 || correlacion < 0 || correlacion >= 1) {
+            throw new IllegalArgumentException("prestamos.riesgo: horizonte >= 1 y 0 <= correlacion < 1");
+        }
+        this.cuotaRepository = cuotaRepository;
+        this.amortizacionService = amortizacionService;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.pool = new ForkJoinPool(hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors());
+        this.caminosPorDefecto = caminosPorDefecto;
+        this.semillaPorDefecto = semillaPorDefecto;
+        this.pd = pd;
+        this.pdAtraso = pdAtraso;
+        this.lgd = lgd;
+        this.correlacion = correlacion;
+        this.horizonteMeses = horizonteMeses;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdown();
+    }
+
+    @Override
+    public PerdidaEsperadaResponse simularPerdidas(Integer caminos, Long semilla) {
+        int totalCaminos = caminos != null ? caminos : caminosPorDefecto;
+        long semillaUsada = semilla != null ? semilla : semillaPorDefecto;
+        if (totalCaminos < 1 || totalCaminos > MAXIMO_CAMINOS) {
+            throw new BadRequest("La cantidad de caminos debe estar entre 1 y " + MAXIMO_CAMINOS);
+        }
+
+        long inicio = System.nanoTime();
+        // Solo la carga usa la conexión; la simulación trabaja sobre los arreglos de CarteraRiesgo ya confirmada
+        CarteraRiesgo cartera = transactionTemplate.execute(estado -> cargarCartera(LocalDate.now()));
+        long carga = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        double[] perdidas = cartera.prestamos() == 0 ? new double[totalCaminos] : SimulacionPerdidas.simular(cartera,
+                new SimulacionPerdidas.Parametros(pd, pdAtraso, lgd, correlacion, horizonteMeses, semillaUsada),
+                totalCaminos, pool);
+        long simulacion = System.nanoTime() - inicio;
+        Timer.builder("prestamos.riesgo.simulacion.duracion")
+                .description("Duración de la simulación Monte Carlo de pérdidas")
+                .register(meterRegistry)
+                .record(simulacion, TimeUnit.NANOSECONDS);
+
+        double media = 0;
+        for (double perdida : perdidas) {
+            media += perdida;
+        }
+        media /= perdidas.length;
+        return PerdidaEsperadaResponse.builder()
+                .prestamos(cartera.prestamos())
+                .flujos(cartera.flujos())
+                .exposicion(Cronograma.desdeCentimos(cartera.exposicionTotalCentimos()))
+                .caminos(totalCaminos)
+                .semilla(semillaUsada)
+                .hilos(pool.getParallelism())
+                .perdidaEsperada(aMonto(media))
+                .var95(aMonto(SimulacionPerdidas.percentil(perdidas, 0.95)))
+                .var99(aMonto(SimulacionPerdidas.percentil(perdidas, 0.99)))
+                .perdidaCola99(aMonto(SimulacionPerdidas.perdidaCola(perdidas, 0.99)))
+                .duracionCargaMs(TimeUnit.NANOSECONDS.toMillis(carga))
+                .duracionSimulacionMs(TimeUnit.NANOSECONDS.toMillis(simulacion))
+                .build();
+    }
+
+    // Un recorrido por cursor de las cuotas pendientes y otro de los préstamos con cronograma virtual
+    CarteraRiesgo cargarCartera(LocalDate hoy) {
+        CarteraRiesgo.Constructor constructor = CarteraRiesgo.constructor();
+        cuotaRepository.recorrerFlujosPendientes(flujo -> constructor.agregar(flujo.prestamoId(),
+                Cronograma.aCentimos(flujo.monto()), meses(hoy, flujo.fechaVencimiento()),
+                flujo.atrasada() || flujo.fechaVencimiento().isBefore(hoy)));
+        cuotaRepository.recorrerPrestamosVirtuales(prestamo -> agregarVirtual(constructor, prestamo, hoy));
+        return constructor.construir();
+    }
+
+    private void agregarVirtual(CarteraRiesgo.Constructor constructor, PrestamoVirtual prestamo, LocalDate hoy) {
+        Cronograma cronograma = amortizacionService.calcular(prestamo.monto(), prestamo.tasaInteres(),
+                prestamo.plazoMeses(), prestamo.metodo());
+        for (int numero = 1; numero <= prestamo.plazoMeses(); numero++) {
+            if (prestamo.saldadas().contains(numero)) {
+                continue;
+            }
+            LocalDate vencimiento = prestamo.fechaDesembolso().plusMonths(numero);
+            constructor.agregar(prestamo.id(), cronograma.cuotaCentimos(numero), meses(hoy, vencimiento),
+                    vencimiento.isBefore(hoy));
+        }
+    }
+
+    private static int meses(LocalDate hoy, LocalDate vencimiento) {
+        return (int) ChronoUnit.MONTHS.between(hoy, vencimiento);
+    }
+
+    private static BigDecimal aMonto(double centimos) {
+        return BigDecimal.valueOf(centimos).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
+    }
+}
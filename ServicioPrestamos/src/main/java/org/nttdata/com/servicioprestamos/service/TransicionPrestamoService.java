@@ -0,0 +1,17 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.nttdata.com.servicioprestamos.dto.ResultadoTransicionResponse;
+import org.nttdata.com.servicioprestamos.dto.TransicionLoteRequest;
+
+import java.time.LocalDate;
+
+public interface TransicionPrestamoService {
+    // Aplica a los préstamos indicados la transición al estado pedido, si la tabla de transiciones la permite
+    ResultadoTransicionResponse transicionar(TransicionLoteRequest solicitud);
+
+    // Cancela los préstamos PENDIENTE solicitados hace más de los días configurados
+    ResultadoTransicionResponse cancelarPendientes(LocalDate hoy);
+
+    // Finaliza los préstamos APROBADO con todas sus cuotas pagadas
+    ResultadoTransicionResponse finalizarPagados();
+}
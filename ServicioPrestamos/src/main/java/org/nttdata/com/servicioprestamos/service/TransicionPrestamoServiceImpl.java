@@ -0,0 +1,161 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nttdata.com.servicioprestamos.dto.ResultadoTransicionResponse;
+import org.nttdata.com.servicioprestamos.dto.TransicionLoteRequest;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepositoryCustom.PrestamoTransicionado;
+import org.nttdata.com.servicioprestamos.service.AnaliticaCarteraService.FotoPrestamo;
+import org.nttdata.com.servicioprestamos.util.TransicionesPrestamo;
+import org.nttdata.com.servicioprestamos.util.TransicionesPrestamo.Condicion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cambios de estado en lote sin pasar por updatePrestamo: no hay validaciones remotas ni entidades cargadas.
+ * Cada lote es un UPDATE de conjunto en su propia transacción, que también mueve los agregados de cartera y mora.
+ */
+@Service
+public class TransicionPrestamoServiceImpl implements TransicionPrestamoService {
+    private final PrestamoRepository prestamoRepository;
+    private final AnaliticaCarteraService analiticaCarteraService;
+    private final MoraCarteraService moraCarteraService;
+    private final ResumenClienteService resumenClienteService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransicionesPrestamo transiciones = TransicionesPrestamo.tabla();
+    private final int tamanioLote;
+    private final int diasPendiente;
+
+    public TransicionPrestamoServiceImpl(PrestamoRepository prestamoRepository,
+                                         AnaliticaCarteraService analiticaCarteraService,
+                                         MoraCarteraService moraCarteraService,
+                                         ResumenClienteService resumenClienteService,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${prestamos.transiciones.lote:1000}") int tamanioLote,
+                                         @Value("${prestamos.transiciones.cancelacion.dias:30}") int diasPendiente) {
+        this.prestamoRepository = prestamoRepository;
+        this.analiticaCarteraService = analiticaCarteraService;
+        this.moraCarteraService = moraCarteraService;
+        this.resumenClienteService = resumenClienteService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.tamanioLote = tamanioLote;
+        this.diasPendiente = diasPendiente;
+    }
+
+    @Override
+    public ResultadoTransicionResponse transicionar(TransicionLoteRequest solicitud) {
+        long destino = solicitud.estadoPrestamoId();
+        Set<Long> origenes = transiciones.origenes(destino);
+        if (origenes.isEmpty()) {
+            throw new BadRequest("No se pueden pasar préstamos en lote al estado con id: " + destino);
+        }
+        long inicio = System.nanoTime();
+        List<Long> ids = solicitud.prestamoIds().stream().distinct().sorted().toList();
+        Set<Long> actualizados = new HashSet<>();
+        int lotes = 0;
+        for (int desde = 0; desde < ids.size(); desde += tamanioLote) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + tamanioLote, ids.size()));
+            aplicar(origenes, destino, bloque, null, 0L).forEach(prestamo -> actualizados.add(prestamo.id()));
+            lotes++;
+        }
+        return resultado(destino, actualizados.size(), lotes,
+                ids.stream().filter(id -> !actualizados.contains(id)).toList(), inicio);
+    }
+
+    @Scheduled(cron = "${prestamos.transiciones.cancelacion.cron:0 0 3 * * *}")
+    public void cancelacionProgramada() {
+        cancelarPendientes(LocalDate.now());
+    }
+
+    @Override
+    public ResultadoTransicionResponse cancelarPendientes(LocalDate hoy) {
+        return recorrer(TransicionesPrestamo.CANCELADO, hoy.minusDays(diasPendiente));
+    }
+
+    @Scheduled(cron = "${prestamos.transiciones.finalizacion.cron:0 10 3 * * *}")
+    public void finalizacionProgramada() {
+        finalizarPagados();
+    }
+
+    @Override
+    public ResultadoTransicionResponse finalizarPagados() {
+        return recorrer(TransicionesPrestamo.FINALIZADO, null);
+    }
+
+    // Recorre toda la tabla por id en lotes hasta que uno vuelve vacío
+    private ResultadoTransicionResponse recorrer(long destino, LocalDate solicitadosAntesDe) {
+        long inicio = System.nanoTime();
+        Set<Long> origenes = transiciones.origenes(destino);
+        long actualizados = 0;
+        int lotes = 0;
+        long ultimoId = 0L;
+        while (true) {
+            List<PrestamoTransicionado> lote = aplicar(origenes, destino, null, solicitadosAntesDe, ultimoId);
+            if (lote.isEmpty()) {
+                break;
+            }
+            lotes++;
+            actualizados += lote.size();
+            ultimoId = lote.getLast().id();
+        }
+        return resultado(destino, actualizados, lotes, List.of(), inicio);
+    }
+
+    private List<PrestamoTransicionado> aplicar(Set<Long> origenes, long destino, Collection<Long> ids,
+                                                LocalDate solicitadosAntesDe, long ultimoId) {
+        boolean cuotasPagadas = transiciones.condicion(destino) == Condicion.CUOTAS_PAGADAS;
+        List<PrestamoTransicionado> lote = transactionTemplate.execute(estado -> {
+            List<PrestamoTransicionado> actualizados = prestamoRepository.transicionar(origenes, destino, ids,
+                    solicitadosAntesDe, cuotasPagadas, ultimoId, tamanioLote);
+            registrar(actualizados, destino);
+            return actualizados;
+        });
+        meterRegistry.counter("prestamos.transiciones.prestamos", "estado", String.valueOf(destino)).increment(lote.size());
+        return lote;
+    }
+
+    // Agregados en la misma transacción que el UPDATE; la mora y el resumen por cliente se recalculan al confirmarla
+    private void registrar(List<PrestamoTransicionado> actualizados, long destino) {
+        if (actualizados.isEmpty()) {
+            return;
+        }
+        List<FotoPrestamo> antes = new ArrayList<>(actualizados.size());
+        List<Long> aprobados = new ArrayList<>();
+        for (PrestamoTransicionado prestamo : actualizados) {
+            antes.add(new FotoPrestamo(prestamo.id(), prestamo.estadoAnteriorId(), prestamo.monto(),
+                    prestamo.plazoMeses(), prestamo.fechaDesembolso()));
+            if (prestamo.estadoAnteriorId() == TransicionesPrestamo.APROBADO) {
+                aprobados.add(prestamo.id());
+            }
+        }
+        analiticaCarteraService.registrarTransiciones(antes, destino);
+        moraCarteraService.actualizar(aprobados);
+        resumenClienteService.actualizar(actualizados.stream().map(PrestamoTransicionado::id).toList());
+    }
+
+    private static ResultadoTransicionResponse resultado(long destino, long actualizados, int lotes,
+                                                         List<Long> noActualizados, long inicio) {
+        return ResultadoTransicionResponse.builder()
+                .estadoPrestamoId(destino)
+                .actualizados(actualizados)
+                .lotes(lotes)
+                .noActualizados(noActualizados)
+                .duracionMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio))
+                .build();
+    }
+}
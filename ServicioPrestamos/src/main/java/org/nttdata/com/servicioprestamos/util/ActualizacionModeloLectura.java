@@ -0,0 +1,95 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Escritura de los modelos de lectura que se derivan de préstamos y cuotas (agregados_mora, resumenes_prestamo).
+ * Cada actualización corre en una transacción propia (REQUIRES_NEW): con una transacción en curso espera a que
+ * se confirme, así lee las filas ya guardadas, y un fallo no revierte ni interrumpe al llamador; se cuenta y lo
+ * corrige el proceso nocturno de cada modelo.
+ */
+@Component
+public class ActualizacionModeloLectura {
+    private final TransactionTemplate transactionTemplate;
+
+    public ActualizacionModeloLectura(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void programar(Runnable tarea, Counter fallidas) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ejecutar(tarea, fallidas);
+                }
+            });
+        } else {
+            ejecutar(tarea, fallidas);
+        }
+    }
+
+    // Conciliaciones y reconstrucciones: en la misma transacción propia, pero el error llega al llamador
+    public <T> T enTransaccionPropia(TransactionCallback<T> tarea) {
+        return transactionTemplate.execute(tarea);
+    }
+
+    private void ejecutar(Runnable tarea, Counter fallidas) {
+        try {
+            transactionTemplate.executeWithoutResult(estado -> tarea.run());
+        } catch (RuntimeException ex) {
+            fallidas.increment();
+        }
+    }
+
+    /**
+     * Las consultas de los modelos de lectura devuelven las filas ordenadas por préstamo: se junta cada grupo
+     * y se entrega completo al cambiar de préstamo. Hay que llamar a {@link #terminar()} tras la última fila.
+     * La lista que recibe el destino se vacía al volver: no debe guardarla.
+     */
+    public static final class Agrupador<F> implements Consumer<F> {
+        private final ToLongFunction<F> prestamoId;
+        private final Consumer<List<F>> destino;
+        private final List<F> filas = new ArrayList<>();
+        private long prestamos;
+
+        public Agrupador(ToLongFunction<F> prestamoId, Consumer<List<F>> destino) {
+            this.prestamoId = prestamoId;
+            this.destino = destino;
+        }
+
+        @Override
+        public void accept(F fila) {
+            if (!filas.isEmpty() && prestamoId.applyAsLong(filas.getFirst()) != prestamoId.applyAsLong(fila)) {
+                terminar();
+            }
+            filas.add(fila);
+        }
+
+        public void terminar() {
+            if (filas.isEmpty()) {
+                return;
+            }
+            prestamos++;
+            destino.accept(filas);
+            filas.clear();
+        }
+
+        public long prestamos() {
+            return prestamos;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import org.mapstruct.Mapper;
+import org.nttdata.com.servicioprestamos.dto.AprobacionPrestamoResponse;
+import org.nttdata.com.servicioprestamos.models.AprobacionPrestamo;
+
+@Mapper(componentModel = "spring")
+public interface AprobacionPrestamoMapper {
+    AprobacionPrestamoResponse toDto(AprobacionPrestamo aprobacionPrestamo);
+}
@@ -0,0 +1,62 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reparte un pago entre las cuotas pendientes de un préstamo: primero las vencidas, luego la vigente
+ * (la primera que vence desde hoy) y después las futuras. Con las cuotas ordenadas por vencimiento es una sola
+ * pasada en céntimos; cada cuota recibe lo que le falta o el resto del pago, y lo que sobra no se aplica.
+ */
+public final class AsignacionPago {
+    public enum Tramo { VENCIDA, VIGENTE, FUTURA }
+
+    // Cuota pendiente en orden de vencimiento; pagadoCentimos son los abonos parciales ya recibidos
+    public record Pendiente(LocalDate fechaVencimiento, long montoCentimos, long pagadoCentimos) {
+        long saldoCentimos() {
+            return montoCentimos - pagadoCentimos;
+        }
+    }
+
+    // indice: posición de la cuota en la lista recibida
+    public record Aplicacion(int indice, Tramo tramo, long aplicadoCentimos, long saldoCentimos) {
+        public boolean liquida() {
+            return saldoCentimos == 0;
+        }
+    }
+
+    public record Resultado(List<Aplicacion> aplicaciones, long aplicadoCentimos, long sobranteCentimos) {}
+
+    private AsignacionPago() {
+    }
+
+    public static Resultado asignar(List<Pendiente> pendientes, long montoCentimos, LocalDate hoy) {
+        if (montoCentimos <= 0) {
+            throw new IllegalArgumentException("El monto del pago debe ser positivo");
+        }
+        List<Aplicacion> aplicaciones = new ArrayList<>();
+        long restante = montoCentimos;
+        boolean vigenteAsignada = false;
+        for (int i = 0; i < pendientes.size() && restante > 0; i++) {
+            Pendiente cuota = pendientes.get(i);
+            Tramo tramo;
+            if (cuota.fechaVencimiento().isBefore(hoy)) {
+                tramo = Tramo.VENCIDA;
+            } else if (!vigenteAsignada) {
+                tramo = Tramo.VIGENTE;
+                vigenteAsignada = true;
+            } else {
+                tramo = Tramo.FUTURA;
+            }
+            long saldo = cuota.saldoCentimos();
+            if (saldo <= 0) {
+                continue;
+            }
+            long aplicado = Math.min(saldo, restante);
+            restante -= aplicado;
+            aplicaciones.add(new Aplicacion(i, tramo, aplicado, saldo - aplicado));
+        }
+        return new Resultado(aplicaciones, montoCentimos - restante, restante);
+    }
+}
@@ -0,0 +1,117 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import java.util.Arrays;
+
+/**
+ * Flujos pendientes de la cartera activa en arreglos primitivos, agrupados por préstamo (formato CSR):
+ * los flujos del préstamo i ocupan [inicio[i], inicio[i + 1]) ordenados por mes. Para cada flujo se
+ * guarda también lo que resta del préstamo desde él, así la exposición a partir de un mes es una
+ * búsqueda binaria y no una suma.
+ */
+public final class CarteraRiesgo {
+    private final int[] inicio;
+    private final int[] mes;
+    private final long[] restante;
+    private final boolean[] atrasado;
+
+    private CarteraRiesgo(int[] inicio, int[] mes, long[] restante, boolean[] atrasado) {
+        this.inicio = inicio;
+        this.mes = mes;
+        this.restante = restante;
+        this.atrasado = atrasado;
+    }
+
+    public static Constructor constructor() {
+        return new Constructor();
+    }
+
+    public int prestamos() {
+        return atrasado.length;
+    }
+
+    public int flujos() {
+        return mes.length;
+    }
+
+    public boolean atrasado(int prestamo) {
+        return atrasado[prestamo];
+    }
+
+    public long exposicionCentimos(int prestamo) {
+        return inicio[prestamo] == inicio[prestamo + 1] ? 0 : restante[inicio[prestamo]];
+    }
+
+    // Suma de los flujos del préstamo con mes >= desdeMes (los anteriores se consideran cobrados)
+    public long exposicionDesde(int prestamo, int desdeMes) {
+        int bajo = inicio[prestamo];
+        int alto = inicio[prestamo + 1];
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (mes[medio] < desdeMes) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo == inicio[prestamo + 1] ? 0 : restante[bajo];
+    }
+
+    public long exposicionTotalCentimos() {
+        long total = 0;
+        for (int i = 0; i < prestamos(); i++) {
+            total += exposicionCentimos(i);
+        }
+        return total;
+    }
+
+    /**
+     * Acumula flujos en arreglos que crecen por duplicación. Los flujos de un préstamo deben llegar
+     * seguidos y en orden de mes, como los devuelve el recorrido de CuotaRepository.
+     */
+    public static final class Constructor {
+        private int[] inicio = new int[1024];
+        private int[] mes = new int[4096];
+        private long[] monto = new long[4096];
+        private boolean[] atrasado = new boolean[1024];
+        private int prestamos;
+        private int flujos;
+        private long ultimoPrestamoId = Long.MIN_VALUE;
+
+        private Constructor() {
+        }
+
+        // mes: meses desde hoy hasta el vencimiento, 0 para cuotas ya vencidas
+        public Constructor agregar(long prestamoId, long montoCentimos, int mesFlujo, boolean flujoAtrasado) {
+            if (prestamoId != ultimoPrestamoId) {
+                if (prestamos + 1 >= inicio.length) {
+                    inicio = Arrays.copyOf(inicio, inicio.length * 2);
+                    atrasado = Arrays.copyOf(atrasado, atrasado.length * 2);
+                }
+                inicio[prestamos++] = flujos;
+                ultimoPrestamoId = prestamoId;
+            }
+            if (flujos == mes.length) {
+                mes = Arrays.copyOf(mes, mes.length * 2);
+                monto = Arrays.copyOf(monto, monto.length * 2);
+            }
+            mes[flujos] = Math.max(mesFlujo, 0);
+            monto[flujos++] = montoCentimos;
+            atrasado[prestamos - 1] |= flujoAtrasado;
+            return this;
+        }
+
+        public CarteraRiesgo construir() {
+            int[] offsets = Arrays.copyOf(inicio, prestamos + 1);
+            offsets[prestamos] = flujos;
+            long[] restante = new long[flujos];
+            for (int i = 0; i < prestamos; i++) {
+                long suma = 0;
+                for (int j = offsets[i + 1] - 1; j >= offsets[i]; j--) {
+                    suma += monto[j];
+                    restante[j] = suma;
+                }
+            }
+            return new CarteraRiesgo(offsets, Arrays.copyOf(mes, flujos), restante, Arrays.copyOf(atrasado, prestamos));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Cronograma de amortización inmutable. Los importes se guardan en céntimos (long)
+ * y las tasas en millonésimas, así el cálculo no crea BigDecimal por cuota.
+ * Las instancias se comparten desde la caché de AmortizacionService: no exponen sus arreglos.
+ */
+public final class Cronograma {
+    public static final long ESCALA_TASA = 1_000_000L;
+
+    private final MetodoAmortizacion metodo;
+    private final long[] cuotas;
+    private final long[] capital;
+    private final long[] interes;
+    private final long[] saldo;
+
+    private Cronograma(MetodoAmortizacion metodo, long[] cuotas, long[] capital, long[] interes, long[] saldo) {
+        this.metodo = metodo;
+        this.cuotas = cuotas;
+        this.capital = capital;
+        this.interes = interes;
+        this.saldo = saldo;
+    }
+
+    public static long aCentimos(BigDecimal monto) {
+        return monto.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static long aMillonesimas(BigDecimal tasa) {
+        return tasa.setScale(6, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal desdeCentimos(long centimos) {
+        return BigDecimal.valueOf(centimos, 2);
+    }
+
+    /**
+     * Genera el cronograma. Para FRANCES y ALEMAN la tasa es nominal anual (tasa/12 mensual);
+     * para PLANO es la tasa total del préstamo, igual que el cálculo original monto*(1+tasa)/plazo.
+     */
+    public static Cronograma generar(long montoCentimos, long tasaMillonesimas, int plazoMeses, MetodoAmortizacion metodo) {
+        if (montoCentimos <= 0 || plazoMeses <= 0 || tasaMillonesimas < 0) {
+            throw new IllegalArgumentException("Parámetros de amortización inválidos");
+        }
+        long[] cuotas = new long[plazoMeses];
+        long[] capital = new long[plazoMeses];
+        long[] interes = new long[plazoMeses];
+        long[] saldo = new long[plazoMeses];
+        switch (metodo) {
+            case PLANO -> generarPlano(montoCentimos, tasaMillonesimas, cuotas, capital, interes, saldo);
+            case FRANCES -> generarFrances(montoCentimos, tasaMillonesimas, cuotas, capital, interes, saldo);
+            case ALEMAN -> generarAleman(montoCentimos, tasaMillonesimas, cuotas, capital, interes, saldo);
+        }
+        return new Cronograma(metodo, cuotas, capital, interes, saldo);
+    }
+
+    private static void generarPlano(long monto, long tasa, long[] cuotas, long[] capital, long[] interes, long[] saldo) {
+        int n = cuotas.length;
+        // cuota = monto * (1 + tasa) / n redondeado HALF_UP a céntimos
+        long numerador = monto * (ESCALA_TASA + tasa);
+        long divisor = ESCALA_TASA * n;
+        long cuota = (2 * numerador + divisor) / (2 * divisor);
+        long capitalBase = monto / n;
+        long pendiente = monto;
+        for (int i = 0; i < n; i++) {
+            long amortizado = i == n - 1 ? pendiente : capitalBase;
+            pendiente -= amortizado;
+            cuotas[i] = cuota;
+            capital[i] = amortizado;
+            interes[i] = cuota - amortizado;
+            saldo[i] = pendiente;
+        }
+    }
+
+    private static void generarFrances(long monto, long tasa, long[] cuotas, long[] capital, long[] interes, long[] saldo) {
+        int n = cuotas.length;
+        double r = (double) tasa / ESCALA_TASA / 12;
+        long cuota = r == 0 ? (monto + n - 1) / n : Math.round(monto * r / (1 - Math.pow(1 + r, -n)));
+        long pendiente = monto;
+        for (int i = 0; i < n; i++) {
+            long interesMes = Math.round(pendiente * r);
+            long amortizado = i == n - 1 ? pendiente : Math.min(cuota - interesMes, pendiente);
+            pendiente -= amortizado;
+            cuotas[i] = amortizado + interesMes;
+            capital[i] = amortizado;
+            interes[i] = interesMes;
+            saldo[i] = pendiente;
+        }
+    }
+
+    private static void generarAleman(long monto, long tasa, long[] cuotas, long[] capital, long[] interes, long[] saldo) {
+        int n = cuotas.length;
+        double r = (double) tasa / ESCALA_TASA / 12;
+        long capitalBase = monto / n;
+        long pendiente = monto;
+        for (int i = 0; i < n; i++) {
+            long interesMes = Math.round(pendiente * r);
+            long amortizado = i == n - 1 ? pendiente : capitalBase;
+            pendiente -= amortizado;
+            cuotas[i] = amortizado + interesMes;
+            capital[i] = amortizado;
+            interes[i] = interesMes;
+            saldo[i] = pendiente;
+        }
+    }
+
+    public MetodoAmortizacion metodo() {
+        return metodo;
+    }
+
+    public int plazo() {
+        return cuotas.length;
+    }
+
+    // numero empieza en 1, igual que Cuota.numero
+    public long cuotaCentimos(int numero) {
+        return cuotas[numero - 1];
+    }
+
+    public BigDecimal cuota(int numero) {
+        return desdeCentimos(cuotas[numero - 1]);
+    }
+
+    public BigDecimal capital(int numero) {
+        return desdeCentimos(capital[numero - 1]);
+    }
+
+    public BigDecimal interes(int numero) {
+        return desdeCentimos(interes[numero - 1]);
+    }
+
+    public BigDecimal saldo(int numero) {
+        return desdeCentimos(saldo[numero - 1]);
+    }
+
+    public long totalCentimos() {
+        long total = 0;
+        for (long cuota : cuotas) {
+            total += cuota;
+        }
+        return total;
+    }
+}
@@ -13,6 +13,7 @@ public interface CuotaMapper {
     @Mapping(source = "estadoCuotaId", target = "estadoCuota.id")
     @Mapping(source = "prestamoId", target = "prestamo.id")
     Cuota toEntity(CuotaRequest cuotaRequest);
+    List<Cuota> toEntityList(List<CuotaRequest> cuotasRequest);
     CuotaResponse toDto(Cuota cuota);
     List<CuotaResponse> toDtoList(List<Cuota> cuotas);
 
@@ -0,0 +1,51 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool acotado para las aprobaciones asíncronas y las operaciones en lote (aprobación, importación): pocos hilos
+ * y una cola limitada, así un cierre de mes no satura ServicioCuentas ni ServicioTransacciones. Si la cola está llena, enviar() lo informa en vez de encolar.
+ * Igual que EjecutorParalelo, propaga el SecurityContext para que Feign envíe el JWT del administrador.
+ */
+@Component
+public class EjecutorAprobaciones {
+    private final ExecutorService executor;
+
+    public EjecutorAprobaciones(@Value("${prestamos.aprobacion.hilos:4}") int hilos,
+                                @Value("${prestamos.aprobacion.cola:200}") int capacidadCola) {
+        AtomicInteger contador = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> new Thread(tarea, "aprobacion-" + contador.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = new DelegatingSecurityContextExecutorService(pool);
+    }
+
+    /**
+     * @return false si la cola está llena
+     */
+    public boolean enviar(Runnable tarea) {
+        try {
+            executor.execute(tarea);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,50 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta consultas remotas independientes en hilos virtuales.
+ * El SecurityContext del hilo que envía la tarea se copia al hilo virtual,
+ * así el RequestInterceptor de Feign sigue enviando el JWT del usuario.
+ */
+@Component
+public class EjecutorParalelo {
+    private final ExecutorService executor =
+            new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+
+    public <T> CompletableFuture<T> ejecutar(Supplier<T> tarea) {
+        return CompletableFuture.supplyAsync(tarea, executor);
+    }
+
+    public CompletableFuture<Void> ejecutar(Runnable tarea) {
+        return CompletableFuture.runAsync(tarea, executor);
+    }
+
+    /**
+     * Espera el resultado y relanza la excepción original de la tarea
+     * (ResourceNotFound, BadRequest, ...) en lugar de la CompletionException.
+     */
+    public static <T> T esperar(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw ex;
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdown();
+    }
+}
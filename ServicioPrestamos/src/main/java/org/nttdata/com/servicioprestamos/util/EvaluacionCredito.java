@@ -0,0 +1,26 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
+
+import java.math.BigDecimal;
+
+/**
+ * Criterio de crédito sobre el resumen de transacciones de una cuenta: la capacidad de pago es el 30% de los
+ * ingresos, y la cuenta no califica si sus egresos superan en más de un 10% a sus ingresos.
+ * Lo usan la evaluación en línea de createPrestamo y la generación nocturna de ofertas preaprobadas.
+ */
+public final class EvaluacionCredito {
+    private static final BigDecimal PORCENTAJE_CAPACIDAD = new BigDecimal("0.3");
+    private static final BigDecimal TOLERANCIA_EGRESOS = new BigDecimal("1.1");
+
+    private EvaluacionCredito() {
+    }
+
+    public static boolean egresosExcedidos(ResumenTransaccionesResponse resumen) {
+        return resumen.egresos().compareTo(resumen.ingresos().multiply(TOLERANCIA_EGRESOS)) > 0;
+    }
+
+    public static BigDecimal capacidadPago(ResumenTransaccionesResponse resumen) {
+        return resumen.ingresos().multiply(PORCENTAJE_CAPACIDAD);
+    }
+}
@@ -0,0 +1,80 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import org.nttdata.com.servicioprestamos.dto.OpcionCotizacionResponse;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evalúa la grilla plazo x tasa de una cotización con fork/join. Cada celda se valida contra la tabla
+ * de decisión y, si es factible, se calcula su cronograma. Las hojas escriben en su posición del arreglo,
+ * así el resultado conserva el orden (plazo ascendente, luego tasa) sin combinar listas parciales.
+ */
+public final class GrillaCotizacion extends RecursiveAction {
+    // Celdas por hoja: por debajo de esto dividir cuesta más que evaluar
+    private static final int UMBRAL = 64;
+
+    private final Parametros parametros;
+    private final OpcionCotizacionResponse[] resultado;
+    private final int desde;
+    private final int hasta;
+
+    public record Parametros(long montoCentimos, MetodoAmortizacion metodo, TablaDecision tabla,
+                             int plazoMinimo, int plazoMaximo,
+                             long tasaMinima, long pasoTasa, int cantidadTasas) {
+        public int celdas() {
+            return (plazoMaximo - plazoMinimo + 1) * cantidadTasas;
+        }
+    }
+
+    private GrillaCotizacion(Parametros parametros, OpcionCotizacionResponse[] resultado, int desde, int hasta) {
+        this.parametros = parametros;
+        this.resultado = resultado;
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    public static List<OpcionCotizacionResponse> evaluar(Parametros parametros, ForkJoinPool pool) {
+        OpcionCotizacionResponse[] resultado = new OpcionCotizacionResponse[parametros.celdas()];
+        pool.invoke(new GrillaCotizacion(parametros, resultado, 0, resultado.length));
+        List<OpcionCotizacionResponse> opciones = new ArrayList<>();
+        for (OpcionCotizacionResponse opcion : resultado) {
+            if (opcion != null) {
+                opciones.add(opcion);
+            }
+        }
+        return opciones;
+    }
+
+    @Override
+    protected void compute() {
+        if (hasta - desde <= UMBRAL) {
+            for (int i = desde; i < hasta; i++) {
+                resultado[i] = evaluarCelda(i);
+            }
+            return;
+        }
+        int medio = (desde + hasta) >>> 1;
+        invokeAll(new GrillaCotizacion(parametros, resultado, desde, medio),
+                new GrillaCotizacion(parametros, resultado, medio, hasta));
+    }
+
+    private OpcionCotizacionResponse evaluarCelda(int indice) {
+        int plazo = parametros.plazoMinimo() + indice / parametros.cantidadTasas();
+        long tasa = parametros.tasaMinima() + (indice % parametros.cantidadTasas()) * parametros.pasoTasa();
+        if (!parametros.tabla().cumple(parametros.montoCentimos(), plazo, tasa)) {
+            return null;
+        }
+        Cronograma cronograma = Cronograma.generar(parametros.montoCentimos(), tasa, plazo, parametros.metodo());
+        return OpcionCotizacionResponse.builder()
+                .plazoMeses(plazo)
+                .tasaInteres(BigDecimal.valueOf(tasa, 6).stripTrailingZeros())
+                .cuota(cronograma.cuota(1))
+                .totalAPagar(Cronograma.desdeCentimos(cronograma.totalCentimos()))
+                .build();
+    }
+}
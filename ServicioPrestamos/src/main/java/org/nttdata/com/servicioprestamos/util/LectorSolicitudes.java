@@ -0,0 +1,133 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lee solicitudes de préstamo de un archivo NDJSON (un objeto por línea) o CSV (con encabezado) por bloques,
+ * sin cargar el archivo completo. Una línea mal formada se devuelve como fila con error; solo un encabezado
+ * CSV sin las columnas obligatorias detiene la lectura.
+ */
+public final class LectorSolicitudes implements Closeable {
+    public enum Formato { NDJSON, CSV }
+
+    // solicitud null si la línea no se pudo interpretar; error explica por qué
+    public record Fila(long linea, PrestamoRequest solicitud, String error) {}
+
+    private static final List<String> COLUMNAS = List.of(
+            "clienteid", "cuentaid", "monto", "plazomeses", "tasainteres", "metodoamortizacion");
+    // metodoAmortizacion es opcional
+    private static final int OBLIGATORIAS = 5;
+
+    private final BufferedReader lector;
+    private final Formato formato;
+    private final ObjectMapper objectMapper;
+    private long linea;
+    // Posición en la línea CSV de cada columna de COLUMNAS, -1 si no está
+    private int[] posiciones;
+    private int columnasCsv;
+
+    public LectorSolicitudes(InputStream entrada, Formato formato, ObjectMapper objectMapper) {
+        this.lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        this.formato = formato;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Hasta {@code maximo} filas siguientes, sin contar líneas en blanco; vacía al llegar al final.
+     */
+    public List<Fila> leer(int maximo) throws IOException {
+        List<Fila> filas = new ArrayList<>(maximo);
+        String texto;
+        while (filas.size() < maximo && (texto = lector.readLine()) != null) {
+            linea++;
+            if (linea == 1 && !texto.isEmpty() && texto.charAt(0) == '\uFEFF') {
+                texto = texto.substring(1);
+            }
+            if (texto.isBlank()) {
+                continue;
+            }
+            if (formato == Formato.CSV && posiciones == null) {
+                leerEncabezado(texto);
+                continue;
+            }
+            filas.add(formato == Formato.CSV ? filaCsv(texto) : filaJson(texto));
+        }
+        return filas;
+    }
+
+    private Fila filaJson(String texto) {
+        try {
+            return new Fila(linea, objectMapper.readValue(texto, PrestamoRequest.class), null);
+        } catch (JsonProcessingException ex) {
+            return new Fila(linea, null, "JSON inválido: " + ex.getOriginalMessage());
+        }
+    }
+
+    private void leerEncabezado(String texto) {
+        String[] nombres = texto.split(",", -1);
+        posiciones = new int[COLUMNAS.size()];
+        Arrays.fill(posiciones, -1);
+        for (int i = 0; i < nombres.length; i++) {
+            int columna = COLUMNAS.indexOf(nombres[i].strip().replace("_", "").toLowerCase(Locale.ROOT));
+            if (columna >= 0) {
+                posiciones[columna] = i;
+            }
+        }
+        for (int i = 0; i < OBLIGATORIAS; i++) {
+            if (posiciones[i] < 0) {
+                throw new BadRequest("El encabezado CSV debe incluir las columnas clienteId, cuentaId, monto, plazoMeses y tasaInteres");
+            }
+        }
+        columnasCsv = nombres.length;
+    }
+
+    private Fila filaCsv(String texto) {
+        String[] celdas = texto.split(",", -1);
+        if (celdas.length != columnasCsv) {
+            return new Fila(linea, null, "Se esperaban " + columnasCsv + " columnas y hay " + celdas.length);
+        }
+        try {
+            String metodo = celda(celdas, 5);
+            return new Fila(linea, PrestamoRequest.builder()
+                    .clienteId(celda(celdas, 0) == null ? null : Long.valueOf(celda(celdas, 0)))
+                    .cuentaId(celda(celdas, 1) == null ? null : Long.valueOf(celda(celdas, 1)))
+                    .monto(celda(celdas, 2) == null ? null : new BigDecimal(celda(celdas, 2)))
+                    .plazoMeses(celda(celdas, 3) == null ? null : Integer.valueOf(celda(celdas, 3)))
+                    .tasaInteres(celda(celdas, 4) == null ? null : new BigDecimal(celda(celdas, 4)))
+                    .metodoAmortizacion(metodo == null ? null : MetodoAmortizacion.valueOf(metodo.toUpperCase(Locale.ROOT)))
+                    .build(), null);
+        } catch (IllegalArgumentException ex) {
+            return new Fila(linea, null, "Valor inválido: " + ex.getMessage());
+        }
+    }
+
+    private String celda(String[] celdas, int columna) {
+        int posicion = posiciones[columna];
+        if (posicion < 0) {
+            return null;
+        }
+        String valor = celdas[posicion].strip();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lector.close();
+    }
+}
@@ -0,0 +1,13 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import org.mapstruct.Mapper;
+import org.nttdata.com.servicioprestamos.dto.OfertaPreaprobadaResponse;
+import org.nttdata.com.servicioprestamos.models.OfertaPreaprobada;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface OfertaPreaprobadaMapper {
+    OfertaPreaprobadaResponse toDto(OfertaPreaprobada oferta);
+    List<OfertaPreaprobadaResponse> toDtoList(List<OfertaPreaprobada> ofertas);
+}
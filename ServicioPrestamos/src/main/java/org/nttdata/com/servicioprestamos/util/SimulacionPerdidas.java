@@ -0,0 +1,148 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Monte Carlo de pérdidas de la cartera con un modelo de un factor (cópula gaussiana): en cada camino
+ * un factor sistémico Z común y un shock propio por préstamo; el préstamo incumple si
+ * sqrt(rho) Z + sqrt(1 - rho) e < Φ⁻¹(pd). El mes de incumplimiento es uniforme en el horizonte y la pérdida
+ * es lgd por lo que resta cobrar desde ese mes.
+ * <p>
+ * Los caminos se reparten con fork/join y cada uno usa su propio SplittableRandom derivado de
+ * (semilla, camino): el resultado es el mismo con cualquier número de hilos.
+ */
+public final class SimulacionPerdidas extends RecursiveAction {
+    // Caminos por hoja
+    private static final int UMBRAL = 64;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final CarteraRiesgo cartera;
+    private final Parametros parametros;
+    private final double[] umbrales;
+    private final double[] perdidas;
+    private final int desde;
+    private final int hasta;
+
+    /**
+     * pd: probabilidad de incumplimiento en el horizonte; pdAtraso para préstamos con cuotas atrasadas.
+     */
+    public record Parametros(double pd, double pdAtraso, double lgd, double correlacion, int horizonteMeses, long semilla) {}
+
+    private SimulacionPerdidas(CarteraRiesgo cartera, Parametros parametros, double[] umbrales, double[] perdidas,
+                               int desde, int hasta) {
+        this.cartera = cartera;
+        this.parametros = parametros;
+        this.umbrales = umbrales;
+        this.perdidas = perdidas;
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    /**
+     * Devuelve la pérdida en céntimos de cada camino, ordenada de menor a mayor.
+     */
+    public static double[] simular(CarteraRiesgo cartera, Parametros parametros, int caminos, ForkJoinPool pool) {
+        double umbralNormal = inversaNormal(parametros.pd());
+        double umbralAtraso = inversaNormal(parametros.pdAtraso());
+        double[] umbrales = new double[cartera.prestamos()];
+        for (int i = 0; i < umbrales.length; i++) {
+            umbrales[i] = cartera.atrasado(i) ? umbralAtraso : umbralNormal;
+        }
+        double[] perdidas = new double[caminos];
+        pool.invoke(new SimulacionPerdidas(cartera, parametros, umbrales, perdidas, 0, caminos));
+        Arrays.sort(perdidas);
+        return perdidas;
+    }
+
+    @Override
+    protected void compute() {
+        if (hasta - desde <= UMBRAL) {
+            double cargaSistemica = Math.sqrt(parametros.correlacion());
+            double cargaPropia = Math.sqrt(1 - parametros.correlacion());
+            for (int camino = desde; camino < hasta; camino++) {
+                perdidas[camino] = simularCamino(new SplittableRandom(mezclar(parametros.semilla() + camino * GOLDEN_GAMMA)),
+                        cargaSistemica, cargaPropia);
+            }
+            return;
+        }
+        int medio = (desde + hasta) >>> 1;
+        invokeAll(new SimulacionPerdidas(cartera, parametros, umbrales, perdidas, desde, medio),
+                new SimulacionPerdidas(cartera, parametros, umbrales, perdidas, medio, hasta));
+    }
+
+    private double simularCamino(SplittableRandom random, double cargaSistemica, double cargaPropia) {
+        double sistemico = cargaSistemica * random.nextGaussian();
+        long perdidaCentimos = 0;
+        for (int i = 0; i < umbrales.length; i++) {
+            if (sistemico + cargaPropia * random.nextGaussian() < umbrales[i]) {
+                perdidaCentimos += cartera.exposicionDesde(i, random.nextInt(parametros.horizonteMeses()));
+            }
+        }
+        return perdidaCentimos * parametros.lgd();
+    }
+
+    // fmix64 de MurmurHash3: semillas consecutivas dan flujos de números no correlacionados
+    private static long mezclar(long valor) {
+        valor = (valor ^ (valor >>> 33)) * 0xff51afd7ed558ccdL;
+        valor = (valor ^ (valor >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return valor ^ (valor >>> 33);
+    }
+
+    /**
+     * Percentil q (0..1) de pérdidas ya ordenadas.
+     */
+    public static double percentil(double[] ordenadas, double q) {
+        int indice = (int) Math.ceil(q * ordenadas.length) - 1;
+        return ordenadas[Math.clamp(indice, 0, ordenadas.length - 1)];
+    }
+
+    /**
+     * Pérdida media de los caminos en o por encima del percentil q (expected shortfall).
+     */
+    public static double perdidaCola(double[] ordenadas, double q) {
+        int desde = Math.clamp((int) Math.ceil(q * ordenadas.length) - 1, 0, ordenadas.length - 1);
+        double suma = 0;
+        for (int i = desde; i < ordenadas.length; i++) {
+            suma += ordenadas[i];
+        }
+        return suma / (ordenadas.length - desde);
+    }
+
+    /**
+     * Φ⁻¹(p) con la aproximación racional de Acklam (error relativo < 1.2e-9).
+     */
+    static double inversaNormal(double p) {
+        if (p <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (p >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double bajo = 0.02425;
+        if (p < bajo) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - bajo) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
@@ -0,0 +1,152 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties.Categoria;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties.Fila;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tabla de decisión compilada. Cada celda se traduce a un intervalo cerrado [min, max] sobre enteros
+ * (monto en céntimos, plazo en meses, tasa en millonésimas), así "< 1000" queda como max = 99999 céntimos
+ * y evaluar una fila son seis comparaciones de long sin crear BigDecimal.
+ */
+public final class TablaDecision {
+    // Por fila: montoMin, montoMax, plazoMin, plazoMax, tasaMin, tasaMax
+    private static final int COLUMNAS = 6;
+
+    private final long[] limites;
+    private final Categoria[] categorias;
+    private final String[] mensajes;
+
+    private TablaDecision(long[] limites, Categoria[] categorias, String[] mensajes) {
+        this.limites = limites;
+        this.categorias = categorias;
+        this.mensajes = mensajes;
+    }
+
+    public static TablaDecision compilar(List<Fila> filas) {
+        int n = filas.size();
+        long[] limites = new long[n * COLUMNAS];
+        Categoria[] categorias = new Categoria[n];
+        String[] mensajes = new String[n];
+        for (int i = 0; i < n; i++) {
+            Fila fila = filas.get(i);
+            if (fila.getCategoria() == null || fila.getMensaje() == null || fila.getMensaje().isBlank()) {
+                throw new IllegalArgumentException("La regla " + (i + 1) + " debe tener categoría y mensaje");
+            }
+            int base = i * COLUMNAS;
+            compilarCelda(fila.getMonto(), 2, limites, base);
+            compilarCelda(fila.getPlazo(), 0, limites, base + 2);
+            compilarCelda(fila.getTasa(), 6, limites, base + 4);
+            categorias[i] = fila.getCategoria();
+            mensajes[i] = fila.getMensaje();
+        }
+        return new TablaDecision(limites, categorias, mensajes);
+    }
+
+    // escala: decimales de la unidad entera (2 céntimos, 0 meses, 6 millonésimas)
+    private static void compilarCelda(String celda, int escala, long[] limites, int posicion) {
+        long min = Long.MIN_VALUE;
+        long max = Long.MAX_VALUE;
+        String texto = celda == null ? "" : celda.strip();
+        if (!texto.isEmpty() && !texto.equals("-")) {
+            String operador;
+            if (texto.startsWith("<=") || texto.startsWith(">=")) {
+                operador = texto.substring(0, 2);
+            } else if (texto.startsWith("<") || texto.startsWith(">") || texto.startsWith("=")) {
+                operador = texto.substring(0, 1);
+            } else {
+                operador = "=";
+                texto = "=" + texto;
+            }
+            long valor;
+            try {
+                BigDecimal decimal = new BigDecimal(texto.substring(operador.length()).strip());
+                valor = decimal.movePointRight(escala).longValueExact();
+            } catch (ArithmeticException | NumberFormatException ex) {
+                throw new IllegalArgumentException("Celda de regla inválida: " + celda, ex);
+            }
+            switch (operador) {
+                case "<" -> max = valor - 1;
+                case "<=" -> max = valor;
+                case ">" -> min = valor + 1;
+                case ">=" -> min = valor;
+                default -> {
+                    min = valor;
+                    max = valor;
+                }
+            }
+        }
+        limites[posicion] = min;
+        limites[posicion + 1] = max;
+    }
+
+    public int filas() {
+        return mensajes.length;
+    }
+
+    /**
+     * Agrega a {@code violaciones} el mensaje de cada fila que se cumple (categoria null = todas).
+     * Devuelve el número de violaciones encontradas.
+     */
+    public int evaluar(long montoCentimos, long plazoMeses, long tasaMillonesimas, Categoria categoria, List<String> violaciones) {
+        int encontradas = 0;
+        for (int i = 0, base = 0; i < mensajes.length; i++, base += COLUMNAS) {
+            if ((categoria == null || categorias[i] == categoria)
+                    && montoCentimos >= limites[base] && montoCentimos <= limites[base + 1]
+                    && plazoMeses >= limites[base + 2] && plazoMeses <= limites[base + 3]
+                    && tasaMillonesimas >= limites[base + 4] && tasaMillonesimas <= limites[base + 5]) {
+                violaciones.add(mensajes[i]);
+                encontradas++;
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * true si ninguna fila se cumple. No crea objetos; pensado para recorrer muchas combinaciones.
+     */
+    public boolean cumple(long montoCentimos, long plazoMeses, long tasaMillonesimas) {
+        for (int base = 0; base < limites.length; base += COLUMNAS) {
+            if (montoCentimos >= limites[base] && montoCentimos <= limites[base + 1]
+                    && plazoMeses >= limites[base + 2] && plazoMeses <= limites[base + 3]
+                    && tasaMillonesimas >= limites[base + 4] && tasaMillonesimas <= limites[base + 5]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mayor monto en céntimos, no mayor que {@code topeCentimos}, que no cumple ninguna fila para el plazo y la tasa
+     * dados; -1 si no hay ninguno. Cada fila que se cumple baja el candidato por debajo de su monto mínimo
+     * y ya no puede volver a cumplirse, así que son a lo sumo tantas pasadas como filas.
+     */
+    public long montoMaximo(long topeCentimos, long plazoMeses, long tasaMillonesimas) {
+        long monto = topeCentimos;
+        boolean bajado = true;
+        while (bajado && monto >= 0) {
+            bajado = false;
+            for (int base = 0; base < limites.length; base += COLUMNAS) {
+                if (monto >= limites[base] && monto <= limites[base + 1]
+                        && plazoMeses >= limites[base + 2] && plazoMeses <= limites[base + 3]
+                        && tasaMillonesimas >= limites[base + 4] && tasaMillonesimas <= limites[base + 5]) {
+                    if (limites[base] == Long.MIN_VALUE) {
+                        return -1;
+                    }
+                    monto = limites[base] - 1;
+                    bajado = true;
+                }
+            }
+        }
+        return monto < 0 ? -1 : monto;
+    }
+
+    public List<String> evaluar(BigDecimal monto, int plazoMeses, BigDecimal tasaInteres, Categoria categoria) {
+        List<String> violaciones = new ArrayList<>(2);
+        evaluar(Cronograma.aCentimos(monto), plazoMeses, Cronograma.aMillonesimas(tasaInteres), categoria, violaciones);
+        return violaciones;
+    }
+}
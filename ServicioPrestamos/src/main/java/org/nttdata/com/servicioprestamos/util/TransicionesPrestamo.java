@@ -0,0 +1,93 @@
+package org.nttdata.com.servicioprestamos.util;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tabla compilada de los cambios de estado que se pueden aplicar en lote. Por cada estado destino guarda una
+ * máscara de bits con los estados origen permitidos y la condición que debe cumplir el préstamo, así consultar
+ * una transición es un desplazamiento y un AND, y el UPDATE de conjunto filtra por los orígenes de la máscara.
+ */
+public final class TransicionesPrestamo {
+    public static final long PENDIENTE = 1L;
+    public static final long APROBADO = 2L;
+    public static final long RECHAZADO = 3L;
+    public static final long CANCELADO = 4L;
+    public static final long FINALIZADO = 5L;
+
+    public enum Condicion {
+        NINGUNA,
+        // Tiene cuotas y ninguna está PENDIENTE o ATRASADA
+        CUOTAS_PAGADAS
+    }
+
+    public record Transicion(long origen, long destino, Condicion condicion) {}
+
+    // Los ids de estado son enteros pequeños: caben en un long como posiciones de bit
+    private static final int MAXIMO_ESTADO = Long.SIZE - 1;
+
+    // APROBADO no aparece como destino: exige desembolso y cronograma, lo hace la saga de aprobación
+    private static final TransicionesPrestamo TABLA = compilar(List.of(
+            new Transicion(PENDIENTE, RECHAZADO, Condicion.NINGUNA),
+            new Transicion(PENDIENTE, CANCELADO, Condicion.NINGUNA),
+            new Transicion(APROBADO, FINALIZADO, Condicion.CUOTAS_PAGADAS)));
+
+    private final long[] origenes;
+    private final Condicion[] condiciones;
+
+    private TransicionesPrestamo(long[] origenes, Condicion[] condiciones) {
+        this.origenes = origenes;
+        this.condiciones = condiciones;
+    }
+
+    public static TransicionesPrestamo tabla() {
+        return TABLA;
+    }
+
+    public static TransicionesPrestamo compilar(List<Transicion> transiciones) {
+        int estados = (int) transiciones.stream()
+                .mapToLong(transicion -> Math.max(transicion.origen(), transicion.destino()))
+                .max().orElse(0) + 1;
+        long[] origenes = new long[estados];
+        Condicion[] condiciones = new Condicion[estados];
+        for (Transicion transicion : transiciones) {
+            if (transicion.origen() < 1 || transicion.destino() < 1 || transicion.destino() > MAXIMO_ESTADO
+                    || transicion.origen() > MAXIMO_ESTADO || transicion.condicion() == null) {
+                throw new IllegalArgumentException("Transición inválida: " + transicion);
+            }
+            int destino = (int) transicion.destino();
+            // Un solo UPDATE por destino: todos sus orígenes comparten la condición
+            if (condiciones[destino] != null && condiciones[destino] != transicion.condicion()) {
+                throw new IllegalArgumentException("Condiciones distintas para el estado destino " + destino);
+            }
+            origenes[destino] |= 1L << transicion.origen();
+            condiciones[destino] = transicion.condicion();
+        }
+        return new TransicionesPrestamo(origenes, condiciones);
+    }
+
+    public boolean permitida(long origen, long destino) {
+        return destino > 0 && destino < origenes.length && origen > 0 && origen <= MAXIMO_ESTADO
+                && (origenes[(int) destino] & (1L << origen)) != 0;
+    }
+
+    // Vacío si el destino no se puede alcanzar en lote
+    public Set<Long> origenes(long destino) {
+        if (destino <= 0 || destino >= origenes.length) {
+            return Set.of();
+        }
+        Set<Long> estados = new LinkedHashSet<>();
+        long mascara = origenes[(int) destino];
+        while (mascara != 0) {
+            estados.add((long) Long.numberOfTrailingZeros(mascara));
+            mascara &= mascara - 1;
+        }
+        return estados;
+    }
+
+    public Condicion condicion(long destino) {
+        return destino > 0 && destino < condiciones.length && condiciones[(int) destino] != null
+                ? condiciones[(int) destino] : Condicion.NINGUNA;
+    }
+}
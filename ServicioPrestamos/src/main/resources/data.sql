@@ -17,22 +17,22 @@ insert into estado_cuotas(nombre) values ('ATRASADA');
 insert into estado_cuotas(nombre) values ('CANCELADA');
 
 -- Préstamo 1: 10000 / 12 meses ≈ 833.33
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (1, 1, '2023-02-15', 833.33, 2);
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (1, 2, '2023-03-15', 833.33, 2);
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (1, 3, '2023-04-15', 833.33, 1);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 1, 1, '2023-02-15', 833.33, 2);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 1, 2, '2023-03-15', 833.33, 2);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 1, 3, '2023-04-15', 833.33, 1);
 
 -- Préstamo 2: 5000 / 6 meses ≈ 833.33
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (2, 1, '2023-03-20', 833.33, 2);
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (2, 2, '2023-04-20', 833.33, 1);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 2, 1, '2023-03-20', 833.33, 2);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 2, 2, '2023-04-20', 833.33, 1);
 
 -- Préstamo 3: 15000 / 24 meses ≈ 625
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (3, 1, '2023-04-10', 625, 1);
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (3, 2, '2023-05-10', 625, 1);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 3, 1, '2023-04-10', 625, 1);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 3, 2, '2023-05-10', 625, 1);
 
 -- Préstamo 4: 20000 / 36 meses ≈ 555.56
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (4, 1, '2023-05-05', 555.56, 1);
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (4, 2, '2023-06-05', 555.56, 1);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 4, 1, '2023-05-05', 555.56, 1);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 4, 2, '2023-06-05', 555.56, 1);
 
 -- Préstamo 5: 8000 / 18 meses ≈ 444.44
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (5, 1, '2023-06-12', 444.44, 1);
-insert into cuotas(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (5, 2, '2023-07-12', 444.44, 1);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 5, 1, '2023-06-12', 444.44, 1);
+insert into cuotas(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (nextval('cuotas_seq'), 5, 2, '2023-07-12', 444.44, 1);
@@ -0,0 +1,73 @@
+package org.nttdata.com.servicioprestamos.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.service.AmortizacionServiceImpl;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el bucle BigDecimal original de aceptarPrestamo con el motor de amortización en céntimos,
+ * sin caché (generar) y con caché (calcular).
+ * {@code mvn -Pbenchmark test -DskipTests -Djmh.include=AmortizacionBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmortizacionBenchmark {
+    @Param({"12", "60"})
+    private int plazoMeses;
+
+    private final BigDecimal monto = new BigDecimal("25000.00");
+    private final BigDecimal tasa = new BigDecimal("0.18");
+    private AmortizacionServiceImpl amortizacionService;
+
+    @Setup
+    public void setUp() {
+        amortizacionService = new AmortizacionServiceImpl(new SimpleMeterRegistry(), 10_000);
+    }
+
+    @Benchmark
+    public void bigDecimalOriginal(Blackhole bh) {
+        for (int i = 1; i <= plazoMeses; i++) {
+            BigDecimal cuota = monto
+                    .multiply(tasa.add(BigDecimal.ONE))
+                    .divide(BigDecimal.valueOf(plazoMeses), 2, RoundingMode.HALF_UP);
+            bh.consume(cuota);
+        }
+    }
+
+    @Benchmark
+    public void motorPlanoSinCache(Blackhole bh) {
+        Cronograma cronograma = Cronograma.generar(Cronograma.aCentimos(monto), Cronograma.aMillonesimas(tasa),
+                plazoMeses, MetodoAmortizacion.PLANO);
+        for (int i = 1; i <= plazoMeses; i++) {
+            bh.consume(cronograma.cuotaCentimos(i));
+        }
+    }
+
+    @Benchmark
+    public void motorFrancesSinCache(Blackhole bh) {
+        Cronograma cronograma = Cronograma.generar(Cronograma.aCentimos(monto), Cronograma.aMillonesimas(tasa),
+                plazoMeses, MetodoAmortizacion.FRANCES);
+        for (int i = 1; i <= plazoMeses; i++) {
+            bh.consume(cronograma.cuotaCentimos(i));
+        }
+    }
+
+    @Benchmark
+    public void motorPlanoConCache(Blackhole bh) {
+        Cronograma cronograma = amortizacionService.calcular(monto, tasa, plazoMeses, MetodoAmortizacion.PLANO);
+        for (int i = 1; i <= plazoMeses; i++) {
+            bh.consume(cronograma.cuotaCentimos(i));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.nttdata.com.servicioprestamos.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo de persistir el cronograma de cuotas de una aprobación (6/24/60 meses) contra PostgreSQL.
+ * <ul>
+ *     <li>{@code porCuota}: comportamiento anterior, un INSERT con id IDENTITY y un round-trip por cuota.</li>
+ *     <li>{@code enLote}: ids de secuencia reservados por bloques de 50 y los INSERT enviados en lotes JDBC.</li>
+ * </ul>
+ * Requiere una base de datos de prueba:
+ * {@code BENCH_JDBC_URL=jdbc:postgresql://localhost:5432/bench BENCH_JDBC_USER=postgres BENCH_JDBC_PASSWORD=postgres
+ * mvn -Pbenchmark test -DskipTests -Djmh.include=CronogramaPersistencia}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CronogramaPersistenciaBenchmark {
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Param({"6", "24", "60"})
+    private int plazoMeses;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getenv("BENCH_JDBC_URL");
+        if (url == null) {
+            throw new IllegalStateException("Defina BENCH_JDBC_URL para ejecutar este benchmark");
+        }
+        connection = DriverManager.getConnection(url,
+                System.getenv().getOrDefault("BENCH_JDBC_USER", "postgres"),
+                System.getenv().getOrDefault("BENCH_JDBC_PASSWORD", "postgres"));
+        connection.setAutoCommit(false);
+        try (Statement st = connection.createStatement()) {
+            st.execute("drop table if exists cuotas_bench_identity");
+            st.execute("drop table if exists cuotas_bench_seq");
+            st.execute("drop sequence if exists cuotas_bench_seq_ids");
+            st.execute("create table cuotas_bench_identity (id bigint generated by default as identity primary key, "
+                    + "prestamo_id bigint, numero integer, fecha_vencimiento date, monto numeric(38,2), estado_cuota_id bigint)");
+            st.execute("create table cuotas_bench_seq (id bigint primary key, "
+                    + "prestamo_id bigint, numero integer, fecha_vencimiento date, monto numeric(38,2), estado_cuota_id bigint)");
+            st.execute("create sequence cuotas_bench_seq_ids start with 1 increment by " + ALLOCATION_SIZE);
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Iteration)
+    public void limpiar() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("truncate cuotas_bench_identity, cuotas_bench_seq");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long porCuota() throws SQLException {
+        long ultimoId = 0;
+        LocalDate hoy = LocalDate.now();
+        BigDecimal monto = new BigDecimal("833.33");
+        try (PreparedStatement ps = connection.prepareStatement(
+                "insert into cuotas_bench_identity(prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 1; i <= plazoMeses; i++) {
+                ps.setLong(1, 1L);
+                ps.setInt(2, i);
+                ps.setDate(3, Date.valueOf(hoy.plusMonths(i)));
+                ps.setBigDecimal(4, monto);
+                ps.setLong(5, 1L);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    ultimoId = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return ultimoId;
+    }
+
+    @Benchmark
+    public int enLote() throws SQLException {
+        int filas = 0;
+        long siguienteId = 0;
+        long ultimoIdBloque = -1;
+        LocalDate hoy = LocalDate.now();
+        BigDecimal monto = new BigDecimal("833.33");
+        try (PreparedStatement nextval = connection.prepareStatement("select nextval('cuotas_bench_seq_ids')");
+             PreparedStatement ps = connection.prepareStatement(
+                     "insert into cuotas_bench_seq(id, prestamo_id, numero, fecha_vencimiento, monto, estado_cuota_id) values (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= plazoMeses; i++) {
+                // Optimizador pooled de Hibernate: un nextval reserva ALLOCATION_SIZE ids
+                if (siguienteId > ultimoIdBloque) {
+                    try (ResultSet rs = nextval.executeQuery()) {
+                        rs.next();
+                        ultimoIdBloque = rs.getLong(1);
+                        siguienteId = ultimoIdBloque - ALLOCATION_SIZE + 1;
+                    }
+                }
+                ps.setLong(1, siguienteId++);
+                ps.setLong(2, 1L);
+                ps.setInt(3, i);
+                ps.setDate(4, Date.valueOf(hoy.plusMonths(i)));
+                ps.setBigDecimal(5, monto);
+                ps.setLong(6, 1L);
+                ps.addBatch();
+                if (i % ALLOCATION_SIZE == 0) {
+                    filas += ps.executeBatch().length;
+                }
+            }
+            filas += ps.executeBatch().length;
+        }
+        connection.commit();
+        return filas;
+    }
+}
@@ -0,0 +1,130 @@
+package org.nttdata.com.servicioprestamos.benchmark;
+
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties;
+import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
+import org.nttdata.com.servicioprestamos.service.ReglasPrestamoServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de validar un lote de solicitudes (mezcla de válidas e inválidas):
+ * <ul>
+ *     <li>{@code cadenasOriginales}: evaluarMonto/evaluarPlazo/evaluarTasaInteres anteriores, una excepción por regla fallida
+ *     (sin los System.out.println, que dominarían la medición).</li>
+ *     <li>{@code tablaCompilada}: ReglasPrestamoService.evaluarLote, todas las violaciones en una pasada.</li>
+ * </ul>
+ * {@code mvn -Pbenchmark test -DskipTests -Djmh.include=ReglasPrestamoBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReglasPrestamoBenchmark {
+    @Param({"1", "1000"})
+    private int solicitudes;
+
+    private List<PrestamoRequest> lote;
+    private ReglasPrestamoServiceImpl reglasPrestamoService;
+
+    @Setup
+    public void setUp() {
+        reglasPrestamoService = new ReglasPrestamoServiceImpl(new ReglasPrestamoProperties());
+        SplittableRandom random = new SplittableRandom(42);
+        lote = new ArrayList<>(solicitudes);
+        for (int i = 0; i < solicitudes; i++) {
+            lote.add(PrestamoRequest.builder()
+                    .monto(BigDecimal.valueOf(random.nextLong(50_000, 12_000_000), 2))
+                    .plazoMeses(random.nextInt(3, 72))
+                    .tasaInteres(BigDecimal.valueOf(random.nextLong(20, 500), 3))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void cadenasOriginales(Blackhole bh) {
+        for (PrestamoRequest solicitud : lote) {
+            List<String> violaciones = new ArrayList<>(0);
+            try {
+                evaluarMonto(solicitud.plazoMeses(), solicitud.monto(), solicitud.tasaInteres());
+            } catch (IllegalArgumentException ex) {
+                violaciones.add(ex.getMessage());
+            }
+            try {
+                evaluarPlazo(solicitud.plazoMeses(), solicitud.monto(), solicitud.tasaInteres());
+            } catch (IllegalArgumentException ex) {
+                violaciones.add(ex.getMessage());
+            }
+            try {
+                evaluarTasaInteres(solicitud.tasaInteres(), solicitud.monto(), solicitud.plazoMeses());
+            } catch (IllegalArgumentException ex) {
+                violaciones.add(ex.getMessage());
+            }
+            bh.consume(violaciones);
+        }
+    }
+
+    @Benchmark
+    public void tablaCompilada(Blackhole bh) {
+        bh.consume(reglasPrestamoService.evaluarLote(lote));
+    }
+
+    // Copia de las reglas anteriores de PrestamoServiceImpl
+    private static void evaluarMonto(int plazoMeses, BigDecimal monto, BigDecimal tasaInteres) {
+        if (monto.compareTo(new BigDecimal("1000")) < 0) {
+            throw new IllegalArgumentException("El monto mínimo permitido es 1,000.");
+        }
+        if (monto.compareTo(new BigDecimal("100000")) > 0) {
+            throw new IllegalArgumentException("El monto máximo permitido es 100,000.");
+        }
+        if (plazoMeses <= 12 && monto.compareTo(new BigDecimal("20000")) > 0) {
+            throw new IllegalArgumentException("Para plazos de hasta 12 meses el monto máximo es 20,000.");
+        }
+        if (plazoMeses >= 36 && monto.compareTo(new BigDecimal("80000")) < 0) {
+            throw new IllegalArgumentException("Para plazos de 36 meses o más el monto mínimo es 80,000.");
+        }
+        if (tasaInteres.compareTo(new BigDecimal("0.25")) > 0 && monto.compareTo(new BigDecimal("50000")) > 0) {
+            throw new IllegalArgumentException("No se permiten montos mayores a 50,000 con tasas superiores al 25%.");
+        }
+        if (tasaInteres.compareTo(new BigDecimal("0.10")) < 0 && monto.compareTo(new BigDecimal("10000")) < 0) {
+            throw new IllegalArgumentException("Con tasas menores al 10%, el monto mínimo es 10,000.");
+        }
+    }
+
+    private static void evaluarPlazo(int plazoMeses, BigDecimal monto, BigDecimal tasaInteres) {
+        if (plazoMeses < 6) {
+            throw new IllegalArgumentException("El plazo mínimo permitido es de 6 meses.");
+        }
+        if (plazoMeses > 60) {
+            throw new IllegalArgumentException("El plazo máximo permitido es de 60 meses.");
+        }
+        if (monto.compareTo(new BigDecimal("10000")) < 0 && plazoMeses > 24) {
+            throw new IllegalArgumentException("Para montos menores a 10,000 el plazo máximo es 24 meses.");
+        }
+        if (tasaInteres.compareTo(new BigDecimal("0.20")) > 0 && plazoMeses > 36) {
+            throw new IllegalArgumentException("No se permiten plazos mayores a 36 meses con tasas superiores al 20%.");
+        }
+    }
+
+    private static void evaluarTasaInteres(BigDecimal tasaInteres, BigDecimal monto, int plazoMeses) {
+        if (tasaInteres.compareTo(new BigDecimal("0.05")) < 0) {
+            throw new IllegalArgumentException("La tasa mínima es del 5%.");
+        }
+        if (tasaInteres.compareTo(new BigDecimal("0.40")) > 0) {
+            throw new IllegalArgumentException("La tasa máxima es del 40%.");
+        }
+        if (monto.compareTo(new BigDecimal("50000")) > 0 && tasaInteres.compareTo(new BigDecimal("0.15")) < 0) {
+            throw new IllegalArgumentException("Para montos mayores a 50,000 la tasa no puede ser menor al 15%.");
+        }
+        if (plazoMeses > 48 && tasaInteres.compareTo(new BigDecimal("0.30")) > 0) {
+            throw new IllegalArgumentException("No se permiten tasas mayores al 30% en plazos superiores a 48 meses.");
+        }
+    }
+}
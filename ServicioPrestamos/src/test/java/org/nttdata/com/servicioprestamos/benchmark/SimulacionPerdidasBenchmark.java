@@ -0,0 +1,60 @@
+package org.nttdata.com.servicioprestamos.benchmark;
+
+import org.nttdata.com.servicioprestamos.util.CarteraRiesgo;
+import org.nttdata.com.servicioprestamos.util.SimulacionPerdidas;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escalado de la simulación de pérdidas con el número de hilos del ForkJoinPool, sobre una cartera
+ * sintética de 5,000 préstamos con 24 cuotas pendientes cada uno y 2,000 caminos.
+ * {@code mvn -Pbenchmark test -DskipTests -Djmh.include=SimulacionPerdidasBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulacionPerdidasBenchmark {
+    @Param({"1", "2", "4", "8"})
+    private int hilos;
+
+    private static final int PRESTAMOS = 5_000;
+    private static final int CUOTAS = 24;
+    private static final int CAMINOS = 2_000;
+
+    private CarteraRiesgo cartera;
+    private ForkJoinPool pool;
+    private final SimulacionPerdidas.Parametros parametros =
+            new SimulacionPerdidas.Parametros(0.04, 0.35, 0.45, 0.15, 12, 42L);
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        CarteraRiesgo.Constructor constructor = CarteraRiesgo.constructor();
+        for (long prestamo = 1; prestamo <= PRESTAMOS; prestamo++) {
+            long cuota = random.nextLong(5_000, 200_000);
+            boolean atrasado = random.nextInt(20) == 0;
+            for (int mes = 0; mes < CUOTAS; mes++) {
+                constructor.agregar(prestamo, cuota, mes, atrasado && mes == 0);
+            }
+        }
+        cartera = constructor.construir();
+        pool = new ForkJoinPool(hilos);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void simular(Blackhole bh) {
+        bh.consume(SimulacionPerdidas.simular(cartera, parametros, CAMINOS, pool));
+    }
+}
@@ -8,22 +8,37 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.dto.AplicacionCuotaResponse;
+import org.nttdata.com.servicioprestamos.dto.AsignacionPagoResponse;
 import org.nttdata.com.servicioprestamos.dto.CuotaResponse;
 import org.nttdata.com.servicioprestamos.dto.EstadoCuotaResponse;
 import org.nttdata.com.servicioprestamos.dto.EstadoPrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.FiltroCuotaRequest;
+import org.nttdata.com.servicioprestamos.dto.PagoCuotasRequest;
+import org.nttdata.com.servicioprestamos.dto.PagoPrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.PaginaResponse;
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest;
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest.Modalidad;
+import org.nttdata.com.servicioprestamos.dto.PrepagoResponse;
 import org.nttdata.com.servicioprestamos.dto.PrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.ResultadoDebitoResponse;
 import org.nttdata.com.servicioprestamos.exception.ExceptionHandleController;
+import org.nttdata.com.servicioprestamos.service.CronogramaService;
 import org.nttdata.com.servicioprestamos.service.CuotaService;
+import org.nttdata.com.servicioprestamos.service.DebitoAutomaticoService;
+import org.nttdata.com.servicioprestamos.util.AsignacionPago.Tramo;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
 
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -35,6 +50,10 @@ public class CuotaControllerTest {
     private CuotaController cuotaController;
     @Mock
     private CuotaService cuotaService;
+    @Mock
+    private DebitoAutomaticoService debitoAutomaticoService;
+    @Mock
+    private CronogramaService cronogramaService;
 
     @BeforeEach
     void setUp() {
@@ -396,4 +415,190 @@ public class CuotaControllerTest {
                 .andExpect(jsonPath("$.prestamo.estadoPrestamo.nombre").value("ACTIVO"));
     }
 
+    @Test
+    @DisplayName("Test para ejecutar el débito automático en una fecha")
+    void debitoAutomaticoTest() throws Exception {
+        LocalDate fecha = LocalDate.of(2025, 6, 1);
+        when(debitoAutomaticoService.debitarCuotas(fecha)).thenReturn(ResultadoDebitoResponse.builder()
+                .cuentas(2)
+                .cuentasDebitadas(1)
+                .cuentasSinSaldo(1)
+                .cuotasPagadas(3)
+                .montoDebitado(new BigDecimal("300.00"))
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/cuotas/debito-automatico")
+                        .param("fecha", "2025-06-01")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cuentas").value(2))
+                .andExpect(jsonPath("$.cuotasPagadas").value(3))
+                .andExpect(jsonPath("$.montoDebitado").value(300.00));
+    }
+
+    @Test
+    @DisplayName("Test para pagar varias cuotas de una cuenta")
+    void pagarCuotasTest() throws Exception {
+        when(cuotaService.pagarCuotas(ArgumentMatchers.any(PagoCuotasRequest.class))).thenReturn(List.of(
+                CuotaResponse.builder().id(1L).build(),
+                CuotaResponse.builder().id(2L).build()));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/cuotas/pagar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaId\": 1, \"cuotaIds\": [1, 2]}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(2L));
+    }
+
+    @Test
+    @DisplayName("Test para pagar cuotas sin indicar cuotas")
+    void pagarCuotasSinCuotasTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/cuotas/pagar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaId\": 1, \"cuotaIds\": []}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test para aplicar un pago a las cuotas de un prestamo")
+    void aplicarPagoTest() throws Exception {
+        when(cuotaService.aplicarPago(ArgumentMatchers.eq(5L), ArgumentMatchers.any(PagoPrestamoRequest.class)))
+                .thenReturn(AsignacionPagoResponse.builder()
+                        .prestamoId(5L)
+                        .cuentaId(1L)
+                        .montoRecibido(new BigDecimal("250.00"))
+                        .montoAplicado(new BigDecimal("250.00"))
+                        .montoNoAplicado(new BigDecimal("0.00"))
+                        .cuotasPagadas(2)
+                        .aplicaciones(List.of(
+                                AplicacionCuotaResponse.builder().cuotaId(1L).tramo(Tramo.VENCIDA).pagada(true).build(),
+                                AplicacionCuotaResponse.builder().cuotaId(2L).tramo(Tramo.VIGENTE).pagada(true).build(),
+                                AplicacionCuotaResponse.builder().cuotaId(3L).tramo(Tramo.FUTURA).pagada(false).build()))
+                        .build());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/cuotas/prestamo/5/pagar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaId\": 1, \"monto\": 250.00}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cuotasPagadas").value(2))
+                .andExpect(jsonPath("$.aplicaciones[0].tramo").value("VENCIDA"))
+                .andExpect(jsonPath("$.aplicaciones[2].pagada").value(false));
+    }
+
+    @Test
+    @DisplayName("Test para aplicar un pago con monto fuera de rango")
+    void aplicarPagoMontoFueraDeRangoTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/cuotas/prestamo/5/pagar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaId\": 1, \"monto\": 1e30}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(cuotaService);
+    }
+
+    @Test
+    @DisplayName("Test para aplicar un pago con monto no positivo")
+    void aplicarPagoMontoInvalidoTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/cuotas/prestamo/5/pagar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaId\": 1, \"monto\": 0}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test para prepagar un prestamo reduciendo el plazo")
+    void prepagarTest() throws Exception {
+        when(cronogramaService.prepagar(ArgumentMatchers.eq(5L), ArgumentMatchers.argThat((PrepagoRequest prepago) ->
+                prepago.modalidad() == Modalidad.REDUCIR_PLAZO)))
+                .thenReturn(PrepagoResponse.builder()
+                        .prestamoId(5L)
+                        .modalidad(Modalidad.REDUCIR_PLAZO)
+                        .capitalPendiente(new BigDecimal("400.00"))
+                        .cuotasFuturas(2)
+                        .cuotasEliminadas(2)
+                        .build());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/cuotas/prestamo/5/prepagar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaId\": 1, \"monto\": 400.00, \"modalidad\": \"REDUCIR_PLAZO\"}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cuotasFuturas").value(2))
+                .andExpect(jsonPath("$.capitalPendiente").value(400.00));
+    }
+
+    @Test
+    @DisplayName("Test para prepagar sin indicar la modalidad")
+    void prepagarSinModalidadTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/cuotas/prestamo/5/prepagar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cuentaId\": 1, \"monto\": 400.00}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Buscar cuotas por cursor - Filtros desde query params")
+    void buscarCuotas() throws Exception {
+        when(cuotaService.buscarCuotas(ArgumentMatchers.argThat((FiltroCuotaRequest filtro) ->
+                filtro.clienteId().equals(3L)
+                        && filtro.desde().equals(LocalDate.of(2025, 1, 1))
+                        && filtro.montoMinimo().compareTo(new BigDecimal("100")) == 0
+                        && filtro.tamanio() == 2)))
+                .thenReturn(PaginaResponse.<CuotaResponse>builder()
+                        .contenido(List.of(CuotaResponse.builder().id(1L).build(), CuotaResponse.builder().id(2L).build()))
+                        .tamanio(2)
+                        .hayMas(true)
+                        .siguiente("2025-02-10,2")
+                        .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/cuotas/pagina")
+                        .param("clienteId", "3")
+                        .param("desde", "2025-01-01")
+                        .param("montoMinimo", "100")
+                        .param("tamanio", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contenido.length()").value(2))
+                .andExpect(jsonPath("$.hayMas").value(true))
+                .andExpect(jsonPath("$.siguiente").value("2025-02-10,2"));
+    }
+
+    @Test
+    @DisplayName("Buscar cuotas por cursor - Tamanio fuera de rango")
+    void buscarCuotasTamanioInvalido() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/cuotas/pagina")
+                        .param("tamanio", "1000")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Pagar cuota por numero - Exito")
+    void pagarCuotaPorNumero() throws Exception {
+        when(cuotaService.pagarCuotaPorNumero(7L, 3, 1L)).thenReturn(CuotaResponse.builder()
+                .id(99L)
+                .numero(3)
+                .estadoCuota(EstadoCuotaResponse.builder().id(2L).nombre("PAGADA").build())
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/cuotas/pagar/{cuentaId}/prestamo/{prestamoId}/{numero}", 1L, 7L, 3)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(99))
+                .andExpect(jsonPath("$.estadoCuota.nombre").value("PAGADA"));
+    }
 }
@@ -8,23 +8,66 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.dto.AgregadoCarteraResponse;
+import org.nttdata.com.servicioprestamos.dto.AprobacionPrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.CarteraResponse;
+import org.nttdata.com.servicioprestamos.dto.ConciliacionMoraResponse;
+import org.nttdata.com.servicioprestamos.dto.CotizacionResponse;
 import org.nttdata.com.servicioprestamos.dto.EstadoPrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.FiltroPrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.MoraCarteraResponse;
+import org.nttdata.com.servicioprestamos.dto.OfertaPreaprobadaResponse;
+import org.nttdata.com.servicioprestamos.dto.OpcionCotizacionResponse;
+import org.nttdata.com.servicioprestamos.dto.PerdidaEsperadaResponse;
+import org.nttdata.com.servicioprestamos.dto.PaginaResponse;
 import org.nttdata.com.servicioprestamos.dto.PrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.ResultadoAprobacionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenAprobacionLoteResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenClienteResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenPrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.ResultadoImportacionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResultadoTransicionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenImportacionResponse;
+import org.nttdata.com.servicioprestamos.dto.TramoMoraResponse;
+import org.nttdata.com.servicioprestamos.dto.ValidacionPrestamoResponse;
 import org.nttdata.com.servicioprestamos.exception.ExceptionHandleController;
+import org.nttdata.com.servicioprestamos.models.EstadoAprobacion;
+import org.nttdata.com.servicioprestamos.service.AnaliticaCarteraService;
+import org.nttdata.com.servicioprestamos.service.AprobacionLoteService;
+import org.nttdata.com.servicioprestamos.service.AprobacionPrestamoService;
+import org.nttdata.com.servicioprestamos.service.ImportacionPrestamoService;
+import org.nttdata.com.servicioprestamos.service.MoraCarteraService;
+import org.nttdata.com.servicioprestamos.service.OfertaPreaprobadaService;
 import org.nttdata.com.servicioprestamos.service.PrestamoService;
+import org.nttdata.com.servicioprestamos.service.ResumenClienteService;
+import org.nttdata.com.servicioprestamos.service.RiesgoCarteraService;
+import org.nttdata.com.servicioprestamos.service.TransicionPrestamoService;
+import org.nttdata.com.servicioprestamos.util.EjecutorAprobaciones;
+import org.nttdata.com.servicioprestamos.util.LectorSolicitudes.Formato;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +79,26 @@ public class PrestamoControllerTest {
 
     @Mock
     private PrestamoService prestamoService;
+    @Mock
+    private AprobacionPrestamoService aprobacionPrestamoService;
+    @Mock
+    private AnaliticaCarteraService analiticaCarteraService;
+    @Mock
+    private MoraCarteraService moraCarteraService;
+    @Mock
+    private ResumenClienteService resumenClienteService;
+    @Mock
+    private RiesgoCarteraService riesgoCarteraService;
+    @Mock
+    private OfertaPreaprobadaService ofertaPreaprobadaService;
+    @Mock
+    private AprobacionLoteService aprobacionLoteService;
+    @Mock
+    private ImportacionPrestamoService importacionPrestamoService;
+    @Mock
+    private TransicionPrestamoService transicionPrestamoService;
+    @Mock
+    private EjecutorAprobaciones ejecutorAprobaciones;
 
     @BeforeEach
     void setUp() {
@@ -237,4 +300,402 @@ public class PrestamoControllerTest {
                 .andExpect(jsonPath("$.estadoPrestamo.id").value(2L))
                 .andExpect(jsonPath("$.estadoPrestamo.nombre").value("APROBADO"));
     }
+
+    @Test
+    @DisplayName("Validar prestamos en lote - Exito")
+    void validarPrestamos() throws Exception {
+        when(prestamoService.validarPrestamos(ArgumentMatchers.anyList())).thenReturn(List.of(
+                ValidacionPrestamoResponse.builder().indice(0).valido(true).violaciones(List.of()).build(),
+                ValidacionPrestamoResponse.builder().indice(1).valido(false)
+                        .violaciones(List.of("El monto mínimo permitido es 1,000.")).build()
+        ));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/validar")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [
+                            {"clienteId": 1, "cuentaId": 1, "monto": 2000.00, "plazoMeses": 12, "tasaInteres": 0.10},
+                            {"clienteId": 1, "cuentaId": 1, "monto": 500.00, "plazoMeses": 12, "tasaInteres": 0.10}
+                        ]
+                        """)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].valido").value(true))
+                .andExpect(jsonPath("$[1].valido").value(false))
+                .andExpect(jsonPath("$[1].violaciones[0]").value("El monto mínimo permitido es 1,000."));
+    }
+
+    @Test
+    @DisplayName("Validar prestamos en lote - Monto fuera de rango")
+    void validarPrestamosFueraDeRango() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/validar")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [
+                            {"clienteId": 1, "cuentaId": 1, "monto": 2000.00, "plazoMeses": 12, "tasaInteres": 0.10},
+                            {"clienteId": 1, "cuentaId": 1, "monto": 2000000000, "plazoMeses": 12, "tasaInteres": 0.10}
+                        ]
+                        """)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message[0].campo").value("[1].monto"))
+                .andExpect(jsonPath("$.message[0].mensaje").value("El monto no puede superar 1,000,000,000"));
+        verifyNoInteractions(prestamoService);
+    }
+
+    @Test
+    @DisplayName("Validar prestamos en lote - Lote demasiado grande")
+    void validarPrestamosLoteExcedido() throws Exception {
+        String prestamo = "{\"clienteId\": 1, \"cuentaId\": 1, \"monto\": 2000.00, \"plazoMeses\": 12, \"tasaInteres\": 0.10}";
+        mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/validar")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + String.join(",", Collections.nCopies(1001, prestamo)) + "]")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message[0].mensaje").value("No se pueden validar más de 1000 préstamos por solicitud"));
+        verifyNoInteractions(prestamoService);
+    }
+
+    @Test
+    @DisplayName("Cotizar prestamo - Exito")
+    void cotizarPrestamo() throws Exception {
+        when(prestamoService.cotizarPrestamo(ArgumentMatchers.any())).thenReturn(CotizacionResponse.builder()
+                .cuentaId(1L)
+                .monto(new BigDecimal("5000"))
+                .capacidadPago(new BigDecimal("30000"))
+                .combinacionesEvaluadas(1)
+                .opciones(List.of(OpcionCotizacionResponse.builder()
+                        .plazoMeses(6)
+                        .tasaInteres(new BigDecimal("0.1"))
+                        .cuota(new BigDecimal("916.67"))
+                        .totalAPagar(new BigDecimal("5500.02"))
+                        .build()))
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/prestamos/cotizacion")
+                        .param("cuentaId", "1")
+                        .param("monto", "5000")
+                        .param("plazoMinimo", "6")
+                        .param("plazoMaximo", "6")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.capacidadPago").value(30000))
+                .andExpect(jsonPath("$.opciones.length()").value(1))
+                .andExpect(jsonPath("$.opciones[0].plazoMeses").value(6))
+                .andExpect(jsonPath("$.opciones[0].cuota").value(916.67));
+    }
+
+    @Test
+    @DisplayName("Cotizar prestamo - Sin monto")
+    void cotizarPrestamoSinMonto() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/prestamos/cotizacion")
+                        .param("cuentaId", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Aprobar prestamo en modo asincrono - Aceptado")
+    void aceptarPrestamoAsincrono() throws Exception {
+        when(aprobacionPrestamoService.solicitarAprobacion(1L)).thenReturn(AprobacionPrestamoResponse.builder()
+                .id(7L)
+                .prestamoId(1L)
+                .estado(EstadoAprobacion.PENDIENTE)
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/prestamos/aprobar/{id}", 1L)
+                        .param("asincrona", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/prestamos/aprobaciones/7"))
+                .andExpect(jsonPath("$.id").value(7L))
+                .andExpect(jsonPath("$.estado").value("PENDIENTE"));
+        verifyNoInteractions(prestamoService);
+    }
+
+    @Test
+    @DisplayName("Obtener estado de aprobacion - Exito")
+    void obtenerAprobacion() throws Exception {
+        when(aprobacionPrestamoService.getAprobacionById(7L)).thenReturn(AprobacionPrestamoResponse.builder()
+                .id(7L)
+                .prestamoId(1L)
+                .estado(EstadoAprobacion.COMPLETADA)
+                .paso("CONFIRMACION")
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/prestamos/aprobaciones/{id}", 7L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado").value("COMPLETADA"))
+                .andExpect(jsonPath("$.paso").value("CONFIRMACION"));
+    }
+
+    @Test
+    @DisplayName("Buscar prestamos por cursor - Exito")
+    void buscarPrestamos() throws Exception {
+        when(prestamoService.buscarPrestamos(ArgumentMatchers.argThat((FiltroPrestamoRequest filtro) ->
+                filtro.estadoPrestamoId().equals(2L) && filtro.despuesDe().equals(40L) && filtro.tamanio() == null)))
+                .thenReturn(PaginaResponse.<PrestamoResponse>builder()
+                        .contenido(List.of(PrestamoResponse.builder().id(41L).build()))
+                        .tamanio(1)
+                        .hayMas(false)
+                        .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/prestamos/pagina")
+                        .param("estadoPrestamoId", "2")
+                        .param("despuesDe", "40")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contenido[0].id").value(41))
+                .andExpect(jsonPath("$.hayMas").value(false));
+    }
+
+    @Test
+    @DisplayName("Obtener cartera - Agregados por dimension")
+    void obtenerCartera() throws Exception {
+        when(analiticaCarteraService.obtenerCartera()).thenReturn(CarteraResponse.builder()
+                .porEstado(List.of(AgregadoCarteraResponse.builder()
+                        .clave("APROBADO").cantidad(3).monto(new BigDecimal("15000.00")).montoPagado(new BigDecimal("1200.00"))
+                        .build()))
+                .porMesDesembolso(List.of())
+                .porPlazo(List.of())
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/prestamos/cartera")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.porEstado[0].clave").value("APROBADO"))
+                .andExpect(jsonPath("$.porEstado[0].cantidad").value(3))
+                .andExpect(jsonPath("$.porPlazo").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Obtener mora - Tramos de días de atraso")
+    void obtenerMora() throws Exception {
+        when(moraCarteraService.obtenerMora()).thenReturn(MoraCarteraResponse.builder()
+                .fecha(LocalDate.parse("2025-06-01"))
+                .tramos(List.of(
+                        TramoMoraResponse.builder().tramo("1-30").prestamos(4).saldo(new BigDecimal("1800.00")).build(),
+                        TramoMoraResponse.builder().tramo("90+").prestamos(1).saldo(new BigDecimal("950.00")).build()))
+                .prestamosEnMora(5)
+                .saldoEnMora(new BigDecimal("2750.00"))
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/prestamos/cartera/mora")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tramos[0].tramo").value("1-30"))
+                .andExpect(jsonPath("$.tramos[1].prestamos").value(1))
+                .andExpect(jsonPath("$.prestamosEnMora").value(5));
+    }
+
+    @Test
+    @DisplayName("Conciliar mora - Corregir desde query param")
+    void conciliarMora() throws Exception {
+        when(moraCarteraService.conciliar(true)).thenReturn(ConciliacionMoraResponse.builder()
+                .prestamosRevisados(120)
+                .prestamosConDiferencia(2)
+                .fechasConDiferencia(1)
+                .diferencias(List.of())
+                .corregido(true)
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/cartera/mora/conciliar")
+                        .param("corregir", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prestamosConDiferencia").value(2))
+                .andExpect(jsonPath("$.corregido").value(true));
+    }
+
+    @Test
+    @DisplayName("Resumen del cliente - Préstamos con saldo y próxima cuota")
+    void obtenerResumenCliente() throws Exception {
+        when(resumenClienteService.obtenerResumen(5L)).thenReturn(ResumenClienteResponse.builder()
+                .clienteId(5L)
+                .totalPrestamos(1)
+                .prestamosActivos(1)
+                .saldoPendiente(new BigDecimal("850.00"))
+                .proximoVencimiento(LocalDate.of(2025, 7, 1))
+                .prestamos(List.of(ResumenPrestamoResponse.builder()
+                        .prestamoId(9L)
+                        .estadoPrestamo("APROBADO")
+                        .saldoPendiente(new BigDecimal("850.00"))
+                        .cuotasPendientes(5)
+                        .proximaCuotaNumero(2)
+                        .proximaCuotaVencimiento(LocalDate.of(2025, 7, 1))
+                        .build()))
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/prestamos/cliente/5/resumen")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clienteId").value(5))
+                .andExpect(jsonPath("$.saldoPendiente").value(850.00))
+                .andExpect(jsonPath("$.prestamos[0].prestamoId").value(9))
+                .andExpect(jsonPath("$.prestamos[0].proximaCuotaNumero").value(2));
+    }
+
+    @Test
+    @DisplayName("Simular perdidas - Caminos y semilla desde query params")
+    void simularPerdidas() throws Exception {
+        when(riesgoCarteraService.simularPerdidas(5000, 7L)).thenReturn(PerdidaEsperadaResponse.builder()
+                .prestamos(10)
+                .caminos(5000)
+                .semilla(7L)
+                .perdidaEsperada(new BigDecimal("1250.40"))
+                .var99(new BigDecimal("8300.00"))
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/prestamos/riesgo/perdidas")
+                        .param("caminos", "5000")
+                        .param("semilla", "7")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.perdidaEsperada").value(1250.40))
+                .andExpect(jsonPath("$.var99").value(8300.00));
+    }
+
+    @Test
+    @DisplayName("Ofertas preaprobadas por cliente")
+    void obtenerOfertasPorCliente() throws Exception {
+        when(ofertaPreaprobadaService.getOfertasByClienteId(1L)).thenReturn(List.of(
+                OfertaPreaprobadaResponse.builder().clienteId(1L).cuentaId(10L).plazoMeses(12)
+                        .montoMaximo(new BigDecimal("20000.00")).build(),
+                OfertaPreaprobadaResponse.builder().clienteId(1L).cuentaId(10L).plazoMeses(24)
+                        .montoMaximo(new BigDecimal("30000.00")).build()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/prestamos/ofertas/cliente/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].plazoMeses").value(24))
+                .andExpect(jsonPath("$[1].montoMaximo").value(30000.00));
+    }
+
+    @Test
+    @DisplayName("Aprobar prestamos en lote - Un evento por prestamo y el resumen al final")
+    void aprobarPrestamosEnLote() throws Exception {
+        when(ejecutorAprobaciones.enviar(any())).thenAnswer(invocacion -> {
+            invocacion.<Runnable>getArgument(0).run();
+            return true;
+        });
+        when(aprobacionLoteService.aprobarLote(eq(List.of(1L, 2L)), any())).thenAnswer(invocacion -> {
+            Consumer<ResultadoAprobacionResponse> alCompletar = invocacion.getArgument(1);
+            alCompletar.accept(ResultadoAprobacionResponse.builder().prestamoId(2L).aprobado(false)
+                    .mensaje("Solo se pueden aceptar préstamos en estado PENDIENTE").build());
+            alCompletar.accept(ResultadoAprobacionResponse.builder().prestamoId(1L).aprobado(true)
+                    .mensaje("Préstamo aprobado").build());
+            return ResumenAprobacionLoteResponse.builder().solicitados(2).aprobados(1).rechazados(1).build();
+        });
+
+        MvcResult resultado = mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/aprobar/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "prestamoIds": [1, 2] }
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String eventos = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(eventos.indexOf("\"prestamoId\":2") < eventos.indexOf("\"prestamoId\":1"));
+        assertTrue(eventos.contains("event:resumen"));
+        assertTrue(eventos.contains("\"aprobados\":1"));
+    }
+
+    @Test
+    @DisplayName("Aprobar prestamos en lote - Lista vacia")
+    void aprobarPrestamosEnLoteSinIds() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/aprobar/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "prestamoIds": [] }
+                                """))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(aprobacionLoteService);
+    }
+
+    @Test
+    @DisplayName("Transicionar prestamos en lote - Exito")
+    void transicionarPrestamos() throws Exception {
+        when(transicionPrestamoService.transicionar(any())).thenReturn(ResultadoTransicionResponse.builder()
+                .estadoPrestamoId(4L)
+                .actualizados(2)
+                .lotes(1)
+                .noActualizados(List.of(9L))
+                .build());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/estado/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "prestamoIds": [3, 5, 9], "estadoPrestamoId": 4 }
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.actualizados").value(2))
+                .andExpect(jsonPath("$.noActualizados[0]").value(9));
+    }
+
+    @Test
+    @DisplayName("Transicionar prestamos en lote - Sin estado destino")
+    void transicionarPrestamosSinEstado() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/estado/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "prestamoIds": [3] }
+                                """))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(transicionPrestamoService);
+    }
+
+    @Test
+    @DisplayName("Importar prestamos desde CSV - Eventos por linea y resumen")
+    void importarPrestamosCsv() throws Exception {
+        when(ejecutorAprobaciones.enviar(any())).thenAnswer(invocacion -> {
+            invocacion.<Runnable>getArgument(0).run();
+            return true;
+        });
+        when(importacionPrestamoService.importar(any(), eq(Formato.CSV), any())).thenAnswer(invocacion -> {
+            Consumer<ResultadoImportacionResponse> alCompletar = invocacion.getArgument(2);
+            alCompletar.accept(ResultadoImportacionResponse.builder().linea(2).aceptado(true).prestamoId(10L).build());
+            alCompletar.accept(ResultadoImportacionResponse.builder().linea(3).aceptado(false)
+                    .mensaje("El monto mínimo permitido es 1,000.").build());
+            return ResumenImportacionResponse.builder().filas(2).aceptadas(1).rechazadas(1).build();
+        });
+
+        MvcResult resultado = mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/importar")
+                        .contentType("text/csv")
+                        .content("""
+                                clienteId,cuentaId,monto,plazoMeses,tasaInteres
+                                1,1,5000,12,0.10
+                                1,1,500,12,0.10
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String eventos = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(eventos.indexOf("\"linea\":2") < eventos.indexOf("\"linea\":3"));
+        assertTrue(eventos.contains("event:resumen"));
+        assertTrue(eventos.contains("\"aceptadas\":1"));
+    }
+
+    @Test
+    @DisplayName("Importar prestamos - Cola llena")
+    void importarPrestamosColaLlena() throws Exception {
+        when(ejecutorAprobaciones.enviar(any())).thenReturn(false);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/prestamos/importar")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"clienteId\":1}\n"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(importacionPrestamoService);
+    }
 }
@@ -0,0 +1,116 @@
+package org.nttdata.com.servicioprestamos.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.models.NotificacionOutbox;
+import org.nttdata.com.servicioprestamos.producer.dto.NotificacionRequestK;
+import org.nttdata.com.servicioprestamos.repository.NotificacionOutboxRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificacionOutboxRelayTest {
+    @Mock
+    private NotificacionOutboxRepository notificacionOutboxRepository;
+    @Mock
+    private KafkaTemplate<String, NotificacionRequestK> kafkaTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificacionOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new NotificacionOutboxRelay(notificacionOutboxRepository, kafkaTemplate, new ObjectMapper(),
+                meterRegistry, 100, 1000, 3, 1000);
+    }
+
+    private static NotificacionOutbox pendiente(Long id, String asunto) {
+        return NotificacionOutbox.builder()
+                .id(id)
+                .topico("notificaciones")
+                .payload("{\"tipoNotificacionId\":1,\"asunto\":\"" + asunto + "\",\"mensaje\":\"m\",\"estadoNotificacionId\":1}")
+                .fechaCreacion(Instant.now().minusSeconds(5))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Publica el lote y elimina las notificaciones confirmadas")
+    void publicarPendientes() {
+        List<NotificacionOutbox> pendientes = List.of(pendiente(1L, "A"), pendiente(2L, "B"));
+        when(notificacionOutboxRepository.buscarPublicables(eq(3), any(Instant.class), eq(Limit.of(100)))).thenReturn(pendientes);
+        when(kafkaTemplate.send(eq("notificaciones"), any(NotificacionRequestK.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        assertEquals(2, relay.publicarPendientes());
+
+        verify(kafkaTemplate).send(eq("notificaciones"), argThat((NotificacionRequestK n) -> n.asunto().equals("A")));
+        verify(kafkaTemplate).send(eq("notificaciones"), argThat((NotificacionRequestK n) -> n.asunto().equals("B")));
+        verify(notificacionOutboxRepository).deleteAllInBatch(pendientes);
+        assertEquals(2, meterRegistry.get("prestamos.outbox.lag").timer().count());
+        assertEquals(2.0, meterRegistry.get("prestamos.outbox.lote").summary().totalAmount());
+        assertEquals(5.0, meterRegistry.get("prestamos.outbox.antiguedad").gauge().value(), 1.0);
+    }
+
+    @Test
+    @DisplayName("Las notificaciones no confirmadas quedan en el outbox con un intento más")
+    void publicarPendientesConFallo() {
+        NotificacionOutbox ok = pendiente(1L, "A");
+        NotificacionOutbox fallida = pendiente(2L, "B");
+        when(notificacionOutboxRepository.buscarPublicables(eq(3), any(Instant.class), eq(Limit.of(100)))).thenReturn(List.of(ok, fallida));
+        when(kafkaTemplate.send(eq("notificaciones"), any(NotificacionRequestK.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker no disponible")));
+
+        assertEquals(1, relay.publicarPendientes());
+
+        verify(notificacionOutboxRepository).deleteAllInBatch(List.of(ok));
+        assertEquals(1, fallida.getIntentos());
+        assertTrue(fallida.getProximoIntento().isAfter(Instant.now()));
+        assertEquals(0.0, meterRegistry.get("prestamos.outbox.apartadas").counter().count());
+    }
+
+    @Test
+    @DisplayName("Al agotar los intentos la notificación queda apartada sin próximo intento")
+    void publicarPendientesIntentosAgotados() {
+        NotificacionOutbox fallida = pendiente(2L, "B");
+        fallida.setIntentos(2);
+        when(notificacionOutboxRepository.buscarPublicables(eq(3), any(Instant.class), eq(Limit.of(100))))
+                .thenReturn(List.of(fallida));
+        when(kafkaTemplate.send(eq("notificaciones"), any(NotificacionRequestK.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker no disponible")));
+
+        assertEquals(0, relay.publicarPendientes());
+
+        assertEquals(3, fallida.getIntentos());
+        assertNull(fallida.getProximoIntento());
+        assertEquals(1.0, meterRegistry.get("prestamos.outbox.apartadas").counter().count());
+    }
+
+    @Test
+    @DisplayName("Sin pendientes no se envía nada")
+    void publicarPendientesVacio() {
+        when(notificacionOutboxRepository.buscarPublicables(eq(3), any(Instant.class), eq(Limit.of(100)))).thenReturn(List.of());
+
+        assertEquals(0, relay.publicarPendientes());
+
+        verifyNoInteractions(kafkaTemplate);
+        verify(notificacionOutboxRepository, never()).deleteAllInBatch(any());
+    }
+}
@@ -1,18 +1,20 @@
 package org.nttdata.com.servicioprestamos.producer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.nttdata.com.servicioprestamos.producer.dto.ClienteResponseK;
 import org.nttdata.com.servicioprestamos.producer.dto.NotificacionRequestK;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.nttdata.com.servicioprestamos.repository.NotificacionOutboxRepository;
 
 import java.util.Date;
 
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -20,13 +22,15 @@ import static org.mockito.Mockito.verify;
 public class NotificacionProducerTest {
 
     @Mock
-    private KafkaTemplate<String, NotificacionRequestK> kafkaTemplate;
+    private NotificacionOutboxRepository notificacionOutboxRepository;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @InjectMocks
     private NotificacionProducer notificacionProducer;
 
     @Test
-    @DisplayName("Debe enviar notificación a Kafka exitosamente")
+    @DisplayName("Debe registrar la notificación en el outbox para el tópico de Kafka")
     void enviarNotificacionSuccess() {
         NotificacionRequestK request = NotificacionRequestK.builder()
                 .cliente(ClienteResponseK.builder()
@@ -45,7 +49,10 @@ public class NotificacionProducerTest {
 
         notificacionProducer.enviarNotificacion(request);
 
-        verify(kafkaTemplate, times(1))
-                .send(eq("notificaciones"), eq(request));
+        verify(notificacionOutboxRepository, times(1)).save(argThat(outbox ->
+                outbox.getTopico().equals("notificaciones")
+                        && outbox.getPayload().contains("\"asunto\":\"Prueba de notificación\"")
+                        && outbox.getFechaCreacion() != null
+                        && outbox.getIntentos() == 0));
     }
 }
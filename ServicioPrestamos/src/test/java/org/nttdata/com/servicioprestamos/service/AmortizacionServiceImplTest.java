@@ -0,0 +1,78 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.util.Cronograma;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmortizacionServiceImplTest {
+    private final AmortizacionServiceImpl amortizacionService = new AmortizacionServiceImpl(new SimpleMeterRegistry(), 100);
+
+    @Test
+    @DisplayName("El método PLANO reproduce el cálculo monto*(1+tasa)/plazo")
+    void planoIgualAlCalculoOriginal() {
+        BigDecimal monto = new BigDecimal("10000");
+        BigDecimal tasa = new BigDecimal("0.17");
+        int plazo = 7;
+        BigDecimal esperado = monto.multiply(tasa.add(BigDecimal.ONE))
+                .divide(BigDecimal.valueOf(plazo), 2, RoundingMode.HALF_UP);
+
+        Cronograma cronograma = amortizacionService.calcular(monto, tasa, plazo, MetodoAmortizacion.PLANO);
+
+        for (int i = 1; i <= plazo; i++) {
+            assertEquals(esperado, cronograma.cuota(i));
+        }
+        assertEquals(BigDecimal.ZERO.setScale(2), cronograma.saldo(plazo));
+    }
+
+    @Test
+    @DisplayName("El método FRANCES calcula una cuota constante y amortiza todo el capital")
+    void francesCuotaConstante() {
+        // 10,000 al 12% anual (1% mensual) en 12 meses: cuota 888.49
+        Cronograma cronograma = amortizacionService.calcular(new BigDecimal("10000"), new BigDecimal("0.12"), 12, MetodoAmortizacion.FRANCES);
+
+        assertEquals(new BigDecimal("888.49"), cronograma.cuota(1));
+        assertEquals(new BigDecimal("100.00"), cronograma.interes(1));
+        BigDecimal capital = BigDecimal.ZERO;
+        for (int i = 1; i <= 12; i++) {
+            capital = capital.add(cronograma.capital(i));
+        }
+        assertEquals(new BigDecimal("10000.00"), capital);
+        assertEquals(BigDecimal.ZERO.setScale(2), cronograma.saldo(12));
+    }
+
+    @Test
+    @DisplayName("El método ALEMAN amortiza capital constante con cuota decreciente")
+    void alemanCapitalConstante() {
+        Cronograma cronograma = amortizacionService.calcular(new BigDecimal("12000"), new BigDecimal("0.12"), 12, MetodoAmortizacion.ALEMAN);
+
+        assertEquals(new BigDecimal("1000.00"), cronograma.capital(1));
+        assertEquals(new BigDecimal("1120.00"), cronograma.cuota(1));
+        assertEquals(new BigDecimal("1010.00"), cronograma.cuota(12));
+        assertTrue(cronograma.cuota(1).compareTo(cronograma.cuota(12)) > 0);
+    }
+
+    @Test
+    @DisplayName("Los cronogramas con los mismos parámetros se reutilizan desde la caché")
+    void cronogramaMemoizado() {
+        Cronograma primero = amortizacionService.calcular(new BigDecimal("5000.00"), new BigDecimal("0.10"), 24, MetodoAmortizacion.FRANCES);
+        Cronograma segundo = amortizacionService.calcular(new BigDecimal("5000"), new BigDecimal("0.1"), 24, MetodoAmortizacion.FRANCES);
+        Cronograma otroMetodo = amortizacionService.calcular(new BigDecimal("5000"), new BigDecimal("0.1"), 24, MetodoAmortizacion.ALEMAN);
+
+        assertSame(primero, segundo);
+        assertNotSame(primero, otroMetodo);
+    }
+
+    @Test
+    @DisplayName("Sin método se usa PLANO")
+    void metodoPorDefecto() {
+        assertEquals(MetodoAmortizacion.PLANO,
+                amortizacionService.calcular(new BigDecimal("5000"), new BigDecimal("0.10"), 12, null).metodo());
+    }
+}
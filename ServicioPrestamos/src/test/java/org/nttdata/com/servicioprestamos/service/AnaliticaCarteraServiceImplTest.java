@@ -0,0 +1,179 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.dto.CarteraResponse;
+import org.nttdata.com.servicioprestamos.models.AgregadoCartera;
+import org.nttdata.com.servicioprestamos.models.DimensionCartera;
+import org.nttdata.com.servicioprestamos.models.EstadoPrestamo;
+import org.nttdata.com.servicioprestamos.repository.AgregadoCarteraRepository;
+import org.nttdata.com.servicioprestamos.repository.AgregadoCarteraRepositoryCustom.DeltaCartera;
+import org.nttdata.com.servicioprestamos.repository.AgregadoCarteraRepositoryCustom.GrupoCartera;
+import org.nttdata.com.servicioprestamos.repository.EstadoPrestamoRepository;
+import org.nttdata.com.servicioprestamos.service.AnaliticaCarteraService.FotoPrestamo;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AnaliticaCarteraServiceImplTest {
+    @Mock
+    private AgregadoCarteraRepository agregadoCarteraRepository;
+    @Mock
+    private EstadoPrestamoRepository estadoPrestamoRepository;
+    @InjectMocks
+    private AnaliticaCarteraServiceImpl analiticaCarteraService;
+
+    @SuppressWarnings("unchecked")
+    private List<DeltaCartera> deltasAcumulados() {
+        ArgumentCaptor<Collection<DeltaCartera>> deltas = ArgumentCaptor.forClass(Collection.class);
+        verify(agregadoCarteraRepository).acumular(deltas.capture());
+        return List.copyOf(deltas.getValue());
+    }
+
+    @Test
+    @DisplayName("Aprobar un préstamo mueve su monto de PENDIENTE a APROBADO y lo suma a mes y plazo")
+    void registrarAprobacion() {
+        FotoPrestamo antes = new FotoPrestamo(1L, 1L, new BigDecimal("5000.00"), 18, null);
+        FotoPrestamo despues = new FotoPrestamo(1L, 2L, new BigDecimal("5000.00"), 18, Date.valueOf("2025-03-15"));
+
+        analiticaCarteraService.registrarCambio(antes, despues);
+
+        assertEquals(List.of(
+                new DeltaCartera(DimensionCartera.ESTADO, "1", -1, new BigDecimal("-5000.00"), BigDecimal.ZERO),
+                new DeltaCartera(DimensionCartera.ESTADO, "2", 1, new BigDecimal("5000.00"), BigDecimal.ZERO),
+                new DeltaCartera(DimensionCartera.MES_DESEMBOLSO, "2025-03", 1, new BigDecimal("5000.00"), BigDecimal.ZERO),
+                new DeltaCartera(DimensionCartera.PLAZO, "13-24", 1, new BigDecimal("5000.00"), BigDecimal.ZERO)
+        ), deltasAcumulados());
+        // Un préstamo sin desembolsar no tiene cuotas cobradas
+        verify(agregadoCarteraRepository, never()).pagadoDePrestamo(any());
+    }
+
+    @Test
+    @DisplayName("Eliminar un préstamo desembolsado descuenta también lo cobrado")
+    void registrarEliminacion() {
+        when(agregadoCarteraRepository.pagadoDePrestamo(4L)).thenReturn(new BigDecimal("300.00"));
+
+        analiticaCarteraService.registrarCambio(
+                new FotoPrestamo(4L, 2L, new BigDecimal("2000.00"), 6, Date.valueOf("2025-01-10")), null);
+
+        List<DeltaCartera> deltas = deltasAcumulados();
+        assertEquals(3, deltas.size());
+        assertTrue(deltas.stream().allMatch(delta -> delta.cantidad() == -1
+                && delta.montoPagado().compareTo(new BigDecimal("-300.00")) == 0));
+        assertEquals("1-12", deltas.get(2).clave());
+    }
+
+    @Test
+    @DisplayName("Sin cambios en los campos de la cartera no se escribe nada")
+    void registrarCambioSinEfecto() {
+        FotoPrestamo foto = new FotoPrestamo(1L, 1L, new BigDecimal("5000.00"), 18, null);
+
+        analiticaCarteraService.registrarCambio(foto, new FotoPrestamo(1L, 1L, new BigDecimal("5000.00"), 18, null));
+
+        verifyNoInteractions(agregadoCarteraRepository);
+    }
+
+    @Test
+    @DisplayName("Los pagos suman montoPagado en las tres dimensiones sin cambiar cantidad")
+    void registrarPagos() {
+        when(agregadoCarteraRepository.agruparPagos(List.of(7L, 8L))).thenReturn(List.of(
+                new GrupoCartera(2L, "2025-03", 60, 0, BigDecimal.ZERO, new BigDecimal("450.00"))));
+
+        analiticaCarteraService.registrarPagos(List.of(7L, 8L));
+
+        assertEquals(List.of(
+                new DeltaCartera(DimensionCartera.ESTADO, "2", 0, BigDecimal.ZERO, new BigDecimal("450.00")),
+                new DeltaCartera(DimensionCartera.MES_DESEMBOLSO, "2025-03", 0, BigDecimal.ZERO, new BigDecimal("450.00")),
+                new DeltaCartera(DimensionCartera.PLAZO, "49-60", 0, BigDecimal.ZERO, new BigDecimal("450.00"))
+        ), deltasAcumulados());
+    }
+
+    @Test
+    @DisplayName("Revertir pagos resta lo que registrarPagos sumó")
+    void revertirPagos() {
+        when(agregadoCarteraRepository.agruparPagos(List.of(7L))).thenReturn(List.of(
+                new GrupoCartera(2L, "2025-03", 60, 0, BigDecimal.ZERO, new BigDecimal("450.00"))));
+
+        analiticaCarteraService.revertirPagos(List.of(7L));
+
+        assertEquals(List.of(
+                new DeltaCartera(DimensionCartera.ESTADO, "2", 0, BigDecimal.ZERO, new BigDecimal("-450.00")),
+                new DeltaCartera(DimensionCartera.MES_DESEMBOLSO, "2025-03", 0, BigDecimal.ZERO, new BigDecimal("-450.00")),
+                new DeltaCartera(DimensionCartera.PLAZO, "49-60", 0, BigDecimal.ZERO, new BigDecimal("-450.00"))
+        ), deltasAcumulados());
+    }
+
+    @Test
+    @DisplayName("Recalcular pliega los grupos por estado, mes y tramo de plazo")
+    @SuppressWarnings("unchecked")
+    void recalcular() {
+        when(agregadoCarteraRepository.agruparCartera()).thenReturn(List.of(
+                new GrupoCartera(1L, null, 12, 2, new BigDecimal("3000.00"), BigDecimal.ZERO),
+                new GrupoCartera(2L, "2025-03", 12, 1, new BigDecimal("1000.00"), new BigDecimal("100.00")),
+                new GrupoCartera(2L, "2025-03", 10, 2, new BigDecimal("4000.00"), BigDecimal.ZERO),
+                new GrupoCartera(2L, "2025-04", 72, 1, new BigDecimal("9000.00"), BigDecimal.ZERO)));
+
+        analiticaCarteraService.recalcular();
+
+        ArgumentCaptor<Collection<DeltaCartera>> totales = ArgumentCaptor.forClass(Collection.class);
+        verify(agregadoCarteraRepository).reemplazar(totales.capture());
+        assertEquals(List.of(
+                new DeltaCartera(DimensionCartera.ESTADO, "1", 2, new BigDecimal("3000.00"), BigDecimal.ZERO),
+                new DeltaCartera(DimensionCartera.ESTADO, "2", 4, new BigDecimal("14000.00"), new BigDecimal("100.00")),
+                new DeltaCartera(DimensionCartera.MES_DESEMBOLSO, "2025-03", 3, new BigDecimal("5000.00"), new BigDecimal("100.00")),
+                new DeltaCartera(DimensionCartera.MES_DESEMBOLSO, "2025-04", 1, new BigDecimal("9000.00"), BigDecimal.ZERO),
+                new DeltaCartera(DimensionCartera.PLAZO, "1-12", 3, new BigDecimal("5000.00"), new BigDecimal("100.00")),
+                new DeltaCartera(DimensionCartera.PLAZO, "61+", 1, new BigDecimal("9000.00"), BigDecimal.ZERO)
+        ), List.copyOf(totales.getValue()));
+    }
+
+    @Test
+    @DisplayName("Transiciones en lote mueven monto y cobrado entre estados con un solo acumulado")
+    void registrarTransiciones() {
+        when(agregadoCarteraRepository.pagadoDePrestamos(List.of(7L, 8L))).thenReturn(Map.of(7L, new BigDecimal("5000.00")));
+
+        analiticaCarteraService.registrarTransiciones(List.of(
+                new FotoPrestamo(7L, 2L, new BigDecimal("5000.00"), 6, Date.valueOf("2024-12-01")),
+                new FotoPrestamo(8L, 2L, new BigDecimal("800.00"), 6, Date.valueOf("2024-12-20"))), 5L);
+
+        // Mes y plazo no cambian y se descartan
+        assertEquals(List.of(
+                new DeltaCartera(DimensionCartera.ESTADO, "2", -2, new BigDecimal("-5800.00"), new BigDecimal("-5000.00")),
+                new DeltaCartera(DimensionCartera.ESTADO, "5", 2, new BigDecimal("5800.00"), new BigDecimal("5000.00"))
+        ), deltasAcumulados());
+    }
+
+    @Test
+    @DisplayName("Obtener cartera traduce el estado y omite filas en cero")
+    void obtenerCartera() {
+        when(estadoPrestamoRepository.findAll()).thenReturn(List.of(
+                EstadoPrestamo.builder().id(1L).nombre("PENDIENTE").build(),
+                EstadoPrestamo.builder().id(2L).nombre("APROBADO").build()));
+        when(agregadoCarteraRepository.findAllByOrderByDimensionAscClaveAsc()).thenReturn(List.of(
+                new AgregadoCartera(DimensionCartera.ESTADO, "1", 0, new BigDecimal("0.00"), new BigDecimal("0.00")),
+                new AgregadoCartera(DimensionCartera.ESTADO, "2", 3, new BigDecimal("9000.00"), new BigDecimal("150.00")),
+                new AgregadoCartera(DimensionCartera.PLAZO, "13-24", 3, new BigDecimal("9000.00"), new BigDecimal("150.00"))));
+
+        CarteraResponse cartera = analiticaCarteraService.obtenerCartera();
+
+        assertAll(
+                () -> assertEquals(1, cartera.porEstado().size()),
+                () -> assertEquals("APROBADO", cartera.porEstado().getFirst().clave()),
+                () -> assertTrue(cartera.porMesDesembolso().isEmpty()),
+                () -> assertEquals("13-24", cartera.porPlazo().getFirst().clave())
+        );
+    }
+}
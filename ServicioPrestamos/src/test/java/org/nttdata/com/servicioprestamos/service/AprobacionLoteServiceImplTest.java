@@ -0,0 +1,194 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.ClienteResponse;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.client.dto.TransaccionRequest;
+import org.nttdata.com.servicioprestamos.dto.PrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.ResultadoAprobacionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenAprobacionLoteResponse;
+import org.nttdata.com.servicioprestamos.models.EstadoPrestamo;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository.ConteoCliente;
+import org.nttdata.com.servicioprestamos.service.PrestamoServiceImpl.DatosAprobacion;
+import org.nttdata.com.servicioprestamos.util.EjecutorParalelo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AprobacionLoteServiceImplTest {
+    @Mock
+    private PrestamoRepository prestamoRepository;
+    @Mock
+    private PrestamoServiceImpl prestamoService;
+    @Mock
+    private TransaccionClient transaccionClient;
+    @Mock
+    private CuentaClient cuentaClient;
+    @Mock
+    private EvaluacionCreditoService evaluacionCreditoService;
+
+    private final EjecutorParalelo ejecutorParalelo = new EjecutorParalelo();
+    private AprobacionLoteServiceImpl aprobacionLoteService;
+    private final List<ResultadoAprobacionResponse> resultados = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        aprobacionLoteService = new AprobacionLoteServiceImpl(prestamoRepository, prestamoService, transaccionClient,
+                cuentaClient, ejecutorParalelo, evaluacionCreditoService, new SimpleMeterRegistry(), 2);
+        lenient().when(prestamoService.getClienteById(any())).thenAnswer(invocacion ->
+                ClienteResponse.builder().id(invocacion.getArgument(0)).build());
+        lenient().when(prestamoService.getCuentaById(any())).thenAnswer(invocacion ->
+                CuentaResponse.builder().id(invocacion.getArgument(0)).build());
+        // Sin otra aprobación en curso se reservan todos los préstamos pedidos
+        lenient().when(prestamoRepository.reservarAprobacion(anyCollection())).thenAnswer(invocacion ->
+                List.copyOf(invocacion.<Collection<Long>>getArgument(0)));
+        // Devuelve los préstamos confirmados como respuestas
+        lenient().when(prestamoService.confirmarAprobaciones(anyList(), any())).thenAnswer(invocacion -> {
+            List<DatosAprobacion> grupo = invocacion.getArgument(0);
+            return grupo.stream().map(datos -> PrestamoResponse.builder()
+                    .id(datos.prestamo().getId()).monto(datos.prestamo().getMonto()).build()).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ejecutorParalelo.cerrar();
+    }
+
+    private static Prestamo prestamo(Long id, Long clienteId, Long cuentaId, String monto, long estado) {
+        return Prestamo.builder().id(id).clienteId(clienteId).cuentaId(cuentaId).monto(new BigDecimal(monto))
+                .estadoPrestamo(EstadoPrestamo.builder().id(estado).build()).build();
+    }
+
+    private static ConteoCliente conteo(Long clienteId, long cantidad) {
+        return new ConteoCliente() {
+            public Long getClienteId() {
+                return clienteId;
+            }
+            public long getCantidad() {
+                return cantidad;
+            }
+        };
+    }
+
+    private Map<Long, ResultadoAprobacionResponse> porPrestamo() {
+        return resultados.stream().collect(Collectors.toMap(ResultadoAprobacionResponse::prestamoId, Function.identity()));
+    }
+
+    @Test
+    @DisplayName("Una consulta por cliente y por cuenta, y un lote de transacciones y un ajuste de saldo por cuenta")
+    void aprobarLoteAgrupadoPorCuenta() {
+        when(prestamoRepository.findAllById(any())).thenReturn(List.of(
+                prestamo(1L, 1L, 10L, "1000.00", 1L),
+                prestamo(2L, 1L, 10L, "2000.00", 1L),
+                prestamo(3L, 2L, 20L, "500.00", 1L),
+                prestamo(4L, 2L, 20L, "700.00", 2L)));
+        when(prestamoRepository.contarPorClienteYEstado(anyCollection(), eq(2L))).thenReturn(List.of(conteo(2L, 1L)));
+
+        ResumenAprobacionLoteResponse resumen = aprobacionLoteService.aprobarLote(List.of(1L, 2L, 3L, 4L, 99L), resultados::add);
+
+        assertAll(
+                () -> assertEquals(5, resumen.solicitados()),
+                () -> assertEquals(3, resumen.aprobados()),
+                () -> assertEquals(2, resumen.rechazados()),
+                () -> assertEquals(2, resumen.clientes()),
+                () -> assertEquals(2, resumen.cuentas()),
+                () -> assertEquals(new BigDecimal("3500.00"), resumen.montoDesembolsado())
+        );
+        Map<Long, ResultadoAprobacionResponse> porPrestamo = porPrestamo();
+        assertEquals(5, porPrestamo.size());
+        assertTrue(porPrestamo.get(1L).aprobado());
+        assertEquals("Solo se pueden aceptar préstamos en estado PENDIENTE", porPrestamo.get(4L).mensaje());
+        assertEquals("Préstamo no encontrado con id: 99", porPrestamo.get(99L).mensaje());
+
+        verify(prestamoService, times(1)).getClienteById(1L);
+        verify(prestamoService, times(1)).getCuentaById(10L);
+        verify(transaccionClient, times(2)).crearTransacciones(anyList());
+        verify(transaccionClient).crearTransacciones(argThat((List<TransaccionRequest> lote) -> lote.size() == 2
+                && lote.stream().allMatch(t -> t.cuentaId().equals(10L) && t.tipoTransaccionId().equals(1L))));
+        verify(cuentaClient, times(1)).ajustarSaldo(10L, new BigDecimal("3000.00"));
+        verify(cuentaClient, times(1)).ajustarSaldo(20L, new BigDecimal("500.00"));
+        verify(prestamoService, times(2)).confirmarAprobaciones(anyList(), any());
+        verify(prestamoService, never()).acreditarSaldo(any(), any());
+    }
+
+    @Test
+    @DisplayName("El límite de préstamos activos cuenta los aprobados en el mismo lote")
+    void limiteDePrestamosActivos() {
+        when(prestamoRepository.findAllById(any())).thenReturn(List.of(
+                prestamo(1L, 1L, 10L, "1000.00", 1L),
+                prestamo(2L, 1L, 10L, "1000.00", 1L)));
+        when(prestamoRepository.contarPorClienteYEstado(anyCollection(), eq(2L))).thenReturn(List.of(conteo(1L, 2L)));
+
+        ResumenAprobacionLoteResponse resumen = aprobacionLoteService.aprobarLote(List.of(1L, 2L), resultados::add);
+
+        assertEquals(1, resumen.aprobados());
+        assertEquals("El cliente no puede tener más de 3 préstamos activos.", porPrestamo().get(2L).mensaje());
+        verify(cuentaClient).ajustarSaldo(10L, new BigDecimal("1000.00"));
+    }
+
+    @Test
+    @DisplayName("Si falla el ajuste de saldo se revierten los desembolsos de la cuenta")
+    void compensarCuentaFallida() {
+        when(prestamoRepository.findAllById(any())).thenReturn(List.of(
+                prestamo(1L, 1L, 10L, "1000.00", 1L),
+                prestamo(2L, 1L, 10L, "2000.00", 1L)));
+        when(prestamoRepository.contarPorClienteYEstado(anyCollection(), eq(2L))).thenReturn(List.of());
+        when(cuentaClient.ajustarSaldo(10L, new BigDecimal("3000.00"))).thenThrow(new RuntimeException("Cuenta bloqueada"));
+
+        ResumenAprobacionLoteResponse resumen = aprobacionLoteService.aprobarLote(List.of(1L, 2L), resultados::add);
+
+        assertEquals(0, resumen.aprobados());
+        assertEquals(2, resumen.rechazados());
+        assertEquals("Cuenta bloqueada", porPrestamo().get(1L).mensaje());
+        verify(transaccionClient).crearTransacciones(argThat((List<TransaccionRequest> lote) -> lote.size() == 2
+                && lote.stream().allMatch(t -> t.tipoTransaccionId().equals(2L))));
+        verify(prestamoService, never()).confirmarAprobaciones(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Los préstamos que reservó otra aprobación se rechazan sin pasos remotos")
+    void rechazarReservadosPorOtraAprobacion() {
+        when(prestamoRepository.findAllById(any())).thenReturn(List.of(
+                prestamo(1L, 1L, 10L, "1000.00", 1L),
+                prestamo(2L, 2L, 20L, "2000.00", 1L)));
+        when(prestamoRepository.reservarAprobacion(List.of(1L, 2L))).thenReturn(List.of(1L));
+        when(prestamoRepository.contarPorClienteYEstado(anyCollection(), eq(2L))).thenReturn(List.of());
+
+        ResumenAprobacionLoteResponse resumen = aprobacionLoteService.aprobarLote(List.of(1L, 2L), resultados::add);
+
+        assertEquals(1, resumen.aprobados());
+        assertEquals(1, resumen.rechazados());
+        assertEquals("El préstamo ya tiene una aprobación en curso", porPrestamo().get(2L).mensaje());
+        verify(prestamoService, never()).getCuentaById(20L);
+        verify(cuentaClient, never()).ajustarSaldo(eq(20L), any());
+        verify(prestamoRepository).liberarAprobacion(Set.of(1L));
+    }
+}
@@ -0,0 +1,270 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.dto.ClienteResponse;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.client.dto.TransaccionResponse;
+import org.nttdata.com.servicioprestamos.dto.AprobacionPrestamoResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.models.AprobacionPrestamo;
+import org.nttdata.com.servicioprestamos.models.EstadoAprobacion;
+import org.nttdata.com.servicioprestamos.models.EstadoPrestamo;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.repository.AprobacionPrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.service.PrestamoServiceImpl.DatosAprobacion;
+import org.nttdata.com.servicioprestamos.util.AprobacionPrestamoMapper;
+import org.nttdata.com.servicioprestamos.util.EjecutorAprobaciones;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AprobacionPrestamoServiceImplTest {
+    @Mock
+    private AprobacionPrestamoRepository aprobacionPrestamoRepository;
+    @Mock
+    private PrestamoRepository prestamoRepository;
+    @Spy
+    private AprobacionPrestamoMapper aprobacionPrestamoMapper = Mappers.getMapper(AprobacionPrestamoMapper.class);
+    @Mock
+    private PrestamoServiceImpl prestamoService;
+    @Mock
+    private EjecutorAprobaciones ejecutorAprobaciones;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AprobacionPrestamoServiceImpl aprobacionPrestamoService;
+
+    private static Prestamo prestamo(long estadoId) {
+        return Prestamo.builder()
+                .id(1L)
+                .clienteId(1L)
+                .cuentaId(10L)
+                .monto(new BigDecimal("5000"))
+                .plazoMeses(12)
+                .tasaInteres(new BigDecimal("0.10"))
+                .estadoPrestamo(EstadoPrestamo.builder().id(estadoId).build())
+                .build();
+    }
+
+    private static DatosAprobacion datos() {
+        return new DatosAprobacion(prestamo(1L), mock(ClienteResponse.class),
+                CuentaResponse.builder().id(10L).saldo(new BigDecimal("100")).build());
+    }
+
+    private AprobacionPrestamo aprobacionGuardada() {
+        AprobacionPrestamo aprobacion = AprobacionPrestamo.builder()
+                .id(7L)
+                .prestamoId(1L)
+                .estado(EstadoAprobacion.PENDIENTE)
+                .build();
+        when(aprobacionPrestamoRepository.findById(7L)).thenReturn(Optional.of(aprobacion));
+        return aprobacion;
+    }
+
+    @Test
+    @DisplayName("Solicitar aprobación registra el estado PENDIENTE y encola la saga")
+    void solicitarAprobacion() {
+        when(prestamoService.getPrestamoEntityById(1L)).thenReturn(prestamo(1L));
+        when(prestamoRepository.reservarAprobacion(List.of(1L))).thenReturn(List.of(1L));
+        when(aprobacionPrestamoRepository.save(any(AprobacionPrestamo.class))).thenAnswer(inv -> {
+            AprobacionPrestamo aprobacion = inv.getArgument(0);
+            aprobacion.setId(7L);
+            return aprobacion;
+        });
+        when(ejecutorAprobaciones.enviar(any(Runnable.class))).thenReturn(true);
+
+        AprobacionPrestamoResponse response = aprobacionPrestamoService.solicitarAprobacion(1L);
+
+        assertEquals(7L, response.id());
+        assertEquals(EstadoAprobacion.PENDIENTE, response.estado());
+        verify(ejecutorAprobaciones).enviar(any(Runnable.class));
+        verifyNoMoreInteractions(prestamoService);
+    }
+
+    @Test
+    @DisplayName("No se encola una segunda aprobación del mismo préstamo")
+    void solicitarAprobacionEnCurso() {
+        when(prestamoService.getPrestamoEntityById(1L)).thenReturn(prestamo(1L));
+        when(prestamoRepository.reservarAprobacion(List.of(1L))).thenReturn(List.of());
+
+        assertThrows(BadRequest.class, () -> aprobacionPrestamoService.solicitarAprobacion(1L));
+        verifyNoInteractions(ejecutorAprobaciones);
+        verify(aprobacionPrestamoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Con la cola llena la aprobación queda FALLIDA y se rechaza la solicitud")
+    void solicitarAprobacionColaLlena() {
+        when(prestamoService.getPrestamoEntityById(1L)).thenReturn(prestamo(1L));
+        when(prestamoRepository.reservarAprobacion(List.of(1L))).thenReturn(List.of(1L));
+        when(aprobacionPrestamoRepository.save(any(AprobacionPrestamo.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(ejecutorAprobaciones.enviar(any(Runnable.class))).thenReturn(false);
+
+        assertThrows(BadRequest.class, () -> aprobacionPrestamoService.solicitarAprobacion(1L));
+        verify(aprobacionPrestamoRepository, atLeastOnce()).save(argThat(a -> a.getEstado() == EstadoAprobacion.FALLIDA));
+        verify(prestamoRepository).liberarAprobacion(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("La saga ejecuta desembolso, saldo y confirmación y termina COMPLETADA")
+    void procesarExito() {
+        AprobacionPrestamo aprobacion = aprobacionGuardada();
+        DatosAprobacion datos = datos();
+        when(prestamoService.validarAprobacion(1L)).thenReturn(datos);
+        when(prestamoService.registrarDesembolso(eq(datos.prestamo()), eq(datos.cuenta()), any()))
+                .thenReturn(TransaccionResponse.builder().id(99L).build());
+
+        aprobacionPrestamoService.procesar(7L);
+
+        InOrder orden = inOrder(prestamoService);
+        orden.verify(prestamoService).registrarDesembolso(eq(datos.prestamo()), eq(datos.cuenta()), any());
+        orden.verify(prestamoService).acreditarSaldo(10L, new BigDecimal("5000"));
+        orden.verify(prestamoService).confirmarAprobacion(eq(datos), any());
+        verify(prestamoService, never()).revertirDesembolso(any(), any());
+        assertEquals(EstadoAprobacion.COMPLETADA, aprobacion.getEstado());
+        assertEquals("CONFIRMACION", aprobacion.getPaso());
+        assertEquals(99L, aprobacion.getTransaccionDesembolsoId());
+    }
+
+    @Test
+    @DisplayName("Si falla la validación la aprobación queda FALLIDA sin desembolso")
+    void procesarValidacionFallida() {
+        AprobacionPrestamo aprobacion = aprobacionGuardada();
+        when(prestamoService.validarAprobacion(1L)).thenThrow(new BadRequest("El cliente no puede tener más de 3 préstamos activos."));
+
+        aprobacionPrestamoService.procesar(7L);
+
+        verify(prestamoService, never()).registrarDesembolso(any(), any(), any());
+        assertEquals(EstadoAprobacion.FALLIDA, aprobacion.getEstado());
+        assertEquals("El cliente no puede tener más de 3 préstamos activos.", aprobacion.getMensaje());
+    }
+
+    @Test
+    @DisplayName("Si falla la confirmación se revierten saldo y desembolso en orden inverso")
+    void procesarCompensado() {
+        AprobacionPrestamo aprobacion = aprobacionGuardada();
+        DatosAprobacion datos = datos();
+        when(prestamoService.validarAprobacion(1L)).thenReturn(datos);
+        when(prestamoService.confirmarAprobacion(eq(datos), any())).thenThrow(new RuntimeException("error de base de datos"));
+
+        aprobacionPrestamoService.procesar(7L);
+
+        InOrder orden = inOrder(prestamoService);
+        orden.verify(prestamoService).revertirSaldo(10L, new BigDecimal("5000"));
+        orden.verify(prestamoService).revertirDesembolso(datos.prestamo(), datos.cuenta());
+        assertEquals(EstadoAprobacion.COMPENSADA, aprobacion.getEstado());
+        assertEquals("error de base de datos", aprobacion.getMensaje());
+        verify(prestamoRepository).liberarAprobacion(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Si falla el abono solo se revierte el desembolso")
+    void procesarFallaSaldo() {
+        AprobacionPrestamo aprobacion = aprobacionGuardada();
+        DatosAprobacion datos = datos();
+        when(prestamoService.validarAprobacion(1L)).thenReturn(datos);
+        doThrow(new RuntimeException("cuentas no disponible")).when(prestamoService).acreditarSaldo(any(), any());
+
+        aprobacionPrestamoService.procesar(7L);
+
+        verify(prestamoService, never()).revertirSaldo(any(), any());
+        verify(prestamoService).revertirDesembolso(datos.prestamo(), datos.cuenta());
+        assertEquals(EstadoAprobacion.COMPENSADA, aprobacion.getEstado());
+    }
+
+    @Test
+    @DisplayName("Una compensación fallida deja la aprobación en ERROR_COMPENSACION")
+    void procesarErrorCompensacion() {
+        AprobacionPrestamo aprobacion = aprobacionGuardada();
+        DatosAprobacion datos = datos();
+        when(prestamoService.validarAprobacion(1L)).thenReturn(datos);
+        when(prestamoService.confirmarAprobacion(eq(datos), any())).thenThrow(new RuntimeException("error de base de datos"));
+        doThrow(new RuntimeException("cuentas no disponible")).when(prestamoService).revertirSaldo(any(), any());
+
+        aprobacionPrestamoService.procesar(7L);
+
+        verify(prestamoService).revertirDesembolso(datos.prestamo(), datos.cuenta());
+        assertEquals(EstadoAprobacion.ERROR_COMPENSACION, aprobacion.getEstado());
+        assertTrue(aprobacion.getMensaje().contains("cuentas no disponible"));
+    }
+
+    @Test
+    @DisplayName("Si falla registrar COMPLETADA no se compensa una aprobación ya confirmada")
+    void procesarTerminarFallido() {
+        AprobacionPrestamo aprobacion = aprobacionGuardada();
+        DatosAprobacion datos = datos();
+        when(prestamoService.validarAprobacion(1L)).thenReturn(datos);
+        when(aprobacionPrestamoRepository.save(any(AprobacionPrestamo.class))).thenAnswer(inv -> {
+            AprobacionPrestamo guardada = inv.getArgument(0);
+            if (guardada.getEstado() == EstadoAprobacion.COMPLETADA) {
+                throw new RuntimeException("conexión perdida");
+            }
+            return guardada;
+        });
+
+        aprobacionPrestamoService.procesar(7L);
+
+        verify(prestamoService).confirmarAprobacion(eq(datos), any());
+        verify(prestamoService, never()).revertirSaldo(any(), any());
+        verify(prestamoService, never()).revertirDesembolso(any(), any());
+        verify(prestamoRepository, never()).liberarAprobacion(any());
+    }
+
+    @Test
+    @DisplayName("Una aprobación que el barrido ya cerró no se procesa")
+    void procesarYaCerrada() {
+        AprobacionPrestamo aprobacion = aprobacionGuardada();
+        aprobacion.setEstado(EstadoAprobacion.FALLIDA);
+
+        aprobacionPrestamoService.procesar(7L);
+
+        verifyNoInteractions(prestamoService);
+        verify(aprobacionPrestamoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("El barrido cierra las sagas interrumpidas según el paso y libera sus reservas")
+    void recuperarInterrumpidas() {
+        AprobacionPrestamo validacion = AprobacionPrestamo.builder().id(1L).prestamoId(11L)
+                .estado(EstadoAprobacion.EN_PROCESO).paso("VALIDACION").build();
+        AprobacionPrestamo confirmada = AprobacionPrestamo.builder().id(2L).prestamoId(12L)
+                .estado(EstadoAprobacion.EN_PROCESO).paso("CONFIRMACION").build();
+        AprobacionPrestamo desembolso = AprobacionPrestamo.builder().id(3L).prestamoId(13L)
+                .estado(EstadoAprobacion.EN_PROCESO).paso("DESEMBOLSO").build();
+        when(aprobacionPrestamoRepository.findByEstadoInAndFechaActualizacionBefore(any(), any()))
+                .thenReturn(List.of(validacion, confirmada, desembolso));
+        when(prestamoRepository.findById(12L)).thenReturn(Optional.of(prestamo(2L)));
+        when(prestamoRepository.findById(13L)).thenReturn(Optional.of(prestamo(1L)));
+
+        aprobacionPrestamoService.recuperarInterrumpidas();
+
+        assertEquals(EstadoAprobacion.FALLIDA, validacion.getEstado());
+        assertEquals(EstadoAprobacion.COMPLETADA, confirmada.getEstado());
+        assertEquals(EstadoAprobacion.ERROR_COMPENSACION, desembolso.getEstado());
+        assertTrue(desembolso.getMensaje().contains("DESEMBOLSO"));
+        verify(prestamoRepository).liberarAprobacion(List.of(11L));
+        verify(prestamoRepository).liberarAprobacion(List.of(13L));
+        verify(prestamoRepository).liberarReservasVencidas(any(Instant.class));
+        verifyNoInteractions(prestamoService);
+    }
+}
@@ -0,0 +1,65 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.dto.ResultadoBarridoResponse;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.LoteAtrasadas;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BarridoCuotasServiceImplTest {
+    @Mock
+    private CuotaRepository cuotaRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BarridoCuotasServiceImpl barridoCuotasService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        barridoCuotasService = new BarridoCuotasServiceImpl(cuotaRepository, meterRegistry, 2);
+    }
+
+    @Test
+    @DisplayName("Avanza el cursor lote a lote hasta que no quedan cuotas vencidas")
+    void marcarAtrasadasPorLotes() {
+        LocalDate hoy = LocalDate.of(2025, 6, 1);
+        LocalDate enero = LocalDate.of(2025, 1, 10);
+        LocalDate marzo = LocalDate.of(2025, 3, 10);
+        when(cuotaRepository.marcarAtrasadas(hoy, null, null, 2)).thenReturn(new LoteAtrasadas(2, enero, 8L));
+        when(cuotaRepository.marcarAtrasadas(hoy, enero, 8L, 2)).thenReturn(new LoteAtrasadas(1, marzo, 15L));
+        when(cuotaRepository.marcarAtrasadas(hoy, marzo, 15L, 2)).thenReturn(new LoteAtrasadas(0, null, null));
+
+        ResultadoBarridoResponse resultado = barridoCuotasService.marcarAtrasadas(hoy);
+
+        assertEquals(3, resultado.filas());
+        assertEquals(2, resultado.lotes());
+        verify(cuotaRepository, times(3)).marcarAtrasadas(eq(hoy), any(), any(), eq(2));
+        assertEquals(3.0, meterRegistry.get("prestamos.barrido.atrasadas.filas").counter().count());
+        assertEquals(1, meterRegistry.get("prestamos.barrido.atrasadas.duracion").timer().count());
+    }
+
+    @Test
+    @DisplayName("Sin cuotas vencidas ejecuta una sola consulta")
+    void marcarAtrasadasSinVencidas() {
+        LocalDate hoy = LocalDate.of(2025, 6, 1);
+        when(cuotaRepository.marcarAtrasadas(hoy, null, null, 2)).thenReturn(new LoteAtrasadas(0, null, null));
+
+        ResultadoBarridoResponse resultado = barridoCuotasService.marcarAtrasadas(hoy);
+
+        assertEquals(0, resultado.filas());
+        assertEquals(0, resultado.lotes());
+        verify(cuotaRepository, times(1)).marcarAtrasadas(any(), any(), any(), anyInt());
+        assertEquals(0.0, meterRegistry.get("prestamos.barrido.atrasadas.filas_por_segundo").gauge().value());
+    }
+}
@@ -0,0 +1,167 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.TransaccionRequest;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.Abono;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaDebito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CobroCuotasServiceImplTest {
+    private static final LocalDate HOY = LocalDate.of(2025, 6, 1);
+
+    @Mock
+    private CuotaRepository cuotaRepository;
+    @Mock
+    private CuentaClient cuentaClient;
+    @Mock
+    private TransaccionClient transaccionClient;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private AnaliticaCarteraService analiticaCarteraService;
+    @Mock
+    private EvaluacionCreditoService evaluacionCreditoService;
+    @Mock
+    private MoraCarteraService moraCarteraService;
+    @Mock
+    private ResumenClienteService resumenClienteService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CobroCuotasServiceImpl cobroCuotasService;
+
+    private final List<CuotaDebito> cuotas = List.of(
+            new CuotaDebito(1L, 10L, new BigDecimal("100.00"), HOY.minusMonths(1)),
+            new CuotaDebito(2L, 10L, new BigDecimal("120.50"), HOY));
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cobroCuotasService = new CobroCuotasServiceImpl(cuotaRepository, cuentaClient, transaccionClient,
+                transactionManager, analiticaCarteraService, evaluacionCreditoService,
+                moraCarteraService, resumenClienteService, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Un débito por el total y una transacción por cuota en un solo lote")
+    void cobrarCuotas() {
+        when(cuotaRepository.marcarPagadas(cuotas)).thenReturn(2);
+
+        assertTrue(cobroCuotasService.cobrar(10L, cuotas, "Pago cuota id:", HOY));
+
+        verify(cuentaClient).ajustarSaldo(10L, new BigDecimal("-220.50"));
+        verify(evaluacionCreditoService).invalidar(10L);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransaccionRequest>> transacciones = ArgumentCaptor.forClass(List.class);
+        verify(transaccionClient).crearTransacciones(transacciones.capture());
+        assertEquals(2, transacciones.getValue().size());
+        assertEquals("Pago cuota id:2", transacciones.getValue().get(1).referencia());
+        assertEquals(3L, transacciones.getValue().get(0).tipoTransaccionId());
+        verify(transactionManager).commit(any());
+        verify(analiticaCarteraService).registrarPagos(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Un fallo al actualizar los agregados de cartera no revierte un cobro hecho")
+    void fallaAgregadosCartera() {
+        when(cuotaRepository.marcarPagadas(cuotas)).thenReturn(2);
+        doThrow(new RuntimeException("sin conexión")).when(analiticaCarteraService).registrarPagos(any());
+
+        assertTrue(cobroCuotasService.cobrar(10L, cuotas, "Pago cuota id:", HOY));
+
+        verify(cuotaRepository, never()).liberarCuotas(any(), any());
+        assertEquals(1.0, meterRegistry.counter("prestamos.cartera.incrementos_fallidos").count());
+    }
+
+    @Test
+    @DisplayName("Si otra operación pagó una cuota, revierte la reserva y no debita")
+    void conflictoAlReservarCuotas() {
+        SimpleTransactionStatus transaccion = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transaccion);
+        when(cuotaRepository.marcarPagadas(cuotas)).thenReturn(1);
+
+        assertFalse(cobroCuotasService.cobrar(10L, cuotas, "Pago cuota id:", HOY));
+
+        assertTrue(transaccion.isRollbackOnly());
+        verify(cuentaClient, never()).ajustarSaldo(any(), any());
+        verify(transaccionClient, never()).crearTransacciones(anyList());
+    }
+
+    @Test
+    @DisplayName("Si el débito falla se liberan las cuotas")
+    void liberarCuotasSiFallaDebito() {
+        when(cuotaRepository.marcarPagadas(cuotas)).thenReturn(2);
+        when(cuentaClient.ajustarSaldo(10L, new BigDecimal("-220.50"))).thenThrow(new BadRequest("Saldo insuficiente"));
+
+        assertThrows(BadRequest.class, () -> cobroCuotasService.cobrar(10L, cuotas, "Pago cuota id:", HOY));
+
+        verify(cuotaRepository).liberarCuotas(cuotas, HOY);
+        verify(transaccionClient, never()).crearTransacciones(anyList());
+    }
+
+    @Test
+    @DisplayName("Si falla el lote de transacciones se devuelve el débito y se liberan las cuotas")
+    void compensarSiFallanTransacciones() {
+        when(cuotaRepository.marcarPagadas(cuotas)).thenReturn(2);
+        when(transaccionClient.crearTransacciones(anyList())).thenThrow(new BadRequest("Servicio no disponible"));
+        when(cuotaRepository.liberarCuotas(cuotas, HOY)).thenThrow(new IllegalStateException("Sin conexión"));
+
+        assertThrows(BadRequest.class, () -> cobroCuotasService.cobrar(10L, cuotas, "Pago cuota id:", HOY));
+
+        verify(cuentaClient).ajustarSaldo(10L, new BigDecimal("-220.50"));
+        verify(cuentaClient).ajustarSaldo(10L, new BigDecimal("220.50"));
+        assertEquals(1.0, meterRegistry.get("prestamos.cobro.compensaciones_fallidas").counter().count());
+    }
+
+    @Test
+    @DisplayName("Abonos: un débito por lo aplicado y solo las cuotas liquidadas cuentan como pagadas")
+    void abonarCuotas() {
+        List<Abono> abonos = List.of(
+                new Abono(1L, new BigDecimal("30.00"), new BigDecimal("70.00"), true),
+                new Abono(2L, BigDecimal.ZERO, new BigDecimal("25.00"), false));
+        when(cuotaRepository.registrarAbonos(abonos)).thenReturn(2);
+
+        assertTrue(cobroCuotasService.abonar(10L, abonos, "Abono cuota id:", HOY));
+
+        verify(cuentaClient).ajustarSaldo(10L, new BigDecimal("-95.00"));
+        verify(transaccionClient).crearTransacciones(argThat(transacciones -> transacciones.size() == 2
+                && transacciones.get(1).monto().equals(new BigDecimal("25.00"))
+                && transacciones.get(1).referencia().equals("Abono cuota id:2")));
+        verify(analiticaCarteraService).registrarPagos(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Abonos: si el débito falla se revierten los abonos")
+    void revertirAbonosSiFallaDebito() {
+        List<Abono> abonos = List.of(new Abono(1L, BigDecimal.ZERO, new BigDecimal("100.00"), true));
+        when(cuotaRepository.registrarAbonos(abonos)).thenReturn(1);
+        when(cuentaClient.ajustarSaldo(10L, new BigDecimal("-100.00"))).thenThrow(new BadRequest("Saldo insuficiente"));
+
+        assertThrows(BadRequest.class, () -> cobroCuotasService.abonar(10L, abonos, "Abono cuota id:", HOY));
+
+        verify(cuotaRepository).revertirAbonos(abonos, HOY);
+        verify(analiticaCarteraService, never()).registrarPagos(any());
+    }
+}
@@ -0,0 +1,316 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest;
+import org.nttdata.com.servicioprestamos.dto.PrepagoRequest.Modalidad;
+import org.nttdata.com.servicioprestamos.dto.PrepagoResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.models.Cuota;
+import org.nttdata.com.servicioprestamos.models.EstadoCuota;
+import org.nttdata.com.servicioprestamos.models.EstadoPrestamo;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaRecalculada;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CronogramaServiceImplTest {
+    private static final LocalDate HOY = LocalDate.now();
+
+    @Mock
+    private CuotaRepository cuotaRepository;
+    @Mock
+    private PrestamoRepository prestamoRepository;
+    @Mock
+    private CuentaClient cuentaClient;
+    @Mock
+    private TransaccionClient transaccionClient;
+    @Mock
+    private EvaluacionCreditoService evaluacionCreditoService;
+    @Mock
+    private MoraCarteraService moraCarteraService;
+    @Mock
+    private ResumenClienteService resumenClienteService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CronogramaServiceImpl cronogramaService;
+
+    @BeforeEach
+    void setUp() {
+        cronogramaService = new CronogramaServiceImpl(cuotaRepository, prestamoRepository,
+                new AmortizacionServiceImpl(new SimpleMeterRegistry(), 100), cuentaClient, transaccionClient,
+                evaluacionCreditoService, moraCarteraService, resumenClienteService, transactionManager, new SimpleMeterRegistry());
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> new SimpleTransactionStatus());
+    }
+
+    // PLANO 1200 al 12% en 6 cuotas: 224.00 cada una, 200.00 de capital
+    private static Prestamo prestamo(LocalDate desembolso, int plazo, boolean virtual) {
+        return Prestamo.builder()
+                .id(7L)
+                .cuentaId(10L)
+                .monto(new BigDecimal("1200.00"))
+                .plazoMeses(plazo)
+                .tasaInteres(new BigDecimal("0.12"))
+                .metodoAmortizacion(MetodoAmortizacion.PLANO)
+                .fechaDesembolso(Date.valueOf(desembolso))
+                .estadoPrestamo(EstadoPrestamo.builder().id(2L).build())
+                .cronogramaVirtual(virtual)
+                .build();
+    }
+
+    private static Cuota cuota(Prestamo prestamo, int numero, long estado, String monto, String capital) {
+        return Cuota.builder()
+                .id((long) numero)
+                .prestamo(prestamo)
+                .numero(numero)
+                .fechaVencimiento(Date.valueOf(((Date) prestamo.getFechaDesembolso()).toLocalDate().plusMonths(numero)))
+                .monto(new BigDecimal(monto))
+                .capital(capital == null ? null : new BigDecimal(capital))
+                .montoPagado(BigDecimal.ZERO)
+                .estadoCuota(EstadoCuota.builder().id(estado).build())
+                .build();
+    }
+
+    // Cuota 1 pagada ayer; la 2 es la vigente
+    private List<Cuota> cuotasAlDia(Prestamo prestamo) {
+        List<Cuota> cuotas = new ArrayList<>();
+        cuotas.add(cuota(prestamo, 1, 2L, "224.00", "200.00"));
+        for (int numero = 2; numero <= 6; numero++) {
+            cuotas.add(cuota(prestamo, numero, 1L, "224.00", null));
+        }
+        return cuotas;
+    }
+
+    @Test
+    @DisplayName("Recalcular: menos plazo reparte el capital que falta en las cuotas sin pagar y borra las que sobran")
+    @SuppressWarnings("unchecked")
+    void recalcularMenosPlazo() {
+        Prestamo anterior = prestamo(HOY.minusMonths(1).minusDays(1), 6, false);
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(cuotasAlDia(anterior));
+        when(cuotaRepository.actualizarCronograma(anyList(), eq(HOY))).thenReturn(3);
+        when(cuotaRepository.eliminarNoPagadas(List.of(5L, 6L))).thenReturn(2);
+        ArgumentCaptor<List<CuotaRecalculada>> cambios = ArgumentCaptor.forClass(List.class);
+
+        // La cuota 1 devolvió 200.00: quedan 1000.00 en 3 cuotas al 9% (3/4 del 12%), 363.33 con 333.33 de capital
+        int escritas = cronogramaService.recalcular(prestamo(HOY.minusMonths(1).minusDays(1), 4, false), HOY);
+
+        assertEquals(5, escritas);
+        verify(cuotaRepository).actualizarCronograma(cambios.capture(), eq(HOY));
+        assertEquals(List.of(2L, 3L, 4L), cambios.getValue().stream().map(CuotaRecalculada::id).toList());
+        assertEquals(new BigDecimal("363.33"), cambios.getValue().getFirst().monto());
+        assertEquals(new BigDecimal("333.33"), cambios.getValue().getFirst().capital());
+        assertEquals(new BigDecimal("1000.00"), cambios.getValue().stream().map(CuotaRecalculada::capital)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        verify(cuotaRepository, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Recalcular: las cuotas iguales no se escriben y las que faltan se insertan en un lote")
+    void recalcularSoloDiferencias() {
+        Prestamo prestamo = prestamo(HOY.minusDays(10), 3, false);
+        prestamo.setMonto(new BigDecimal("600.00"));
+        // 600 al 12% en 3 cuotas: 224.00 con 200.00 de capital; la tercera no estaba guardada
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(List.of(
+                cuota(prestamo, 1, 1L, "224.00", "200.00"),
+                cuota(prestamo, 2, 1L, "224.00", "200.00")));
+
+        assertEquals(1, cronogramaService.recalcular(prestamo, HOY));
+
+        verify(cuotaRepository).saveAllAndFlush(argThat((List<Cuota> nuevas) -> nuevas.size() == 1
+                && nuevas.getFirst().getNumero() == 3 && nuevas.getFirst().getId() == null));
+        verify(cuotaRepository, never()).actualizarCronograma(any(), any());
+        verify(cuotaRepository, never()).eliminarNoPagadas(any());
+    }
+
+    @Test
+    @DisplayName("Recalcular: un préstamo sin aprobar no tiene cronograma que ajustar")
+    void recalcularPrestamoPendiente() {
+        Prestamo prestamo = prestamo(HOY, 6, false);
+        prestamo.setEstadoPrestamo(EstadoPrestamo.builder().id(1L).build());
+
+        assertEquals(0, cronogramaService.recalcular(prestamo, HOY));
+        verifyNoInteractions(cuotaRepository);
+    }
+
+    @Test
+    @DisplayName("Prepago reduciendo la cuota: mismas cuotas futuras sobre el capital restante y un solo débito")
+    @SuppressWarnings("unchecked")
+    void prepagarReduciendoCuota() {
+        Prestamo prestamo = prestamo(HOY.minusMonths(1).minusDays(1), 6, false);
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(cuotasAlDia(prestamo));
+        when(cuentaClient.getCuentaById(10L)).thenReturn(CuentaResponse.builder().id(10L).saldo(new BigDecimal("1000")).build());
+        when(cuotaRepository.actualizarCronograma(anyList(), eq(HOY))).thenReturn(4);
+        when(prestamoRepository.registrarPrepago(7L, BigDecimal.ZERO, 0, new BigDecimal("400.00"), 0)).thenReturn(true);
+        ArgumentCaptor<List<CuotaRecalculada>> cambios = ArgumentCaptor.forClass(List.class);
+
+        PrepagoResponse result = cronogramaService.prepagar(7L,
+                new PrepagoRequest(10L, new BigDecimal("400.00"), Modalidad.REDUCIR_CUOTA));
+
+        // Capital de las cuotas 3 a 6: 800.00; quedan 400.00 en 4 cuotas al 8% (parte proporcional del 12%)
+        assertAll(
+                () -> assertEquals(new BigDecimal("800.00"), result.capitalAnterior()),
+                () -> assertEquals(new BigDecimal("400.00"), result.capitalPendiente()),
+                () -> assertEquals(new BigDecimal("108.00"), result.cuotaNueva()),
+                () -> assertEquals(4, result.cuotasFuturas()),
+                () -> assertEquals(0, result.cuotasEliminadas())
+        );
+        verify(cuotaRepository).actualizarCronograma(cambios.capture(), eq(HOY));
+        assertEquals(List.of(3L, 4L, 5L, 6L), cambios.getValue().stream().map(CuotaRecalculada::id).toList());
+        verify(cuentaClient).ajustarSaldo(10L, new BigDecimal("-400.00"));
+        verify(transaccionClient).crearTransacciones(argThat(transacciones -> transacciones.size() == 1
+                && transacciones.getFirst().referencia().equals("Prepago préstamo id:7")));
+        verify(evaluacionCreditoService).invalidar(10L);
+        verify(prestamoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Prepago reduciendo el plazo en un préstamo virtual: se guardan sus cuotas y deja de ser virtual")
+    void prepagarReduciendoPlazoVirtual() {
+        Prestamo prestamo = prestamo(HOY.minusMonths(1).minusDays(1), 6, true);
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(List.of(cuota(prestamo, 1, 2L, "224.00", "200.00")));
+        when(cuentaClient.getCuentaById(10L)).thenReturn(CuentaResponse.builder().id(10L).saldo(new BigDecimal("1000")).build());
+        // El UPDATE del prepago también deja cronograma_virtual en false
+        when(prestamoRepository.registrarPrepago(7L, BigDecimal.ZERO, 0, new BigDecimal("400.00"), 2)).thenReturn(true);
+
+        PrepagoResponse result = cronogramaService.prepagar(7L,
+                new PrepagoRequest(10L, new BigDecimal("400.00"), Modalidad.REDUCIR_PLAZO));
+
+        // 400.00 en 2 cuotas al 4%: 208.00, no más que la cuota actual de 224.00
+        assertAll(
+                () -> assertEquals(new BigDecimal("208.00"), result.cuotaNueva()),
+                () -> assertEquals(2, result.cuotasFuturas()),
+                () -> assertEquals(2, result.cuotasEliminadas())
+        );
+        // La vigente y las dos futuras que quedan; las cuotas 5 y 6 no llegan a guardarse
+        verify(cuotaRepository).saveAllAndFlush(argThat((List<Cuota> nuevas) ->
+                nuevas.stream().map(Cuota::getNumero).toList().equals(List.of(2, 3, 4))
+                        && nuevas.get(1).getMonto().equals(new BigDecimal("208.00"))));
+        verify(cuotaRepository, never()).actualizarCronograma(any(), any());
+        verify(prestamoRepository).registrarPrepago(7L, BigDecimal.ZERO, 0, new BigDecimal("400.00"), 2);
+    }
+
+    @Test
+    @DisplayName("Recalcular tras un prepago reduciendo el plazo: no vuelven las cuotas quitadas ni el capital prepagado")
+    @SuppressWarnings("unchecked")
+    void recalcularDespuesDePrepagar() {
+        Prestamo prestamo = prestamo(HOY.minusMonths(1).minusDays(1), 6, false);
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(cuotasAlDia(prestamo));
+        when(cuentaClient.getCuentaById(10L)).thenReturn(CuentaResponse.builder().id(10L).saldo(new BigDecimal("1000")).build());
+        when(cuotaRepository.actualizarCronograma(anyList(), eq(HOY))).thenReturn(2, 3);
+        when(cuotaRepository.eliminarNoPagadas(List.of(5L, 6L))).thenReturn(2);
+        when(prestamoRepository.registrarPrepago(7L, BigDecimal.ZERO, 0, new BigDecimal("400.00"), 2)).thenReturn(true);
+
+        cronogramaService.prepagar(7L, new PrepagoRequest(10L, new BigDecimal("400.00"), Modalidad.REDUCIR_PLAZO));
+
+        verify(prestamoRepository).registrarPrepago(7L, BigDecimal.ZERO, 0, new BigDecimal("400.00"), 2);
+        // El préstamo tal como se vuelve a leer después del UPDATE
+        prestamo.setCapitalPrepagado(new BigDecimal("400.00"));
+        prestamo.setCuotasPrepagadas(2);
+        // Cuotas guardadas tras el prepago: la 1 pagada, la 2 vigente y las 3 y 4 recalculadas
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(List.of(
+                cuota(prestamo, 1, 2L, "224.00", "200.00"),
+                cuota(prestamo, 2, 1L, "224.00", "200.00"),
+                cuota(prestamo, 3, 1L, "208.00", "200.00"),
+                cuota(prestamo, 4, 1L, "208.00", "200.00")));
+        clearInvocations(cuotaRepository);
+        ArgumentCaptor<List<CuotaRecalculada>> cambios = ArgumentCaptor.forClass(List.class);
+
+        // Una actualización del préstamo, con el mismo monto y plazo contratados
+        cronogramaService.recalcular(prestamo, HOY);
+
+        // 1200 - 200 pagados - 400 prepagados = 600.00 en las cuotas 2 a 4 al 6% (3/6 del 12%): 212.00 cada una
+        verify(cuotaRepository).actualizarCronograma(cambios.capture(), eq(HOY));
+        assertEquals(List.of(2L, 3L, 4L), cambios.getValue().stream().map(CuotaRecalculada::id).toList());
+        assertTrue(cambios.getValue().stream().allMatch(cuota -> cuota.monto().equals(new BigDecimal("212.00"))));
+        assertEquals(new BigDecimal("600.00"), cambios.getValue().stream().map(CuotaRecalculada::capital)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        verify(cuotaRepository, never()).saveAllAndFlush(any());
+        verify(cuotaRepository, never()).eliminarNoPagadas(any());
+    }
+
+    @Test
+    @DisplayName("Prepago con cuotas atrasadas")
+    void prepagarConAtrasadas() {
+        Prestamo prestamo = prestamo(HOY.minusMonths(2).minusDays(1), 6, false);
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(cuotasAlDia(prestamo));
+
+        assertThrows(BadRequest.class, () -> cronogramaService.prepagar(7L,
+                new PrepagoRequest(10L, new BigDecimal("100.00"), Modalidad.REDUCIR_PLAZO)));
+        verifyNoInteractions(cuentaClient);
+    }
+
+    @Test
+    @DisplayName("Prepago: si el préstamo cambió de estado o recibió otro prepago se deshace el cronograma y se devuelve el débito")
+    void prepagarCompensaDebito() {
+        Prestamo prestamo = prestamo(HOY.minusMonths(1).minusDays(1), 6, false);
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(cuotasAlDia(prestamo));
+        when(cuentaClient.getCuentaById(10L)).thenReturn(CuentaResponse.builder().id(10L).saldo(new BigDecimal("1000")).build());
+        when(cuotaRepository.actualizarCronograma(anyList(), eq(HOY))).thenReturn(4);
+        when(prestamoRepository.registrarPrepago(any(), any(), anyInt(), any(), anyInt())).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> cronogramaService.prepagar(7L,
+                new PrepagoRequest(10L, new BigDecimal("400.00"), Modalidad.REDUCIR_CUOTA)));
+
+        verify(cuentaClient).ajustarSaldo(10L, new BigDecimal("400.00"));
+        verify(transactionManager).rollback(any());
+        verify(evaluacionCreditoService).invalidar(10L);
+        verifyNoInteractions(transaccionClient);
+    }
+
+    @Test
+    @DisplayName("Prepago: la transacción se registra después del commit y su fallo no revierte el prepago")
+    void prepagarTransaccionDespuesDelCommit() {
+        Prestamo prestamo = prestamo(HOY.minusMonths(1).minusDays(1), 6, false);
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(cuotasAlDia(prestamo));
+        when(cuentaClient.getCuentaById(10L)).thenReturn(CuentaResponse.builder().id(10L).saldo(new BigDecimal("1000")).build());
+        when(cuotaRepository.actualizarCronograma(anyList(), eq(HOY))).thenReturn(4);
+        when(prestamoRepository.registrarPrepago(any(), any(), anyInt(), any(), anyInt())).thenReturn(true);
+        when(transaccionClient.crearTransacciones(anyList())).thenThrow(new IllegalStateException("servicio caído"));
+
+        PrepagoResponse result = cronogramaService.prepagar(7L,
+                new PrepagoRequest(10L, new BigDecimal("400.00"), Modalidad.REDUCIR_CUOTA));
+
+        assertEquals(new BigDecimal("400.00"), result.montoPrepagado());
+        InOrder orden = inOrder(transactionManager, transaccionClient);
+        orden.verify(transactionManager).commit(any());
+        orden.verify(transaccionClient).crearTransacciones(anyList());
+        verify(transactionManager, never()).rollback(any());
+        verify(cuentaClient, never()).ajustarSaldo(10L, new BigDecimal("400.00"));
+        verify(moraCarteraService).actualizar(List.of(7L));
+    }
+}
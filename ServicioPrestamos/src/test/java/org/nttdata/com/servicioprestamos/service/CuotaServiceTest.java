@@ -1,34 +1,51 @@
 package org.nttdata.com.servicioprestamos.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.nttdata.com.servicioprestamos.client.CuentaClient;
-import org.nttdata.com.servicioprestamos.client.TransaccionClient;
 import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
 import org.nttdata.com.servicioprestamos.client.dto.EstadoCuentaResponse;
 import org.nttdata.com.servicioprestamos.client.dto.TipoCuentaResponse;
-import org.nttdata.com.servicioprestamos.client.dto.TransaccionRequest;
 import org.nttdata.com.servicioprestamos.dto.*;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
 import org.nttdata.com.servicioprestamos.exception.ResourceNotFound;
 import org.nttdata.com.servicioprestamos.models.Cuota;
 import org.nttdata.com.servicioprestamos.models.EstadoCuota;
 import org.nttdata.com.servicioprestamos.models.EstadoPrestamo;
 import org.nttdata.com.servicioprestamos.models.Prestamo;
 import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.Abono;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaDebito;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.util.AsignacionPago.Tramo;
 import org.nttdata.com.servicioprestamos.util.CuotaMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,9 +57,19 @@ public class CuotaServiceTest {
     @Mock
     private CuentaClient cuentaClient;
     @Mock
-    private TransaccionClient transaccionClient;
-    @Mock
     private CuotaRepository cuotaRepository;
+    @Mock
+    private CobroCuotasService cobroCuotasService;
+    @Mock
+    private PrestamoRepository prestamoRepository;
+    @Mock
+    private ResumenClienteService resumenClienteService;
+    @Mock
+    private MoraCarteraService moraCarteraService;
+    @Mock
+    private AnaliticaCarteraService analiticaCarteraService;
+    @Spy
+    private AmortizacionService amortizacionService = new AmortizacionServiceImpl(new SimpleMeterRegistry(), 100);
     @Test
     @DisplayName("Prueba de listar cuotas")
     void getAllCuotasTest() {
@@ -253,6 +280,52 @@ public class CuotaServiceTest {
         verify(cuotaMapper).toEntity(cuotaRequest);
         verify(cuotaRepository).save(cuota);
         verify(cuotaMapper).toDto(cuota);
+        verify(moraCarteraService).actualizar(List.of(1L));
+        verify(resumenClienteService).actualizar(List.of(1L));
+        verifyNoInteractions(analiticaCarteraService);
+    }
+    @Test
+    @DisplayName("prueba de crear cuota pagada: suma lo cobrado a la cartera")
+    void saveCuotaPagadaTest() {
+        CuotaRequest cuotaRequest = CuotaRequest.builder().prestamoId(1L).numero(1).monto(new BigDecimal("100.00"))
+                .fechaVencimiento(new Date()).estadoCuotaId(2L).build();
+        Cuota cuota = Cuota.builder().numero(1).monto(new BigDecimal("100.00"))
+                .estadoCuota(EstadoCuota.builder().id(2L).build())
+                .prestamo(Prestamo.builder().id(1L).build())
+                .build();
+        Cuota guardada = Cuota.builder().id(7L).numero(1).monto(new BigDecimal("100.00"))
+                .estadoCuota(EstadoCuota.builder().id(2L).build())
+                .prestamo(Prestamo.builder().id(1L).build())
+                .build();
+        when(cuotaMapper.toEntity(cuotaRequest)).thenReturn(cuota);
+        when(cuotaRepository.save(cuota)).thenReturn(guardada);
+
+        cuotaService.saveCuota(cuotaRequest);
+
+        var orden = inOrder(cuotaRepository, analiticaCarteraService);
+        orden.verify(cuotaRepository).flush();
+        orden.verify(analiticaCarteraService).registrarPagos(List.of(7L));
+        verify(moraCarteraService).actualizar(List.of(1L));
+    }
+    @Test
+    @DisplayName("Prueba de guardar cronograma de cuotas en un solo saveAll")
+    void saveCuotasTest() {
+        List<CuotaRequest> cuotasRequest = List.of(
+                CuotaRequest.builder().prestamoId(1L).numero(1).monto(new BigDecimal("100.00"))
+                        .fechaVencimiento(new Date()).estadoCuotaId(1L).build(),
+                CuotaRequest.builder().prestamoId(1L).numero(2).monto(new BigDecimal("100.00"))
+                        .fechaVencimiento(new Date()).estadoCuotaId(1L).build()
+        );
+        List<Cuota> cuotas = List.of(
+                Cuota.builder().numero(1).monto(new BigDecimal("100.00")).build(),
+                Cuota.builder().numero(2).monto(new BigDecimal("100.00")).build()
+        );
+        when(cuotaMapper.toEntityList(cuotasRequest)).thenReturn(cuotas);
+
+        cuotaService.saveCuotas(cuotasRequest);
+
+        verify(cuotaRepository).saveAll(cuotas);
+        verify(cuotaRepository, never()).save(any(Cuota.class));
     }
     @Test
     @DisplayName("prueba de actualizar cuota")
@@ -344,6 +417,11 @@ public class CuotaServiceTest {
         verify(cuotaRepository).findById(cuotaId);
         verify(cuotaRepository).save(cuotaFound);
         verify(cuotaMapper).toDto(cuotaFound);
+        // Estaba PAGADA y deja de estarlo: sale de la cartera y no vuelve a entrar
+        verify(analiticaCarteraService).revertirPagos(List.of(cuotaId));
+        verify(analiticaCarteraService, never()).registrarPagos(anyList());
+        verify(moraCarteraService).actualizar(List.of(2L, 1L));
+        verify(resumenClienteService).actualizar(List.of(2L, 1L));
     }
     @Test
     @DisplayName("prueba de actualizar cuota ResourceNotFound")
@@ -390,6 +468,9 @@ public class CuotaServiceTest {
         cuotaService.deleteCuota(cuotaId);
         verify(cuotaRepository).findById(cuotaId);
         verify(cuotaRepository).delete(cuotaFound);
+        verify(moraCarteraService).actualizar(List.of(1L));
+        verify(resumenClienteService).actualizar(List.of(1L));
+        verifyNoInteractions(analiticaCarteraService);
     }
     @Test
     @DisplayName("prueba de eliminar cuota ResourceNotFound")
@@ -461,11 +542,9 @@ public class CuotaServiceTest {
                 .saldo(new BigDecimal("1000.00"))
                 .build();
 
-        when(transaccionClient.crearTransaccion(any(TransaccionRequest.class))).thenReturn(null);
         when(cuentaClient.getCuentaById(cuentaId)).thenReturn(cuentaResponse);
         when(cuotaRepository.findById(cuotaId)).thenReturn(Optional.of(cuota));
-
-        when(cuotaRepository.save(cuota)).thenReturn(cuota);
+        when(cobroCuotasService.cobrar(eq(cuentaId), anyList(), eq("Pago cuota id:"), any())).thenReturn(true);
         when(cuotaMapper.toDto(cuota)).thenReturn(cuotaResponse);
         CuotaResponse result = cuotaService.pagarCuota(cuotaId, cuentaId);
         assertAll(
@@ -476,10 +555,62 @@ public class CuotaServiceTest {
                 () -> assertEquals(1L, result.prestamo().id())
         );
         verify(cuotaRepository).findById(cuotaId);
-        verify(cuotaRepository).save(cuota);
+        // una sola consulta de cuenta; el débito es atómico y no se reescribe la entidad completa
+        verify(cuentaClient).getCuentaById(cuentaId);
+        verify(cuentaClient, never()).updateCuenta(any(), any());
+        verify(cuotaRepository, never()).save(any());
+        assertEquals(2L, cuota.getEstadoCuota().getId());
         verify(cuotaMapper).toDto(cuota);
     }
     @Test
+    @DisplayName("prueba de pagar cuota que otro pago concurrente ya cobró")
+    void pagarCuotaYaCobradaConcurrentementeTest() {
+        Long cuotaId = 1L;
+        Long cuentaId = 1L;
+        Cuota cuota = Cuota.builder()
+                .id(cuotaId)
+                .monto(new BigDecimal("100.00"))
+                .fechaVencimiento(new Date())
+                .estadoCuota(EstadoCuota.builder().id(1L).build())
+                .build();
+        when(cuotaRepository.findById(cuotaId)).thenReturn(Optional.of(cuota));
+        when(cuentaClient.getCuentaById(cuentaId)).thenReturn(CuentaResponse.builder()
+                .id(cuentaId)
+                .saldo(new BigDecimal("1000.00"))
+                .build());
+        when(cobroCuotasService.cobrar(eq(cuentaId), anyList(), eq("Pago cuota id:"), any())).thenReturn(false);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> cuotaService.pagarCuota(cuotaId, cuentaId));
+
+        assertEquals("La cuota ya fue pagada o abonada por otra operación", exception.getMessage());
+        verify(cuotaMapper, never()).toDto(any(Cuota.class));
+    }
+    @Test
+    @DisplayName("prueba de pagar cuota ATRASADA: se cobra su saldo pendiente")
+    void pagarCuotaAtrasadaTest() {
+        Long cuotaId = 1L;
+        Long cuentaId = 1L;
+        Cuota cuota = Cuota.builder()
+                .id(cuotaId)
+                .monto(new BigDecimal("100.00"))
+                .montoPagado(new BigDecimal("30.00"))
+                .fechaVencimiento(java.sql.Date.valueOf(LocalDate.now().minusDays(10)))
+                .estadoCuota(EstadoCuota.builder().id(3L).nombre("ATRASADA").build())
+                .build();
+        when(cuotaRepository.findById(cuotaId)).thenReturn(Optional.of(cuota));
+        when(cuentaClient.getCuentaById(cuentaId)).thenReturn(CuentaResponse.builder()
+                .id(cuentaId)
+                .saldo(new BigDecimal("1000.00"))
+                .build());
+        when(cobroCuotasService.cobrar(eq(cuentaId), anyList(), eq("Pago cuota id:"), any())).thenReturn(true);
+
+        cuotaService.pagarCuota(cuotaId, cuentaId);
+
+        verify(cobroCuotasService).cobrar(eq(cuentaId), argThat((List<CuotaDebito> cuotas) -> cuotas.size() == 1
+                && cuotas.getFirst().monto().compareTo(new BigDecimal("70.00")) == 0), eq("Pago cuota id:"), any());
+        assertEquals(2L, cuota.getEstadoCuota().getId());
+    }
+    @Test
     @DisplayName("prueba de pagar cuota con cuota no encontrada")
     void pagarCuotaNotFoundTest() {
         Long cuotaId = 1L;
@@ -517,7 +648,7 @@ public class CuotaServiceTest {
                 .build();
         when(cuotaRepository.findById(cuotaId)).thenReturn(Optional.of(cuota));
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> cuotaService.pagarCuota(cuotaId, cuentaId));
-        assertEquals("La cuota no se encuentra en estado PENDIENTE", exception.getMessage());
+        assertEquals("La cuota no se encuentra en estado PENDIENTE o ATRASADA", exception.getMessage());
         verify(cuotaRepository).findById(cuotaId);
     }
     @Test
@@ -657,21 +788,15 @@ public class CuotaServiceTest {
                 .estadoCuenta(EstadoCuentaResponse.builder().id(1L).nombre("ACTIVA").build())
                 .saldo(new BigDecimal("1000.00"))
                 .build();
-        TransaccionRequest transaccion = TransaccionRequest.builder()
-                .cuentaId(cuentaId)
-                .monto(cuota.getMonto())
-                .tipoTransaccionId(3L)
-                .referencia("Pago cuota id:" + cuotaId)
-                .fecha(new Date())
-                .build();
         when(cuotaRepository.findById(cuotaId)).thenReturn(Optional.of(cuota));
         when(cuentaClient.getCuentaById(cuentaId)).thenReturn(cuentaResponse);
-        when(transaccionClient.crearTransaccion(transaccion)).thenThrow(new IllegalStateException("Error al registrar transacción en cuenta"));
+        when(cobroCuotasService.cobrar(eq(cuentaId), anyList(), eq("Pago cuota id:"), any()))
+                .thenThrow(new IllegalStateException("Error al registrar transacción en cuenta"));
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> cuotaService.pagarCuota(cuotaId, cuentaId));
         assertTrue(exception.getMessage().contains("Error al registrar transacción en cuenta"));
         verify(cuotaRepository).findById(cuotaId);
         verify(cuentaClient).getCuentaById(cuentaId);
-        verify(transaccionClient).crearTransaccion(any(TransaccionRequest.class));
+        verify(cuotaRepository, never()).save(any());
     }
     @Test
     @DisplayName("prueba de obtener cuotas por préstamo ID")
@@ -750,4 +875,385 @@ public class CuotaServiceTest {
         verify(cuotaRepository).findByPrestamoId(prestamoId);
         verify(cuotaMapper).toDtoList(cuotas);
     }
+
+    private static Cuota cuotaParaPago(Long id, String monto, Long estadoId) {
+        return Cuota.builder()
+                .id(id)
+                .monto(new BigDecimal(monto))
+                .fechaVencimiento(new Date())
+                .estadoCuota(EstadoCuota.builder().id(estadoId).build())
+                .prestamo(Prestamo.builder().id(1L).cuentaId(1L).build())
+                .build();
+    }
+
+    @Test
+    @DisplayName("prueba de pagar varias cuotas con una sola consulta de cuenta y un solo cobro")
+    void pagarCuotasTestSuccess() {
+        Long cuentaId = 1L;
+        Cuota atrasada = cuotaParaPago(1L, "100.00", 3L);
+        Cuota pendiente = cuotaParaPago(2L, "100.00", 1L);
+        List<Cuota> cuotas = List.of(atrasada, pendiente);
+        when(cuotaRepository.buscarParaPago(List.of(1L, 2L))).thenReturn(cuotas);
+        when(cuentaClient.getCuentaById(cuentaId)).thenReturn(CuentaResponse.builder()
+                .id(cuentaId)
+                .saldo(new BigDecimal("500.00"))
+                .build());
+        when(cobroCuotasService.cobrar(eq(cuentaId), anyList(), eq("Pago cuota id:"), any())).thenReturn(true);
+        when(cuotaMapper.toDtoList(cuotas)).thenReturn(List.of(
+                CuotaResponse.builder().id(1L).build(),
+                CuotaResponse.builder().id(2L).build()));
+
+        List<CuotaResponse> result = cuotaService.pagarCuotas(PagoCuotasRequest.builder()
+                .cuentaId(cuentaId)
+                .cuotaIds(List.of(1L, 2L, 2L))
+                .build());
+
+        assertEquals(2, result.size());
+        assertEquals(2L, atrasada.getEstadoCuota().getId());
+        assertEquals(2L, pendiente.getEstadoCuota().getId());
+        verify(cuentaClient).getCuentaById(cuentaId);
+        verify(cobroCuotasService).cobrar(eq(cuentaId), eq(List.of(
+                new CuotaDebito(1L, cuentaId, new BigDecimal("100.00"), java.time.LocalDate.now()),
+                new CuotaDebito(2L, cuentaId, new BigDecimal("100.00"), java.time.LocalDate.now()))),
+                eq("Pago cuota id:"), any());
+        verify(cuentaClient, never()).updateCuenta(any(), any());
+    }
+
+    @Test
+    @DisplayName("prueba de pagar varias cuotas con una cuota inexistente")
+    void pagarCuotasNotFoundTest() {
+        when(cuotaRepository.buscarParaPago(List.of(1L, 9L))).thenReturn(List.of(cuotaParaPago(1L, "100.00", 1L)));
+
+        ResourceNotFound exception = assertThrows(ResourceNotFound.class, () -> cuotaService.pagarCuotas(
+                PagoCuotasRequest.builder().cuentaId(1L).cuotaIds(List.of(1L, 9L)).build()));
+
+        assertEquals("Cuotas no encontradas con id: [9]", exception.getMessage());
+        verify(cuentaClient, never()).getCuentaById(any());
+    }
+
+    @Test
+    @DisplayName("prueba de pagar varias cuotas con una cuota ya pagada")
+    void pagarCuotasYaPagadaTest() {
+        when(cuotaRepository.buscarParaPago(List.of(1L, 2L))).thenReturn(List.of(
+                cuotaParaPago(1L, "100.00", 1L),
+                cuotaParaPago(2L, "100.00", 2L)));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> cuotaService.pagarCuotas(
+                PagoCuotasRequest.builder().cuentaId(1L).cuotaIds(List.of(1L, 2L)).build()));
+
+        assertEquals("Las cuotas [2] no se encuentran en estado PENDIENTE o ATRASADA", exception.getMessage());
+        verify(cobroCuotasService, never()).cobrar(any(), anyList(), any(), any());
+    }
+
+    @Test
+    @DisplayName("prueba de pagar varias cuotas sin saldo para el total")
+    void pagarCuotasSaldoInsuficienteTest() {
+        when(cuotaRepository.buscarParaPago(List.of(1L, 2L))).thenReturn(List.of(
+                cuotaParaPago(1L, "100.00", 1L),
+                cuotaParaPago(2L, "100.00", 1L)));
+        when(cuentaClient.getCuentaById(1L)).thenReturn(CuentaResponse.builder()
+                .id(1L)
+                .saldo(new BigDecimal("150.00"))
+                .build());
+
+        assertThrows(IllegalStateException.class, () -> cuotaService.pagarCuotas(
+                PagoCuotasRequest.builder().cuentaId(1L).cuotaIds(List.of(1L, 2L)).build()));
+        verify(cobroCuotasService, never()).cobrar(any(), anyList(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Buscar cuotas por cursor - Cursor siguiente con fecha e id")
+    void buscarCuotasHayMas() {
+        List<Cuota> cuotas = List.of(
+                Cuota.builder().id(5L).fechaVencimiento(java.sql.Date.valueOf("2025-03-10")).build(),
+                Cuota.builder().id(3L).fechaVencimiento(java.sql.Date.valueOf("2025-03-11")).build());
+        List<CuotaResponse> respuesta = List.of(CuotaResponse.builder().id(5L).build());
+        doReturn(cuotas).when(cuotaRepository).findBy(any(Specification.class), any());
+        when(cuotaMapper.toDtoList(cuotas.subList(0, 1))).thenReturn(respuesta);
+
+        PaginaResponse<CuotaResponse> result = cuotaService.buscarCuotas(FiltroCuotaRequest.builder()
+                .estadoCuotaId(1L)
+                .despuesDe("2025-03-01,9")
+                .tamanio(1)
+                .build());
+
+        assertAll(
+                () -> assertEquals(respuesta, result.contenido()),
+                () -> assertTrue(result.hayMas()),
+                () -> assertEquals("2025-03-10,5", result.siguiente())
+        );
+    }
+
+    @Test
+    @DisplayName("Buscar cuotas por cursor - Cursor invalido")
+    void buscarCuotasCursorInvalido() {
+        BadRequest exception = assertThrows(BadRequest.class, () -> cuotaService.buscarCuotas(FiltroCuotaRequest.builder()
+                .despuesDe("2025-03-01")
+                .build()));
+
+        assertEquals("Cursor inválido: 2025-03-01", exception.getMessage());
+        verify(cuotaRepository, never()).findBy(any(Specification.class), any());
+    }
+
+    private static Prestamo prestamoVirtual(LocalDate desembolso) {
+        return Prestamo.builder()
+                .id(7L)
+                .monto(new BigDecimal("1200.00"))
+                .plazoMeses(6)
+                .tasaInteres(new BigDecimal("0.10"))
+                .fechaDesembolso(java.sql.Date.valueOf(desembolso))
+                .cronogramaVirtual(true)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Cronograma virtual - Se calcula al leer y las cuotas guardadas lo reemplazan")
+    @SuppressWarnings("unchecked")
+    void getCuotasByPrestamoIdVirtual() {
+        LocalDate desembolso = LocalDate.now().minusMonths(2).minusDays(1);
+        Prestamo prestamo = prestamoVirtual(desembolso);
+        Cuota pagada = Cuota.builder()
+                .id(40L)
+                .prestamo(prestamo)
+                .numero(1)
+                .monto(new BigDecimal("220.00"))
+                .fechaVencimiento(java.sql.Date.valueOf(desembolso.plusMonths(1)))
+                .estadoCuota(EstadoCuota.builder().id(2L).nombre("PAGADA").build())
+                .build();
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(List.of(pagada));
+        ArgumentCaptor<List<Cuota>> cronograma = ArgumentCaptor.forClass(List.class);
+        when(cuotaMapper.toDtoList(cronograma.capture())).thenReturn(List.of());
+
+        cuotaService.getCuotasByPrestamoId(7L);
+
+        List<Cuota> cuotas = cronograma.getValue();
+        assertAll(
+                () -> assertEquals(6, cuotas.size()),
+                () -> assertSame(pagada, cuotas.getFirst()),
+                () -> assertNull(cuotas.get(1).getId()),
+                // PLANO: 1200 * 1.10 / 6
+                () -> assertEquals(new BigDecimal("220.00"), cuotas.get(1).getMonto()),
+                () -> assertEquals(3L, cuotas.get(1).getEstadoCuota().getId()),
+                () -> assertEquals(1L, cuotas.get(2).getEstadoCuota().getId()),
+                () -> assertEquals(6, cuotas.getLast().getNumero())
+        );
+        verify(prestamoRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Cronograma virtual - Sin cuotas guardadas se lee el préstamo")
+    @SuppressWarnings("unchecked")
+    void getCuotasByPrestamoIdVirtualSinFilas() {
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(List.of());
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamoVirtual(LocalDate.now())));
+        ArgumentCaptor<List<Cuota>> cronograma = ArgumentCaptor.forClass(List.class);
+        when(cuotaMapper.toDtoList(cronograma.capture())).thenReturn(List.of());
+
+        cuotaService.getCuotasByPrestamoId(7L);
+
+        assertEquals(6, cronograma.getValue().size());
+        assertTrue(cronograma.getValue().stream().allMatch(c -> c.getEstadoCuota().getId() == 1L));
+    }
+
+    @Test
+    @DisplayName("Materializar cuota virtual - Inserta la fila calculada")
+    void materializarCuotaVirtual() {
+        LocalDate desembolso = LocalDate.of(2025, 1, 15);
+        when(cuotaRepository.findByPrestamoIdAndNumero(7L, 3)).thenReturn(Optional.empty());
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamoVirtual(desembolso)));
+        when(cuotaRepository.saveAndFlush(any(Cuota.class))).thenAnswer(invocacion -> {
+            Cuota cuota = invocacion.getArgument(0);
+            cuota.setId(99L);
+            return cuota;
+        });
+
+        Cuota result = cuotaService.materializarCuota(7L, 3);
+
+        assertAll(
+                () -> assertEquals(99L, result.getId()),
+                () -> assertEquals(3, result.getNumero()),
+                () -> assertEquals(new BigDecimal("220.00"), result.getMonto()),
+                () -> assertEquals(LocalDate.of(2025, 4, 15),
+                        LocalDate.ofInstant(result.getFechaVencimiento().toInstant(), java.time.ZoneId.systemDefault()))
+        );
+    }
+
+    @Test
+    @DisplayName("Materializar cuota virtual - Otro hilo la insertó primero")
+    void materializarCuotaVirtualConcurrente() {
+        Cuota existente = Cuota.builder().id(50L).numero(3).build();
+        when(cuotaRepository.findByPrestamoIdAndNumero(7L, 3)).thenReturn(Optional.empty(), Optional.of(existente));
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamoVirtual(LocalDate.now())));
+        when(cuotaRepository.saveAndFlush(any(Cuota.class))).thenThrow(new DataIntegrityViolationException("uk_cuotas_prestamo_numero"));
+
+        assertSame(existente, cuotaService.materializarCuota(7L, 3));
+    }
+
+    @Test
+    @DisplayName("Pagar cuota virtual por número - Sin saldo se borra la fila recién insertada")
+    void pagarCuotaPorNumeroSinSaldoBorraFila() {
+        when(cuotaRepository.findByPrestamoIdAndNumero(7L, 3)).thenReturn(Optional.empty());
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamoVirtual(LocalDate.now())));
+        when(cuotaRepository.saveAndFlush(any(Cuota.class))).thenAnswer(invocacion -> {
+            Cuota cuota = invocacion.getArgument(0);
+            cuota.setId(99L);
+            when(cuotaRepository.findById(99L)).thenReturn(Optional.of(cuota));
+            return cuota;
+        });
+        when(cuentaClient.getCuentaById(1L)).thenReturn(CuentaResponse.builder().id(1L).saldo(BigDecimal.ONE).build());
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> cuotaService.pagarCuotaPorNumero(7L, 3, 1L));
+
+        assertEquals("Saldo insuficiente en la cuenta para pagar la cuota", exception.getMessage());
+        verify(cuotaRepository).eliminarNoPagadas(List.of(99L));
+        verify(cobroCuotasService, never()).cobrar(any(), anyList(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Pagar cuota virtual por número - Una fila que ya existía no se borra si el pago falla")
+    void pagarCuotaPorNumeroFilaExistenteNoSeBorra() {
+        Cuota existente = Cuota.builder().id(50L).numero(3).monto(new BigDecimal("220.00"))
+                .estadoCuota(EstadoCuota.builder().id(1L).build()).build();
+        when(cuotaRepository.findByPrestamoIdAndNumero(7L, 3)).thenReturn(Optional.of(existente));
+        when(cuotaRepository.findById(50L)).thenReturn(Optional.of(existente));
+        when(cuentaClient.getCuentaById(1L)).thenReturn(CuentaResponse.builder().id(1L).saldo(BigDecimal.ONE).build());
+
+        assertThrows(IllegalStateException.class, () -> cuotaService.pagarCuotaPorNumero(7L, 3, 1L));
+
+        verify(cuotaRepository, never()).eliminarNoPagadas(any());
+    }
+
+    @Test
+    @DisplayName("Materializar cuota - Préstamo con cronograma persistido y numero inexistente")
+    void materializarCuotaPersistidaNoEncontrada() {
+        Prestamo prestamo = prestamoVirtual(LocalDate.now());
+        prestamo.setCronogramaVirtual(false);
+        when(cuotaRepository.findByPrestamoIdAndNumero(7L, 3)).thenReturn(Optional.empty());
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+
+        ResourceNotFound exception = assertThrows(ResourceNotFound.class, () -> cuotaService.materializarCuota(7L, 3));
+
+        assertEquals("Cuota 3 no encontrada para el préstamo con id: 7", exception.getMessage());
+        verify(cuotaRepository, never()).saveAndFlush(any());
+    }
+
+    private static Cuota cuotaPorCobrar(Long id, int numero, LocalDate vencimiento, String pagado) {
+        return Cuota.builder()
+                .id(id)
+                .numero(numero)
+                .fechaVencimiento(java.sql.Date.valueOf(vencimiento))
+                .monto(new BigDecimal("100.00"))
+                .montoPagado(new BigDecimal(pagado))
+                .estadoCuota(EstadoCuota.builder().id(vencimiento.isBefore(LocalDate.now()) ? 3L : 1L).build())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Aplicar pago - Cubre vencidas y deja un abono parcial en la vigente")
+    @SuppressWarnings("unchecked")
+    void aplicarPagoParcial() {
+        LocalDate hoy = LocalDate.now();
+        when(prestamoRepository.findById(5L)).thenReturn(Optional.of(Prestamo.builder()
+                .id(5L).estadoPrestamo(EstadoPrestamo.builder().id(2L).build()).build()));
+        when(cuotaRepository.buscarPorCobrar(5L, Set.of(1L, 3L))).thenReturn(List.of(
+                cuotaPorCobrar(1L, 1, hoy.minusDays(40), "30.00"),
+                cuotaPorCobrar(2L, 2, hoy.minusDays(10), "0.00"),
+                cuotaPorCobrar(3L, 3, hoy.plusDays(20), "0.00"),
+                cuotaPorCobrar(4L, 4, hoy.plusDays(50), "0.00")));
+        when(cuentaClient.getCuentaById(9L)).thenReturn(CuentaResponse.builder().id(9L).saldo(new BigDecimal("1000")).build());
+        ArgumentCaptor<List<Abono>> abonos = ArgumentCaptor.forClass(List.class);
+        when(cobroCuotasService.abonar(eq(9L), abonos.capture(), eq("Abono cuota id:"), eq(hoy))).thenReturn(true);
+
+        AsignacionPagoResponse result = cuotaService.aplicarPago(5L, new PagoPrestamoRequest(9L, new BigDecimal("200")));
+
+        assertEquals(List.of(
+                new Abono(1L, new BigDecimal("30.00"), new BigDecimal("70.00"), true),
+                new Abono(2L, new BigDecimal("0.00"), new BigDecimal("100.00"), true),
+                new Abono(3L, new BigDecimal("0.00"), new BigDecimal("30.00"), false)), abonos.getValue());
+        assertAll(
+                () -> assertEquals(new BigDecimal("200.00"), result.montoAplicado()),
+                () -> assertEquals(new BigDecimal("0.00"), result.montoNoAplicado()),
+                () -> assertEquals(2, result.cuotasPagadas()),
+                () -> assertEquals(List.of(Tramo.VENCIDA, Tramo.VENCIDA, Tramo.VIGENTE),
+                        result.aplicaciones().stream().map(AplicacionCuotaResponse::tramo).toList()),
+                () -> assertEquals(new BigDecimal("70.00"), result.aplicaciones().get(2).saldoPendiente())
+        );
+        verify(cuotaRepository, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Aplicar pago - Cronograma virtual con excedente: inserta las cuotas en un lote y no debita el sobrante")
+    void aplicarPagoVirtualConExcedente() {
+        Prestamo prestamo = prestamoVirtual(LocalDate.now().minusMonths(1).minusDays(1));
+        prestamo.setEstadoPrestamo(EstadoPrestamo.builder().id(2L).build());
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(List.of());
+        when(cuentaClient.getCuentaById(9L)).thenReturn(CuentaResponse.builder().id(9L).saldo(new BigDecimal("5000")).build());
+        when(cuotaRepository.saveAllAndFlush(anyList())).thenAnswer(invocacion -> {
+            List<Cuota> cuotas = invocacion.getArgument(0);
+            cuotas.forEach(cuota -> cuota.setId(100L + cuota.getNumero()));
+            return cuotas;
+        });
+        when(cobroCuotasService.abonar(eq(9L), anyList(), any(), any())).thenReturn(true);
+
+        AsignacionPagoResponse result = cuotaService.aplicarPago(7L, new PagoPrestamoRequest(9L, new BigDecimal("2000")));
+
+        assertAll(
+                () -> assertEquals(new BigDecimal("1320.00"), result.montoAplicado()),
+                () -> assertEquals(new BigDecimal("680.00"), result.montoNoAplicado()),
+                () -> assertEquals(6, result.cuotasPagadas()),
+                () -> assertEquals(101L, result.aplicaciones().getFirst().cuotaId()),
+                () -> assertEquals(Tramo.VENCIDA, result.aplicaciones().getFirst().tramo())
+        );
+        verify(cuotaRepository).saveAllAndFlush(argThat((List<Cuota> cuotas) -> cuotas.size() == 6));
+    }
+
+    @Test
+    @DisplayName("Aplicar pago - Préstamo no aprobado")
+    void aplicarPagoPrestamoNoAprobado() {
+        when(prestamoRepository.findById(5L)).thenReturn(Optional.of(Prestamo.builder()
+                .id(5L).estadoPrestamo(EstadoPrestamo.builder().id(1L).build()).build()));
+
+        assertThrows(BadRequest.class, () -> cuotaService.aplicarPago(5L, new PagoPrestamoRequest(9L, BigDecimal.TEN)));
+        verify(cobroCuotasService, never()).abonar(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Aplicar pago - Otro pago modificó las cuotas")
+    void aplicarPagoConcurrente() {
+        LocalDate hoy = LocalDate.now();
+        when(prestamoRepository.findById(5L)).thenReturn(Optional.of(Prestamo.builder()
+                .id(5L).estadoPrestamo(EstadoPrestamo.builder().id(2L).build()).build()));
+        when(cuotaRepository.buscarPorCobrar(5L, Set.of(1L, 3L))).thenReturn(List.of(cuotaPorCobrar(1L, 1, hoy, "0.00")));
+        when(cuentaClient.getCuentaById(9L)).thenReturn(CuentaResponse.builder().id(9L).saldo(new BigDecimal("1000")).build());
+        when(cobroCuotasService.abonar(eq(9L), anyList(), any(), any())).thenReturn(false);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> cuotaService.aplicarPago(5L, new PagoPrestamoRequest(9L, new BigDecimal("50"))));
+        assertEquals("Otro pago modificó las cuotas del préstamo, intente nuevamente", exception.getMessage());
+        verify(cuotaRepository, never()).eliminarNoPagadas(any());
+    }
+
+    @Test
+    @DisplayName("Aplicar pago - Cronograma virtual: si el abono falla se borran las cuotas insertadas para el pago")
+    void aplicarPagoVirtualFallidoEliminaInsertadas() {
+        Prestamo prestamo = prestamoVirtual(LocalDate.now().minusMonths(1).minusDays(1));
+        prestamo.setEstadoPrestamo(EstadoPrestamo.builder().id(2L).build());
+        when(prestamoRepository.findById(7L)).thenReturn(Optional.of(prestamo));
+        when(cuotaRepository.findByPrestamoId(7L)).thenReturn(List.of());
+        when(cuentaClient.getCuentaById(9L)).thenReturn(CuentaResponse.builder().id(9L).saldo(new BigDecimal("5000")).build());
+        when(cuotaRepository.saveAllAndFlush(anyList())).thenAnswer(invocacion -> {
+            List<Cuota> cuotas = invocacion.getArgument(0);
+            cuotas.forEach(cuota -> cuota.setId(100L + cuota.getNumero()));
+            return cuotas;
+        });
+        when(cobroCuotasService.abonar(eq(9L), anyList(), any(), any())).thenThrow(new IllegalStateException("cuenta caída"));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> cuotaService.aplicarPago(7L, new PagoPrestamoRequest(9L, new BigDecimal("440"))));
+
+        assertEquals("Error al registrar el pago: cuenta caída", exception.getMessage());
+        verify(cuotaRepository).eliminarNoPagadas(List.of(101L, 102L));
+    }
 }
@@ -0,0 +1,144 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.configuration.ContextoServicio;
+import org.nttdata.com.servicioprestamos.dto.ResultadoDebitoResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.CuotaDebito;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DebitoAutomaticoServiceImplTest {
+    private static final LocalDate HOY = LocalDate.of(2025, 6, 1);
+
+    @Mock
+    private CuotaRepository cuotaRepository;
+    @Mock
+    private CuentaClient cuentaClient;
+    @Mock
+    private CobroCuotasService cobroCuotasService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DebitoAutomaticoServiceImpl debitoAutomaticoService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        debitoAutomaticoService = new DebitoAutomaticoServiceImpl(cuotaRepository, cuentaClient, cobroCuotasService,
+                meterRegistry, 2);
+    }
+
+    private static CuentaResponse cuenta(Long id, String saldo) {
+        return CuentaResponse.builder().id(id).saldo(new BigDecimal(saldo)).build();
+    }
+
+    @Test
+    @DisplayName("La ejecución programada corre en el contexto de servicio y lo retira al terminar")
+    void debitoProgramadoEnContextoServicio() {
+        List<Boolean> enServicio = new ArrayList<>();
+        when(cuotaRepository.buscarParaDebito(any())).thenAnswer(invocacion -> {
+            enServicio.add(ContextoServicio.activo(SecurityContextHolder.getContext().getAuthentication()));
+            return List.of();
+        });
+
+        debitoAutomaticoService.debitoProgramado();
+
+        assertEquals(List.of(true), enServicio);
+        assertFalse(ContextoServicio.activo(SecurityContextHolder.getContext().getAuthentication()));
+    }
+
+    @Test
+    @DisplayName("Una consulta de saldo y un cobro por cuenta")
+    void debitarCuotasAgrupadasPorCuenta() {
+        CuotaDebito primera = new CuotaDebito(1L, 10L, new BigDecimal("100.00"), HOY.minusMonths(1));
+        CuotaDebito segunda = new CuotaDebito(2L, 10L, new BigDecimal("100.00"), HOY);
+        CuotaDebito otraCuenta = new CuotaDebito(3L, 20L, new BigDecimal("50.00"), HOY);
+        when(cuotaRepository.buscarParaDebito(HOY)).thenReturn(List.of(primera, segunda, otraCuenta));
+        when(cuentaClient.getCuentaById(10L)).thenReturn(cuenta(10L, "500.00"));
+        when(cuentaClient.getCuentaById(20L)).thenReturn(cuenta(20L, "50.00"));
+        when(cobroCuotasService.cobrar(eq(10L), eq(List.of(primera, segunda)), anyString(), eq(HOY))).thenReturn(true);
+        when(cobroCuotasService.cobrar(eq(20L), eq(List.of(otraCuenta)), anyString(), eq(HOY))).thenReturn(true);
+
+        ResultadoDebitoResponse resultado = debitoAutomaticoService.debitarCuotas(HOY);
+
+        assertEquals(2, resultado.cuentas());
+        assertEquals(2, resultado.cuentasDebitadas());
+        assertEquals(3, resultado.cuotasPagadas());
+        assertEquals(new BigDecimal("250.00"), resultado.montoDebitado());
+        verify(cuentaClient, times(1)).getCuentaById(10L);
+        verify(cobroCuotasService, times(2)).cobrar(any(), any(), anyString(), eq(HOY));
+        assertEquals(3.0, meterRegistry.get("prestamos.debito.cuotas").counter().count());
+        assertEquals(0.0, meterRegistry.get("prestamos.debito.cuentas_pendientes").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Con saldo parcial paga solo las cuotas más antiguas que alcanza")
+    void debitarSoloCuotasQueAlcanzan() {
+        CuotaDebito primera = new CuotaDebito(1L, 10L, new BigDecimal("100.00"), HOY.minusMonths(1));
+        when(cuotaRepository.buscarParaDebito(HOY)).thenReturn(List.of(
+                primera,
+                new CuotaDebito(2L, 10L, new BigDecimal("100.00"), HOY)));
+        when(cuentaClient.getCuentaById(10L)).thenReturn(cuenta(10L, "150.00"));
+        when(cobroCuotasService.cobrar(eq(10L), eq(List.of(primera)), anyString(), eq(HOY))).thenReturn(true);
+
+        ResultadoDebitoResponse resultado = debitoAutomaticoService.debitarCuotas(HOY);
+
+        assertEquals(1, resultado.cuotasPagadas());
+        assertEquals(new BigDecimal("100.00"), resultado.montoDebitado());
+    }
+
+    @Test
+    @DisplayName("Sin saldo para la cuota más antigua no toca la cuenta")
+    void cuentaSinSaldo() {
+        when(cuotaRepository.buscarParaDebito(HOY)).thenReturn(List.of(
+                new CuotaDebito(1L, 10L, new BigDecimal("100.00"), HOY)));
+        when(cuentaClient.getCuentaById(10L)).thenReturn(cuenta(10L, "20.00"));
+
+        ResultadoDebitoResponse resultado = debitoAutomaticoService.debitarCuotas(HOY);
+
+        assertEquals(1, resultado.cuentasSinSaldo());
+        verify(cobroCuotasService, never()).cobrar(any(), any(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Un conflicto o un fallo en una cuenta no detiene a las demás")
+    void fallosPorCuenta() {
+        CuotaDebito conflicto = new CuotaDebito(1L, 10L, new BigDecimal("100.00"), HOY);
+        CuotaDebito error = new CuotaDebito(2L, 20L, new BigDecimal("100.00"), HOY);
+        CuotaDebito correcta = new CuotaDebito(3L, 30L, new BigDecimal("100.00"), HOY);
+        when(cuotaRepository.buscarParaDebito(HOY)).thenReturn(List.of(conflicto, error, correcta));
+        when(cuentaClient.getCuentaById(any())).thenReturn(cuenta(0L, "500.00"));
+        when(cobroCuotasService.cobrar(eq(10L), any(), anyString(), eq(HOY))).thenReturn(false);
+        when(cobroCuotasService.cobrar(eq(20L), any(), anyString(), eq(HOY))).thenThrow(new BadRequest("Servicio no disponible"));
+        when(cobroCuotasService.cobrar(eq(30L), any(), anyString(), eq(HOY))).thenReturn(true);
+
+        ResultadoDebitoResponse resultado = debitoAutomaticoService.debitarCuotas(HOY);
+
+        assertEquals(1, resultado.cuentasDebitadas());
+        assertEquals(2, resultado.cuentasFallidas());
+        assertEquals(1, resultado.cuotasPagadas());
+        assertEquals(1.0, meterRegistry.get("prestamos.debito.cuentas").tag("resultado", "CONFLICTO").counter().count());
+        assertEquals(1.0, meterRegistry.get("prestamos.debito.cuentas").tag("resultado", "ERROR").counter().count());
+    }
+}
@@ -0,0 +1,76 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EvaluacionCreditoServiceImplTest {
+    @Mock
+    private TransaccionClient transaccionClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EvaluacionCreditoServiceImpl evaluacionCreditoService;
+
+    private final ResumenTransaccionesResponse resumen = ResumenTransaccionesResponse.builder()
+            .ingresos(new BigDecimal("1000")).egresos(BigDecimal.ZERO).build();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        evaluacionCreditoService = new EvaluacionCreditoServiceImpl(transaccionClient, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Evaluaciones repetidas de la misma cuenta consultan una sola vez a ServicioTransacciones")
+    void reutilizaResumen() {
+        when(transaccionClient.obtenerResumen(1L)).thenReturn(resumen);
+
+        assertSame(resumen, evaluacionCreditoService.obtenerResumen(1L));
+        assertSame(resumen, evaluacionCreditoService.obtenerResumen(1L));
+
+        verify(transaccionClient, times(1)).obtenerResumen(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "prestamos.credito", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "prestamos.credito", "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Invalidar la cuenta obliga a recalcular; las demás cuentas conservan su entrada")
+    void invalidarCuenta() {
+        when(transaccionClient.obtenerResumen(anyLong())).thenReturn(resumen);
+        evaluacionCreditoService.obtenerResumen(1L);
+        evaluacionCreditoService.obtenerResumen(2L);
+
+        evaluacionCreditoService.invalidar(1L);
+        evaluacionCreditoService.obtenerResumen(1L);
+        evaluacionCreditoService.obtenerResumen(2L);
+
+        verify(transaccionClient, times(2)).obtenerResumen(1L);
+        verify(transaccionClient, times(1)).obtenerResumen(2L);
+    }
+
+    @Test
+    @DisplayName("Un error al consultar no queda guardado")
+    void errorNoSeGuarda() {
+        when(transaccionClient.obtenerResumen(1L))
+                .thenThrow(new IllegalStateException("caído"))
+                .thenReturn(resumen);
+
+        assertThrows(IllegalStateException.class, () -> evaluacionCreditoService.obtenerResumen(1L));
+        assertSame(resumen, evaluacionCreditoService.obtenerResumen(1L));
+    }
+}
@@ -0,0 +1,200 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.dto.ClienteResponse;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.client.dto.EstadoClienteResponse;
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties;
+import org.nttdata.com.servicioprestamos.dto.ResultadoImportacionResponse;
+import org.nttdata.com.servicioprestamos.dto.ResumenImportacionResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.exception.ResourceNotFound;
+import org.nttdata.com.servicioprestamos.models.Prestamo;
+import org.nttdata.com.servicioprestamos.producer.NotificacionProducer;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.util.EjecutorParalelo;
+import org.nttdata.com.servicioprestamos.util.LectorSolicitudes.Formato;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ImportacionPrestamoServiceImplTest {
+    @Mock
+    private PrestamoRepository prestamoRepository;
+    @Mock
+    private PrestamoServiceImpl prestamoService;
+    @Mock
+    private EvaluacionCreditoService evaluacionCreditoService;
+    @Mock
+    private AnaliticaCarteraService analiticaCarteraService;
+    @Mock
+    private ResumenClienteService resumenClienteService;
+    @Mock
+    private NotificacionProducer notificacionProducer;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ImportacionPrestamoServiceImpl importacionPrestamoService;
+    private final List<ResultadoImportacionResponse> resultados = new ArrayList<>();
+    private final AtomicLong secuencia = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        // Bloques de 2 líneas para recorrer varias vueltas del pipeline
+        importacionPrestamoService = new ImportacionPrestamoServiceImpl(prestamoRepository, prestamoService,
+                new ReglasPrestamoServiceImpl(new ReglasPrestamoProperties()), evaluacionCreditoService,
+                analiticaCarteraService, resumenClienteService, notificacionProducer, new EjecutorParalelo(),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), transactionManager,
+                new SimpleMeterRegistry(), 2, 4, 100);
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> new SimpleTransactionStatus());
+        lenient().when(prestamoService.getClienteById(any())).thenAnswer(invocacion -> ClienteResponse.builder()
+                .id(invocacion.getArgument(0))
+                .estadoCliente(EstadoClienteResponse.builder().estado("ACTIVO").build())
+                .build());
+        lenient().when(prestamoService.getCuentaById(any())).thenAnswer(invocacion ->
+                CuentaResponse.builder().id(invocacion.getArgument(0)).build());
+        // Capacidad de pago: 30% de 100000
+        lenient().when(evaluacionCreditoService.obtenerResumen(anyLong())).thenReturn(ResumenTransaccionesResponse.builder()
+                .ingresos(new BigDecimal("100000")).egresos(BigDecimal.ZERO).build());
+        lenient().doAnswer(invocacion -> {
+            List<Prestamo> prestamos = invocacion.getArgument(0);
+            prestamos.forEach(prestamo -> prestamo.setId(secuencia.incrementAndGet()));
+            return null;
+        }).when(prestamoRepository).insertarLote(anyList());
+    }
+
+    private ResumenImportacionResponse importar(Formato formato, String contenido) {
+        return importacionPrestamoService.importar(
+                new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), formato, resultados::add);
+    }
+
+    @Test
+    @DisplayName("NDJSON: resultados en el orden del archivo, una consulta por cliente y cuenta e inserciones por bloque")
+    void importarNdjson() {
+        ResumenImportacionResponse resumen = importar(Formato.NDJSON, """
+                {"clienteId":1,"cuentaId":10,"monto":5000,"plazoMeses":12,"tasaInteres":0.10}
+                {"clienteId":1,"cuentaId":10,"monto":500,"plazoMeses":12,"tasaInteres":0.10}
+                {"clienteId":1,"cuentaId":
+
+                {"clienteId":1,"cuentaId":10,"monto":8000,"plazoMeses":12,"tasaInteres":0.12}
+                {"clienteId":2,"cuentaId":20,"monto":6000,"plazoMeses":18,"tasaInteres":0.15}
+                """);
+
+        assertEquals(List.of(1L, 2L, 3L, 5L, 6L), resultados.stream().map(ResultadoImportacionResponse::linea).toList());
+        assertEquals(List.of(true, false, false, true, true),
+                resultados.stream().map(ResultadoImportacionResponse::aceptado).toList());
+        assertEquals("El monto mínimo permitido es 1,000.", resultados.get(1).mensaje());
+        assertTrue(resultados.get(2).mensaje().startsWith("JSON inválido"));
+        assertEquals(101L, resultados.get(0).prestamoId());
+
+        assertEquals(5, resumen.filas());
+        assertEquals(3, resumen.aceptadas());
+        assertEquals(new BigDecimal("19000"), resumen.montoSolicitado());
+        assertEquals(2, resumen.consultasClientes());
+        assertEquals(2, resumen.consultasCuentas());
+        verify(prestamoService, times(1)).getClienteById(1L);
+        verify(prestamoService, times(1)).getCuentaById(10L);
+        verify(evaluacionCreditoService, times(1)).obtenerResumen(10L);
+        // Bloques: [1,2] -> 1 préstamo, [3,5] -> 1, [6] -> 1
+        verify(prestamoRepository, times(3)).insertarLote(argThat(prestamos -> prestamos.size() == 1));
+        verify(analiticaCarteraService, times(3)).registrarAltas(anyList());
+        verify(notificacionProducer, times(3)).enviarNotificacion(any());
+    }
+
+    @Test
+    @DisplayName("CSV: cliente inexistente y capacidad de pago insuficiente se rechazan sin detener la importación")
+    void importarCsvConRechazos() {
+        when(prestamoService.getClienteById(9L)).thenThrow(new ResourceNotFound("Cliente no encontrado con id: 9"));
+
+        ResumenImportacionResponse resumen = importar(Formato.CSV, """
+                cliente_id,cuenta_id,monto,plazo_meses,tasa_interes,metodo_amortizacion
+                9,10,5000,12,0.10,
+                9,10,6000,12,0.10,frances
+                1,10,35000,24,0.10,
+                1,10,5000,12,0.10,FRANCES
+                1,10,abc,12,0.10,
+                """);
+
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), resultados.stream().map(ResultadoImportacionResponse::linea).toList());
+        assertEquals("Cliente no encontrado con id: 9", resultados.get(0).mensaje());
+        assertEquals("Cliente no encontrado con id: 9", resultados.get(1).mensaje());
+        assertTrue(resultados.get(2).mensaje().contains("su maximo es: 30000"));
+        assertTrue(resultados.get(3).aceptado());
+        assertTrue(resultados.get(4).mensaje().startsWith("Valor inválido"));
+        assertEquals(1, resumen.aceptadas());
+        assertEquals(4, resumen.rechazadas());
+        verify(prestamoService, times(1)).getClienteById(9L);
+    }
+
+    @Test
+    @DisplayName("Un monto o una tasa fuera de rango rechazan la línea sin detener la importación")
+    void valoresFueraDeRango() {
+        ResumenImportacionResponse resumen = importar(Formato.NDJSON, """
+                {"clienteId":1,"cuentaId":10,"monto":1e30,"plazoMeses":12,"tasaInteres":0.10}
+                {"clienteId":1,"cuentaId":10,"monto":5000,"plazoMeses":12,"tasaInteres":1e20}
+                {"clienteId":1,"cuentaId":10,"monto":5000,"plazoMeses":12,"tasaInteres":0.10}
+                """);
+
+        assertEquals(List.of(false, false, true), resultados.stream().map(ResultadoImportacionResponse::aceptado).toList());
+        assertTrue(resultados.get(0).mensaje().contains("El monto no puede superar 1,000,000,000"));
+        assertTrue(resultados.get(1).mensaje().contains("La tasa de interés no puede superar 100"));
+        assertEquals(1, resumen.aceptadas());
+        assertEquals(2, resumen.rechazadas());
+    }
+
+    @Test
+    @DisplayName("Un bloque que no se puede guardar rechaza solo sus líneas")
+    void bloqueFallido() {
+        doThrow(new IllegalStateException("conexión cerrada"))
+                .doAnswer(invocacion -> {
+                    List<Prestamo> prestamos = invocacion.getArgument(0);
+                    prestamos.forEach(prestamo -> prestamo.setId(secuencia.incrementAndGet()));
+                    return null;
+                })
+                .when(prestamoRepository).insertarLote(anyList());
+
+        ResumenImportacionResponse resumen = importar(Formato.NDJSON, """
+                {"clienteId":1,"cuentaId":10,"monto":5000,"plazoMeses":12,"tasaInteres":0.10}
+                {"clienteId":1,"cuentaId":10,"monto":6000,"plazoMeses":12,"tasaInteres":0.10}
+                {"clienteId":1,"cuentaId":10,"monto":7000,"plazoMeses":12,"tasaInteres":0.10}
+                """);
+
+        assertEquals(List.of(false, false, true), resultados.stream().map(ResultadoImportacionResponse::aceptado).toList());
+        assertEquals("No se pudo guardar el bloque: conexión cerrada", resultados.get(0).mensaje());
+        assertEquals(1, resumen.aceptadas());
+        verify(notificacionProducer, times(1)).enviarNotificacion(any());
+    }
+
+    @Test
+    @DisplayName("CSV sin las columnas obligatorias")
+    void encabezadoIncompleto() {
+        assertThrows(BadRequest.class, () -> importar(Formato.CSV, """
+                clienteId,cuentaId,monto
+                1,10,5000
+                """));
+        verifyNoInteractions(prestamoRepository);
+    }
+}
@@ -0,0 +1,204 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.dto.ConciliacionMoraResponse;
+import org.nttdata.com.servicioprestamos.dto.MoraCarteraResponse;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepository;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepositoryCustom.DeltaMora;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepositoryCustom.EstadoMora;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepositoryCustom.FilaCronograma;
+import org.nttdata.com.servicioprestamos.repository.AgregadoMoraRepositoryCustom.TramoMora;
+import org.nttdata.com.servicioprestamos.util.ActualizacionModeloLectura;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MoraCarteraServiceImplTest {
+    @Mock
+    private AgregadoMoraRepository agregadoMoraRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MoraCarteraServiceImpl moraCarteraService;
+
+    @BeforeEach
+    void setUp() {
+        moraCarteraService = new MoraCarteraServiceImpl(agregadoMoraRepository,
+                new AmortizacionServiceImpl(new SimpleMeterRegistry(), 100), new ActualizacionModeloLectura(transactionManager),
+                new SimpleMeterRegistry());
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> new SimpleTransactionStatus());
+    }
+
+    private static FilaCronograma cuota(long prestamoId, int numero, String vencimiento, long estado, String saldo) {
+        return new FilaCronograma(prestamoId, new BigDecimal("900.00"), new BigDecimal("0.12"), 3,
+                MetodoAmortizacion.FRANCES, LocalDate.parse("2025-01-10"), false, numero,
+                LocalDate.parse(vencimiento), estado, new BigDecimal(saldo));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recorrer(Collection<Long> ids, FilaCronograma... filas) {
+        doAnswer(invocacion -> {
+            Consumer<FilaCronograma> consumidor = invocacion.getArgument(1);
+            for (FilaCronograma fila : filas) {
+                consumidor.accept(fila);
+            }
+            return null;
+        }).when(agregadoMoraRepository).recorrerCronogramas(ids == null ? isNull() : eq(ids), any(Consumer.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DeltaMora> deltasAcumulados() {
+        ArgumentCaptor<Collection<DeltaMora>> deltas = ArgumentCaptor.forClass(Collection.class);
+        verify(agregadoMoraRepository).acumular(deltas.capture());
+        return List.copyOf(deltas.getValue());
+    }
+
+    @Test
+    @DisplayName("Pagar la cuota más antigua mueve el préstamo a la fecha de la siguiente con el saldo restante")
+    void actualizarTrasPago() {
+        when(agregadoMoraRepository.bloquear(List.of(7L))).thenReturn(Map.of(7L,
+                new EstadoMora(LocalDate.parse("2025-02-10"), new BigDecimal("900.00"))));
+        recorrer(List.of(7L),
+                cuota(7L, 1, "2025-02-10", 2L, "0.00"),
+                cuota(7L, 2, "2025-03-10", 3L, "300.00"),
+                cuota(7L, 3, "2025-04-10", 1L, "250.00"));
+
+        moraCarteraService.actualizar(List.of(7L, 7L));
+
+        EstadoMora nuevo = new EstadoMora(LocalDate.parse("2025-03-10"), new BigDecimal("550.00"));
+        verify(agregadoMoraRepository).guardarEstados(Map.of(7L, nuevo));
+        assertEquals(List.of(
+                new DeltaMora(LocalDate.parse("2025-02-10"), -1, new BigDecimal("-900.00")),
+                new DeltaMora(LocalDate.parse("2025-03-10"), 1, new BigDecimal("550.00"))
+        ), deltasAcumulados());
+    }
+
+    @Test
+    @DisplayName("Un préstamo virtual aporta las cuotas calculadas y uno pagado por completo se descuenta")
+    void actualizarVirtualYPagado() {
+        when(agregadoMoraRepository.bloquear(List.of(3L, 8L))).thenReturn(Map.of(8L,
+                new EstadoMora(LocalDate.parse("2025-05-10"), new BigDecimal("120.00"))));
+        recorrer(List.of(3L, 8L),
+                new FilaCronograma(3L, new BigDecimal("1200.00"), BigDecimal.ZERO, 3, MetodoAmortizacion.PLANO,
+                        LocalDate.parse("2025-01-15"), true, null, null, null, null),
+                cuota(8L, 1, "2025-05-10", 2L, "0.00"));
+
+        moraCarteraService.actualizar(List.of(8L, 3L));
+
+        Map<Long, EstadoMora> estados = new HashMap<>();
+        estados.put(3L, new EstadoMora(LocalDate.parse("2025-02-15"), new BigDecimal("1200.00")));
+        estados.put(8L, null);
+        verify(agregadoMoraRepository).guardarEstados(estados);
+        assertEquals(List.of(
+                new DeltaMora(LocalDate.parse("2025-02-15"), 1, new BigDecimal("1200.00")),
+                new DeltaMora(LocalDate.parse("2025-05-10"), -1, new BigDecimal("-120.00"))
+        ), deltasAcumulados());
+    }
+
+    @Test
+    @DisplayName("Dentro de una transacción la actualización espera a que se confirme")
+    void actualizarAlConfirmar() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            moraCarteraService.actualizar(List.of(7L));
+            verifyNoInteractions(agregadoMoraRepository);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(agregadoMoraRepository).bloquear(List.of(7L));
+    }
+
+    @Test
+    @DisplayName("Un fallo al actualizar no se propaga al llamador")
+    void actualizarConFallo() {
+        when(agregadoMoraRepository.prestamosDeCuotas(List.of(1L))).thenThrow(new IllegalStateException("sin conexión"));
+
+        assertDoesNotThrow(() -> moraCarteraService.actualizarPorCuotas(List.of(1L)));
+        verify(agregadoMoraRepository, never()).acumular(any());
+    }
+
+    @Test
+    @DisplayName("Obtener mora devuelve los cuatro tramos aunque alguno esté vacío")
+    void obtenerMora() {
+        when(agregadoMoraRepository.agruparTramos(any())).thenReturn(List.of(
+                new TramoMora(1, 2, new BigDecimal("700.00")),
+                new TramoMora(4, 1, new BigDecimal("1500.50"))));
+
+        MoraCarteraResponse mora = moraCarteraService.obtenerMora();
+
+        assertEquals(List.of("1-30", "31-60", "61-90", "90+"), mora.tramos().stream().map(t -> t.tramo()).toList());
+        assertEquals(2, mora.tramos().get(0).prestamos());
+        assertEquals(0, mora.tramos().get(1).prestamos());
+        assertEquals(0, BigDecimal.ZERO.compareTo(mora.tramos().get(2).saldo()));
+        assertEquals(3, mora.prestamosEnMora());
+        assertEquals(new BigDecimal("2200.50"), mora.saldoEnMora());
+    }
+
+    @Test
+    @DisplayName("Conciliar detecta la deriva y reemplaza las tablas con lo calculado")
+    void conciliarConDiferencias() {
+        recorrer(null,
+                cuota(7L, 1, "2025-03-10", 3L, "300.00"),
+                cuota(9L, 1, "2025-03-10", 2L, "0.00"));
+        when(agregadoMoraRepository.estadosGuardados()).thenReturn(Map.of(
+                7L, new EstadoMora(LocalDate.parse("2025-03-10"), new BigDecimal("300")),
+                9L, new EstadoMora(LocalDate.parse("2025-03-10"), new BigDecimal("200.00"))));
+        when(agregadoMoraRepository.agregadosGuardados()).thenReturn(List.of(
+                new DeltaMora(LocalDate.parse("2025-03-10"), 2, new BigDecimal("500.00"))));
+
+        ConciliacionMoraResponse conciliacion = moraCarteraService.conciliar(true);
+
+        assertEquals(2, conciliacion.prestamosRevisados());
+        // El saldo 300 frente a 300.00 no cuenta como diferencia
+        assertEquals(1, conciliacion.prestamosConDiferencia());
+        assertEquals(1, conciliacion.fechasConDiferencia());
+        assertEquals(2, conciliacion.diferencias().getFirst().prestamosGuardados());
+        assertEquals(1, conciliacion.diferencias().getFirst().prestamosEsperados());
+        assertTrue(conciliacion.corregido());
+        verify(agregadoMoraRepository).reemplazar(
+                Map.of(7L, new EstadoMora(LocalDate.parse("2025-03-10"), new BigDecimal("300.00"))),
+                List.of(new DeltaMora(LocalDate.parse("2025-03-10"), 1, new BigDecimal("300.00"))));
+    }
+
+    @Test
+    @DisplayName("Conciliar sin diferencias no escribe aunque se pida corregir")
+    void conciliarSinDiferencias() {
+        recorrer(null, cuota(7L, 1, "2025-03-10", 1L, "300.00"));
+        when(agregadoMoraRepository.estadosGuardados()).thenReturn(Map.of(
+                7L, new EstadoMora(LocalDate.parse("2025-03-10"), new BigDecimal("300.00"))));
+        when(agregadoMoraRepository.agregadosGuardados()).thenReturn(List.of(
+                new DeltaMora(LocalDate.parse("2025-03-10"), 1, new BigDecimal("300.00"))));
+
+        ConciliacionMoraResponse conciliacion = moraCarteraService.conciliar(true);
+
+        assertEquals(0, conciliacion.fechasConDiferencia());
+        assertFalse(conciliacion.corregido());
+        verify(agregadoMoraRepository, never()).reemplazar(anyMap(), any());
+    }
+}
@@ -0,0 +1,132 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.client.dto.EstadoCuentaResponse;
+import org.nttdata.com.servicioprestamos.client.dto.ResumenTransaccionesResponse;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties;
+import org.nttdata.com.servicioprestamos.dto.ResultadoOfertasResponse;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.models.OfertaPreaprobada;
+import org.nttdata.com.servicioprestamos.repository.OfertaPreaprobadaRepository;
+import org.nttdata.com.servicioprestamos.util.OfertaPreaprobadaMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OfertaPreaprobadaServiceImplTest {
+    private static final LocalDate HOY = LocalDate.of(2025, 6, 1);
+
+    @Mock
+    private OfertaPreaprobadaRepository ofertaPreaprobadaRepository;
+    @Mock
+    private OfertaPreaprobadaMapper ofertaPreaprobadaMapper;
+    @Mock
+    private CuentaClient cuentaClient;
+    @Mock
+    private TransaccionClient transaccionClient;
+
+    private OfertaPreaprobadaServiceImpl ofertaPreaprobadaService;
+    private final List<OfertaPreaprobada> guardadas = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ofertaPreaprobadaService = new OfertaPreaprobadaServiceImpl(ofertaPreaprobadaRepository, ofertaPreaprobadaMapper,
+                cuentaClient, transaccionClient, new ReglasPrestamoServiceImpl(new ReglasPrestamoProperties()),
+                new SimpleMeterRegistry(), 2, 2, new int[]{12, 24, 36}, new BigDecimal("0.18"), MetodoAmortizacion.PLANO);
+        lenient().doAnswer(invocacion -> {
+            synchronized (guardadas) {
+                guardadas.addAll(invocacion.<Collection<OfertaPreaprobada>>getArgument(0));
+            }
+            return null;
+        }).when(ofertaPreaprobadaRepository).guardarLote(any());
+        when(cuentaClient.getAllCuentas()).thenReturn(List.of(
+                cuenta(10L, 1L, "ACTIVA"),
+                cuenta(20L, 2L, "ACTIVA"),
+                cuenta(30L, 3L, "ACTIVA"),
+                cuenta(40L, 4L, "INACTIVA")));
+    }
+
+    private static CuentaResponse cuenta(Long id, Long clienteId, String estado) {
+        return CuentaResponse.builder().id(id).clienteId(clienteId)
+                .estadoCuenta(EstadoCuentaResponse.builder().nombre(estado).build()).build();
+    }
+
+    private static ResumenTransaccionesResponse resumen(Long cuentaId, String ingresos, String egresos) {
+        return ResumenTransaccionesResponse.builder().cuentaId(cuentaId)
+                .ingresos(new BigDecimal(ingresos)).egresos(new BigDecimal(egresos)).porTipo(List.of()).build();
+    }
+
+    @Test
+    @DisplayName("Una llamada de resúmenes por lote y el mayor monto que permiten capacidad y reglas por plazo")
+    void generarOfertas() {
+        when(transaccionClient.obtenerResumenes(List.of(10L, 20L))).thenReturn(List.of(
+                resumen(10L, "100000", "0"),
+                // Egresos mayores al 110% de los ingresos: no califica
+                resumen(20L, "1000", "2000")));
+        // Capacidad 600, menor al monto mínimo de 1,000
+        when(transaccionClient.obtenerResumenes(List.of(30L))).thenReturn(List.of(resumen(30L, "2000", "0")));
+        when(ofertaPreaprobadaRepository.eliminarAnteriores(anyLong())).thenReturn(3);
+
+        ResultadoOfertasResponse result = ofertaPreaprobadaService.generarOfertas(HOY);
+
+        assertAll(
+                () -> assertEquals(3, result.cuentas()),
+                () -> assertEquals(2, result.lotes()),
+                () -> assertEquals(0, result.lotesFallidos()),
+                () -> assertEquals(1, result.cuentasConOferta()),
+                () -> assertEquals(2, result.ofertas()),
+                () -> assertEquals(3, result.ofertasEliminadas())
+        );
+        verify(transaccionClient, never()).obtenerResumen(any());
+        verify(transaccionClient, times(2)).obtenerResumenes(any());
+
+        // Capacidad 30,000: hasta 12 meses el máximo es 20,000; desde 36 meses el mínimo es 80,000
+        guardadas.sort((a, b) -> a.getPlazoMeses() - b.getPlazoMeses());
+        assertEquals(2, guardadas.size());
+        OfertaPreaprobada doceMeses = guardadas.get(0);
+        assertEquals(10L, doceMeses.getCuentaId());
+        assertEquals(1L, doceMeses.getClienteId());
+        assertEquals(new BigDecimal("20000.00"), doceMeses.getMontoMaximo());
+        // PLANO: 20,000 * 1.18 / 12
+        assertEquals(new BigDecimal("1966.67"), doceMeses.getCuotaEstimada());
+        assertEquals(new BigDecimal("30000.00"), doceMeses.getCapacidadPago());
+        assertEquals(24, guardadas.get(1).getPlazoMeses());
+        assertEquals(new BigDecimal("30000.00"), guardadas.get(1).getMontoMaximo());
+        assertEquals(HOY, guardadas.get(1).getFechaGeneracion());
+        assertEquals(doceMeses.getGeneracion(), guardadas.get(1).getGeneracion());
+    }
+
+    @Test
+    @DisplayName("Si un lote falla se conservan las ofertas anteriores")
+    void loteFallido() {
+        when(transaccionClient.obtenerResumenes(List.of(10L, 20L))).thenThrow(new RuntimeException("timeout"));
+        when(transaccionClient.obtenerResumenes(List.of(30L))).thenReturn(List.of(resumen(30L, "100000", "0")));
+
+        ResultadoOfertasResponse result = ofertaPreaprobadaService.generarOfertas(HOY);
+
+        assertEquals(1, result.lotesFallidos());
+        assertEquals(1, result.cuentasConOferta());
+        assertEquals(0, result.ofertasEliminadas());
+        verify(ofertaPreaprobadaRepository, never()).eliminarAnteriores(anyLong());
+    }
+}
@@ -0,0 +1,159 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.client.CuentaClient;
+import org.nttdata.com.servicioprestamos.client.TransaccionClient;
+import org.nttdata.com.servicioprestamos.client.dto.CuentaResponse;
+import org.nttdata.com.servicioprestamos.dto.CuotaResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.models.Cuota;
+import org.nttdata.com.servicioprestamos.models.EstadoCuota;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.util.CuotaMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba de estrés del pago de cuotas: muchos hilos (y reintentos) pagan la misma cuota a la vez.
+ * La base de datos y ServicioCuentas se simulan con estado atómico que reproduce sus UPDATE condicionales:
+ * la cuota solo cambia si sigue pendiente y el saldo solo baja si alcanza.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PagoCuotaConcurrenciaTest {
+    private static final int HILOS = 32;
+    private static final int INTENTOS_POR_HILO = 20;
+    private static final Long CUOTA_ID = 1L;
+    private static final Long CUENTA_ID = 10L;
+
+    @Mock
+    private CuotaRepository cuotaRepository;
+    @Mock
+    private CuotaMapper cuotaMapper;
+    @Mock
+    private CuentaClient cuentaClient;
+    @Mock
+    private TransaccionClient transaccionClient;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private AnaliticaCarteraService analiticaCarteraService;
+    @Mock
+    private EvaluacionCreditoService evaluacionCreditoService;
+    @Mock
+    private MoraCarteraService moraCarteraService;
+    @Mock
+    private ResumenClienteService resumenClienteService;
+
+    private final AtomicLong estadoCuota = new AtomicLong(1L);
+    private final AtomicReference<BigDecimal> saldo = new AtomicReference<>(new BigDecimal("1000.00"));
+    private final AtomicInteger transacciones = new AtomicInteger();
+
+    private CuotaServiceImpl cuotaService;
+
+    @BeforeEach
+    void setUp() {
+        // Lectura sin bloqueo: cada hilo ve el estado del momento, igual que findById
+        when(cuotaRepository.findById(CUOTA_ID)).thenAnswer(invocacion -> Optional.of(Cuota.builder()
+                .id(CUOTA_ID)
+                .monto(new BigDecimal("100.00"))
+                .fechaVencimiento(new Date())
+                .estadoCuota(EstadoCuota.builder().id(estadoCuota.get()).build())
+                .build()));
+        // update cuotas set estado_cuota_id = 2, monto_pagado = monto where id = :id and estado_cuota_id in (1, 3) and ...
+        when(cuotaRepository.marcarPagadas(anyList())).thenAnswer(invocacion ->
+                estadoCuota.compareAndSet(1L, 2L) || estadoCuota.compareAndSet(3L, 2L) ? 1 : 0);
+        when(cuentaClient.getCuentaById(CUENTA_ID)).thenAnswer(invocacion ->
+                CuentaResponse.builder().id(CUENTA_ID).saldo(saldo.get()).build());
+        // update cuentas set saldo = saldo + :monto where id = :id and saldo + :monto >= 0
+        when(cuentaClient.ajustarSaldo(eq(CUENTA_ID), any())).thenAnswer(invocacion -> {
+            BigDecimal monto = invocacion.getArgument(1);
+            while (true) {
+                BigDecimal actual = saldo.get();
+                BigDecimal nuevo = actual.add(monto);
+                if (nuevo.signum() < 0) {
+                    throw new BadRequest("Saldo insuficiente en la cuenta con ID: " + CUENTA_ID);
+                }
+                if (saldo.compareAndSet(actual, nuevo)) {
+                    return CuentaResponse.builder().id(CUENTA_ID).saldo(nuevo).build();
+                }
+            }
+        });
+        when(transaccionClient.crearTransacciones(anyList())).thenAnswer(invocacion -> {
+            transacciones.addAndGet(((List<?>) invocacion.getArgument(0)).size());
+            return List.of();
+        });
+        when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> new SimpleTransactionStatus());
+        when(cuotaMapper.toDto(any(Cuota.class))).thenReturn(CuotaResponse.builder().id(CUOTA_ID).build());
+
+        CobroCuotasServiceImpl cobroCuotasService = new CobroCuotasServiceImpl(cuotaRepository, cuentaClient,
+                transaccionClient, transactionManager, analiticaCarteraService, evaluacionCreditoService,
+                moraCarteraService, resumenClienteService, new SimpleMeterRegistry());
+        cuotaService = new CuotaServiceImpl(cuotaRepository, cuotaMapper, cuentaClient, cobroCuotasService, null, null,
+                resumenClienteService, moraCarteraService, analiticaCarteraService);
+    }
+
+    @Test
+    @DisplayName("Muchos hilos pagando la misma cuota: una sola transición a PAGADA y un solo débito")
+    void pagoConcurrenteDeLaMismaCuota() throws Exception {
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> futuros = new ArrayList<>(HILOS);
+        for (int i = 0; i < HILOS; i++) {
+            futuros.add(executor.submit(() -> {
+                salida.await();
+                for (int intento = 0; intento < INTENTOS_POR_HILO; intento++) {
+                    try {
+                        cuotaService.pagarCuota(CUOTA_ID, CUENTA_ID);
+                        exitosos.incrementAndGet();
+                    } catch (IllegalStateException ex) {
+                        rechazados.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        for (Future<?> futuro : futuros) {
+            futuro.get();
+        }
+
+        assertEquals(1, exitosos.get());
+        assertEquals(HILOS * INTENTOS_POR_HILO - 1, rechazados.get());
+        assertEquals(2L, estadoCuota.get());
+        assertEquals(new BigDecimal("900.00"), saldo.get());
+        assertEquals(1, transacciones.get());
+        verify(cuentaClient, times(1)).ajustarSaldo(eq(CUENTA_ID), any());
+        verify(cuentaClient, never()).updateCuenta(any(), any());
+    }
+}
@@ -1,17 +1,26 @@
 package org.nttdata.com.servicioprestamos.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.nttdata.com.servicioprestamos.client.ClienteClient;
 import org.nttdata.com.servicioprestamos.client.CuentaClient;
 import org.nttdata.com.servicioprestamos.client.TransaccionClient;
 import org.nttdata.com.servicioprestamos.client.dto.*;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties;
+import org.nttdata.com.servicioprestamos.dto.CotizacionRequest;
+import org.nttdata.com.servicioprestamos.dto.CotizacionResponse;
 import org.nttdata.com.servicioprestamos.dto.CuotaRequest;
 import org.nttdata.com.servicioprestamos.dto.EstadoPrestamoResponse;
+import org.nttdata.com.servicioprestamos.dto.FiltroPrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.OpcionCotizacionResponse;
+import org.nttdata.com.servicioprestamos.dto.PaginaResponse;
 import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
 import org.nttdata.com.servicioprestamos.dto.PrestamoResponse;
 import org.nttdata.com.servicioprestamos.exception.BadRequest;
@@ -21,16 +30,22 @@ import org.nttdata.com.servicioprestamos.models.Prestamo;
 import org.nttdata.com.servicioprestamos.producer.NotificacionProducer;
 import org.nttdata.com.servicioprestamos.producer.dto.NotificacionRequestK;
 import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.util.EjecutorParalelo;
 import org.nttdata.com.servicioprestamos.util.PrestamoMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,6 +64,24 @@ public class PrestamoServiceImplTest {
     private CuotaServiceImpl cuotaService;
     @Mock
     private NotificacionProducer notificacionProducer;
+    @Mock
+    private AnaliticaCarteraService analiticaCarteraService;
+    @Mock
+    private EvaluacionCreditoService evaluacionCreditoService;
+    @Mock
+    private CronogramaService cronogramaService;
+    @Mock
+    private MoraCarteraService moraCarteraService;
+    @Mock
+    private ResumenClienteService resumenClienteService;
+    @Spy
+    private AmortizacionService amortizacionService = new AmortizacionServiceImpl(new SimpleMeterRegistry(), 100);
+    @Spy
+    private ReglasPrestamoService reglasPrestamoService = new ReglasPrestamoServiceImpl(new ReglasPrestamoProperties());
+    @Spy
+    private EjecutorParalelo ejecutorParalelo = new EjecutorParalelo();
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private PrestamoServiceImpl prestamoService;
@@ -190,13 +223,8 @@ public class PrestamoServiceImplTest {
         when(prestamoRepository.save(prestamo)).thenReturn(prestamo);
         when(prestamoMapper.toDto(prestamo)).thenReturn(prestamoResponse);
 
-        when(transaccionClient.obteTransacciones(request.cuentaId()))
-                .thenReturn(List.of(
-                        TransaccionResponse.builder()
-                                .monto(new BigDecimal("10000"))
-                                .tipoTransaccion(TipoTransaccionResponse.builder().nombre("DEPÓSITO").build())
-                                .build()
-                ));
+        when(evaluacionCreditoService.obtenerResumen(request.cuentaId()))
+                .thenReturn(resumen("10000", "0"));
 
         PrestamoResponse result = prestamoService.createPrestamo(request);
 
@@ -207,14 +235,57 @@ public class PrestamoServiceImplTest {
         verify(prestamoRepository).save(prestamo);
     }
 
+    @Test
+    @DisplayName("Debe consultar cliente, cuenta y transacciones en paralelo al crear préstamo")
+    void createPrestamoConsultasEnParalelo() {
+        PrestamoRequest request = PrestamoRequest.builder()
+                .clienteId(1L).cuentaId(1L).monto(new BigDecimal("2000"))
+                .plazoMeses(12).tasaInteres(new BigDecimal("0.10"))
+                .build();
+        ClienteResponse cliente = ClienteResponse.builder()
+                .id(1L).nombre("Juan").dni("12345678").email("juan@test.com")
+                .estadoCliente(EstadoClienteResponse.builder().estado("ACTIVO").build())
+                .build();
+        Prestamo prestamo = Prestamo.builder().id(1L).build();
+        // Las tres consultas esperan a que las otras hayan empezado: solo terminan si corren a la vez
+        CountDownLatch enCurso = new CountDownLatch(3);
+        when(clienteClient.getClienteById(1L)).thenAnswer(inv -> esperarOtras(enCurso, cliente));
+        when(cuentaClient.getCuentaById(1L)).thenAnswer(inv -> esperarOtras(enCurso, mock(CuentaResponse.class)));
+        when(evaluacionCreditoService.obtenerResumen(1L)).thenAnswer(inv -> esperarOtras(enCurso, resumen("10000", "0")));
+        when(prestamoMapper.toEntity(request)).thenReturn(prestamo);
+        when(prestamoRepository.save(prestamo)).thenReturn(prestamo);
+        when(prestamoMapper.toDto(prestamo)).thenReturn(PrestamoResponse.builder().id(1L).build());
+
+        PrestamoResponse result = prestamoService.createPrestamo(request);
+
+        assertEquals(1L, result.id());
+        assertEquals(1L, meterRegistry.get("prestamos.operacion.latencia")
+                .tags("operacion", "creacion", "fase", "consultas").timer().count());
+        assertEquals(1L, meterRegistry.get("prestamos.operacion.latencia")
+                .tags("operacion", "creacion", "fase", "total").timer().count());
+    }
+
+    private static ResumenTransaccionesResponse resumen(String ingresos, String egresos) {
+        return ResumenTransaccionesResponse.builder()
+                .cuentaId(1L)
+                .ingresos(new BigDecimal(ingresos))
+                .egresos(new BigDecimal(egresos))
+                .porTipo(List.of())
+                .build();
+    }
+
+    private static <T> T esperarOtras(CountDownLatch enCurso, T resultado) throws InterruptedException {
+        enCurso.countDown();
+        if (!enCurso.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Las consultas se ejecutaron en serie");
+        }
+        return resultado;
+    }
+
     @Test
     @DisplayName("Debe lanzar BadRequest si egresos son mayores que ingresos")
     void evaluarCreditoEgresosMayores() {
-        when(transaccionClient.obteTransacciones(1L))
-                .thenReturn(List.of(
-                        TransaccionResponse.builder().monto(new BigDecimal("100")).tipoTransaccion(TipoTransaccionResponse.builder().nombre("DEPÓSITO").build()).build(),
-                        TransaccionResponse.builder().monto(new BigDecimal("200")).tipoTransaccion(TipoTransaccionResponse.builder().nombre("RETIRO").build()).build()
-                ));
+        when(evaluacionCreditoService.obtenerResumen(1L)).thenReturn(resumen("100", "200"));
 
         assertThrows(BadRequest.class, () -> prestamoService.evalularCredito(1L, new BigDecimal("500")));
     }
@@ -222,10 +293,7 @@ public class PrestamoServiceImplTest {
     @Test
     @DisplayName("Debe lanzar BadRequest si monto solicitado excede la capacidad de pago")
     void evaluarCreditoMontoMayorCapacidad() {
-        when(transaccionClient.obteTransacciones(1L))
-                .thenReturn(List.of(
-                        TransaccionResponse.builder().monto(new BigDecimal("1000")).tipoTransaccion(TipoTransaccionResponse.builder().nombre("DEPÓSITO").build()).build()
-                ));
+        when(evaluacionCreditoService.obtenerResumen(1L)).thenReturn(resumen("1000", "0"));
 
         assertThrows(BadRequest.class, () -> prestamoService.evalularCredito(1L, new BigDecimal("1000")));
     }
@@ -251,6 +319,76 @@ public class PrestamoServiceImplTest {
                 () -> prestamoService.evaluarTasaInteres(new BigDecimal("0.50"), new BigDecimal("20000"), 12));
     }
 
+    @Test
+    @DisplayName("La cotización consulta la capacidad una vez y devuelve solo combinaciones válidas")
+    void cotizarPrestamoGrilla() {
+        when(cuentaClient.getCuentaById(1L)).thenReturn(mock(CuentaResponse.class));
+        when(evaluacionCreditoService.obtenerResumen(1L)).thenReturn(resumen("100000", "0"));
+
+        CotizacionResponse response = prestamoService.cotizarPrestamo(CotizacionRequest.builder()
+                .cuentaId(1L)
+                .monto(new BigDecimal("5000"))
+                .build());
+
+        // 55 plazos x 36 tasas; con 5,000 solo son válidos plazos de 6 a 24 y tasas desde 10%
+        assertEquals(1980, response.combinacionesEvaluadas());
+        assertEquals(19 * 31, response.opciones().size());
+        assertEquals(new BigDecimal("30000.0"), response.capacidadPago());
+        OpcionCotizacionResponse primera = response.opciones().get(0);
+        assertEquals(6, primera.plazoMeses());
+        assertEquals(0, new BigDecimal("0.10").compareTo(primera.tasaInteres()));
+        assertEquals(new BigDecimal("916.67"), primera.cuota());
+        assertTrue(response.opciones().stream().allMatch(o -> reglasPrestamoService
+                .evaluar(new BigDecimal("5000"), o.plazoMeses(), o.tasaInteres()).isEmpty()));
+        verify(evaluacionCreditoService, times(1)).obtenerResumen(1L);
+        verify(cuentaClient, times(1)).getCuentaById(1L);
+    }
+
+    @Test
+    @DisplayName("La cotización rechaza rangos inválidos sin consultar servicios remotos")
+    void cotizarPrestamoRangoInvalido() {
+        assertThrows(BadRequest.class, () -> prestamoService.cotizarPrestamo(CotizacionRequest.builder()
+                .cuentaId(1L)
+                .monto(new BigDecimal("5000"))
+                .plazoMinimo(24)
+                .plazoMaximo(12)
+                .build()));
+        verifyNoInteractions(transaccionClient, cuentaClient);
+    }
+
+    @Test
+    @DisplayName("La cotización rechaza un paso de tasa que desborda la cantidad de combinaciones")
+    void cotizarPrestamoPasoDiminuto() {
+        BadRequest error = assertThrows(BadRequest.class, () -> prestamoService.cotizarPrestamo(CotizacionRequest.builder()
+                .cuentaId(1L)
+                .monto(new BigDecimal("5000"))
+                .plazoMinimo(12)
+                .plazoMaximo(12)
+                .tasaMinima(BigDecimal.ZERO)
+                .tasaMaxima(new BigDecimal("5000000"))
+                .pasoTasa(new BigDecimal("0.000001"))
+                .build()));
+        assertTrue(error.getMessage().contains("20000"));
+        verifyNoInteractions(transaccionClient, cuentaClient);
+    }
+
+    @Test
+    @DisplayName("Debe reportar todas las reglas incumplidas en un solo mensaje")
+    void evaluarReglasTodasLasViolaciones() {
+        PrestamoRequest request = PrestamoRequest.builder()
+                .monto(new BigDecimal("500"))
+                .plazoMeses(3)
+                .tasaInteres(new BigDecimal("0.50"))
+                .build();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> prestamoService.evaluarReglas(request));
+
+        assertTrue(ex.getMessage().contains("El monto mínimo permitido es 1,000."));
+        assertTrue(ex.getMessage().contains("El plazo mínimo permitido es de 6 meses."));
+        assertTrue(ex.getMessage().contains("La tasa máxima es del 40%."));
+    }
+
     @Test
     @DisplayName("Debe actualizar préstamo exitosamente cuando todos los datos son válidos")
     void updatePrestamoSuccess() {
@@ -287,13 +425,8 @@ public class PrestamoServiceImplTest {
         when(clienteClient.getClienteById(1L)).thenReturn(cliente);
         when(cuentaClient.getCuentaById(1L)).thenReturn(cuenta);
 
-        when(transaccionClient.obteTransacciones(request.cuentaId()))
-                .thenReturn(List.of(
-                        TransaccionResponse.builder()
-                                .monto(new BigDecimal("10000"))
-                                .tipoTransaccion(TipoTransaccionResponse.builder().nombre("DEPÓSITO").build())
-                                .build()
-                ));
+        when(evaluacionCreditoService.obtenerResumen(request.cuentaId()))
+                .thenReturn(resumen("10000", "0"));
         when(prestamoMapper.toEntity(request)).thenReturn(prestamo);
         when(prestamoRepository.findById(prestamoId)).thenReturn(Optional.of(prestamo));
         when(prestamoRepository.save(prestamo)).thenReturn(prestamo);
@@ -307,6 +440,44 @@ public class PrestamoServiceImplTest {
         verify(prestamoRepository).findById(prestamoId);
         verify(prestamoRepository).save(prestamo);
         verify(prestamoMapper).toDto(prestamo);
+        verify(cronogramaService).recalcular(eq(prestamo), any());
+    }
+    @Test
+    @DisplayName("Actualizar un préstamo prepagado sin cambiar monto, plazo, tasa ni fechas no recalcula su cronograma")
+    void updatePrestamoSinCambiosDeCronograma() {
+        Long prestamoId = 1L;
+        Date desembolso = Date.valueOf(LocalDate.now().minusMonths(2));
+        PrestamoRequest request = PrestamoRequest.builder()
+                .clienteId(1L)
+                .cuentaId(2L)
+                .monto(new BigDecimal("2000"))
+                .plazoMeses(12)
+                .tasaInteres(new BigDecimal("0.1"))
+                .estadoPrestamoId(2L)
+                .fechaDesembolso(new java.util.Date(desembolso.getTime()))
+                .build();
+        Prestamo prestamo = Prestamo.builder()
+                .id(prestamoId).clienteId(1L).cuentaId(1L).monto(new BigDecimal("2000.00")).plazoMeses(12)
+                .tasaInteres(new BigDecimal("0.10")).fechaDesembolso(desembolso)
+                .estadoPrestamo(EstadoPrestamo.builder().id(2L).nombre("APROBADO").build())
+                .capitalPrepagado(new BigDecimal("500.00")).cuotasPrepagadas(3)
+                .build();
+        when(clienteClient.getClienteById(1L)).thenReturn(ClienteResponse.builder()
+                .id(1L).estadoCliente(EstadoClienteResponse.builder().estado("ACTIVO").build()).build());
+        when(cuentaClient.getCuentaById(2L)).thenReturn(CuentaResponse.builder()
+                .id(2L).clienteId(1L).saldo(new BigDecimal("50000"))
+                .estadoCuenta(EstadoCuentaResponse.builder().id(1L).nombre("ACTIVA").build())
+                .build());
+        when(evaluacionCreditoService.obtenerResumen(2L)).thenReturn(resumen("10000", "0"));
+        when(prestamoMapper.toEntity(request)).thenReturn(prestamo);
+        when(prestamoRepository.findById(prestamoId)).thenReturn(Optional.of(prestamo));
+        when(prestamoRepository.save(prestamo)).thenReturn(prestamo);
+
+        prestamoService.updatePrestamo(prestamoId, request);
+
+        assertEquals(2L, prestamo.getCuentaId());
+        assertEquals(new BigDecimal("500.00"), prestamo.getCapitalPrepagado());
+        verify(cronogramaService, never()).recalcular(any(), any());
     }
     @Test
     @DisplayName("Prueba de actualizar préstamo ResourceNotFound")
@@ -382,6 +553,7 @@ public class PrestamoServiceImplTest {
         when(clienteClient.getClienteById(1L)).thenReturn(cliente);
         when(cuentaClient.getCuentaById(1L)).thenReturn(cuenta);
         when(prestamoRepository.findByClienteIdAndEstadoPrestamoId(1L, 2L)).thenReturn(List.of());
+        when(prestamoRepository.reservarAprobacion(List.of(1L))).thenReturn(List.of(1L));
         when(prestamoRepository.save(any(Prestamo.class))).thenReturn(prestamo);
         when(prestamoMapper.toDto(any(Prestamo.class))).thenReturn(response);
 
@@ -392,11 +564,45 @@ public class PrestamoServiceImplTest {
         assertEquals(1L, result.cuentaId());
 
         verify(transaccionClient).crearTransaccion(any(TransaccionRequest.class));
-        verify(cuotaService, times(prestamo.getPlazoMeses())).saveCuota(any(CuotaRequest.class));
-        verify(cuentaClient).updateCuenta(eq(1L), any(CuentaRequest.class));
+        verify(evaluacionCreditoService).invalidar(1L);
+        // 5000 * 1.10 / 12 = 458.33 por cuota (método PLANO por defecto)
+        verify(cuotaService).saveCuotas(argThat(cuotas -> cuotas.size() == prestamo.getPlazoMeses()
+                && cuotas.stream().allMatch(c -> c.monto().equals(new BigDecimal("458.33")))));
+        verify(cuotaService, never()).saveCuota(any(CuotaRequest.class));
+        verify(analiticaCarteraService).registrarCambio(
+                argThat(antes -> antes.estadoPrestamoId() == 1L && antes.fechaDesembolso() == null),
+                argThat(despues -> despues.estadoPrestamoId() == 2L && despues.fechaDesembolso() != null));
+        verify(cuentaClient).ajustarSaldo(1L, new BigDecimal("5000"));
+        verify(cuentaClient, never()).updateCuenta(any(), any());
         verify(notificacionProducer).enviarNotificacion(any(NotificacionRequestK.class));
     }
     @Test
+    @DisplayName("Confirmar varias aprobaciones guarda todas las cuotas en un solo lote")
+    void confirmarAprobacionesEnLote() {
+        ClienteResponse cliente = ClienteResponse.builder()
+                .id(1L).nombre("Juan").dni("12345678").email("juan@test.com")
+                .estadoCliente(EstadoClienteResponse.builder().estado("ACTIVO").build())
+                .build();
+        CuentaResponse cuenta = CuentaResponse.builder().id(1L).clienteId(1L).build();
+        Prestamo primero = Prestamo.builder().id(1L).clienteId(1L).cuentaId(1L).monto(new BigDecimal("5000"))
+                .plazoMeses(12).tasaInteres(new BigDecimal("0.10"))
+                .estadoPrestamo(EstadoPrestamo.builder().id(1L).build()).build();
+        Prestamo segundo = Prestamo.builder().id(2L).clienteId(1L).cuentaId(1L).monto(new BigDecimal("2000"))
+                .plazoMeses(6).tasaInteres(new BigDecimal("0.10"))
+                .estadoPrestamo(EstadoPrestamo.builder().id(1L).build()).build();
+        when(prestamoRepository.saveAll(anyList())).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        prestamoService.confirmarAprobaciones(List.of(
+                new PrestamoServiceImpl.DatosAprobacion(primero, cliente, cuenta),
+                new PrestamoServiceImpl.DatosAprobacion(segundo, cliente, cuenta)), LocalDate.now());
+
+        verify(cuotaService, times(1)).saveCuotas(argThat(cuotas -> cuotas.size() == 18));
+        verify(prestamoRepository, times(1)).saveAll(argThat(prestamos -> ((List<Prestamo>) prestamos).stream()
+                .allMatch(p -> p.getEstadoPrestamo().getId() == 2L && p.getFechaDesembolso() != null)));
+        verify(prestamoRepository, never()).save(any(Prestamo.class));
+        verify(notificacionProducer, times(2)).enviarNotificacion(any(NotificacionRequestK.class));
+    }
+    @Test
     @DisplayName("Debe lanzar ResourceNotFound cuando el préstamo no existe")
     void aceptarPrestamoNotFound() {
         when(prestamoRepository.findById(99L)).thenReturn(Optional.empty());
@@ -439,6 +645,26 @@ public class PrestamoServiceImplTest {
         assertThrows(BadRequest.class, () -> prestamoService.aceptarPrestamo(1L));
     }
     @Test
+    @DisplayName("Aceptar préstamo reservado por otra aprobación - No desembolsa")
+    void aceptarPrestamoReservado() {
+        Prestamo prestamo = Prestamo.builder()
+                .id(1L).clienteId(1L).cuentaId(1L).monto(new BigDecimal("5000"))
+                .plazoMeses(12).tasaInteres(new BigDecimal("0.10"))
+                .estadoPrestamo(EstadoPrestamo.builder().id(1L).nombre("PENDIENTE").build())
+                .build();
+
+        when(prestamoRepository.findById(1L)).thenReturn(Optional.of(prestamo));
+        when(clienteClient.getClienteById(1L)).thenReturn(mock(ClienteResponse.class));
+        when(cuentaClient.getCuentaById(1L)).thenReturn(mock(CuentaResponse.class));
+        when(prestamoRepository.findByClienteIdAndEstadoPrestamoId(1L, 2L)).thenReturn(List.of());
+        when(prestamoRepository.reservarAprobacion(List.of(1L))).thenReturn(List.of());
+
+        BadRequest error = assertThrows(BadRequest.class, () -> prestamoService.aceptarPrestamo(1L));
+        assertEquals("El préstamo ya tiene una aprobación en curso", error.getMessage());
+        verifyNoInteractions(transaccionClient);
+        verify(prestamoRepository, never()).save(any());
+    }
+    @Test
     @DisplayName("Prueba de obtener préstamos por ID de cliente")
     void getPrestamosByClienteIdSuccess() {
         Long clienteId = 1L;
@@ -509,4 +735,83 @@ public class PrestamoServiceImplTest {
         assertEquals("Cliente no encontrado con id: " + clienteId, exception.getMessage());
         verify(clienteClient).getClienteById(clienteId);
     }
+
+    @Test
+    @DisplayName("Buscar prestamos por cursor - Hay mas paginas")
+    void buscarPrestamosHayMas() {
+        List<Prestamo> prestamos = List.of(
+                Prestamo.builder().id(11L).build(),
+                Prestamo.builder().id(12L).build(),
+                Prestamo.builder().id(13L).build());
+        List<PrestamoResponse> respuesta = List.of(
+                PrestamoResponse.builder().id(11L).build(),
+                PrestamoResponse.builder().id(12L).build());
+        doReturn(prestamos).when(prestamoRepository).findBy(any(Specification.class), any());
+        when(prestamoMapper.toDtoList(prestamos.subList(0, 2))).thenReturn(respuesta);
+
+        PaginaResponse<PrestamoResponse> result = prestamoService.buscarPrestamos(FiltroPrestamoRequest.builder()
+                .clienteId(1L)
+                .despuesDe(10L)
+                .tamanio(2)
+                .build());
+
+        assertAll(
+                () -> assertEquals(respuesta, result.contenido()),
+                () -> assertEquals(2, result.tamanio()),
+                () -> assertTrue(result.hayMas()),
+                () -> assertEquals("12", result.siguiente())
+        );
+    }
+
+    @Test
+    @DisplayName("Buscar prestamos por cursor - Ultima pagina")
+    void buscarPrestamosUltimaPagina() {
+        List<Prestamo> prestamos = List.of(Prestamo.builder().id(11L).build());
+        doReturn(prestamos).when(prestamoRepository).findBy(any(Specification.class), any());
+        when(prestamoMapper.toDtoList(prestamos)).thenReturn(List.of(PrestamoResponse.builder().id(11L).build()));
+
+        PaginaResponse<PrestamoResponse> result = prestamoService.buscarPrestamos(FiltroPrestamoRequest.builder().build());
+
+        assertAll(
+                () -> assertEquals(1, result.tamanio()),
+                () -> assertFalse(result.hayMas()),
+                () -> assertNull(result.siguiente())
+        );
+    }
+
+    @Test
+    @DisplayName("Aceptar préstamo con cronograma virtual - No inserta cuotas")
+    void aceptarPrestamoCronogramaVirtual() {
+        ReflectionTestUtils.setField(prestamoService, "cuotasVirtuales", true);
+        Prestamo prestamo = Prestamo.builder()
+                .id(1L)
+                .clienteId(1L)
+                .cuentaId(1L)
+                .monto(new BigDecimal("5000"))
+                .plazoMeses(12)
+                .tasaInteres(new BigDecimal("0.10"))
+                .estadoPrestamo(EstadoPrestamo.builder().id(1L).nombre("PENDIENTE").build())
+                .build();
+        when(prestamoRepository.findById(1L)).thenReturn(Optional.of(prestamo));
+        when(clienteClient.getClienteById(1L)).thenReturn(ClienteResponse.builder()
+                .id(1L).nombre("Juan").dni("12345678").email("juan@test.com")
+                .estadoCliente(EstadoClienteResponse.builder().estado("ACTIVO").build())
+                .build());
+        when(cuentaClient.getCuentaById(1L)).thenReturn(CuentaResponse.builder()
+                .id(1L).clienteId(1L).saldo(new BigDecimal("1000"))
+                .tipoCuenta(TipoCuentaResponse.builder().id(1L).nombre("AHORROS").build())
+                .estadoCuenta(EstadoCuentaResponse.builder().id(1L).nombre("ACTIVA").build())
+                .build());
+        when(prestamoRepository.findByClienteIdAndEstadoPrestamoId(1L, 2L)).thenReturn(List.of());
+        when(prestamoRepository.reservarAprobacion(List.of(1L))).thenReturn(List.of(1L));
+        when(prestamoRepository.save(any(Prestamo.class))).thenReturn(prestamo);
+        when(prestamoMapper.toDto(any(Prestamo.class))).thenReturn(PrestamoResponse.builder().id(1L).build());
+
+        prestamoService.aceptarPrestamo(1L);
+
+        assertTrue(prestamo.getCronogramaVirtual());
+        assertNotNull(prestamo.getFechaDesembolso());
+        verify(cuotaService, never()).saveCuotas(any());
+        verify(prestamoRepository).save(prestamo);
+    }
 }
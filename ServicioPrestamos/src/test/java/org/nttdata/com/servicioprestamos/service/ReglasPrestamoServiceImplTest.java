@@ -0,0 +1,125 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties.Categoria;
+import org.nttdata.com.servicioprestamos.configuration.ReglasPrestamoProperties.Fila;
+import org.nttdata.com.servicioprestamos.dto.PrestamoRequest;
+import org.nttdata.com.servicioprestamos.dto.ValidacionPrestamoResponse;
+import org.nttdata.com.servicioprestamos.util.TablaDecision;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReglasPrestamoServiceImplTest {
+    private final ReglasPrestamoProperties properties = new ReglasPrestamoProperties();
+    private final ReglasPrestamoServiceImpl reglasPrestamoService = new ReglasPrestamoServiceImpl(properties);
+
+    @Test
+    @DisplayName("Un préstamo dentro de todos los límites no tiene violaciones")
+    void prestamoValido() {
+        assertTrue(reglasPrestamoService.evaluar(new BigDecimal("2000"), 12, new BigDecimal("0.10")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Los límites estrictos y no estrictos se respetan en el borde")
+    void limitesEnElBorde() {
+        // monto >= 1000 es válido, 999.99 no
+        assertTrue(reglasPrestamoService.evaluar(new BigDecimal("1000"), 12, new BigDecimal("0.10"), Categoria.MONTO).isEmpty());
+        assertEquals(List.of("El monto mínimo permitido es 1,000."),
+                reglasPrestamoService.evaluar(new BigDecimal("999.99"), 12, new BigDecimal("0.10"), Categoria.MONTO));
+        // plazo <= 12 con monto > 20000
+        assertEquals(List.of("Para plazos de hasta 12 meses el monto máximo es 20,000."),
+                reglasPrestamoService.evaluar(new BigDecimal("20000.01"), 12, new BigDecimal("0.10"), Categoria.MONTO));
+        assertTrue(reglasPrestamoService.evaluar(new BigDecimal("20000.01"), 13, new BigDecimal("0.10"), Categoria.MONTO).isEmpty());
+        // tasa > 0.40
+        assertTrue(reglasPrestamoService.evaluar(new BigDecimal("2000"), 12, new BigDecimal("0.40"), Categoria.TASA).isEmpty());
+        assertEquals(List.of("La tasa máxima es del 40%."),
+                reglasPrestamoService.evaluar(new BigDecimal("2000"), 12, new BigDecimal("0.400001"), Categoria.TASA));
+    }
+
+    @Test
+    @DisplayName("Devuelve todas las violaciones en el orden de la tabla")
+    void todasLasViolaciones() {
+        List<String> violaciones = reglasPrestamoService.evaluar(new BigDecimal("5000"), 61, new BigDecimal("0.45"));
+
+        assertEquals(List.of(
+                "Para plazos de 36 meses o más el monto mínimo es 80,000.",
+                "El plazo máximo permitido es de 60 meses.",
+                "Para montos menores a 10,000 el plazo máximo es 24 meses.",
+                "No se permiten plazos mayores a 36 meses con tasas superiores al 20%.",
+                "La tasa máxima es del 40%.",
+                "No se permiten tasas mayores al 30% en plazos superiores a 48 meses."
+        ), violaciones);
+    }
+
+    @Test
+    @DisplayName("La evaluación en lote devuelve un resultado por solicitud")
+    void evaluarLote() {
+        List<ValidacionPrestamoResponse> resultados = reglasPrestamoService.evaluarLote(List.of(
+                PrestamoRequest.builder().monto(new BigDecimal("2000")).plazoMeses(12).tasaInteres(new BigDecimal("0.10")).build(),
+                PrestamoRequest.builder().monto(new BigDecimal("500")).plazoMeses(12).tasaInteres(new BigDecimal("0.10")).build(),
+                PrestamoRequest.builder().monto(new BigDecimal("2000")).build()
+        ));
+
+        assertEquals(3, resultados.size());
+        assertTrue(resultados.get(0).valido());
+        assertFalse(resultados.get(1).valido());
+        assertEquals(1, resultados.get(1).indice());
+        assertEquals(List.of("El monto mínimo permitido es 1,000."), resultados.get(1).violaciones());
+        assertFalse(resultados.get(2).valido());
+    }
+
+    @Test
+    @DisplayName("Un monto fuera de rango es una violación de su solicitud, no un error del lote")
+    void evaluarLoteFueraDeRango() {
+        List<ValidacionPrestamoResponse> resultados = reglasPrestamoService.evaluarLote(List.of(
+                PrestamoRequest.builder().monto(new BigDecimal("1e30")).plazoMeses(12).tasaInteres(new BigDecimal("0.10")).build(),
+                PrestamoRequest.builder().monto(new BigDecimal("2000")).plazoMeses(12).tasaInteres(new BigDecimal("0.10")).build()
+        ));
+
+        assertEquals(List.of("El monto o la tasa de interés están fuera de rango."), resultados.get(0).violaciones());
+        assertTrue(resultados.get(1).valido());
+    }
+
+    @Test
+    @DisplayName("Al refrescar la configuración se recompila la tabla")
+    void recompilarTrasRefresco() {
+        properties.setFilas(List.of(new Fila(Categoria.PLAZO, null, ">= 24", null, "Plazo máximo 23 meses.")));
+        reglasPrestamoService.recompilar();
+
+        assertEquals(List.of("Plazo máximo 23 meses."),
+                reglasPrestamoService.evaluar(new BigDecimal("500"), 24, new BigDecimal("0.10")));
+        assertTrue(reglasPrestamoService.evaluar(new BigDecimal("500"), 23, new BigDecimal("0.10")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Una celda inválida no reemplaza la tabla vigente")
+    void celdaInvalida() {
+        properties.setFilas(List.of(new Fila(Categoria.MONTO, "<abc", null, null, "Monto inválido.")));
+
+        assertThrows(IllegalArgumentException.class, reglasPrestamoService::recompilar);
+        assertEquals(List.of("El monto mínimo permitido es 1,000."),
+                reglasPrestamoService.evaluar(new BigDecimal("500"), 12, new BigDecimal("0.10")));
+    }
+
+    @Test
+    @DisplayName("Monto máximo permitido por la tabla para un plazo y una tasa")
+    void montoMaximo() {
+        TablaDecision tabla = reglasPrestamoService.tablaVigente();
+        long tasa = 180_000L;
+
+        // Tope 120,000: la regla de 100,000 y luego la de plazos cortos (20,000) lo bajan
+        assertEquals(2_000_000L, tabla.montoMaximo(12_000_000L, 12, tasa));
+        assertEquals(10_000_000L, tabla.montoMaximo(12_000_000L, 40, tasa));
+        assertEquals(3_000_000L, tabla.montoMaximo(3_000_000L, 24, tasa));
+        // Para 36 meses o más el mínimo es 80,000: con tope 30,000 no hay monto válido
+        assertEquals(-1L, tabla.montoMaximo(3_000_000L, 36, tasa));
+        assertEquals(-1L, tabla.montoMaximo(99_999L, 12, tasa));
+        // Ningún monto es válido con un plazo fuera de rango
+        assertEquals(-1L, tabla.montoMaximo(3_000_000L, 72, tasa));
+    }
+}
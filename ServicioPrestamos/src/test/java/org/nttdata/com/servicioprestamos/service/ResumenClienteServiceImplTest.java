@@ -0,0 +1,166 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.dto.ResumenClienteResponse;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.models.ResumenPrestamo;
+import org.nttdata.com.servicioprestamos.repository.ResumenPrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.ResumenPrestamoRepositoryCustom.FilaPrestamo;
+import org.nttdata.com.servicioprestamos.util.ActualizacionModeloLectura;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ResumenClienteServiceImplTest {
+    @Mock
+    private ResumenPrestamoRepository resumenPrestamoRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ResumenClienteServiceImpl resumenClienteService;
+
+    @BeforeEach
+    void setUp() {
+        resumenClienteService = new ResumenClienteServiceImpl(resumenPrestamoRepository,
+                new AmortizacionServiceImpl(new SimpleMeterRegistry(), 100), new ActualizacionModeloLectura(transactionManager),
+                new SimpleMeterRegistry());
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> new SimpleTransactionStatus());
+    }
+
+    private static FilaPrestamo cuota(long prestamoId, int numero, String vencimiento, long estado, String saldo) {
+        return new FilaPrestamo(prestamoId, 5L, 11L, 2L, "APROBADO", new BigDecimal("900.00"),
+                new BigDecimal("0.12"), 3, MetodoAmortizacion.FRANCES, LocalDate.parse("2025-01-10"), false,
+                numero, LocalDate.parse(vencimiento), estado, new BigDecimal(saldo));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recorrer(Collection<Long> ids, FilaPrestamo... filas) {
+        doAnswer(invocacion -> {
+            Consumer<FilaPrestamo> consumidor = invocacion.getArgument(1);
+            for (FilaPrestamo fila : filas) {
+                consumidor.accept(fila);
+            }
+            return null;
+        }).when(resumenPrestamoRepository).recorrerPrestamos(ids == null ? isNull() : eq(ids), any(Consumer.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ResumenPrestamo> guardados() {
+        ArgumentCaptor<Collection<ResumenPrestamo>> resumenes = ArgumentCaptor.forClass(Collection.class);
+        verify(resumenPrestamoRepository).guardar(resumenes.capture());
+        return List.copyOf(resumenes.getValue());
+    }
+
+    @Test
+    @DisplayName("Actualizar suma el saldo pendiente y toma la cuota impaga más próxima")
+    void actualizarSaldoYProximaCuota() {
+        recorrer(List.of(7L),
+                cuota(7L, 1, "2025-02-10", 2L, "0.00"),
+                cuota(7L, 2, "2025-03-10", 3L, "300.00"),
+                cuota(7L, 3, "2025-04-10", 1L, "250.00"));
+
+        resumenClienteService.actualizar(List.of(7L, 7L));
+
+        verify(resumenPrestamoRepository).bloquear(List.of(7L));
+        ResumenPrestamo resumen = guardados().getFirst();
+        assertEquals(5L, resumen.getClienteId());
+        assertEquals(new BigDecimal("550.00"), resumen.getSaldoPendiente());
+        assertEquals(2, resumen.getCuotasPendientes());
+        assertEquals(2, resumen.getProximaCuotaNumero());
+        assertEquals(LocalDate.parse("2025-03-10"), resumen.getProximaCuotaVencimiento());
+        assertEquals(new BigDecimal("300.00"), resumen.getProximaCuotaMonto());
+        verify(resumenPrestamoRepository).eliminar(List.of());
+    }
+
+    @Test
+    @DisplayName("Un préstamo virtual toma las cuotas del cronograma y uno eliminado sale del resumen")
+    void actualizarVirtualYEliminado() {
+        recorrer(List.of(3L, 8L),
+                new FilaPrestamo(3L, 5L, 11L, 2L, "APROBADO", new BigDecimal("1200.00"), BigDecimal.ZERO, 3,
+                        MetodoAmortizacion.PLANO, LocalDate.parse("2025-01-15"), true, null, null, null, null));
+
+        resumenClienteService.actualizar(List.of(8L, 3L));
+
+        ResumenPrestamo resumen = guardados().getFirst();
+        assertEquals(3L, resumen.getPrestamoId());
+        assertEquals(new BigDecimal("1200.00"), resumen.getSaldoPendiente());
+        assertEquals(3, resumen.getCuotasPendientes());
+        assertEquals(1, resumen.getProximaCuotaNumero());
+        assertEquals(LocalDate.parse("2025-02-15"), resumen.getProximaCuotaVencimiento());
+        verify(resumenPrestamoRepository).eliminar(List.of(8L));
+    }
+
+    @Test
+    @DisplayName("Un fallo al actualizar se cuenta y no llega al llamador")
+    void actualizarConFallo() {
+        when(resumenPrestamoRepository.prestamosDeCuotas(List.of(40L))).thenReturn(List.of(4L));
+        doThrow(new IllegalStateException("bloqueo")).when(resumenPrestamoRepository).bloquear(List.of(4L));
+
+        assertDoesNotThrow(() -> resumenClienteService.actualizarPorCuotas(List.of(40L)));
+
+        verify(resumenPrestamoRepository, never()).guardar(any());
+    }
+
+    @Test
+    @DisplayName("Obtener resumen totaliza los préstamos del cliente y marca los atrasados")
+    void obtenerResumen() {
+        LocalDate vencida = LocalDate.now().minusDays(5);
+        LocalDate futura = LocalDate.now().plusDays(20);
+        when(resumenPrestamoRepository.findByClienteIdOrderByPrestamoId(5L)).thenReturn(List.of(
+                ResumenPrestamo.builder().prestamoId(1L).clienteId(5L).estadoPrestamoId(2L).estadoPrestamo("APROBADO")
+                        .saldoPendiente(new BigDecimal("300.00")).cuotasPendientes(1)
+                        .proximaCuotaNumero(4).proximaCuotaVencimiento(vencida).build(),
+                ResumenPrestamo.builder().prestamoId(2L).clienteId(5L).estadoPrestamoId(2L).estadoPrestamo("APROBADO")
+                        .saldoPendiente(new BigDecimal("1200.50")).cuotasPendientes(6)
+                        .proximaCuotaNumero(1).proximaCuotaVencimiento(futura).build(),
+                ResumenPrestamo.builder().prestamoId(3L).clienteId(5L).estadoPrestamoId(5L).estadoPrestamo("FINALIZADO")
+                        .saldoPendiente(BigDecimal.ZERO).cuotasPendientes(0).build()));
+
+        ResumenClienteResponse resumen = resumenClienteService.obtenerResumen(5L);
+
+        assertEquals(3, resumen.totalPrestamos());
+        assertEquals(2, resumen.prestamosActivos());
+        assertEquals(new BigDecimal("1500.50"), resumen.saldoPendiente());
+        assertEquals(vencida, resumen.proximoVencimiento());
+        assertTrue(resumen.prestamos().get(0).atrasado());
+        assertFalse(resumen.prestamos().get(1).atrasado());
+        assertFalse(resumen.prestamos().get(2).atrasado());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Reconstruir vacía la tabla y vuelve a escribir un resumen por préstamo")
+    void reconstruir() {
+        recorrer(null,
+                cuota(1L, 1, "2025-02-10", 1L, "300.00"),
+                cuota(1L, 2, "2025-03-10", 1L, "300.00"),
+                cuota(2L, 1, "2025-02-10", 2L, "0.00"));
+
+        long escritos = resumenClienteService.reconstruir();
+
+        assertEquals(2, escritos);
+        verify(resumenPrestamoRepository).eliminarTodos();
+        List<ResumenPrestamo> resumenes = guardados();
+        assertEquals(new BigDecimal("600.00"), resumenes.get(0).getSaldoPendiente());
+        assertEquals(0, resumenes.get(1).getCuotasPendientes());
+        assertNull(resumenes.get(1).getProximaCuotaNumero());
+    }
+}
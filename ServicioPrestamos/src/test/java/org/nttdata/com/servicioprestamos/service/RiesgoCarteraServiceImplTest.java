@@ -0,0 +1,157 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.dto.PerdidaEsperadaResponse;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.models.MetodoAmortizacion;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepository;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.FlujoPendiente;
+import org.nttdata.com.servicioprestamos.repository.CuotaRepositoryCustom.PrestamoVirtual;
+import org.nttdata.com.servicioprestamos.util.CarteraRiesgo;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class RiesgoCarteraServiceImplTest {
+    @Mock
+    private CuotaRepository cuotaRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AmortizacionService amortizacionService = new AmortizacionServiceImpl(new SimpleMeterRegistry(), 100);
+    private final List<RiesgoCarteraServiceImpl> servicios = new ArrayList<>();
+    private final List<FlujoPendiente> flujos = new ArrayList<>();
+    private final List<PrestamoVirtual> virtuales = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        LocalDate hoy = LocalDate.now();
+        // 40 préstamos de 12 cuotas de 100.00; los múltiplos de 5 con la primera atrasada
+        for (long prestamo = 1; prestamo <= 40; prestamo++) {
+            for (int numero = 0; numero < 12; numero++) {
+                boolean atrasada = prestamo % 5 == 0 && numero == 0;
+                flujos.add(new FlujoPendiente(prestamo, new BigDecimal("100.00"),
+                        atrasada ? hoy.minusDays(10) : hoy.plusMonths(numero), atrasada));
+            }
+        }
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> new SimpleTransactionStatus());
+        lenient().doAnswer(invocacion -> {
+            flujos.forEach(invocacion.<Consumer<FlujoPendiente>>getArgument(0));
+            return null;
+        }).when(cuotaRepository).recorrerFlujosPendientes(any());
+        lenient().doAnswer(invocacion -> {
+            virtuales.forEach(invocacion.<Consumer<PrestamoVirtual>>getArgument(0));
+            return null;
+        }).when(cuotaRepository).recorrerPrestamosVirtuales(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        servicios.forEach(RiesgoCarteraServiceImpl::cerrar);
+    }
+
+    private RiesgoCarteraServiceImpl servicio(int hilos, double pd, double lgd, double correlacion, int horizonte) {
+        RiesgoCarteraServiceImpl servicio = new RiesgoCarteraServiceImpl(cuotaRepository, amortizacionService,
+                new SimpleMeterRegistry(), transactionManager, hilos, 1000, 42L, pd, pd, lgd, correlacion, horizonte);
+        servicios.add(servicio);
+        return servicio;
+    }
+
+    @Test
+    @DisplayName("Con incumplimiento seguro en el mes 0 la pérdida de cada camino es la exposición por LGD")
+    void incumplimientoSeguro() {
+        PerdidaEsperadaResponse result = servicio(2, 1.0, 0.5, 0.0, 1).simularPerdidas(200, 7L);
+
+        assertAll(
+                () -> assertEquals(40, result.prestamos()),
+                () -> assertEquals(480, result.flujos()),
+                () -> assertEquals(new BigDecimal("48000.00"), result.exposicion()),
+                () -> assertEquals(new BigDecimal("24000.00"), result.perdidaEsperada()),
+                () -> assertEquals(new BigDecimal("24000.00"), result.var99()),
+                () -> assertEquals(new BigDecimal("24000.00"), result.perdidaCola99())
+        );
+    }
+
+    @Test
+    @DisplayName("La cartera se lee en una transacción de solo lectura que se confirma antes de simular")
+    void cargaEnTransaccionCorta() {
+        servicio(2, 0.1, 0.45, 0.2, 12).simularPerdidas(100, 7L);
+
+        ArgumentCaptor<TransactionDefinition> definicion = ArgumentCaptor.forClass(TransactionDefinition.class);
+        InOrder orden = inOrder(transactionManager, cuotaRepository);
+        orden.verify(transactionManager).getTransaction(definicion.capture());
+        orden.verify(cuotaRepository).recorrerFlujosPendientes(any());
+        orden.verify(cuotaRepository).recorrerPrestamosVirtuales(any());
+        orden.verify(transactionManager).commit(any());
+        assertTrue(definicion.getValue().isReadOnly());
+    }
+
+    @Test
+    @DisplayName("Misma semilla, mismo resultado con cualquier número de hilos")
+    void resultadoIndependienteDeLosHilos() {
+        PerdidaEsperadaResponse unHilo = servicio(1, 0.1, 0.45, 0.2, 12).simularPerdidas(3000, 99L);
+        PerdidaEsperadaResponse cuatroHilos = servicio(4, 0.1, 0.45, 0.2, 12).simularPerdidas(3000, 99L);
+        PerdidaEsperadaResponse otraSemilla = servicio(4, 0.1, 0.45, 0.2, 12).simularPerdidas(3000, 100L);
+
+        assertEquals(unHilo.perdidaEsperada(), cuatroHilos.perdidaEsperada());
+        assertEquals(unHilo.var99(), cuatroHilos.var99());
+        assertEquals(unHilo.perdidaCola99(), cuatroHilos.perdidaCola99());
+        assertNotEquals(unHilo.perdidaEsperada(), otraSemilla.perdidaEsperada());
+        // Orden de las medidas de riesgo
+        assertTrue(unHilo.perdidaEsperada().compareTo(unHilo.var99()) <= 0);
+        assertTrue(unHilo.var95().compareTo(unHilo.var99()) <= 0);
+        assertTrue(unHilo.var99().compareTo(unHilo.perdidaCola99()) <= 0);
+    }
+
+    @Test
+    @DisplayName("Préstamos con cronograma virtual aportan las cuotas calculadas no saldadas")
+    void cronogramaVirtual() {
+        flujos.clear();
+        virtuales.add(new PrestamoVirtual(90L, new BigDecimal("1200.00"), new BigDecimal("0.10"), 6,
+                MetodoAmortizacion.PLANO, LocalDate.now().minusMonths(2).minusDays(1), Set.of(1)));
+
+        CarteraRiesgo cartera = servicio(1, 0.04, 0.45, 0.15, 12).cargarCartera(LocalDate.now());
+
+        // 6 cuotas de 220.00, la primera pagada; la segunda vencida marca el préstamo como atrasado
+        assertAll(
+                () -> assertEquals(1, cartera.prestamos()),
+                () -> assertEquals(5, cartera.flujos()),
+                () -> assertEquals(110_000L, cartera.exposicionCentimos(0)),
+                () -> assertTrue(cartera.atrasado(0)),
+                () -> assertEquals(66_000L, cartera.exposicionDesde(0, 1))
+        );
+    }
+
+    @Test
+    @DisplayName("Caminos fuera de rango")
+    void caminosInvalidos() {
+        RiesgoCarteraServiceImpl servicio = servicio(1, 0.04, 0.45, 0.15, 12);
+
+        BadRequest exception = assertThrows(BadRequest.class, () -> servicio.simularPerdidas(0, null));
+        assertEquals("La cantidad de caminos debe estar entre 1 y 1000000", exception.getMessage());
+    }
+}
@@ -0,0 +1,130 @@
+package org.nttdata.com.servicioprestamos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nttdata.com.servicioprestamos.dto.ResultadoTransicionResponse;
+import org.nttdata.com.servicioprestamos.dto.TransicionLoteRequest;
+import org.nttdata.com.servicioprestamos.exception.BadRequest;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepository;
+import org.nttdata.com.servicioprestamos.repository.PrestamoRepositoryCustom.PrestamoTransicionado;
+import org.nttdata.com.servicioprestamos.service.AnaliticaCarteraService.FotoPrestamo;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransicionPrestamoServiceImplTest {
+    private static final LocalDate HOY = LocalDate.of(2025, 6, 30);
+
+    @Mock
+    private PrestamoRepository prestamoRepository;
+    @Mock
+    private AnaliticaCarteraService analiticaCarteraService;
+    @Mock
+    private MoraCarteraService moraCarteraService;
+    @Mock
+    private ResumenClienteService resumenClienteService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransicionPrestamoServiceImpl transicionPrestamoService;
+
+    @BeforeEach
+    void setUp() {
+        transicionPrestamoService = new TransicionPrestamoServiceImpl(prestamoRepository, analiticaCarteraService,
+                moraCarteraService, resumenClienteService, transactionManager, new SimpleMeterRegistry(), 2, 30);
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> new SimpleTransactionStatus());
+    }
+
+    private static PrestamoTransicionado pendiente(long id) {
+        return new PrestamoTransicionado(id, 1L, new BigDecimal("1000.00"), 12, null);
+    }
+
+    @Test
+    @DisplayName("Transicionar en lote divide los ids y reporta los que no cambiaron")
+    void transicionarPorBloques() {
+        when(prestamoRepository.transicionar(Set.of(1L), 4L, List.of(1L, 2L), null, false, 0L, 2))
+                .thenReturn(List.of(pendiente(1L)));
+        when(prestamoRepository.transicionar(Set.of(1L), 4L, List.of(3L), null, false, 0L, 2))
+                .thenReturn(List.of(pendiente(3L)));
+
+        ResultadoTransicionResponse resultado = transicionPrestamoService.transicionar(TransicionLoteRequest.builder()
+                .prestamoIds(List.of(3L, 1L, 2L, 1L))
+                .estadoPrestamoId(4L)
+                .build());
+
+        assertEquals(2, resultado.actualizados());
+        assertEquals(2, resultado.lotes());
+        assertEquals(List.of(2L), resultado.noActualizados());
+        verify(analiticaCarteraService).registrarTransiciones(
+                List.of(new FotoPrestamo(1L, 1L, new BigDecimal("1000.00"), 12, null)), 4L);
+        // Ninguno venía de APROBADO: la mora no cambia
+        verify(moraCarteraService, times(2)).actualizar(List.of());
+    }
+
+    @Test
+    @DisplayName("Transicionar a un estado fuera de la tabla lanza BadRequest sin tocar la base")
+    void transicionarDestinoNoPermitido() {
+        TransicionLoteRequest solicitud = TransicionLoteRequest.builder()
+                .prestamoIds(List.of(1L))
+                .estadoPrestamoId(2L)
+                .build();
+
+        assertThrows(BadRequest.class, () -> transicionPrestamoService.transicionar(solicitud));
+        verifyNoInteractions(prestamoRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Cancelar pendientes recorre la tabla por id con la fecha límite de solicitud")
+    void cancelarPendientes() {
+        LocalDate limite = HOY.minusDays(30);
+        when(prestamoRepository.transicionar(Set.of(1L), 4L, null, limite, false, 0L, 2))
+                .thenReturn(List.of(pendiente(4L), pendiente(9L)));
+        when(prestamoRepository.transicionar(Set.of(1L), 4L, null, limite, false, 9L, 2))
+                .thenReturn(List.of(pendiente(15L)));
+        when(prestamoRepository.transicionar(Set.of(1L), 4L, null, limite, false, 15L, 2))
+                .thenReturn(List.of());
+
+        ResultadoTransicionResponse resultado = transicionPrestamoService.cancelarPendientes(HOY);
+
+        assertEquals(3, resultado.actualizados());
+        assertEquals(2, resultado.lotes());
+        assertTrue(resultado.noActualizados().isEmpty());
+        verify(analiticaCarteraService, times(2)).registrarTransiciones(any(), eq(4L));
+    }
+
+    @Test
+    @DisplayName("Finalizar pagados exige cuotas pagadas y recalcula la mora de los préstamos aprobados")
+    void finalizarPagados() {
+        PrestamoTransicionado aprobado = new PrestamoTransicionado(7L, 2L, new BigDecimal("5000.00"), 6,
+                Date.valueOf("2024-12-01"));
+        when(prestamoRepository.transicionar(eq(Set.of(2L)), eq(5L), isNull(), isNull(), eq(true), anyLong(), anyInt()))
+                .thenReturn(List.of(aprobado), List.of());
+
+        ResultadoTransicionResponse resultado = transicionPrestamoService.finalizarPagados();
+
+        assertEquals(1, resultado.actualizados());
+        verify(moraCarteraService).actualizar(List.of(7L));
+        verify(prestamoRepository, never()).transicionar(any(), anyLong(), any(), any(), eq(false), anyLong(), anyInt());
+        verify(prestamoRepository, times(2)).transicionar(any(), anyLong(), any(), any(), anyBoolean(), anyLong(), anyInt());
+    }
+}
@@ -4,10 +4,14 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionRequest;
 import org.nttdata.com.serviciotransacciones.service.TransaccionService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("transacciones")
 @RequiredArgsConstructor
@@ -22,6 +26,20 @@ public class TransaccionController {
     public ResponseEntity<?> getTransaccionesByCuentaId(@PathVariable Long cuentaId) {
         return ResponseEntity.ok(transaccionService.getTransaccionesByCuentaId(cuentaId));
     }
+    @GetMapping("/cuenta/{cuentaId}/resumen")
+    public ResponseEntity<?> getResumenByCuentaId(
+            @PathVariable Long cuentaId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(transaccionService.getResumenByCuentaId(cuentaId, desde, hasta));
+    }
+    @PostMapping("/resumen/lote")
+    public ResponseEntity<?> getResumenesByCuentaIds(
+            @RequestBody List<Long> cuentaIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(transaccionService.getResumenesByCuentaIds(cuentaIds, desde, hasta));
+    }
     @GetMapping("/{id}")
     public ResponseEntity<?> getTransaccionById(@PathVariable Long id) {
         return ResponseEntity.ok(transaccionService.getTransaccionById(id));
@@ -30,6 +48,10 @@ public class TransaccionController {
     public ResponseEntity<?> createTransaccion(@Valid @RequestBody TransaccionRequest transaccionRequest) {
         return ResponseEntity.status(HttpStatus.CREATED).body(transaccionService.createTransaccion(transaccionRequest));
     }
+    @PostMapping("/lote")
+    public ResponseEntity<?> createTransacciones(@RequestBody List<@Valid TransaccionRequest> transaccionesRequest) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(transaccionService.createTransacciones(transaccionesRequest));
+    }
     @PutMapping("/{id}")
     public ResponseEntity<?> updateTransaccion(@PathVariable Long id, @Valid @RequestBody TransaccionRequest transaccionRequest) {
         return ResponseEntity.ok(transaccionService.updateTransaccion(id, transaccionRequest));
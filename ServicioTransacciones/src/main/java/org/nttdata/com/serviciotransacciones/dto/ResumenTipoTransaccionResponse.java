@@ -0,0 +1,13 @@
+package org.nttdata.com.serviciotransacciones.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record ResumenTipoTransaccionResponse(
+    Long tipoTransaccionId,
+    String tipoTransaccion,
+    BigDecimal total,
+    Long cantidad
+) {}
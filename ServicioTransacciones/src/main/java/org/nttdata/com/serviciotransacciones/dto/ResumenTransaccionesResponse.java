@@ -0,0 +1,14 @@
+package org.nttdata.com.serviciotransacciones.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Builder
+public record ResumenTransaccionesResponse(
+    Long cuentaId,
+    BigDecimal ingresos,
+    BigDecimal egresos,
+    List<ResumenTipoTransaccionResponse> porTipo
+) {}
@@ -0,0 +1,12 @@
+package org.nttdata.com.serviciotransacciones.dto;
+
+import java.math.BigDecimal;
+
+// Fila de la consulta agrupada por cuenta y tipo usada por el resumen en lote
+public record TotalCuentaTipoTransaccion(
+    Long cuentaId,
+    Long tipoTransaccionId,
+    String tipoTransaccion,
+    BigDecimal total,
+    Long cantidad
+) {}
@@ -13,7 +13,10 @@ import java.util.Date;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "transacciones")
+// Índice para el resumen por cuenta y rango de fechas (cubre tipo y monto para no leer la tabla)
+@Table(name = "transacciones", indexes = {
+        @Index(name = "idx_transacciones_cuenta_fecha", columnList = "cuenta_id, fecha, tipo_transaccion_id, monto")
+})
 @Entity
 public class Transaccion {
     @Id
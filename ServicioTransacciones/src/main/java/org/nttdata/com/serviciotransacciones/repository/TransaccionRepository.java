@@ -1,12 +1,43 @@
 package org.nttdata.com.serviciotransacciones.repository;
 
+import org.nttdata.com.serviciotransacciones.dto.ResumenTipoTransaccionResponse;
+import org.nttdata.com.serviciotransacciones.dto.TotalCuentaTipoTransaccion;
 import org.nttdata.com.serviciotransacciones.model.Transaccion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Repository
 public interface TransaccionRepository extends JpaRepository<Transaccion, Long> {
     List<Transaccion> findByCuentaId(Long cuentaId);
+
+    // desde y hasta son opcionales: sin ellos entran también las transacciones sin fecha
+    @Query("""
+            SELECT new org.nttdata.com.serviciotransacciones.dto.ResumenTipoTransaccionResponse(
+                tt.id, tt.nombre, SUM(t.monto), COUNT(t))
+            FROM Transaccion t JOIN t.tipoTransaccion tt
+            WHERE t.cuentaId = :cuentaId
+              AND (:desde IS NULL OR t.fecha >= :desde) AND (:hasta IS NULL OR t.fecha <= :hasta)
+            GROUP BY tt.id, tt.nombre
+            """)
+    List<ResumenTipoTransaccionResponse> resumirPorTipo(@Param("cuentaId") Long cuentaId,
+                                                        @Param("desde") Date desde,
+                                                        @Param("hasta") Date hasta);
+
+    @Query("""
+            SELECT new org.nttdata.com.serviciotransacciones.dto.TotalCuentaTipoTransaccion(
+                t.cuentaId, tt.id, tt.nombre, SUM(t.monto), COUNT(t))
+            FROM Transaccion t JOIN t.tipoTransaccion tt
+            WHERE t.cuentaId IN :cuentaIds
+              AND (:desde IS NULL OR t.fecha >= :desde) AND (:hasta IS NULL OR t.fecha <= :hasta)
+            GROUP BY t.cuentaId, tt.id, tt.nombre
+            """)
+    List<TotalCuentaTipoTransaccion> resumirPorCuentaYTipo(@Param("cuentaIds") Collection<Long> cuentaIds,
+                                                           @Param("desde") Date desde,
+                                                           @Param("hasta") Date hasta);
 }
@@ -1,16 +1,24 @@
 package org.nttdata.com.serviciotransacciones.service;
 
+import org.nttdata.com.serviciotransacciones.dto.ResumenTransaccionesResponse;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionRequest;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionResponse;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface TransaccionService {
     List<TransaccionResponse> getAllTransacciones();
     TransaccionResponse getTransaccionById(Long id);
     TransaccionResponse createTransaccion(TransaccionRequest transaccionRequest);
+    List<TransaccionResponse> createTransacciones(List<TransaccionRequest> transaccionesRequest);
     TransaccionResponse updateTransaccion(Long id, TransaccionRequest transaccionRequest);
     void deleteTransaccion(Long id);
 
     List<TransaccionResponse> getTransaccionesByCuentaId(Long cuentaId);
+
+    ResumenTransaccionesResponse getResumenByCuentaId(Long cuentaId, LocalDate desde, LocalDate hasta);
+
+    // Un resumen por cuenta, en el orden recibido, con una sola consulta agrupada
+    List<ResumenTransaccionesResponse> getResumenesByCuentaIds(List<Long> cuentaIds, LocalDate desde, LocalDate hasta);
 }
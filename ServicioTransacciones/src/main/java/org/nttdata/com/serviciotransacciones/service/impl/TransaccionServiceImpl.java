@@ -4,8 +4,12 @@ import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import org.nttdata.com.serviciotransacciones.client.CuentaClient;
 import org.nttdata.com.serviciotransacciones.client.dto.CuentaResponse;
+import org.nttdata.com.serviciotransacciones.dto.ResumenTipoTransaccionResponse;
+import org.nttdata.com.serviciotransacciones.dto.ResumenTransaccionesResponse;
+import org.nttdata.com.serviciotransacciones.dto.TotalCuentaTipoTransaccion;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionRequest;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionResponse;
+import org.nttdata.com.serviciotransacciones.exception.BadRequest;
 import org.nttdata.com.serviciotransacciones.exception.ResourceNotFound;
 import org.nttdata.com.serviciotransacciones.model.Transaccion;
 import org.nttdata.com.serviciotransacciones.repository.TransaccionRepository;
@@ -14,7 +18,16 @@ import org.nttdata.com.serviciotransacciones.util.TransaccionMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +38,11 @@ public class TransaccionServiceImpl implements TransaccionService {
 
     private static final String CUENTA_SERVICE_CB = "cuentaService";
 
+    // Clasificación de tipos usada en la evaluación de crédito
+    private static final Set<String> TIPOS_INGRESO = Set.of("DEPÓSITO");
+    private static final Set<String> TIPOS_EGRESO = Set.of("RETIRO", "PAGO DE SERVICIO", "TRANSFERENCIA");
+    private static final int MAXIMO_CUENTAS_RESUMEN = 1000;
+
     @Override
     public List<TransaccionResponse> getAllTransacciones() {
         return transaccionMapper.toDtoList(transaccionRepository.findAll());
@@ -47,6 +65,20 @@ public class TransaccionServiceImpl implements TransaccionService {
         ));
     }
 
+    @Override
+    @Transactional
+    public List<TransaccionResponse> createTransacciones(List<TransaccionRequest> transaccionesRequest) {
+        // Un lote suele traer varias transacciones de la misma cuenta: se verifica cada cuenta una sola vez
+        transaccionesRequest.stream()
+                .map(TransaccionRequest::cuentaId)
+                .distinct()
+                .forEach(cuentaClient::getCuentaById);
+
+        return transaccionMapper.toDtoList(transaccionRepository.saveAll(
+                transaccionMapper.toEntityList(transaccionesRequest)
+        ));
+    }
+
     @Override
     public TransaccionResponse updateTransaccion(Long id, TransaccionRequest transaccionRequest) {
         Transaccion transaccionFound = transaccionRepository.findById(id).orElseThrow(
@@ -92,4 +124,59 @@ public class TransaccionServiceImpl implements TransaccionService {
     public List<TransaccionResponse> getTransaccionesByCuentaIdFallBack(Long cuentaId, Throwable ex) {
         throw new ResourceNotFound("El servicio de cuentas no está disponible. Intente más tarde.");
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResumenTransaccionesResponse getResumenByCuentaId(Long cuentaId, LocalDate desde, LocalDate hasta) {
+        List<ResumenTipoTransaccionResponse> porTipo = transaccionRepository.resumirPorTipo(
+                cuentaId, toDate(desde), toDate(hasta));
+        return resumir(cuentaId, porTipo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResumenTransaccionesResponse> getResumenesByCuentaIds(List<Long> cuentaIds, LocalDate desde, LocalDate hasta) {
+        if (cuentaIds == null || cuentaIds.isEmpty()) {
+            return List.of();
+        }
+        if (cuentaIds.size() > MAXIMO_CUENTAS_RESUMEN) {
+            throw new BadRequest("No se pueden resumir más de " + MAXIMO_CUENTAS_RESUMEN + " cuentas por solicitud");
+        }
+        Map<Long, List<ResumenTipoTransaccionResponse>> porCuenta = new HashMap<>();
+        for (TotalCuentaTipoTransaccion total : transaccionRepository.resumirPorCuentaYTipo(
+                new LinkedHashSet<>(cuentaIds), toDate(desde), toDate(hasta))) {
+            porCuenta.computeIfAbsent(total.cuentaId(), id -> new ArrayList<>())
+                    .add(new ResumenTipoTransaccionResponse(total.tipoTransaccionId(), total.tipoTransaccion(),
+                            total.total(), total.cantidad()));
+        }
+        List<ResumenTransaccionesResponse> resumenes = new ArrayList<>(cuentaIds.size());
+        for (Long cuentaId : cuentaIds) {
+            resumenes.add(resumir(cuentaId, porCuenta.getOrDefault(cuentaId, List.of())));
+        }
+        return resumenes;
+    }
+
+    private static ResumenTransaccionesResponse resumir(Long cuentaId, List<ResumenTipoTransaccionResponse> porTipo) {
+        BigDecimal ingresos = BigDecimal.ZERO;
+        BigDecimal egresos = BigDecimal.ZERO;
+        for (ResumenTipoTransaccionResponse tipo : porTipo) {
+            String nombre = tipo.tipoTransaccion().toUpperCase();
+            if (TIPOS_INGRESO.contains(nombre)) {
+                ingresos = ingresos.add(tipo.total());
+            } else if (TIPOS_EGRESO.contains(nombre)) {
+                egresos = egresos.add(tipo.total());
+            }
+        }
+        return ResumenTransaccionesResponse.builder()
+                .cuentaId(cuentaId)
+                .ingresos(ingresos)
+                .egresos(egresos)
+                .porTipo(porTipo)
+                .build();
+    }
+
+    // null sin límite: la consulta no filtra por ese extremo
+    private static Date toDate(LocalDate fecha) {
+        return fecha == null ? null : Date.from(fecha.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
 }
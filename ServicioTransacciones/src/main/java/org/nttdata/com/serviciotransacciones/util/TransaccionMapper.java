@@ -12,6 +12,7 @@ import java.util.List;
 public interface TransaccionMapper {
     @Mapping(source = "tipoTransaccionId", target = "tipoTransaccion.id")
     Transaccion toEntity(TransaccionRequest transaccionRequest);
+    List<Transaccion> toEntityList(List<TransaccionRequest> transaccionesRequest);
     TransaccionResponse toDto(Transaccion transaccion);
     List<TransaccionResponse> toDtoList(List<Transaccion> transacciones);
 }
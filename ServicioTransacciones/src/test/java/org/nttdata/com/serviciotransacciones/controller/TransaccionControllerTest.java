@@ -2,6 +2,7 @@ package org.nttdata.com.serviciotransacciones.controller;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.nttdata.com.serviciotransacciones.dto.ResumenTransaccionesResponse;
 import org.nttdata.com.serviciotransacciones.dto.TipoTransaccionResponse;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionRequest;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionResponse;
@@ -74,6 +75,21 @@ class TransaccionControllerTest {
         verify(transaccionService, times(1)).createTransaccion(request);
     }
 
+    @Test
+    void createTransacciones_WhenRequestsAreValid_ShouldReturnCreatedTransacciones() {
+        List<TransaccionRequest> requests = List.of(
+                new TransaccionRequest(1L, 3L, BigDecimal.TEN, new Date(), "Pago cuota id:1"),
+                new TransaccionRequest(1L, 3L, BigDecimal.ONE, new Date(), "Pago cuota id:2"));
+        List<TransaccionResponse> created = List.of(
+                new TransaccionResponse(1L, 1L, null, BigDecimal.TEN, new Date(), "Pago cuota id:1"),
+                new TransaccionResponse(2L, 1L, null, BigDecimal.ONE, new Date(), "Pago cuota id:2"));
+        when(transaccionService.createTransacciones(requests)).thenReturn(created);
+        ResponseEntity<?> response = transaccionController.createTransacciones(requests);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(created, response.getBody());
+        verify(transaccionService, times(1)).createTransacciones(requests);
+    }
+
     @Test
     void updateTransaccion_WhenIdAndRequestAreValid_ShouldReturnUpdatedTransaccion() {
         Long id = 1L;
@@ -95,4 +111,25 @@ class TransaccionControllerTest {
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(transaccionService, times(1)).deleteTransaccion(id);
     }
+
+    @Test
+    void getResumenByCuentaId_ShouldReturnResumen() {
+        ResumenTransaccionesResponse resumen = new ResumenTransaccionesResponse(1L, BigDecimal.TEN, BigDecimal.ONE, List.of());
+        when(transaccionService.getResumenByCuentaId(1L, null, null)).thenReturn(resumen);
+        ResponseEntity<?> response = transaccionController.getResumenByCuentaId(1L, null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(resumen, response.getBody());
+        verify(transaccionService, times(1)).getResumenByCuentaId(1L, null, null);
+    }
+
+    @Test
+    void getResumenesByCuentaIds_ShouldReturnResumenes() {
+        List<ResumenTransaccionesResponse> resumenes = List.of(
+                new ResumenTransaccionesResponse(1L, BigDecimal.TEN, BigDecimal.ONE, List.of()),
+                new ResumenTransaccionesResponse(2L, BigDecimal.ZERO, BigDecimal.ZERO, List.of()));
+        when(transaccionService.getResumenesByCuentaIds(List.of(1L, 2L), null, null)).thenReturn(resumenes);
+        ResponseEntity<?> response = transaccionController.getResumenesByCuentaIds(List.of(1L, 2L), null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(resumenes, response.getBody());
+    }
 }
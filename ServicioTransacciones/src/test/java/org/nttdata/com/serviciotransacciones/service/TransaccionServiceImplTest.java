@@ -7,9 +7,13 @@ import org.nttdata.com.serviciotransacciones.client.CuentaClient;
 import org.nttdata.com.serviciotransacciones.client.dto.CuentaResponse;
 import org.nttdata.com.serviciotransacciones.client.dto.EstadoCuentaResponse;
 import org.nttdata.com.serviciotransacciones.client.dto.TipoCuentaResponse;
+import org.nttdata.com.serviciotransacciones.dto.ResumenTipoTransaccionResponse;
+import org.nttdata.com.serviciotransacciones.dto.ResumenTransaccionesResponse;
 import org.nttdata.com.serviciotransacciones.dto.TipoTransaccionResponse;
+import org.nttdata.com.serviciotransacciones.dto.TotalCuentaTipoTransaccion;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionRequest;
 import org.nttdata.com.serviciotransacciones.dto.TransaccionResponse;
+import org.nttdata.com.serviciotransacciones.exception.BadRequest;
 import org.nttdata.com.serviciotransacciones.exception.ResourceNotFound;
 import org.nttdata.com.serviciotransacciones.model.Transaccion;
 import org.nttdata.com.serviciotransacciones.repository.TransaccionRepository;
@@ -17,12 +21,18 @@ import org.nttdata.com.serviciotransacciones.service.impl.TransaccionServiceImpl
 import org.nttdata.com.serviciotransacciones.util.TransaccionMapper;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class TransaccionServiceImplTest {
@@ -105,6 +115,47 @@ class TransaccionServiceImplTest {
         verify(transaccionMapper, times(1)).toDto(transaccion);
     }
 
+    @Test
+    @DisplayName("Crear transacciones en lote debería verificar cada cuenta una sola vez")
+    void createTransacciones_deberiaVerificarCadaCuentaUnaVez() {
+        List<TransaccionRequest> requests = List.of(
+                new TransaccionRequest(1L, 3L, BigDecimal.TEN, new Date(), "Pago cuota id:1"),
+                new TransaccionRequest(1L, 3L, BigDecimal.ONE, new Date(), "Pago cuota id:2"),
+                new TransaccionRequest(2L, 3L, BigDecimal.TEN, new Date(), "Pago cuota id:3")
+        );
+        List<Transaccion> entidades = List.of(new Transaccion(), new Transaccion(), new Transaccion());
+        List<TransaccionResponse> responses = List.of(
+                new TransaccionResponse(1L, 1L, null, BigDecimal.TEN, new Date(), "Pago cuota id:1"),
+                new TransaccionResponse(2L, 1L, null, BigDecimal.ONE, new Date(), "Pago cuota id:2"),
+                new TransaccionResponse(3L, 2L, null, BigDecimal.TEN, new Date(), "Pago cuota id:3")
+        );
+
+        when(transaccionMapper.toEntityList(requests)).thenReturn(entidades);
+        when(transaccionRepository.saveAll(entidades)).thenReturn(entidades);
+        when(transaccionMapper.toDtoList(entidades)).thenReturn(responses);
+
+        List<TransaccionResponse> result = transaccionService.createTransacciones(requests);
+
+        assertEquals(3, result.size());
+        verify(cuentaClient, times(1)).getCuentaById(1L);
+        verify(cuentaClient, times(1)).getCuentaById(2L);
+        verify(transaccionRepository, times(1)).saveAll(entidades);
+        verify(transaccionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Crear transacciones en lote no debería guardar nada si una cuenta no existe")
+    void createTransacciones_deberiaFallarSiUnaCuentaNoExiste() {
+        List<TransaccionRequest> requests = List.of(
+                new TransaccionRequest(1L, 3L, BigDecimal.TEN, new Date(), "Pago cuota id:1"),
+                new TransaccionRequest(9L, 3L, BigDecimal.TEN, new Date(), "Pago cuota id:2")
+        );
+        when(cuentaClient.getCuentaById(9L)).thenThrow(new ResourceNotFound("Cuenta no encontrada con ID: 9"));
+
+        assertThrows(ResourceNotFound.class, () -> transaccionService.createTransacciones(requests));
+        verify(transaccionRepository, never()).saveAll(any());
+    }
+
     @Test
     void getTransaccionesByCuentaId_WhenCuentaExists_ShouldReturnTransacciones() {
         Long cuentaId = 1L;
@@ -216,4 +267,82 @@ class TransaccionServiceImplTest {
         assertEquals("Cuenta no encontrada", ex.getMessage());
         verify(transaccionRepository, never()).save(any());
     }
+
+    @Test
+    void getResumenByCuentaId_ShouldClassifyTotalsByTipo() {
+        Long cuentaId = 1L;
+        when(transaccionRepository.resumirPorTipo(eq(cuentaId), isNull(), isNull())).thenReturn(List.of(
+                new ResumenTipoTransaccionResponse(1L, "DEPÓSITO", new BigDecimal("1800.00"), 3L),
+                new ResumenTipoTransaccionResponse(2L, "RETIRO", new BigDecimal("300.00"), 2L),
+                new ResumenTipoTransaccionResponse(4L, "PAGO DE SERVICIO", new BigDecimal("140.00"), 2L)
+        ));
+
+        ResumenTransaccionesResponse result = transaccionService.getResumenByCuentaId(cuentaId, null, null);
+
+        assertEquals(cuentaId, result.cuentaId());
+        assertEquals(new BigDecimal("1800.00"), result.ingresos());
+        assertEquals(new BigDecimal("440.00"), result.egresos());
+        assertEquals(3, result.porTipo().size());
+        verifyNoInteractions(cuentaClient);
+    }
+
+    @Test
+    void getResumenByCuentaId_WhenNoTransacciones_ShouldReturnZeroTotals() {
+        when(transaccionRepository.resumirPorTipo(eq(2L), any(Date.class), any(Date.class))).thenReturn(List.of());
+
+        ResumenTransaccionesResponse result = transaccionService.getResumenByCuentaId(2L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+
+        assertEquals(BigDecimal.ZERO, result.ingresos());
+        assertEquals(BigDecimal.ZERO, result.egresos());
+        assertTrue(result.porTipo().isEmpty());
+    }
+
+    @Test
+    void getResumenByCuentaId_WithoutRange_ShouldNotBoundFechaSoNullFechaIsIncluded() {
+        // Sin rango no hay fechas centinela: la consulta recibe null y no descarta transacciones con fecha NULL
+        when(transaccionRepository.resumirPorTipo(eq(3L), isNull(), isNull())).thenReturn(List.of(
+                new ResumenTipoTransaccionResponse(1L, "DEPÓSITO", new BigDecimal("500.00"), 1L)
+        ));
+
+        ResumenTransaccionesResponse result = transaccionService.getResumenByCuentaId(3L, null, null);
+
+        assertEquals(new BigDecimal("500.00"), result.ingresos());
+        verify(transaccionRepository).resumirPorTipo(eq(3L), isNull(), isNull());
+    }
+
+    @Test
+    void getResumenByCuentaId_WithOnlyDesde_ShouldLeaveHastaOpen() {
+        when(transaccionRepository.resumirPorTipo(eq(4L), any(Date.class), isNull())).thenReturn(List.of());
+
+        transaccionService.getResumenByCuentaId(4L, LocalDate.of(2025, 1, 1), null);
+
+        verify(transaccionRepository).resumirPorTipo(eq(4L), any(Date.class), isNull());
+    }
+
+    @Test
+    void getResumenesByCuentaIds_ShouldReturnOneResumenPerCuentaInOrder() {
+        when(transaccionRepository.resumirPorCuentaYTipo(anyCollection(), isNull(), isNull())).thenReturn(List.of(
+                new TotalCuentaTipoTransaccion(3L, 1L, "DEPÓSITO", new BigDecimal("900.00"), 2L),
+                new TotalCuentaTipoTransaccion(1L, 1L, "DEPÓSITO", new BigDecimal("1800.00"), 3L),
+                new TotalCuentaTipoTransaccion(1L, 2L, "RETIRO", new BigDecimal("300.00"), 2L)
+        ));
+
+        List<ResumenTransaccionesResponse> result = transaccionService.getResumenesByCuentaIds(List.of(1L, 2L, 3L), null, null);
+
+        assertEquals(List.of(1L, 2L, 3L), result.stream().map(ResumenTransaccionesResponse::cuentaId).toList());
+        assertEquals(new BigDecimal("1800.00"), result.get(0).ingresos());
+        assertEquals(new BigDecimal("300.00"), result.get(0).egresos());
+        assertEquals(BigDecimal.ZERO, result.get(1).ingresos());
+        assertTrue(result.get(1).porTipo().isEmpty());
+        assertEquals(new BigDecimal("900.00"), result.get(2).ingresos());
+        verify(transaccionRepository, times(1)).resumirPorCuentaYTipo(anyCollection(), isNull(), isNull());
+    }
+
+    @Test
+    void getResumenesByCuentaIds_WhenTooManyCuentas_ShouldThrowBadRequest() {
+        List<Long> cuentaIds = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        assertThrows(BadRequest.class, () -> transaccionService.getResumenesByCuentaIds(cuentaIds, null, null));
+        verifyNoInteractions(transaccionRepository);
+    }
 }